@@ -0,0 +1,216 @@
+package org.geogebra.common.jre.cas;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.geogebra.common.GeoGebraConstants;
+import org.geogebra.common.cas.CASCacheStore;
+import org.geogebra.common.util.debug.Log;
+
+/**
+ * Stores CAS results in a directory, one file per result, so that they can be
+ * shared between sessions and processes. Results are kept in a subdirectory
+ * per GeoGebra and Giac version, because the translation to Giac changes with
+ * the former and the results with the latter. When the results take more
+ * than the given size, the least recently used ones are deleted.
+ */
+public class CASCacheStoreJre implements CASCacheStore {
+
+	/** default limit for total size of stored results */
+	public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+	private final File dir;
+	private final long maxBytes;
+	private long bytes;
+
+	/**
+	 * @param baseDir
+	 *            directory for the cache
+	 * @param casVersion
+	 *            version of the CAS, e.g. the result of Giac's version()
+	 * @param maxBytes
+	 *            maximal total size of stored results
+	 */
+	public CASCacheStoreJre(File baseDir, String casVersion, long maxBytes) {
+		this.dir = new File(baseDir, GeoGebraConstants.VERSION_STRING + "_"
+				+ toFileName(casVersion));
+		this.maxBytes = maxBytes;
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			Log.warn("CAS cache directory not available: " + dir);
+		}
+		bytes = 0;
+		for (File file : listFiles()) {
+			bytes += file.length();
+		}
+	}
+
+	public String load(String key) {
+		File file = getFile(key);
+		if (file == null || !file.isFile()) {
+			return null;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new FileInputStream(file));
+			try {
+				// different key with same hash
+				if (!key.equals(readString(in))) {
+					return null;
+				}
+				String result = readString(in);
+				// for least recently used eviction
+				file.setLastModified(System.currentTimeMillis());
+				return result;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			Log.debug("CAS cache: " + e.getMessage());
+			return null;
+		}
+	}
+
+	public void store(String key, String result) {
+		File file = getFile(key);
+		if (file == null || file.isFile()) {
+			return;
+		}
+		try {
+			File parent = file.getParentFile();
+			if (!parent.isDirectory() && !parent.mkdirs()) {
+				return;
+			}
+			// write to temp file first so that other processes never see a
+			// partial result
+			File temp = File.createTempFile("cas", ".tmp", parent);
+			DataOutputStream out = new DataOutputStream(new FileOutputStream(
+					temp));
+			try {
+				writeString(out, key);
+				writeString(out, result);
+			} finally {
+				out.close();
+			}
+			if (!temp.renameTo(file)) {
+				temp.delete();
+				return;
+			}
+			synchronized (this) {
+				bytes += file.length();
+				if (bytes > maxBytes) {
+					evict();
+				}
+			}
+		} catch (IOException e) {
+			Log.debug("CAS cache: " + e.getMessage());
+		}
+	}
+
+	public synchronized void clear() {
+		for (File file : listFiles()) {
+			long length = file.length();
+			if (file.delete()) {
+				bytes -= length;
+			}
+		}
+	}
+
+	/**
+	 * Deletes least recently used results until a quarter of the space is
+	 * free again
+	 */
+	private void evict() {
+		File[] files = listFiles().toArray(new File[0]);
+		final long[] modified = new long[files.length];
+		Integer[] order = new Integer[files.length];
+		for (int i = 0; i < files.length; i++) {
+			modified[i] = files[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return modified[a] < modified[b] ? -1
+						: (modified[a] == modified[b] ? 0 : 1);
+			}
+		});
+		bytes = 0;
+		for (File file : files) {
+			bytes += file.length();
+		}
+		for (int i = 0; i < order.length && bytes > maxBytes * 3 / 4; i++) {
+			File file = files[order[i]];
+			long length = file.length();
+			if (file.delete()) {
+				bytes -= length;
+			}
+		}
+	}
+
+	private ArrayList<File> listFiles() {
+		ArrayList<File> ret = new ArrayList<File>();
+		File[] subDirs = dir.listFiles();
+		if (subDirs == null) {
+			return ret;
+		}
+		for (File subDir : subDirs) {
+			File[] files = subDir.listFiles();
+			if (files != null) {
+				ret.addAll(Arrays.asList(files));
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return file for key: SHA-1 of the key, first two hex digits as
+	 *         subdirectory
+	 */
+	private File getFile(String key) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+			byte[] hash = md.digest(key.getBytes("UTF8"));
+			StringBuilder sb = new StringBuilder(hash.length * 2);
+			for (int i = 0; i < hash.length; i++) {
+				sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+				sb.append(Character.forDigit(hash[i] & 0xF, 16));
+			}
+			return new File(new File(dir, sb.substring(0, 2)), sb.toString());
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return version up to the first comma (Giac appends the copyright),
+	 *         with characters other than letters, digits, dots and dashes
+	 *         replaced
+	 */
+	private static String toFileName(String version) {
+		int end = version.indexOf(',');
+		String name = end < 0 ? version : version.substring(0, end);
+		return name.trim().replaceAll("[^A-Za-z0-9.-]", "_");
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] data = new byte[in.readInt()];
+		in.readFully(data);
+		return new String(data, "UTF8");
+	}
+
+	private static void writeString(DataOutputStream out, String str)
+			throws IOException {
+		byte[] data = str.getBytes("UTF8");
+		out.writeInt(data.length);
+		out.write(data);
+	}
+}
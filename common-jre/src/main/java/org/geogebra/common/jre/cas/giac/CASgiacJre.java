@@ -1,7 +1,10 @@
 package org.geogebra.common.jre.cas.giac;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
-import java.util.List;
+import java.util.Map.Entry;
 
 import org.geogebra.common.cas.CASparser;
 import org.geogebra.common.cas.CasParserTools;
@@ -11,10 +14,11 @@ import org.geogebra.common.kernel.AsynchronousCommand;
 import org.geogebra.common.kernel.Kernel;
 import org.geogebra.common.kernel.StringTemplate;
 import org.geogebra.common.kernel.algos.ConstructionElement;
+import org.geogebra.common.kernel.arithmetic.Command;
 import org.geogebra.common.kernel.arithmetic.MyArbitraryConstant;
 import org.geogebra.common.kernel.arithmetic.ValidExpression;
-import org.geogebra.common.kernel.geos.GeoCasCell;
 import org.geogebra.common.main.App;
+import org.geogebra.common.main.Feature;
 import org.geogebra.common.util.StringUtil;
 import org.geogebra.common.util.debug.Log;
 
@@ -158,6 +162,15 @@ public abstract class CASgiacJre extends CASgiac {
 
 	@Override
 	protected String evaluate(String exp, long timeoutMillis0) throws Throwable {
+		// Giac's context is shared by the asynchronous worker and synchronous
+		// calls
+		synchronized (giacLock) {
+			return evaluateLocked(exp, timeoutMillis0);
+		}
+	}
+
+	private String evaluateLocked(String exp, long timeoutMillis0)
+			throws Throwable {
 
 		String ret;
 		// Log.debug("giac input: " + exp);
@@ -209,61 +222,227 @@ public abstract class CASgiacJre extends CASgiac {
 	abstract protected void stopThread(Thread thread);
 
 	/**
-	 * Queue of asynchronous commands that are waiting for update
+	 * Request of an asynchronous command. The input is translated to Giac when
+	 * the request is made, so the result belongs to the input values at that
+	 * time.
 	 */
-	List<AsynchronousCommand> queue = new LinkedList<AsynchronousCommand>();
+	private static final class AsyncRequest {
+		final AsynchronousCommand command;
+		final String input;
+		final ValidExpression inVE;
+		final String giacInput;
+		String giacResult;
+		Throwable exception;
+
+		AsyncRequest(AsynchronousCommand command, String input,
+				ValidExpression inVE, String giacInput) {
+			this.command = command;
+			this.input = input;
+			this.inVE = inVE;
+			this.giacInput = giacInput;
+		}
+	}
 
-	private Thread casThread;
+	/** guards Giac's context: only one evaluation at a time */
+	private final Object giacLock = new Object();
+	/**
+	 * latest request of each command; older requests of the same command are
+	 * cancelled. Also used as lock for the other asynchronous fields.
+	 */
+	private final HashMap<AsynchronousCommand, AsyncRequest> latestRequests = new HashMap<AsynchronousCommand, AsyncRequest>();
+	/** requests of the current update pass */
+	private ArrayList<AsyncRequest> collecting = new ArrayList<AsyncRequest>();
+	/** batches waiting for the worker */
+	private final LinkedList<ArrayList<AsyncRequest>> batches = new LinkedList<ArrayList<AsyncRequest>>();
+	private Thread asyncWorker;
+
+	@Override
+	public boolean isAsynchronous() {
+		return app.has(Feature.ASYNCHRONOUS_CAS);
+	}
+
+	/**
+	 * Posts the runnable to the thread that owns the construction (e.g. the
+	 * event dispatch thread), to be run after the current event.
+	 * 
+	 * @param r
+	 *            runnable
+	 */
+	abstract protected void runInMainThread(Runnable r);
 
-	@SuppressWarnings("unused")
 	public void evaluateGeoGebraCASAsync(final AsynchronousCommand cmd) {
-		Log.debug("about to start thread");
-		if (!queue.contains(cmd)) {
-			queue.add(cmd);
+		String input = cmd.getCasInput();
+		if (!isAsynchronous()) {
+			evaluateNow(cmd, input);
+			return;
 		}
-		final GeoCasCell cell = null;
-		if (casThread == null || !casThread.isAlive()) {
-			casThread = new Thread() {
-				@Override
+		ValidExpression inVE;
+		String giacInput;
+		try {
+			inVE = casParser.parseGeoGebraCASInput(input, null);
+			Command top = inVE.getTopLevelCommand();
+			if (top != null && "KeepInput".equals(top.getName())) {
+				evaluateNow(cmd, input);
+				return;
+			}
+			giacInput = casParser.replaceIndices(
+					casParser.translateToCAS(inVE,
+							StringTemplate.giacTemplate, this), false);
+			if (casParser.getNrOfVars() > 0) {
+				// result needs to be filtered by getPlainResult()
+				casParser.setNrOfVars(0);
+				evaluateNow(cmd, input);
+				return;
+			}
+		} catch (Throwable e) {
+			CASAsyncFinished(null, null, e, cmd, input, null);
+			return;
+		}
+		synchronized (latestRequests) {
+			AsyncRequest request = new AsyncRequest(cmd, input, inVE,
+					giacInput);
+			latestRequests.put(cmd, request);
+			collecting.add(request);
+			if (collecting.size() == 1) {
+				// all requests of this update pass go into one batch
+				runInMainThread(new Runnable() {
+					public void run() {
+						startBatch();
+					}
+				});
+			}
+		}
+	}
+
+	private void startBatch() {
+		synchronized (latestRequests) {
+			if (collecting.isEmpty()) {
+				return;
+			}
+			batches.add(collecting);
+			collecting = new ArrayList<AsyncRequest>();
+			if (asyncWorker == null) {
+				asyncWorker = new Thread("ggbCAS") {
+					@Override
+					public void run() {
+						runAsyncWorker();
+					}
+				};
+				asyncWorker.setDaemon(true);
+				asyncWorker.start();
+			}
+			latestRequests.notifyAll();
+		}
+	}
+
+	private boolean isCurrent(AsyncRequest request) {
+		synchronized (latestRequests) {
+			return latestRequests.get(request.command) == request;
+		}
+	}
+
+	/**
+	 * Evaluates batches of requests in Giac and posts the results back to the
+	 * main thread, one batch at a time
+	 */
+	void runAsyncWorker() {
+		while (true) {
+			final ArrayList<AsyncRequest> batch;
+			synchronized (latestRequests) {
+				while (batches.isEmpty()) {
+					try {
+						latestRequests.wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				batch = batches.removeFirst();
+			}
+			for (AsyncRequest request : batch) {
+				// skip requests cancelled while waiting
+				if (!isCurrent(request)) {
+					continue;
+				}
+				try {
+					request.giacResult = evaluate(request.giacInput,
+							timeoutMillis);
+				} catch (Throwable e) {
+					request.exception = e;
+				}
+			}
+			runInMainThread(new Runnable() {
 				public void run() {
-					Log.debug("thread is starting");
-					while (queue.size() > 0) {
-						AsynchronousCommand command = queue.get(0);
-						String input = command.getCasInput();
-						String result;
-						ValidExpression inVE = null;
-						// remove before evaluating to ensure we don't ignore
-						// new requests meanwhile
-						if (queue.size() > 0)
-							queue.remove(0);
-						try {
-							inVE = casParser.parseGeoGebraCASInput(input, null);
-							// TODO: arbconst()
-							result = evaluateGeoGebraCAS(inVE,
-									new MyArbitraryConstant(
-											(ConstructionElement) command),
-									StringTemplate.defaultTemplate, cell,
-									// take kernel from cmd, in case macro
-									// kernel matters (?)
-									cmd.getKernel());
-							CASAsyncFinished(inVE, result, null, command,
-									input, cell);
-						} catch (Throwable exception) {
-							Log.debug("exception handling ...");
-							exception.printStackTrace();
-							result = "";
-							CASAsyncFinished(inVE, result, exception, command,
-									input, cell);
-						}
+					finishBatch(batch);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Passes results of the batch to their commands and updates everything
+	 * that depends on them in one cascade per kernel (commands of macros
+	 * have their own kernel)
+	 */
+	void finishBatch(ArrayList<AsyncRequest> batch) {
+		LinkedHashMap<Kernel, ArrayList<AsynchronousCommand>> finished = new LinkedHashMap<Kernel, ArrayList<AsynchronousCommand>>();
+		for (AsyncRequest request : batch) {
+			// skip results for inputs that changed meanwhile
+			synchronized (latestRequests) {
+				if (latestRequests.get(request.command) != request) {
+					continue;
+				}
+				latestRequests.remove(request.command);
+			}
+			AsynchronousCommand cmd = request.command;
+			if (request.exception != null) {
+				CASAsyncFinished(request.inVE, null, request.exception, cmd,
+						request.input, null);
+			} else {
+				String result = null;
+				try {
+					if (request.giacResult != null
+							&& request.giacResult.length() > 0) {
+						// same as Kernel.evaluateGeoGebraCAS
+						result = toGeoGebraString(request.giacResult,
+								cmd.getArbitraryConstant(),
+								StringTemplate.numericNoLocal,
+								cmd.getKernel());
 					}
-					Log.debug("thread is quitting");
+					CASAsyncFinished(request.inVE, result, null, cmd,
+							request.input, null);
+				} catch (Throwable e) {
+					CASAsyncFinished(request.inVE, null, e, cmd,
+							request.input, null);
 				}
-			};
+			}
+			ArrayList<AsynchronousCommand> commands = finished.get(cmd
+					.getKernel());
+			if (commands == null) {
+				commands = new ArrayList<AsynchronousCommand>();
+				finished.put(cmd.getKernel(), commands);
+			}
+			commands.add(cmd);
 		}
-		if (AsynchronousCommand.USE_ASYNCHRONOUS && !casThread.isAlive()) {
-			casThread.start();
-		} else {
-			casThread.run();
+		for (Entry<Kernel, ArrayList<AsynchronousCommand>> entry : finished
+				.entrySet()) {
+			entry.getKey().updateAfterAsynchronousCAS(entry.getValue());
+		}
+	}
+
+	private void evaluateNow(AsynchronousCommand cmd, String input) {
+		ValidExpression inVE = null;
+		try {
+			inVE = casParser.parseGeoGebraCASInput(input, null);
+			String result = evaluateGeoGebraCAS(inVE,
+					cmd.getArbitraryConstant(), StringTemplate.numericNoLocal,
+					null,
+					// take kernel from cmd, in case macro kernel matters (?)
+					cmd.getKernel());
+			CASAsyncFinished(inVE, result, null, cmd, input, null);
+		} catch (Throwable exception) {
+			Log.debug("exception handling ...");
+			exception.printStackTrace();
+			CASAsyncFinished(inVE, "", exception, cmd, input, null);
 		}
 	}
 
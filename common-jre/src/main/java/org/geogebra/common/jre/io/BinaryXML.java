@@ -0,0 +1,570 @@
+/*
+GeoGebra - Dynamic Mathematics for Everyone
+http://www.geogebra.org
+
+This file is part of GeoGebra.
+
+This program is free software; you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published by
+the Free Software Foundation.
+
+ */
+
+package org.geogebra.common.jre.io;
+
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+import org.geogebra.common.io.DocHandler;
+import org.geogebra.common.io.QDParser;
+import org.geogebra.common.util.StringUtil;
+
+/**
+ * Compact binary encoding of construction XML. It stores the parser events
+ * rather than the text, so loading needs no character level parsing:
+ * <ul>
+ * <li>element and attribute names and short repeated values are written once
+ * into a string table and referenced by index later</li>
+ * <li>integer and double attribute values are stored as numbers</li>
+ * <li>long values with many numbers (e.g. lists of points) are stored as a
+ * template plus an array of ints and doubles</li>
+ * </ul>
+ * Numbers are only stored as such if converting them back gives exactly the
+ * original string, so the handler receives the same events as from the XML.
+ * The header contains a checksum of the XML the data was created from, see
+ * {@link #isEncodingOf(byte[], byte[])}.
+ * 
+ * This is a load-only cache: a ggb file may contain the encoding of its
+ * geogebra.xml as geogebra.bin (created with {@link #encode(String)}, e.g. by
+ * tools preparing large files), which is then loaded instead of the XML.
+ * GeoGebra itself saves XML only, since encoding means parsing the XML of
+ * the whole construction again. Only the markup is binary: expressions and
+ * command arguments stay strings and are parsed as usual by the handler.
+ * Undo is not covered, undo points are stored as XML text.
+ */
+public final class BinaryXML {
+
+	private static final int MAGIC = 0x47474258; // "GGBX"
+	private static final int VERSION = 1;
+	private static final int HEADER_LENGTH = 16;
+
+	private static final int OP_END_DOCUMENT = 0;
+	private static final int OP_START = 1;
+	private static final int OP_END = 2;
+	private static final int OP_EMPTY = 3;
+	private static final int OP_TEXT = 4;
+
+	private static final int VALUE_STRING = 0;
+	private static final int VALUE_SHARED = 1;
+	private static final int VALUE_INT = 2;
+	private static final int VALUE_DOUBLE = 3;
+	private static final int VALUE_NUMBERS = 4;
+
+	/** longer values are not put into the string table */
+	private static final int MAX_SHARED_LENGTH = 24;
+	/** shorter values are not searched for numbers */
+	private static final int MIN_NUMBERS_LENGTH = 64;
+	/** shorter doubles are cheaper as text */
+	private static final int MIN_DOUBLE_LENGTH = 9;
+	private static final char INT_MARK = '\u0001';
+	private static final char DOUBLE_MARK = '\u0002';
+
+	private BinaryXML() {
+		// utility class
+	}
+
+	/**
+	 * @param xml
+	 *            construction XML
+	 * @return binary encoding of the XML
+	 * @throws Exception
+	 *             if the XML is not valid
+	 */
+	public static byte[] encode(String xml) throws Exception {
+		Encoder encoder = new Encoder(checksum(xml.getBytes("UTF8")));
+		new QDParser().parse(encoder, new StringReader(xml));
+		return encoder.out.toByteArray();
+	}
+
+	/**
+	 * @param data
+	 *            binary data
+	 * @param xml
+	 *            UTF-8 encoded XML
+	 * @return whether data was created from this XML, i.e. the XML was not
+	 *         changed by another program after saving
+	 */
+	public static boolean isEncodingOf(byte[] data, byte[] xml) {
+		if (data == null || xml == null || data.length < HEADER_LENGTH) {
+			return false;
+		}
+		Input in = new Input(data);
+		return in.readInt() == MAGIC && in.readInt() == VERSION
+				&& in.readLong() == checksum(xml);
+	}
+
+	/**
+	 * Sends the encoded events to a handler.
+	 *
+	 * @param data
+	 *            binary data
+	 * @param doc
+	 *            handler
+	 * @throws Exception
+	 *             if data is not valid or the handler fails
+	 */
+	public static void parse(byte[] data, DocHandler doc) throws Exception {
+		Input in = new Input(data);
+		if (data.length < HEADER_LENGTH || in.readInt() != MAGIC
+				|| in.readInt() != VERSION) {
+			throw new Exception("Unknown binary construction format");
+		}
+		in.readLong();
+
+		doc.startDocument();
+		try {
+			parseElements(in, doc);
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new Exception("Binary construction data is truncated");
+		}
+	}
+
+	private static void parseElements(Input in, DocHandler doc)
+			throws Exception {
+		ArrayList<String> table = new ArrayList<String>();
+		ArrayList<String> open = new ArrayList<String>();
+		LinkedHashMap<String, String> attrs = new LinkedHashMap<String, String>();
+		StringBuilder sb = new StringBuilder();
+		while (true) {
+			int op = in.readByte();
+			switch (op) {
+			case OP_START:
+			case OP_EMPTY:
+				String tag = in.readShared(table);
+				int count = in.readVarInt();
+				attrs.clear();
+				for (int i = 0; i < count; i++) {
+					String name = in.readShared(table);
+					attrs.put(name, in.readValue(table, sb));
+				}
+				doc.startElement(tag, attrs);
+				if (op == OP_EMPTY) {
+					doc.endElement(tag);
+				} else {
+					open.add(tag);
+				}
+				break;
+			case OP_END:
+				if (open.isEmpty()) {
+					throw new Exception("Invalid binary construction data");
+				}
+				doc.endElement(open.remove(open.size() - 1));
+				break;
+			case OP_TEXT:
+				doc.text(in.readString());
+				break;
+			case OP_END_DOCUMENT:
+				doc.endDocument();
+				return;
+			default:
+				throw new Exception("Invalid binary construction data");
+			}
+		}
+	}
+
+	private static long checksum(byte[] xml) {
+		CRC32 crc = new CRC32();
+		crc.update(xml);
+		return crc.getValue();
+	}
+
+	/**
+	 * Writes parser events; the start tag is written when its end or content
+	 * is known so that elements without content need only one operation.
+	 */
+	private static final class Encoder implements DocHandler {
+		final Output out = new Output();
+		private final HashMap<String, Integer> table = new HashMap<String, Integer>();
+		private final StringBuilder template = new StringBuilder();
+		private final Output numbers = new Output();
+		/** position of the operation of the last start tag if still empty */
+		private int pendingStart = -1;
+
+		Encoder(long checksum) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(checksum);
+		}
+
+		public void startDocument() {
+			// header written in constructor
+		}
+
+		public void startElement(String tag, LinkedHashMap<String, String> h)
+				throws UnsupportedEncodingException {
+			pendingStart = out.size();
+			out.writeByte(OP_START);
+			writeShared(tag);
+			out.writeVarInt(h.size());
+			for (Entry<String, String> e : h.entrySet()) {
+				writeShared(e.getKey());
+				writeValue(e.getValue());
+			}
+		}
+
+		public void endElement(String tag) {
+			if (pendingStart >= 0) {
+				out.setByte(pendingStart, OP_EMPTY);
+			} else {
+				out.writeByte(OP_END);
+			}
+			pendingStart = -1;
+		}
+
+		public void text(String str) throws UnsupportedEncodingException {
+			pendingStart = -1;
+			out.writeByte(OP_TEXT);
+			out.writeString(str);
+		}
+
+		public void endDocument() {
+			out.writeByte(OP_END_DOCUMENT);
+		}
+
+		public int getConsStep() {
+			return 0;
+		}
+
+		private void writeShared(String str)
+				throws UnsupportedEncodingException {
+			Integer index = table.get(str);
+			if (index != null) {
+				out.writeVarInt(index.intValue());
+				return;
+			}
+			// index of a new entry is followed by its string
+			out.writeVarInt(table.size());
+			out.writeString(str);
+			table.put(str, table.size());
+		}
+
+		private void writeValue(String value)
+				throws UnsupportedEncodingException {
+			int len = value.length();
+			if (isInt(value, 0, len)) {
+				out.writeByte(VALUE_INT);
+				out.writeVarInt(zigzag(Integer.parseInt(value)));
+			} else if (len <= MAX_SHARED_LENGTH) {
+				out.writeByte(VALUE_SHARED);
+				writeShared(value);
+			} else if (isDouble(value, 0, len)) {
+				out.writeByte(VALUE_DOUBLE);
+				out.writeLong(Double.doubleToLongBits(Double.parseDouble(value)));
+			} else if (len >= MIN_NUMBERS_LENGTH && extractNumbers(value)) {
+				out.writeByte(VALUE_NUMBERS);
+				out.writeString(template.toString());
+				out.write(numbers);
+			} else {
+				out.writeByte(VALUE_STRING);
+				out.writeString(value);
+			}
+		}
+
+		/**
+		 * Splits value into template and numbers
+		 *
+		 * @return whether any numbers were found
+		 */
+		private boolean extractNumbers(String value) {
+			if (value.indexOf(INT_MARK) >= 0 || value.indexOf(DOUBLE_MARK) >= 0) {
+				return false;
+			}
+			template.setLength(0);
+			numbers.reset();
+			int found = 0;
+			int len = value.length();
+			int i = 0;
+			while (i < len) {
+				char c = value.charAt(i);
+				if (!isDigit(c) || (i > 0 && isWordChar(value.charAt(i - 1)))) {
+					template.append(c);
+					i++;
+					continue;
+				}
+				int end = numberEnd(value, i);
+				if (isInt(value, i, end)) {
+					template.append(INT_MARK);
+					numbers.writeVarInt(zigzag(Integer.parseInt(value
+							.substring(i, end))));
+					found++;
+				} else if (end - i >= MIN_DOUBLE_LENGTH
+						&& isDouble(value, i, end)) {
+					template.append(DOUBLE_MARK);
+					numbers.writeLong(Double.doubleToLongBits(Double
+							.parseDouble(value.substring(i, end))));
+					found++;
+				} else {
+					template.append(value, i, end);
+				}
+				i = end;
+			}
+			return found > 0;
+		}
+	}
+
+	/**
+	 * @return end of digits [. digits] [E [-] digits] starting at start
+	 */
+	static int numberEnd(String str, int start) {
+		int len = str.length();
+		int i = skipDigits(str, start);
+		if (i < len - 1 && str.charAt(i) == '.' && isDigit(str.charAt(i + 1))) {
+			i = skipDigits(str, i + 1);
+		}
+		if (i < len - 1 && str.charAt(i) == 'E') {
+			int exp = str.charAt(i + 1) == '-' ? i + 2 : i + 1;
+			if (exp < len && isDigit(str.charAt(exp))) {
+				i = skipDigits(str, exp);
+			}
+		}
+		return i;
+	}
+
+	private static int skipDigits(String str, int start) {
+		int i = start;
+		while (i < str.length() && isDigit(str.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isWordChar(char c) {
+		return isDigit(c) || c == '.' || c == '_' || StringUtil.isLetter(c);
+	}
+
+	/**
+	 * @return whether the substring is an int in canonical form
+	 */
+	static boolean isInt(String str, int start, int end) {
+		int digits = start < end && str.charAt(start) == '-' ? start + 1
+				: start;
+		if (digits == end || end - digits > 10) {
+			return false;
+		}
+		if (str.charAt(digits) == '0' && (end - digits > 1 || digits > start)) {
+			// leading zero or -0
+			return false;
+		}
+		for (int i = digits; i < end; i++) {
+			if (!isDigit(str.charAt(i))) {
+				return false;
+			}
+		}
+		long val = Long.parseLong(str.substring(start, end));
+		return val >= Integer.MIN_VALUE && val <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return whether the substring is a double in the form produced by
+	 *         Double.toString()
+	 */
+	static boolean isDouble(String str, int start, int end) {
+		if (start == end) {
+			return false;
+		}
+		char first = str.charAt(start);
+		if (!isDigit(first) && first != '-') {
+			return false;
+		}
+		String sub = str.substring(start, end);
+		try {
+			return Double.toString(Double.parseDouble(sub)).equals(sub);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static int zigzag(int n) {
+		return (n << 1) ^ (n >> 31);
+	}
+
+	private static int unzigzag(int n) {
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	/**
+	 * Growable byte array
+	 */
+	private static final class Output {
+		private byte[] buf = new byte[4096];
+		private int size = 0;
+
+		private void ensure(int extra) {
+			if (size + extra > buf.length) {
+				byte[] bigger = new byte[Math.max(buf.length * 2, size + extra)];
+				System.arraycopy(buf, 0, bigger, 0, size);
+				buf = bigger;
+			}
+		}
+
+		int size() {
+			return size;
+		}
+
+		void reset() {
+			size = 0;
+		}
+
+		void writeByte(int b) {
+			ensure(1);
+			buf[size++] = (byte) b;
+		}
+
+		void setByte(int pos, int b) {
+			buf[pos] = (byte) b;
+		}
+
+		void writeInt(int v) {
+			ensure(4);
+			for (int shift = 24; shift >= 0; shift -= 8) {
+				buf[size++] = (byte) (v >>> shift);
+			}
+		}
+
+		void writeLong(long v) {
+			writeInt((int) (v >>> 32));
+			writeInt((int) v);
+		}
+
+		void writeVarInt(int v) {
+			ensure(5);
+			int rest = v;
+			while ((rest & ~0x7F) != 0) {
+				buf[size++] = (byte) ((rest & 0x7F) | 0x80);
+				rest >>>= 7;
+			}
+			buf[size++] = (byte) rest;
+		}
+
+		void writeString(String str) throws UnsupportedEncodingException {
+			byte[] bytes = str.getBytes("UTF8");
+			writeVarInt(bytes.length);
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buf, size, bytes.length);
+			size += bytes.length;
+		}
+
+		void write(Output other) {
+			writeVarInt(other.size);
+			ensure(other.size);
+			System.arraycopy(other.buf, 0, buf, size, other.size);
+			size += other.size;
+		}
+
+		byte[] toByteArray() {
+			byte[] ret = new byte[size];
+			System.arraycopy(buf, 0, ret, 0, size);
+			return ret;
+		}
+	}
+
+	/**
+	 * Reader for data written by Output
+	 */
+	private static final class Input {
+		private final byte[] buf;
+		private int pos;
+
+		Input(byte[] buf) {
+			this.buf = buf;
+		}
+
+		int readByte() {
+			return buf[pos++] & 0xFF;
+		}
+
+		int readInt() {
+			int v = 0;
+			for (int i = 0; i < 4; i++) {
+				v = (v << 8) | (buf[pos++] & 0xFF);
+			}
+			return v;
+		}
+
+		long readLong() {
+			long high = readInt();
+			return (high << 32) | (readInt() & 0xFFFFFFFFL);
+		}
+
+		int readVarInt() {
+			int v = 0;
+			for (int shift = 0;; shift += 7) {
+				int b = buf[pos++];
+				v |= (b & 0x7F) << shift;
+				if (b >= 0) {
+					return v;
+				}
+			}
+		}
+
+		String readString() throws UnsupportedEncodingException {
+			int len = readVarInt();
+			String ret = new String(buf, pos, len, "UTF8");
+			pos += len;
+			return ret;
+		}
+
+		String readShared(ArrayList<String> table) throws Exception {
+			int index = readVarInt();
+			if (index == table.size()) {
+				table.add(readString());
+			} else if (index > table.size()) {
+				throw new Exception("Invalid binary construction data");
+			}
+			return table.get(index);
+		}
+
+		String readValue(ArrayList<String> table, StringBuilder sb)
+				throws Exception {
+			switch (readByte()) {
+			case VALUE_STRING:
+				return readString();
+			case VALUE_SHARED:
+				return readShared(table);
+			case VALUE_INT:
+				return Integer.toString(unzigzag(readVarInt()));
+			case VALUE_DOUBLE:
+				return Double.toString(Double.longBitsToDouble(readLong()));
+			case VALUE_NUMBERS:
+				String template = readString();
+				int end = readVarInt() + pos;
+				sb.setLength(0);
+				for (int i = 0; i < template.length(); i++) {
+					char c = template.charAt(i);
+					if (c == INT_MARK) {
+						sb.append(unzigzag(readVarInt()));
+					} else if (c == DOUBLE_MARK) {
+						sb.append(Double.longBitsToDouble(readLong()));
+					} else {
+						sb.append(c);
+					}
+				}
+				if (pos != end) {
+					throw new Exception("Invalid binary construction data");
+				}
+				return sb.toString();
+			default:
+				throw new Exception("Invalid binary construction data");
+			}
+		}
+	}
+}
@@ -120,6 +120,20 @@ public abstract class MyXMLioJre extends MyXMLio {
 		bs.close();
 	}
 
+	/**
+	 * Handles the binary construction stored in buffer, see BinaryXML. Only
+	 * used for loading, files are saved as XML only.
+	 * 
+	 * @param buffer
+	 *            binary construction
+	 */
+	protected void processBinaryBuffer(byte[] buffer,
+			boolean clearConstruction, boolean isGGTOrDefaults)
+			throws Exception {
+		doParseXML(new XMLStreamBinary(buffer), clearConstruction,
+				isGGTOrDefaults, true, true);
+	}
+
 
 
 
@@ -468,6 +482,10 @@ public abstract class MyXMLioJre extends MyXMLio {
 	@Override
 	final protected void parseXML(MyXMLHandler xmlHandler, XMLStream stream)
 			throws Exception {
+		if (stream instanceof XMLStreamBinary) {
+			BinaryXML.parse(((XMLStreamBinary) stream).getData(), xmlHandler);
+			return;
+		}
 		XMLStreamJre streamJre = (XMLStreamJre) stream;
 		xmlParser.parse(xmlHandler, streamJre.getReader());
 		streamJre.closeReader();
@@ -504,6 +522,29 @@ public abstract class MyXMLioJre extends MyXMLio {
 		return new XMLStreamStringJre(str);
 	}
 
+	/**
+	 * Binary construction, see BinaryXML
+	 */
+	protected static class XMLStreamBinary implements XMLStream {
+
+		private byte[] data;
+
+		/**
+		 * @param data
+		 *            binary construction
+		 */
+		public XMLStreamBinary(byte[] data) {
+			this.data = data;
+		}
+
+		/**
+		 * @return binary construction
+		 */
+		public byte[] getData() {
+			return data;
+		}
+	}
+
 	protected class XMLStreamInputStream implements XMLStreamJre {
 
 		private InputStream is;
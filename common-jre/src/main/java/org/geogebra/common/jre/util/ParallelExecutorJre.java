@@ -0,0 +1,101 @@
+package org.geogebra.common.jre.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.geogebra.common.util.ParallelExecutor;
+import org.geogebra.common.util.debug.Log;
+
+/**
+ * Runs tasks on a fixed pool of daemon threads, one per processor.
+ */
+public class ParallelExecutorJre extends ParallelExecutor {
+
+	private final int parallelism;
+	private ExecutorService pool;
+
+	/** marks pool threads so that nested calls don't wait for themselves */
+	static final ThreadLocal<Boolean> IN_POOL = new ThreadLocal<Boolean>();
+
+	/**
+	 * Creates executor with one thread per available processor
+	 */
+	public ParallelExecutorJre() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param parallelism
+	 *            number of threads
+	 */
+	public ParallelExecutorJre(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	@Override
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	private synchronized ExecutorService getPool() {
+		if (pool == null) {
+			pool = Executors.newFixedThreadPool(parallelism,
+					new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						public Thread newThread(final Runnable r) {
+							Thread t = new Thread(new Runnable() {
+								public void run() {
+									IN_POOL.set(Boolean.TRUE);
+									r.run();
+								}
+							}, "ggbParallel-" + count.getAndIncrement());
+							t.setDaemon(true);
+							return t;
+						}
+					});
+		}
+		return pool;
+	}
+
+	@Override
+	public void invokeAll(List<? extends Runnable> tasks) {
+		if (tasks.size() < 2 || parallelism < 2
+				|| Boolean.TRUE.equals(IN_POOL.get())) {
+			super.invokeAll(tasks);
+			return;
+		}
+		List<Callable<Object>> calls = new ArrayList<Callable<Object>>(
+				tasks.size());
+		for (Runnable task : tasks) {
+			calls.add(Executors.callable(task));
+		}
+		try {
+			List<Future<Object>> results = getPool().invokeAll(calls);
+			for (Future<Object> result : results) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			Log.error("parallel task failed: " + cause);
+			throw new IllegalStateException(cause);
+		}
+	}
+
+}
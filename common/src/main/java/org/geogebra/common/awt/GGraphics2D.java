@@ -364,6 +364,11 @@ public interface GGraphics2D {
 
 	public void resetClip();
 
+	/**
+	 * @return current clip, null if drawing is not clipped
+	 */
+	public GShape getClip();
+
 	public abstract void drawRect(int x, int y, int width, int height);
 
 	public abstract void setClip(int xAxisStart, int i, int width, int yAxisEnd);
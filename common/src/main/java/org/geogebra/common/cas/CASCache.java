@@ -0,0 +1,191 @@
+package org.geogebra.common.cas;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+/**
+ * Cache for CAS results. Keeps the most recently used results in memory,
+ * bounded both by number of entries and by their total length, and
+ * optionally reads and writes through a persistent {@link CASCacheStore}.
+ * Counts hits and misses. Failed evaluations (empty, "?" or Giac errors) are
+ * cached in memory like any other result, but never stored, so that a later
+ * session retries them.
+ */
+public class CASCache {
+
+	/** default limit for total length of keys and results in memory */
+	public static final int DEFAULT_MAX_CHARS = 4 * 1024 * 1024;
+
+	// access order, least recently used first
+	private final LinkedHashMap<String, String> map = new LinkedHashMap<String, String>(
+			16, 0.75f, true);
+	private final String namespace;
+	private final int maxEntries;
+	private final int maxChars;
+	private int chars = 0;
+	private CASCacheStore store;
+
+	private int hits = 0;
+	private int storeHits = 0;
+	private int misses = 0;
+	private int evictions = 0;
+
+	/**
+	 * @param namespace
+	 *            prefix for keys in the store, distinguishes caches of
+	 *            different kinds of results
+	 * @param maxEntries
+	 *            maximal number of results in memory
+	 * @param maxChars
+	 *            maximal total length of keys and results in memory
+	 */
+	public CASCache(String namespace, int maxEntries, int maxChars) {
+		this.namespace = namespace;
+		this.maxEntries = maxEntries;
+		this.maxChars = maxChars;
+	}
+
+	/**
+	 * @param store
+	 *            persistent store, null for memory only
+	 */
+	public synchronized void setStore(CASCacheStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * @param input
+	 *            CAS input
+	 * @return cached result or null
+	 */
+	public synchronized String get(String input) {
+		String result = map.get(input);
+		if (result != null) {
+			hits++;
+			return result;
+		}
+		if (store != null) {
+			result = store.load(namespace + ":" + input);
+			if (result != null) {
+				storeHits++;
+				putInMemory(input, result);
+				return result;
+			}
+		}
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Caches result in memory and in the store
+	 * 
+	 * @param input
+	 *            CAS input
+	 * @param result
+	 *            CAS result, failed results are kept in memory only
+	 */
+	public void put(String input, String result) {
+		put(input, result, true);
+	}
+
+	/**
+	 * @param input
+	 *            CAS input
+	 * @param result
+	 *            CAS result, failed results are kept in memory only
+	 * @param persistent
+	 *            false to keep the result in memory only, e.g. for raw Giac
+	 *            input that may depend on the state of the Giac session
+	 */
+	public synchronized void put(String input, String result,
+			boolean persistent) {
+		if (result == null) {
+			return;
+		}
+		putInMemory(input, result);
+		if (persistent && store != null && isSuccessful(result)) {
+			store.store(namespace + ":" + input, result);
+		}
+	}
+
+	/**
+	 * @param result
+	 *            CAS result
+	 * @return false for results of failed evaluations
+	 */
+	static boolean isSuccessful(String result) {
+		return result != null && result.length() > 0
+				&& !result.startsWith("?") && result.indexOf("GIAC_ERROR") < 0;
+	}
+
+	private void putInMemory(String input, String result) {
+		if (input.length() + result.length() > maxChars) {
+			// would push out everything else
+			return;
+		}
+		String old = map.put(input, result);
+		if (old != null) {
+			chars -= input.length() + old.length();
+		}
+		chars += input.length() + result.length();
+		Iterator<Entry<String, String>> it = map.entrySet().iterator();
+		while (map.size() > maxEntries || chars > maxChars) {
+			Entry<String, String> eldest = it.next();
+			chars -= eldest.getKey().length() + eldest.getValue().length();
+			it.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Clears the results in memory. The store is left alone: it is shared
+	 * between sessions and only holds results of the same CAS version.
+	 */
+	public synchronized void clear() {
+		map.clear();
+		chars = 0;
+	}
+
+	/**
+	 * @return number of results in memory
+	 */
+	public synchronized int size() {
+		return map.size();
+	}
+
+	/**
+	 * @return number of results found in memory
+	 */
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return number of results found in the store
+	 */
+	public synchronized int getStoreHits() {
+		return storeHits;
+	}
+
+	/**
+	 * @return number of results not found
+	 */
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return number of results removed from memory to keep it in bounds
+	 */
+	public synchronized int getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return namespace + " cache: " + map.size() + " results, " + hits
+				+ " hits, " + storeHits + " store hits, " + misses
+				+ " misses, " + evictions + " evictions";
+	}
+}
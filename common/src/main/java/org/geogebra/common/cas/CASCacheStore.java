@@ -0,0 +1,30 @@
+package org.geogebra.common.cas;
+
+/**
+ * Backing store for CAS results that outlives the in-memory cache, e.g. a
+ * directory shared by all sessions. Implementations must be thread safe and
+ * should not throw; a result that can't be stored or loaded is just not
+ * cached.
+ */
+public interface CASCacheStore {
+
+	/**
+	 * @param key
+	 *            normalized CAS input
+	 * @return stored result or null
+	 */
+	public String load(String key);
+
+	/**
+	 * @param key
+	 *            normalized CAS input
+	 * @param result
+	 *            CAS result
+	 */
+	public void store(String key, String result);
+
+	/**
+	 * Removes all stored results
+	 */
+	public void clear();
+}
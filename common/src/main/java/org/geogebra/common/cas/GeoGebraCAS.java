@@ -3,7 +3,6 @@ package org.geogebra.common.cas;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -28,7 +27,6 @@ import org.geogebra.common.kernel.geos.GeoDummyVariable;
 import org.geogebra.common.kernel.geos.GeoElement;
 import org.geogebra.common.kernel.kernelND.GeoElementND;
 import org.geogebra.common.main.App;
-import org.geogebra.common.util.MaxSizeHashMap;
 import org.geogebra.common.util.debug.Log;
 
 /**
@@ -54,6 +52,7 @@ public class GeoGebraCAS implements GeoGebraCasInterface {
 		app = kernel.getApplication();
 		casParser = new CASparser(kernel.getParser(), kernel.getApplication()
 				.getParserFunctions());
+		getPolynomialCoeffsCache.setStore(kernel.getCasCacheStore());
 
 		// DO NOT init underlying CAS here to avoid hanging animation,
 		// see http://www.geogebra.org/trac/ticket/1565
@@ -187,8 +186,9 @@ public class GeoGebraCAS implements GeoGebraCasInterface {
 	}
 
 	// these variables are cached to gain some speed in getPolynomialCoeffs
-	private Map<String, String[]> getPolynomialCoeffsCache = new MaxSizeHashMap<String, String[]>(
-			Kernel.GEOGEBRA_CAS_CACHE_SIZE);
+	// results are stored as {coeffs} or {} for non-polynomials
+	private CASCache getPolynomialCoeffsCache = new CASCache("coeffs",
+			Kernel.GEOGEBRA_CAS_CACHE_SIZE, CASCache.DEFAULT_MAX_CHARS);
 	private StringBuilder getPolynomialCoeffsSB = new StringBuilder();
 	private StringBuilder sbPolyCoeffs = new StringBuilder();
 
@@ -199,10 +199,10 @@ public class GeoGebraCAS implements GeoGebraCasInterface {
 		getPolynomialCoeffsSB.append(',');
 		getPolynomialCoeffsSB.append(variable);
 
-		String[] result = getPolynomialCoeffsCache.get(getPolynomialCoeffsSB
+		String cached = getPolynomialCoeffsCache.get(getPolynomialCoeffsSB
 				.toString());
-		if (result != null) {
-			return result.length == 0 ? null : result;
+		if (cached != null) {
+			return splitCoeffs(cached);
 		}
 
 		sbPolyCoeffs.setLength(0);
@@ -226,7 +226,7 @@ public class GeoGebraCAS implements GeoGebraCasInterface {
 			// not a polynomial -- cache
 			if ("{}".equals(tmp)) {
 				getPolynomialCoeffsCache.put(getPolynomialCoeffsSB.toString(),
-						new String[0]);
+						tmp);
 				return null;
 			}
 			// invalid output -- don't cache
@@ -242,12 +242,9 @@ public class GeoGebraCAS implements GeoGebraCasInterface {
 			// e.g. "ggbcasvara" needs to be changed to "a"
 			tmp = Kernel.removeCASVariablePrefix(tmp);
 
-			tmp = tmp.substring(1, tmp.length() - 1); // strip '{' and '}'
-			result = tmp.split(",");
-
 			getPolynomialCoeffsCache.put(getPolynomialCoeffsSB.toString(),
-					result);
-			return result;
+					tmp);
+			return splitCoeffs(tmp);
 		} catch (Throwable e) {
 			Log.debug("GeoGebraCAS.getPolynomialCoeffs(): " + e.getMessage());
 			// e.printStackTrace();
@@ -256,6 +253,19 @@ public class GeoGebraCAS implements GeoGebraCasInterface {
 		return null;
 	}
 
+	/**
+	 * @param coeffs
+	 *            coefficients in form {b, 0, 3*a} or {} for non-polynomials
+	 * @return coefficients or null for non-polynomials
+	 */
+	private static String[] splitCoeffs(String coeffs) {
+		if ("{}".equals(coeffs)) {
+			return null;
+		}
+		// strip '{' and '}'
+		return coeffs.substring(1, coeffs.length() - 1).split(",");
+	}
+
 	final private static String toString(final ExpressionValue ev,
 			final boolean symbolic, StringTemplate tpl) {
 		/*
@@ -1008,6 +1018,10 @@ public class GeoGebraCAS implements GeoGebraCasInterface {
 		getPolynomialCoeffsCache.clear();
 	}
 
+	public void setCacheStore(CASCacheStore store) {
+		getPolynomialCoeffsCache.setStore(store);
+	}
+
 	/**
 	 * @return swaps in form a->b
 	 */
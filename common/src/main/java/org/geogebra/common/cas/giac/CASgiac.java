@@ -519,10 +519,11 @@ public abstract class CASgiac implements CASGenericInterface {
 		// check if keep input command was successful
 		// e.g. for KeepInput[Substitute[...]]
 		// otherwise return input
-		if (cell.isKeepInputUsed() && ("?".equals(result))) {
+		if (cell != null && cell.isKeepInputUsed() && ("?".equals(result))) {
 			// return original input
 			c.handleCASoutput(exp.toString(StringTemplate.maxPrecision),
 					input.hashCode());
+			return;
 		}
 
 		// success
@@ -539,6 +540,10 @@ public abstract class CASgiac implements CASGenericInterface {
 			c.getKernel().putToCasCache(input, result);
 	}
 
+	public boolean isAsynchronous() {
+		return false;
+	}
+
 	public void appendListStart(StringBuilder sbCASCommand) {
 		sbCASCommand.append("[");
 	}
@@ -29,6 +29,7 @@ import com.himamis.retex.renderer.share.platform.graphics.Insets;
 
 public abstract class DrawEquation {
 
+	private final TeXIconCache iconCache = new TeXIconCache();
 
 	public static void appendFractionStart(StringBuilder sb, StringTemplate tpl) {
 			sb.append(" \\frac{ ");
@@ -163,8 +164,17 @@ public abstract class DrawEquation {
 		if (app.isExporting() || !useCache) {
 
 			// Application.debug("creating new icon for: "+text);
-			TeXIcon icon = createIcon(text, fgColor, font, style,
-					maxWidth, lineSpace, app);
+			TeXIcon icon;
+			if (useCache) {
+				// laid out formulas are not rasterized, so they can be
+				// shared for exports
+				icon = createIcon(text, fgColor, font, style, maxWidth,
+						lineSpace, app);
+			} else {
+				checkFirstCall(app);
+				icon = createIconUncached(text, fgColor, font, style,
+						maxWidth, lineSpace, app);
+			}
 
 			HasForegroundColor fg = new HasForegroundColor() {
 
@@ -232,10 +242,54 @@ public abstract class DrawEquation {
 		return AwtFactory.prototype.newDimension(width, height);
 	}
 
+	/**
+	 * Returns the laid out formula from the cache if the same text was laid
+	 * out with the same font and color before. The icon may be shared, it
+	 * must not be changed.
+	 * 
+	 * @param text
+	 *            LaTeX text
+	 * @param fgColor
+	 *            foreground color
+	 * @param font
+	 *            font
+	 * @param style
+	 *            font style, see GFont.getLaTeXStyle()
+	 * @param maxWidth
+	 *            maximal width (cm) for line breaks or null
+	 * @param lineSpace
+	 *            line space (cm), needed when maxWidth is given
+	 * @param app
+	 *            application
+	 * @return laid out formula
+	 */
 	public TeXIcon createIcon(String text, Color fgColor, GFont font,
 			int style, Integer maxWidth,
 			Float lineSpace, App app) {
 		checkFirstCall(app);
+		TeXIconCache.Key key = TeXIconCache.key(text, font.getSize() + 3,
+				style, fgColor, maxWidth, lineSpace);
+		TeXIcon icon = key == null ? null : iconCache.get(key);
+		if (icon == null) {
+			icon = createIconUncached(text, fgColor, font, style, maxWidth,
+					lineSpace, app);
+			if (key != null) {
+				iconCache.put(key, icon);
+			}
+		}
+		return icon;
+	}
+
+	/**
+	 * Forgets laid out formulas, needed when fonts or language change
+	 */
+	public void clearCache() {
+		iconCache.clear();
+	}
+
+	private TeXIcon createIconUncached(String text, Color fgColor,
+			GFont font, int style, Integer maxWidth, Float lineSpace,
+			App app) {
 		TeXFormula formula;
 		TeXIcon icon;
 
@@ -308,51 +362,10 @@ public abstract class DrawEquation {
 			final GFont font, final boolean serif, final Integer maxWidth,
 			final Float lineSpace) {
 
-		checkFirstCall(app);
-		GColor fgColor = GColor.BLACK;
 		int style = font.getLaTeXStyle(serif);
-
-		TeXFormula formula;
-		TeXIcon icon;
-
-		try {
-			formula = new TeXFormula(text);
-
-			if (maxWidth == null) {
-				icon = formula.createTeXIcon(TeXConstants.STYLE_DISPLAY,
-						font.getSize() + 3, style, convertColor(fgColor));
-			} else {
-				icon = formula.createTeXIcon(TeXConstants.STYLE_DISPLAY,
-						font.getSize() + 3, TeXConstants.UNIT_CM,
-						maxWidth.intValue(), TeXConstants.ALIGN_LEFT,
-						TeXConstants.UNIT_CM, lineSpace.floatValue());
-			}
-		} catch (final MyError e) {
-			// e.printStackTrace();
-			// Application.debug("MyError LaTeX parse exception:
-			// "+e.getMessage()+"\n"+text);
-			// Write error message to Graphics View
-
-			formula = TeXFormula.getPartialTeXFormula(text);
-			icon = formula.createTeXIcon(TeXConstants.STYLE_DISPLAY,
-					font.getSize() + 3, style, convertColor(fgColor));
-
-			formula.createTeXIcon(TeXConstants.STYLE_DISPLAY, 15,
-					TeXConstants.UNIT_CM, 4f, TeXConstants.ALIGN_LEFT,
-					TeXConstants.UNIT_CM, 0.5f);
-
-		} catch (final Exception e) {
-			// e.printStackTrace();
-			// Application.debug("LaTeX parse exception:
-			// "+e.getMessage()+"\n"+text);
-			// Write error message to Graphics View
-
-			formula = TeXFormula.getPartialTeXFormula(text);
-			icon = formula.createTeXIcon(TeXConstants.STYLE_DISPLAY,
-					font.getSize() + 3, style, convertColor(fgColor));
-
-		}
-		icon.setInsets(new Insets(1, 1, 1, 1));
+		// same layout as for drawing, so it can be shared
+		TeXIcon icon = createIcon(text, convertColor(GColor.BLACK), font,
+				style, maxWidth, lineSpace, app);
 
 		return AwtFactory.prototype.newDimension(icon.getIconWidth(),
 				icon.getIconHeight());
@@ -0,0 +1,337 @@
+/* 
+GeoGebra - Dynamic Mathematics for Everyone
+http://www.geogebra.org
+
+This file is part of GeoGebra.
+
+This program is free software; you can redistribute it and/or modify it 
+under the terms of the GNU General Public License as published by 
+the Free Software Foundation.
+
+ */
+
+package org.geogebra.common.euclidian;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import org.geogebra.common.awt.GRectangle;
+import org.geogebra.common.euclidian.DrawableList.DrawableIterator;
+
+/**
+ * Grid of screen cells that knows which drawables may be hit in each cell, so
+ * that hit testing only needs to check drawables near the mouse.
+ * 
+ * Bounds of a drawable are only known after it was updated and drawn (labels
+ * are positioned while drawing), so drawables that changed are kept in a
+ * dirty list and returned for every query until the next repaint has
+ * finished; then they are put back into the grid. Drawables without bounds
+ * (e.g. lines, inverse filling) and very large ones are returned for every
+ * query too.
+ */
+public class DrawableIndex {
+
+	/** width and height of grid cells in pixels */
+	private static final int CELL_SIZE = 64;
+	/** cells further away from the origin are merged */
+	private static final int MAX_CELL = 512;
+	/** drawables that cover more cells are tested for every query */
+	private static final int MAX_CELLS_PER_DRAWABLE = 64;
+	/**
+	 * extra space around bounds for line thickness, point size and highlighting
+	 */
+	private static final int MARGIN = 16;
+
+	private static final class Entry {
+		final Drawable d;
+		/** position in the drawable list */
+		int order;
+		/** covered cells, or dirty / always tested */
+		int x1, y1, x2, y2;
+		boolean dirty, always;
+		/** number of repaints when marked dirty */
+		int dirtySince;
+		/** last query that returned this entry */
+		int stamp;
+
+		Entry(Drawable d) {
+			this.d = d;
+		}
+	}
+
+	private final DrawableList list;
+	private final HashMap<Drawable, Entry> entries = new HashMap<Drawable, Entry>();
+	private final HashMap<Integer, ArrayList<Entry>> cells = new HashMap<Integer, ArrayList<Entry>>();
+	/** entries without usable bounds */
+	private final ArrayList<Entry> always = new ArrayList<Entry>();
+	/** entries that changed since they were put into the grid */
+	private final ArrayList<Entry> dirty = new ArrayList<Entry>();
+	private final ArrayList<Entry> found = new ArrayList<Entry>();
+	private final ArrayList<Drawable> result = new ArrayList<Drawable>();
+	private boolean orderValid = false;
+	private int repaints = 0;
+	private int stamp = 0;
+
+	private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+		public int compare(Entry a, Entry b) {
+			return a.order - b.order;
+		}
+	};
+
+	/**
+	 * @param list
+	 *            list of all drawables, gives the order of query results
+	 */
+	public DrawableIndex(DrawableList list) {
+		this.list = list;
+	}
+
+	/**
+	 * @param d
+	 *            drawable added to the list
+	 */
+	public void add(Drawable d) {
+		if (entries.containsKey(d)) {
+			return;
+		}
+		Entry e = new Entry(d);
+		entries.put(d, e);
+		markDirty(e);
+		orderValid = false;
+	}
+
+	/**
+	 * @param d
+	 *            drawable removed from the list
+	 */
+	public void remove(Drawable d) {
+		Entry e = entries.remove(d);
+		if (e == null) {
+			return;
+		}
+		unlink(e);
+		if (e.dirty) {
+			dirty.remove(e);
+		}
+		orderValid = false;
+	}
+
+	/**
+	 * @param d
+	 *            drawable whose geometry changed or will change on next
+	 *            repaint
+	 */
+	public void update(Drawable d) {
+		Entry e = entries.get(d);
+		if (e != null) {
+			markDirty(e);
+		}
+	}
+
+	/**
+	 * Marks all drawables as changed, e.g. after zooming
+	 */
+	public void updateAll() {
+		for (Entry e : entries.values()) {
+			markDirty(e);
+		}
+	}
+
+	/**
+	 * Removes all drawables
+	 */
+	public void clear() {
+		entries.clear();
+		cells.clear();
+		always.clear();
+		dirty.clear();
+		orderValid = false;
+	}
+
+	/**
+	 * Called when all drawables were drawn
+	 */
+	public void repainted() {
+		repaints++;
+	}
+
+	private void markDirty(Entry e) {
+		if (!e.dirty) {
+			unlink(e);
+			e.dirty = true;
+			dirty.add(e);
+		}
+		e.dirtySince = repaints;
+	}
+
+	/**
+	 * Removes entry from grid or from list of always tested entries
+	 */
+	private void unlink(Entry e) {
+		if (e.always) {
+			always.remove(e);
+			e.always = false;
+		} else if (!e.dirty) {
+			for (int x = e.x1; x <= e.x2; x++) {
+				for (int y = e.y1; y <= e.y2; y++) {
+					ArrayList<Entry> cell = cells.get(key(x, y));
+					if (cell != null) {
+						cell.remove(e);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Puts dirty entries that were repainted since they changed back to the
+	 * grid
+	 */
+	private void refresh() {
+		for (int i = dirty.size() - 1; i >= 0; i--) {
+			Entry e = dirty.get(i);
+			if (e.dirtySince < repaints && !e.d.needsUpdate()) {
+				// order of dirty entries does not matter
+				dirty.set(i, dirty.get(dirty.size() - 1));
+				dirty.remove(dirty.size() - 1);
+				e.dirty = false;
+				link(e);
+			}
+		}
+	}
+
+	private void link(Entry e) {
+		GRectangle bounds = e.d.getBounds();
+		GRectangle label = e.d.labelRectangle;
+		if (bounds == null || e.d.getGeoElement().isInverseFill()) {
+			e.always = true;
+			always.add(e);
+			return;
+		}
+		double minX = bounds.getX(), minY = bounds.getY();
+		double maxX = minX + bounds.getWidth(), maxY = minY
+				+ bounds.getHeight();
+		if (label != null && label.getWidth() > 0) {
+			minX = Math.min(minX, label.getX());
+			minY = Math.min(minY, label.getY());
+			maxX = Math.max(maxX, label.getX() + label.getWidth());
+			maxY = Math.max(maxY, label.getY() + label.getHeight());
+		}
+		e.x1 = cell(minX - MARGIN);
+		e.y1 = cell(minY - MARGIN);
+		e.x2 = cell(maxX + MARGIN);
+		e.y2 = cell(maxY + MARGIN);
+		if ((e.x2 - e.x1 + 1) * (e.y2 - e.y1 + 1) > MAX_CELLS_PER_DRAWABLE) {
+			e.always = true;
+			always.add(e);
+			return;
+		}
+		for (int x = e.x1; x <= e.x2; x++) {
+			for (int y = e.y1; y <= e.y2; y++) {
+				Integer key = key(x, y);
+				ArrayList<Entry> cell = cells.get(key);
+				if (cell == null) {
+					cell = new ArrayList<Entry>(4);
+					cells.put(key, cell);
+				}
+				cell.add(e);
+			}
+		}
+	}
+
+	private static int cell(double coord) {
+		if (Double.isNaN(coord)) {
+			return 0;
+		}
+		int c = (int) Math.floor(coord / CELL_SIZE);
+		return Math.max(-MAX_CELL, Math.min(MAX_CELL - 1, c));
+	}
+
+	private static Integer key(int x, int y) {
+		return (x + MAX_CELL) * 2 * MAX_CELL + y + MAX_CELL;
+	}
+
+	/**
+	 * @param x
+	 *            query center x
+	 * @param y
+	 *            query center y
+	 * @param threshold
+	 *            hit threshold
+	 * @return drawables that may be hit at (x,y), in the order of the
+	 *         drawable list; the list is reused by the next query
+	 */
+	public ArrayList<Drawable> query(int x, int y, int threshold) {
+		return query(x - threshold, y - threshold, x + threshold,
+				y + threshold);
+	}
+
+	/**
+	 * @param rect
+	 *            rectangle in screen coordinates
+	 * @return drawables that may be inside or intersect the rectangle, in the
+	 *         order of the drawable list; the list is reused by the next query
+	 */
+	public ArrayList<Drawable> query(GRectangle rect) {
+		return query(rect.getX(), rect.getY(), rect.getX() + rect.getWidth(),
+				rect.getY() + rect.getHeight());
+	}
+
+	private ArrayList<Drawable> query(double minX, double minY, double maxX,
+			double maxY) {
+		refresh();
+		if (!orderValid) {
+			updateOrder();
+		}
+		stamp++;
+		found.clear();
+		addAll(always);
+		addAll(dirty);
+		int x2 = cell(maxX), y2 = cell(maxY);
+		for (int x = cell(minX); x <= x2; x++) {
+			for (int y = cell(minY); y <= y2; y++) {
+				ArrayList<Entry> cell = cells.get(key(x, y));
+				if (cell != null) {
+					addAll(cell);
+				}
+			}
+		}
+		Collections.sort(found, ORDER);
+		result.clear();
+		for (Entry e : found) {
+			result.add(e.d);
+		}
+		return result;
+	}
+
+	private void addAll(ArrayList<Entry> candidates) {
+		for (int i = 0; i < candidates.size(); i++) {
+			Entry e = candidates.get(i);
+			if (e.stamp != stamp) {
+				e.stamp = stamp;
+				found.add(e);
+			}
+		}
+	}
+
+	private void updateOrder() {
+		DrawableIterator it = list.getIterator();
+		int i = 0;
+		while (it.hasNext()) {
+			Entry e = entries.get(it.next());
+			if (e != null) {
+				e.order = i++;
+			}
+		}
+		orderValid = true;
+	}
+
+	/**
+	 * @return number of drawables in the index
+	 */
+	public int size() {
+		return entries.size();
+	}
+}
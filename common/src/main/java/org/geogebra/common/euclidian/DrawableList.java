@@ -180,22 +180,35 @@ public class DrawableList {
 	public final void drawAll(GGraphics2D g2) {
 		Link cur = head;
 		while (cur != null) {
-			// defined check needed in case the GeoList changed its size
-			// don't draw GeoList as combos here
-			GeoElement geo = cur.d.getGeoElement();
-			if (geo.isDefined()
-					&& !(geo.isGeoList() && ((GeoList) geo).drawAsComboBox())
-					&& !(geo.isGeoInputBox())) {
-				if (cur.d.needsUpdate()) {
-					cur.d.setNeedsUpdate(false);
-					cur.d.update();
-				}
-				cur.d.draw(g2);
-			}
+			draw(cur.d, g2);
 			cur = cur.next;
 		}
 	}
 
+	/**
+	 * Updates the drawable if needed and draws it, unless it is drawn as
+	 * widget (combo box, input box).
+	 * 
+	 * @param d
+	 *            drawable
+	 * @param g2
+	 *            graphics
+	 */
+	static void draw(Drawable d, GGraphics2D g2) {
+		// defined check needed in case the GeoList changed its size
+		// don't draw GeoList as combos here
+		GeoElement geo = d.getGeoElement();
+		if (geo.isDefined()
+				&& !(geo.isGeoList() && ((GeoList) geo).drawAsComboBox())
+				&& !(geo.isGeoInputBox())) {
+			if (d.needsUpdate()) {
+				d.setNeedsUpdate(false);
+				d.update();
+			}
+			d.draw(g2);
+		}
+	}
+
 	/**
 	 * Updates all drawables in list
 	 */
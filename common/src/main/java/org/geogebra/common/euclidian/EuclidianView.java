@@ -2,6 +2,7 @@ package org.geogebra.common.euclidian;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.TreeSet;
 
@@ -371,6 +372,12 @@ public abstract class EuclidianView
 		}
 		// ggb3D 2009-02-05
 		hits = new Hits();
+		if (app.has(Feature.HIT_INDEX)) {
+			hitIndex = new DrawableIndex(allDrawableList);
+		}
+		if (app.has(Feature.LAYER_CACHE) && supportsLayerCache()) {
+			layerCache = new LayerCache(this, drawLayers.length);
+		}
 
 		printScaleNF = FormatFactory.prototype.getNumberFormat("#.#####", 5);
 
@@ -1125,6 +1132,12 @@ public abstract class EuclidianView
 	private ArrayList<GeoPointND> stickyPointList = new ArrayList<GeoPointND>();
 
 	protected DrawableList allDrawableList = new DrawableList();
+	/** spatial index of allDrawableList for hit testing, may be null */
+	private DrawableIndex hitIndex;
+	/** offscreen images of layers, may be null */
+	private LayerCache layerCache;
+	/** whether paint() is running, false for export */
+	private boolean paintingOnScreen = false;
 	/** lists of geos on different layers */
 	public DrawableList drawLayers[];
 
@@ -1412,6 +1425,7 @@ public abstract class EuclidianView
 			return;
 		}
 		allDrawableList.updateAll();
+		allDrawablesChanged();
 		if (repaint) {
 			repaint();
 		}
@@ -1427,6 +1441,7 @@ public abstract class EuclidianView
 			return;
 		}
 		allDrawableList.updateAllForView();
+		allDrawablesChanged();
 		if (repaint) {
 			repaint();
 		}
@@ -1441,6 +1456,7 @@ public abstract class EuclidianView
 		this.batchUpdate = false;
 		if (this.needsAllDrawablesUpdate) {
 			allDrawableList.updateAll();
+			allDrawablesChanged();
 			repaint();
 		}
 	}
@@ -1571,6 +1587,7 @@ public abstract class EuclidianView
 		Object d = DrawableMap.get(geo);
 		if (d != null) {
 			((Drawable) d).update();
+			drawableChanged((DrawableND) d);
 			repaint();
 		}
 	}
@@ -1583,6 +1600,7 @@ public abstract class EuclidianView
 				this.updateBackgroundOnNextRepaint = ((DrawImage) d)
 						.checkInBackground()
 						|| this.updateBackgroundOnNextRepaint;
+				drawableChanged(d);
 				return;
 			}
 			// Keep update of input boxes synchronous #4416
@@ -1591,9 +1609,11 @@ public abstract class EuclidianView
 					&& !geo.isGeoInputBox()
 					&& (!geo.getTrace() || d.isTracing())) {
 				d.setNeedsUpdate(true);
+				drawableChanged(d);
 				return;
 			}
 			d.update();
+			drawableChanged(d);
 		} else if (drawableNeeded(geo) && geosWaiting.contains(geo)) {
 			geosWaiting.remove(geo);
 			add(geo);
@@ -1710,6 +1730,12 @@ public abstract class EuclidianView
 			drawLayers[layer].remove(d);
 		}
 		allDrawableList.remove(d);
+		if (hitIndex != null) {
+			hitIndex.remove(d);
+		}
+		if (layerCache != null) {
+			layerCache.remove(d);
+		}
 
 		DrawableMap.remove(geo);
 		if (geo.isGeoPoint()) {
@@ -1721,6 +1747,41 @@ public abstract class EuclidianView
 
 	}
 
+	private void drawableChanged(DrawableND d) {
+		if (hitIndex != null && d instanceof Drawable) {
+			hitIndex.update((Drawable) d);
+		}
+		if (layerCache != null && d instanceof Drawable) {
+			layerCache.update((Drawable) d);
+		}
+	}
+
+	private void allDrawablesChanged() {
+		if (hitIndex != null) {
+			hitIndex.updateAll();
+		}
+		if (layerCache != null) {
+			layerCache.invalidateAll();
+		}
+	}
+
+	/**
+	 * @param x
+	 *            x-coord of the query
+	 * @param y
+	 *            y-coord of the query
+	 * @param threshold
+	 *            hit threshold
+	 * @return drawables that may be hit at (x, y); all drawables without hit
+	 *         index
+	 */
+	private Iterator<Drawable> getHitCandidates(int x, int y, int threshold) {
+		if (hitIndex == null) {
+			return allDrawableList.getIterator();
+		}
+		return hitIndex.query(x, y, threshold).iterator();
+	}
+
 	/** get the hits recorded */
 	public Hits getHits() {
 		return hits;
@@ -1732,7 +1793,8 @@ public abstract class EuclidianView
 	 * @return whether textfield was clicked
 	 */
 	public boolean textfieldClicked(int x, int y, PointerEventType type) {
-		DrawableIterator it = allDrawableList.getIterator();
+		Iterator<Drawable> it = getHitCandidates(x, y,
+				app.getCapturingThreshold(type));
 		if (getEuclidianController().isDraggingBeyondThreshold()) {
 			return false;
 		}
@@ -1796,7 +1858,7 @@ public abstract class EuclidianView
 		if (p == null) {
 			return;
 		}
-		DrawableIterator it = allDrawableList.getIterator();
+		Iterator<Drawable> it = getHitCandidates(p.x, p.y, hitThreshold);
 		while (it.hasNext()) {
 			Drawable d = it.next();
 			if (d.isEuclidianVisible()) {
@@ -1881,7 +1943,8 @@ public abstract class EuclidianView
 
 	public MyButton getHitButton(GPoint p, PointerEventType type) {
 
-		DrawableIterator it = allDrawableList.getIterator();
+		Iterator<Drawable> it = getHitCandidates(p.x, p.y,
+				app.getCapturingThreshold(type));
 		Drawable d = null;
 
 		while (it.hasNext()) {
@@ -1906,7 +1969,7 @@ public abstract class EuclidianView
 		if (!getApplication().isLabelDragsEnabled()) {
 			return null;
 		}
-		DrawableIterator it = allDrawableList.getIterator();
+		Iterator<Drawable> it = getHitCandidates(p.x, p.y, 0);
 		while (it.hasNext()) {
 			Drawable d = it.next();
 			if (d.hitLabel(p.x, p.y)) {
@@ -1976,6 +2039,10 @@ public abstract class EuclidianView
 
 		if (d != null) {
 			allDrawableList.add(d);
+			if (hitIndex != null) {
+				hitIndex.add(d);
+			}
+			drawableChanged(d);
 		}
 	}
 
@@ -2067,6 +2134,7 @@ public abstract class EuclidianView
 	 */
 	protected void updateDrawableFontSize() {
 		allDrawableList.updateFontSizeAll();
+		allDrawablesChanged();
 		repaint();
 	}
 
@@ -2223,6 +2291,7 @@ public abstract class EuclidianView
 	public void changeLayer(GeoElement geo, int oldlayer, int newlayer) {
 		drawLayers[oldlayer].remove((Drawable) DrawableMap.get(geo));
 		drawLayers[newlayer].add((Drawable) DrawableMap.get(geo));
+		drawableChanged(DrawableMap.get(geo));
 	}
 
 	/**
@@ -3006,6 +3075,10 @@ public abstract class EuclidianView
 	protected void drawGeometricObjects(GGraphics2D g2) {
 		// boolean
 		// isSVGExtensions=g2.getClass().getName().endsWith("SVGExtensions");
+		if (layerCache != null && paintingOnScreen) {
+			layerCache.draw(g2, drawLayers, getApplication().getMaxLayerUsed());
+			return;
+		}
 		int layer;
 
 		for (layer = 0; layer <= getApplication().getMaxLayerUsed(); layer++) // only
@@ -3037,6 +3110,9 @@ public abstract class EuclidianView
 			previewDrawable.drawPreview(g2);
 		}
 		adjustObjects();
+		if (hitIndex != null) {
+			hitIndex.repainted();
+		}
 	}
 
 	/**
@@ -3137,10 +3213,22 @@ public abstract class EuclidianView
 			// these blocks... as there is only one lock object and
 			// these methods probably do not call other synchronized
 			// code blocks, it probably does not cause any problem
-			companion.paint(g2);
+			paintingOnScreen = true;
+			try {
+				companion.paint(g2);
+			} finally {
+				paintingOnScreen = false;
+			}
 		}
 	}
 
+	/**
+	 * @return whether layers can be cached in offscreen images
+	 */
+	protected boolean supportsLayerCache() {
+		return false;
+	}
+
 	/**
 	 * @param g2
 	 *            graphics for background
@@ -3871,7 +3959,8 @@ public abstract class EuclidianView
 			return;
 		}
 
-		DrawableIterator it = allDrawableList.getIterator();
+		Iterator<Drawable> it = hitIndex == null ? allDrawableList
+				.getIterator() : hitIndex.query(rect).iterator();
 		while (it.hasNext()) {
 			Drawable d = it.next();
 			GeoElement geo = d.getGeoElement();
@@ -3898,7 +3987,8 @@ public abstract class EuclidianView
 			return;
 		}
 
-		DrawableIterator it = allDrawableList.getIterator();
+		Iterator<Drawable> it = hitIndex == null ? allDrawableList
+				.getIterator() : hitIndex.query(rect).iterator();
 		while (it.hasNext()) {
 			Drawable d = it.next();
 			GeoElement geo = d.getGeoElement();
@@ -3959,6 +4049,12 @@ public abstract class EuclidianView
 		DrawableMap.clear();
 		stickyPointList.clear();
 		allDrawableList.clear();
+		if (hitIndex != null) {
+			hitIndex.clear();
+		}
+		if (layerCache != null) {
+			layerCache.clear();
+		}
 		bgImageList.clear();
 		this.geosWaiting.clear();
 
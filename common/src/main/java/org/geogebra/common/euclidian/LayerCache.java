@@ -0,0 +1,326 @@
+/* 
+GeoGebra - Dynamic Mathematics for Everyone
+http://www.geogebra.org
+
+This file is part of GeoGebra.
+
+This program is free software; you can redistribute it and/or modify it 
+under the terms of the GNU General Public License as published by 
+the Free Software Foundation.
+
+ */
+
+package org.geogebra.common.euclidian;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map.Entry;
+
+import org.geogebra.common.awt.GAlphaComposite;
+import org.geogebra.common.awt.GBufferedImage;
+import org.geogebra.common.awt.GComposite;
+import org.geogebra.common.awt.GGraphics2D;
+import org.geogebra.common.awt.GRectangle;
+import org.geogebra.common.factories.AwtFactory;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.util.debug.GeoGebraProfiler;
+
+/**
+ * Keeps an offscreen image for each layer of a view. Layers without changes
+ * are just copied to the screen; in layers with changes only the region
+ * covered by the old and new bounds of the changed drawables is cleared and
+ * only drawables that intersect it are drawn again.
+ * 
+ * The view has to report all drawables that changed, were added or removed.
+ * Highlighting is not reported, so it is compared on every frame.
+ */
+public class LayerCache {
+
+	/**
+	 * extra space around bounds for line thickness, point size and highlighting
+	 */
+	private static final int MARGIN = 16;
+	/** draw everything again when more drawables changed between repaints */
+	private static final int MAX_CHANGED = 1024;
+	/** bounds of invisible drawables */
+	private static final int[] EMPTY = new int[4];
+
+	/** state of a drawable when it was last drawn into the cache */
+	private static final class Record {
+		/** bounds including label and margin, null if unknown */
+		int[] bounds;
+		int layer;
+		boolean highlighted;
+	}
+
+	private final EuclidianView view;
+	private GBufferedImage[] images;
+	private GGraphics2D[] graphics;
+	private int width, height;
+	/** whether image of layer needs to be drawn completely */
+	private final boolean[] invalid;
+	/** region of layer to draw again, as minX, minY, maxX, maxY */
+	private final int[][] damage;
+	private final HashMap<Drawable, Record> records = new HashMap<Drawable, Record>();
+	private final ArrayList<Drawable> changed = new ArrayList<Drawable>();
+	private GComposite clear;
+
+	/**
+	 * @param view
+	 *            view
+	 * @param layers
+	 *            number of layers
+	 */
+	public LayerCache(EuclidianView view, int layers) {
+		this.view = view;
+		images = new GBufferedImage[layers];
+		graphics = new GGraphics2D[layers];
+		invalid = new boolean[layers];
+		damage = new int[layers][];
+		invalidateAll();
+	}
+
+	/**
+	 * @param d
+	 *            drawable that changed or will change on next repaint
+	 */
+	public void update(Drawable d) {
+		// e.g. when the view is not painted for a while
+		if (changed.size() >= MAX_CHANGED) {
+			invalidateAll();
+			return;
+		}
+		changed.add(d);
+	}
+
+	/**
+	 * @param d
+	 *            removed drawable
+	 */
+	public void remove(Drawable d) {
+		Record r = records.remove(d);
+		if (r != null) {
+			addDamage(r.layer, r.bounds);
+		}
+	}
+
+	/**
+	 * Draw all layers again on next repaint, e.g. after zooming
+	 */
+	public void invalidateAll() {
+		for (int i = 0; i < invalid.length; i++) {
+			invalid[i] = true;
+			damage[i] = null;
+		}
+		changed.clear();
+	}
+
+	/**
+	 * Forgets all drawables
+	 */
+	public void clear() {
+		records.clear();
+		invalidateAll();
+	}
+
+	private void addDamage(int layer, int[] bounds) {
+		if (layer < 0 || layer >= invalid.length) {
+			return;
+		}
+		if (bounds == null) {
+			invalid[layer] = true;
+			return;
+		}
+		if (bounds[2] <= bounds[0]) {
+			// not visible
+			return;
+		}
+		int[] region = damage[layer];
+		if (region == null) {
+			damage[layer] = new int[] { bounds[0], bounds[1], bounds[2],
+					bounds[3] };
+		} else {
+			region[0] = Math.min(region[0], bounds[0]);
+			region[1] = Math.min(region[1], bounds[1]);
+			region[2] = Math.max(region[2], bounds[2]);
+			region[3] = Math.max(region[3], bounds[3]);
+		}
+	}
+
+	/**
+	 * Draws all layers, using the cache where possible
+	 * 
+	 * @param g2
+	 *            screen graphics
+	 * @param layers
+	 *            drawables of each layer
+	 * @param maxLayer
+	 *            highest layer used
+	 */
+	public void draw(GGraphics2D g2, DrawableList[] layers, int maxLayer) {
+		long start = System.currentTimeMillis();
+		if (images[0] == null || width != view.getWidth()
+				|| height != view.getHeight()) {
+			width = view.getWidth();
+			height = view.getHeight();
+			for (int i = 0; i < images.length; i++) {
+				images[i] = null;
+				graphics[i] = null;
+			}
+			invalidateAll();
+		}
+		collectDamage();
+		boolean full = false;
+		int drawn = 0, reused = 0;
+		for (int layer = 0; layer <= maxLayer; layer++) {
+			if (images[layer] == null) {
+				images[layer] = AwtFactory.prototype.createBufferedImage(
+						Math.max(width, 1), Math.max(height, 1), true);
+				graphics[layer] = images[layer].createGraphics();
+				graphics[layer].setAntialiasing();
+				invalid[layer] = true;
+			}
+			if (invalid[layer]) {
+				drawn += drawLayer(layers[layer], layer, null);
+				full = true;
+			} else if (damage[layer] != null) {
+				int count = drawLayer(layers[layer], layer, damage[layer]);
+				drawn += count;
+				reused += layers[layer].size() - count;
+			} else {
+				reused += layers[layer].size();
+			}
+			invalid[layer] = false;
+			damage[layer] = null;
+			g2.drawImage(images[layer], 0, 0);
+		}
+		GeoGebraProfiler.addLayerCacheFrame(System.currentTimeMillis()
+				- start, full, drawn, reused);
+	}
+
+	/**
+	 * Updates changed drawables and adds their old and new bounds to the
+	 * damaged regions
+	 */
+	private void collectDamage() {
+		for (int i = 0; i < changed.size(); i++) {
+			Drawable d = changed.get(i);
+			Record r = records.get(d);
+			if (r == null) {
+				// not drawn yet
+				invalidate(d);
+				continue;
+			}
+			addDamage(r.layer, r.bounds);
+			if (d.needsUpdate()) {
+				d.setNeedsUpdate(false);
+				d.update();
+			}
+			addDamage(d.getGeoElement().getLayer(), getBounds(d));
+		}
+		changed.clear();
+		// selection and highlighting don't update drawables
+		for (Entry<Drawable, Record> e : records.entrySet()) {
+			Record r = e.getValue();
+			if (r.highlighted != e.getKey().getGeoElement().doHighlighting()) {
+				addDamage(r.layer, r.bounds);
+			}
+		}
+	}
+
+	private void invalidate(Drawable d) {
+		int layer = d.getGeoElement().getLayer();
+		if (layer >= 0 && layer < invalid.length) {
+			invalid[layer] = true;
+		}
+	}
+
+	/**
+	 * @param list
+	 *            drawables of the layer
+	 * @param layer
+	 *            layer
+	 * @param region
+	 *            region to draw again, null to draw everything
+	 * @return number of drawables drawn
+	 */
+	private int drawLayer(DrawableList list, int layer, int[] region) {
+		GGraphics2D g = graphics[layer];
+		if (clear == null) {
+			clear = AwtFactory.prototype.newAlphaComposite(
+					GAlphaComposite.CLEAR, 0f);
+		}
+		GComposite oldComposite = g.getComposite();
+		if (region != null) {
+			g.setClip(region[0], region[1], region[2] - region[0],
+					region[3] - region[1]);
+		}
+		g.setComposite(clear);
+		if (region == null) {
+			g.fillRect(0, 0, width, height);
+		} else {
+			g.fillRect(region[0], region[1], region[2] - region[0],
+					region[3] - region[1]);
+		}
+		g.setComposite(oldComposite);
+
+		int count = 0;
+		DrawableList.Link cur = list.head;
+		while (cur != null) {
+			Drawable d = cur.d;
+			cur = cur.next;
+			Record r = records.get(d);
+			if (region != null && r != null && r.layer == layer
+					&& !intersects(r.bounds, region)) {
+				continue;
+			}
+			DrawableList.draw(d, g);
+			count++;
+			if (r == null) {
+				r = new Record();
+				records.put(d, r);
+			}
+			r.bounds = getBounds(d);
+			r.layer = layer;
+			r.highlighted = d.getGeoElement().doHighlighting();
+		}
+		if (region != null) {
+			g.resetClip();
+		}
+		return count;
+	}
+
+	private static boolean intersects(int[] bounds, int[] region) {
+		return bounds == null
+				|| (bounds[0] < region[2] && region[0] < bounds[2]
+						&& bounds[1] < region[3] && region[1] < bounds[3]);
+	}
+
+	/**
+	 * @return bounds of drawable and its label with margin, null if unknown
+	 */
+	private static int[] getBounds(Drawable d) {
+		GeoElement geo = d.getGeoElement();
+		if (!geo.isEuclidianVisible() || !geo.isDefined()) {
+			return EMPTY;
+		}
+		GRectangle bounds = d.getBounds();
+		if (bounds == null || geo.isInverseFill()) {
+			return null;
+		}
+		double minX = bounds.getX(), minY = bounds.getY();
+		double maxX = minX + bounds.getWidth();
+		double maxY = minY + bounds.getHeight();
+		GRectangle label = d.labelRectangle;
+		if (label != null && label.getWidth() > 0) {
+			minX = Math.min(minX, label.getX());
+			minY = Math.min(minY, label.getY());
+			maxX = Math.max(maxX, label.getX() + label.getWidth());
+			maxY = Math.max(maxY, label.getY() + label.getHeight());
+		}
+		return new int[] { (int) Math.floor(minX) - MARGIN,
+				(int) Math.floor(minY) - MARGIN,
+				(int) Math.ceil(maxX) + MARGIN,
+				(int) Math.ceil(maxY) + MARGIN };
+	}
+}
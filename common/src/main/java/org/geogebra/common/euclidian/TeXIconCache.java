@@ -0,0 +1,130 @@
+package org.geogebra.common.euclidian;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.geogebra.common.util.debug.GeoGebraProfiler;
+
+import com.himamis.retex.renderer.share.TeXIcon;
+import com.himamis.retex.renderer.share.platform.graphics.Color;
+
+/**
+ * Laid out formulas of DrawEquation, so that repaints of the same LaTeX text
+ * neither parse nor lay out the formula again. Keeps the most recently used
+ * icons; must be cleared when fonts or language change, see
+ * DrawEquation.clearCache().
+ */
+final class TeXIconCache {
+
+	/** maximal number of icons */
+	static final int MAX_ICONS = 500;
+	/** longer texts are not cached, they are unlikely to be repainted */
+	static final int MAX_LENGTH = 10000;
+
+	private final LinkedHashMap<Key, TeXIcon> icons = new LinkedHashMap<Key, TeXIcon>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, TeXIcon> eldest) {
+			return size() > MAX_ICONS;
+		}
+	};
+
+	/**
+	 * @param text
+	 *            LaTeX text
+	 * @param size
+	 *            font size
+	 * @param style
+	 *            font style
+	 * @param fgColor
+	 *            color of the formula, may be null
+	 * @param maxWidth
+	 *            maximal width for line breaks or null
+	 * @param lineSpace
+	 *            line space or null
+	 * @return key of the icon, null if the text should not be cached
+	 */
+	static Key key(String text, int size, int style, Color fgColor,
+			Integer maxWidth, Float lineSpace) {
+		if (text == null || text.length() > MAX_LENGTH) {
+			return null;
+		}
+		return new Key(text, size, style,
+				fgColor == null ? 0 : fgColor.getColor(),
+				maxWidth == null ? -1 : maxWidth.intValue(),
+				lineSpace == null ? -1 : lineSpace.floatValue());
+	}
+
+	/**
+	 * @param key
+	 *            key
+	 * @return cached icon or null
+	 */
+	TeXIcon get(Key key) {
+		TeXIcon icon = icons.get(key);
+		GeoGebraProfiler.addFormulaCache(icon != null, icons.size());
+		return icon;
+	}
+
+	/**
+	 * @param key
+	 *            key
+	 * @param icon
+	 *            icon for key
+	 */
+	void put(Key key, TeXIcon icon) {
+		icons.put(key, icon);
+	}
+
+	/**
+	 * Removes all icons
+	 */
+	void clear() {
+		icons.clear();
+	}
+
+	/**
+	 * Text with everything the layout depends on
+	 */
+	static final class Key {
+		private final String text;
+		private final int size, style, color, maxWidth;
+		private final float lineSpace;
+		private final int hash;
+
+		Key(String text, int size, int style, int color, int maxWidth,
+				float lineSpace) {
+			this.text = text;
+			this.size = size;
+			this.style = style;
+			this.color = color;
+			this.maxWidth = maxWidth;
+			this.lineSpace = lineSpace;
+			int h = text.hashCode();
+			h = 31 * h + size;
+			h = 31 * h + style;
+			h = 31 * h + color;
+			h = 31 * h + maxWidth;
+			hash = 31 * h + (int) (lineSpace * 1000);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return hash == other.hash && size == other.size
+					&& style == other.style && color == other.color
+					&& maxWidth == other.maxWidth
+					&& lineSpace == other.lineSpace && text.equals(other.text);
+		}
+	}
+}
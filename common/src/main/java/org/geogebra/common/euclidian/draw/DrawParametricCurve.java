@@ -54,6 +54,7 @@ public class DrawParametricCurve extends Drawable {
 	private CurveEvaluable curve;
 	private GeneralPathClippedForCurvePlotter gp;
 	private boolean isVisible, labelVisible, fillCurve;
+	private final CurvePlotter.PlotStats plotStats = new CurvePlotter.PlotStats();
 
 	/**
 	 * Creates graphical representation of the curve
@@ -70,6 +71,13 @@ public class DrawParametricCurve extends Drawable {
 		update();
 	}
 
+	/**
+	 * @return number of evaluations and points of the last update
+	 */
+	public CurvePlotter.PlotStats getPlotStats() {
+		return plotStats;
+	}
+
 	private StringBuilder labelSB = new StringBuilder();
 
 	@Override
@@ -114,7 +122,7 @@ public class DrawParametricCurve extends Drawable {
 		} else {
 			labelPoint = CurvePlotter.plotCurve(curve, min, max, view, gp,
 					labelVisible, fillCurve ? CurvePlotter.Gap.CORNER
-							: CurvePlotter.Gap.MOVE_TO);
+							: CurvePlotter.Gap.MOVE_TO, plotStats);
 		}
 
 		// gp on screen?
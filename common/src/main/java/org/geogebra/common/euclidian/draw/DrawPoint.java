@@ -27,6 +27,7 @@ import org.geogebra.common.awt.GGeneralPath;
 import org.geogebra.common.awt.GGraphics2D;
 import org.geogebra.common.awt.GLine2D;
 import org.geogebra.common.awt.GRectangle;
+import org.geogebra.common.awt.GShape;
 import org.geogebra.common.euclidian.Drawable;
 import org.geogebra.common.euclidian.EuclidianStatic;
 import org.geogebra.common.euclidian.EuclidianView;
@@ -394,12 +395,24 @@ public final class DrawPoint extends Drawable {
 			GEllipse2DFloat circleClip = AwtFactory.prototype
 					.newEllipse2DFloat((int) coords1[0] - 30,
 							(int) coords1[1] - 30, 60, 60);
-			g2.setClip(circleClip);
+			// stay inside current clip, e.g. region redrawn by layer cache
+			GShape oldClip = g2.getClip();
+			if (oldClip == null) {
+				g2.setClip(circleClip);
+			} else {
+				GArea clip = AwtFactory.prototype.newArea(circleClip);
+				clip.intersect(AwtFactory.prototype.newArea(oldClip));
+				g2.setClip(clip);
+			}
 			geo2.forceEuclidianVisible(true);
 			drawable.update();
 			drawable.draw(g2);
 			geo2.forceEuclidianVisible(false);
-			g2.resetClip();
+			if (oldClip == null) {
+				g2.resetClip();
+			} else {
+				g2.setClip(oldClip);
+			}
 		}
 	}
 
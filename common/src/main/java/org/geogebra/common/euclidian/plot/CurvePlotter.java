@@ -1,6 +1,7 @@
 package org.geogebra.common.euclidian.plot;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.geogebra.common.awt.GPoint;
 import org.geogebra.common.euclidian.EuclidianView;
@@ -9,6 +10,8 @@ import org.geogebra.common.kernel.MyPoint;
 import org.geogebra.common.kernel.Matrix.CoordSys;
 import org.geogebra.common.kernel.kernelND.CurveEvaluable;
 import org.geogebra.common.util.Cloner;
+import org.geogebra.common.util.ParallelExecutor;
+import org.geogebra.common.util.debug.GeoGebraProfiler;
 
 /**
  * Class to plot x->f(x) functions and 2D/3D parametric curves
@@ -38,8 +41,54 @@ public class CurvePlotter {
 	// // the curve is sampled at least at this many positions to plot it
 	// private static final int MIN_SAMPLE_POINTS = 5;
 
-	private static int countPoints = 0;
-	private static long countEvaluations = 0;
+	/**
+	 * Minimal number of parameter steps per segment for parallel sampling;
+	 * fewer steps are not worth the overhead.
+	 */
+	private static final int MIN_STEPS_PER_SEGMENT = 2;
+
+	/**
+	 * Counters of one curve plot. Each segment sampled in parallel has its own
+	 * counters, they are added up when the segments are stitched.
+	 */
+	public static final class PlotStats {
+		int points;
+		long evaluations;
+		int segments;
+
+		/**
+		 * @return number of points added to the path
+		 */
+		public int getPoints() {
+			return points;
+		}
+
+		/**
+		 * @return number of curve evaluations
+		 */
+		public long getEvaluations() {
+			return evaluations;
+		}
+
+		/**
+		 * @return number of segments sampled in parallel, 1 for sequential
+		 *         sampling
+		 */
+		public int getSegments() {
+			return segments;
+		}
+
+		void add(PlotStats other) {
+			points += other.points;
+			evaluations += other.evaluations;
+		}
+
+		@Override
+		public String toString() {
+			return points + " points, " + evaluations + " evaluations, "
+					+ segments + " segments";
+		}
+	}
 
 	/** ways to overcome discontinuity */
 	public enum Gap {
@@ -82,27 +131,138 @@ public class CurvePlotter {
 	final public static GPoint plotCurve(CurveEvaluable curve, double t1,
 			double t2, EuclidianView view, PathPlotter gp,
 			boolean calcLabelPos, Gap moveToAllowed) {
-		countPoints = 0;
-		countEvaluations = 0;
+		return plotCurve(curve, t1, t2, view, gp, calcLabelPos, moveToAllowed,
+				new PlotStats());
+	}
 
-		// System.out.println("*** START plot: " +
-		// curve.toGeoElement().getLabel() + " in "+ t1 + ", " + t2);
+	/**
+	 * Draws a parametric curve (x(t), y(t)) for t in [t1, t2]. If the platform
+	 * supports threads and the curve can be evaluated concurrently, the
+	 * parameter range is split into segments that are sampled in parallel and
+	 * stitched in order.
+	 * 
+	 * @param t1
+	 *            min value of parameter
+	 * @param t2
+	 *            max value of parameter
+	 * @param curve
+	 *            curve to be drawn
+	 * @param view
+	 *            Euclidian view to be used
+	 * @param gp
+	 *            generalpath that can be drawn afterwards
+	 * @param calcLabelPos
+	 *            whether label position should be calculated and returned
+	 * @param moveToAllowed
+	 *            whether moveTo() may be used for gp
+	 * @param stats
+	 *            receives number of points and evaluations of this plot
+	 * @return label position as Point
+	 */
+	final public static GPoint plotCurve(CurveEvaluable curve, double t1,
+			double t2, EuclidianView view, PathPlotter gp,
+			boolean calcLabelPos, Gap moveToAllowed, PlotStats stats) {
+		stats.points = 0;
+		stats.evaluations = 0;
+		stats.segments = 1;
 
 		// ensure MIN_PLOT_POINTS
 		double max_param_step = Math.abs(t2 - t1) / view.getMinSamplePoints();
-		// plot Interval [t1, t2]
-		GPoint labelPoint = plotInterval(curve, t1, t2, 0, max_param_step,
-				view, gp, calcLabelPos, moveToAllowed);
+		GPoint labelPoint;
+		ParallelExecutor executor = ParallelExecutor.prototype;
+		int segments = Math.min(2 * executor.getParallelism(),
+				(int) view.getMinSamplePoints() / MIN_STEPS_PER_SEGMENT);
+		List<SegmentTask> tasks = executor.isParallel() && segments > 1
+				? createSegments(curve, t1, t2, segments, max_param_step,
+						view, gp, calcLabelPos, moveToAllowed) : null;
+		if (tasks == null) {
+			// plot Interval [t1, t2]
+			labelPoint = plotInterval(curve, t1, t2, 0, max_param_step, view,
+					gp, calcLabelPos, moveToAllowed, stats);
+		} else {
+			executor.invokeAll(tasks);
+			labelPoint = null;
+			double[] end = null;
+			for (SegmentTask task : tasks) {
+				// continue where the previous segment ended
+				task.path.replay(gp, end);
+				if (task.path.getEnd() != null) {
+					end = task.path.getEnd();
+				}
+				if (labelPoint == null) {
+					labelPoint = task.labelPoint;
+				}
+				stats.add(task.stats);
+			}
+			stats.segments = tasks.size();
+		}
 		if (moveToAllowed == Gap.CORNER) {
 			gp.corner();
 		}
-		// System.out.println(" plot points: " + countPoints + ", evaluations: "
-		// + countEvaluations );
-		// System.out.println("*** END plot");
+		GeoGebraProfiler.addCurvePlot(stats.evaluations, stats.points);
 
 		return labelPoint;
 	}
 
+	/**
+	 * @return tasks for sampling equal parts of [t1, t2], null if the curve
+	 *         cannot be evaluated by several threads
+	 */
+	private static List<SegmentTask> createSegments(CurveEvaluable curve,
+			double t1, double t2, int segments, double max_param_step,
+			EuclidianView view, PathPlotter gp, boolean calcLabelPos,
+			Gap moveToAllowed) {
+		int dim = gp.newDoubleArray().length;
+		ArrayList<SegmentTask> tasks = new ArrayList<SegmentTask>(segments);
+		double step = (t2 - t1) / segments;
+		for (int i = 0; i < segments; i++) {
+			IndependentCurve part = IndependentCurve.create(curve);
+			if (part == null) {
+				return null;
+			}
+			// make sure the segments meet exactly
+			double a = i == 0 ? t1 : t1 + i * step;
+			double b = i == segments - 1 ? t2 : t1 + (i + 1) * step;
+			tasks.add(new SegmentTask(part, a, b, max_param_step, view,
+					new RecordingPathPlotter(dim), calcLabelPos,
+					moveToAllowed));
+		}
+		return tasks;
+	}
+
+	/**
+	 * Samples one segment of the parameter range into its own path
+	 */
+	private static final class SegmentTask implements Runnable {
+		final CurveEvaluable curve;
+		final double t1, t2, max_param_step;
+		final EuclidianView view;
+		final RecordingPathPlotter path;
+		final boolean calcLabelPos;
+		final Gap moveToAllowed;
+		final PlotStats stats = new PlotStats();
+		GPoint labelPoint;
+
+		SegmentTask(CurveEvaluable curve, double t1, double t2,
+				double max_param_step, EuclidianView view,
+				RecordingPathPlotter path, boolean calcLabelPos,
+				Gap moveToAllowed) {
+			this.curve = curve;
+			this.t1 = t1;
+			this.t2 = t2;
+			this.max_param_step = max_param_step;
+			this.view = view;
+			this.path = path;
+			this.calcLabelPos = calcLabelPos;
+			this.moveToAllowed = moveToAllowed;
+		}
+
+		public void run() {
+			labelPoint = plotInterval(curve, t1, t2, 0, max_param_step, view,
+					path, calcLabelPos, moveToAllowed, stats);
+		}
+	}
+
 	//private static int plotIntervals = 0;
 
 	/**
@@ -121,7 +281,7 @@ public class CurvePlotter {
 	private static GPoint plotInterval(CurveEvaluable curve, double t1,
 			double t2, int intervalDepth, double max_param_step,
 			EuclidianView view, PathPlotter gp, boolean calcLabelPos,
-			Gap moveToAllowed) {
+			Gap moveToAllowed, PlotStats stats) {
 		// Log.debug(++plotIntervals);
 		// plot interval for t in [t1, t2]
 		// If we run into a problem, i.e. an undefined point f(t), we bisect
@@ -150,29 +310,30 @@ public class CurvePlotter {
 
 		// evaluate for t1
 		curve.evaluateCurve(t1, eval);
-		countEvaluations++;
+		stats.evaluations++;
 		if (isUndefined(eval)) {
 			// Application.debug("Curve undefined at t = " + t1);
 			return plotProblemInterval(curve, t1, t2, intervalDepth,
 					max_param_step, view, gp, calcLabelPos, moveToAllowed,
-					labelPoint);
+					labelPoint, stats);
 		}
 		eval0 = Cloner.clone(eval);
 
 		// evaluate for t2
 		curve.evaluateCurve(t2, eval);
-		countEvaluations++;
+		stats.evaluations++;
 		if (isUndefined(eval)) {
 			// Application.debug("Curve undefined at t = " + t2);
 			return plotProblemInterval(curve, t1, t2, intervalDepth,
 					max_param_step, view, gp, calcLabelPos, moveToAllowed,
-					labelPoint);
+					labelPoint, stats);
 		}
 		onScreen = view.isOnView(eval);
 		eval1 = Cloner.clone(eval);
 
 		// first point
 		gp.firstPoint(eval0, moveToAllowed);
+		stats.points++;
 
 		// TODO
 		// INIT plotting algorithm
@@ -200,7 +361,7 @@ public class CurvePlotter {
 
 		// init previous slope using (t1, t1 + min_step)
 		curve.evaluateCurve(t1 + divisors[LENGTH - 1], eval);
-		countEvaluations++;
+		stats.evaluations++;
 		double[] prevDiff = view.getOnScreenDiff(eval0, eval);
 
 		int top = 1;
@@ -248,21 +409,21 @@ public class CurvePlotter {
 				// evaluate curve for parameter t
 				curve.evaluateCurve(t, eval);
 				onScreen = view.isOnView(eval);
-				countEvaluations++;
+				stats.evaluations++;
 
 				// check for singularity:
 				// c(t) undefined; c(t-eps) and c(t+eps) both defined
 				if (isUndefined(eval)) {
 					// check if c(t-eps) and c(t+eps) are both defined
 					boolean singularity = isDefinedAround(curve, t,
-							divisors[LENGTH - 1]);
+							divisors[LENGTH - 1], stats);
 
 					// split interval: f(t+eps) or f(t-eps) not defined
 					if (!singularity) {
 						// Application.debug("Curve undefined at t = " + t);
 						return plotProblemInterval(curve, left, t2,
 								intervalDepth, max_param_step, view, gp,
-								calcLabelPos, moveToAllowed, labelPoint);
+								calcLabelPos, moveToAllowed, labelPoint, stats);
 					}
 				}
 
@@ -298,7 +459,7 @@ public class CurvePlotter {
 				} else if (!angleOK || !distanceOK) {
 					// check for DISCONTINUITY
 					lineTo = isContinuous(curve, left, t,
-							view.getMaxProblemBisections());
+							view.getMaxProblemBisections(), stats);
 				}
 			} else if (moveToAllowed == Gap.CORNER) {
 				gp.corner(eval1);
@@ -309,11 +470,13 @@ public class CurvePlotter {
 				// handle previous moveTo first
 				if (nextLineToNeedsMoveToFirst) {
 					gp.moveTo(move);
+					stats.points++;
 					nextLineToNeedsMoveToFirst = false;
 				}
 
 				// draw line
 				gp.lineTo(eval1);
+				stats.points++;
 			} else {
 				// moveTo: remember moveTo position to avoid multiple moveTo
 				// operations
@@ -387,7 +550,7 @@ public class CurvePlotter {
 	private static GPoint plotProblemInterval(CurveEvaluable curve, double t1,
 			double t2, int intervalDepth, double max_param_step,
 			EuclidianView view, PathPlotter gp, boolean calcLabelPos,
-			Gap moveToAllowed, GPoint labelPoint) {
+			Gap moveToAllowed, GPoint labelPoint, PlotStats stats) {
 		boolean calcLabel = calcLabelPos;
 		// stop recursion for too many intervals
 		if (intervalDepth > view.getMaxProblemBisections() || t1 == t2) {
@@ -410,13 +573,13 @@ public class CurvePlotter {
 			calcLabel = calcLabel && labelPoint == null;
 			labelPoint1 = plotInterval(curve, t1, splitParam,
 					intervalDepth + 1, max_param_step, view, gp, calcLabel,
-					moveToAllowed);
+					moveToAllowed, stats);
 
 			// plot interval [(t1+t2)/2, t2]
 			calcLabel = calcLabel && labelPoint1 == null;
 			labelPoint2 = plotInterval(curve, splitParam, t2,
 					intervalDepth + 1, max_param_step, view, gp, calcLabel,
-					moveToAllowed);
+					moveToAllowed, stats);
 		} else {
 			// look at the end points of the intervals [t1, (t1+t2)/2] and
 			// [(t1+t2)/2, t2]
@@ -428,18 +591,18 @@ public class CurvePlotter {
 
 			// plot interval [t1, (t1+t2)/2]
 			double[] borders = new double[2];
-			getDefinedInterval(curve, t1, splitParam, borders);
+			getDefinedInterval(curve, t1, splitParam, borders, stats);
 			calcLabel = calcLabel && labelPoint == null;
 			labelPoint1 = plotInterval(curve, borders[0], borders[1],
 					intervalDepth + 1, max_param_step, view, gp, calcLabel,
-					moveToAllowed);
+					moveToAllowed, stats);
 
 			// plot interval [(t1+t2)/2, t2]
-			getDefinedInterval(curve, splitParam, t2, borders);
+			getDefinedInterval(curve, splitParam, t2, borders, stats);
 			calcLabel = calcLabel && labelPoint1 == null;
 			labelPoint2 = plotInterval(curve, borders[0], borders[1],
 					intervalDepth + 1, max_param_step, view, gp, calcLabel,
-					moveToAllowed);
+					moveToAllowed, stats);
 		}
 
 		if (labelPoint != null)
@@ -454,17 +617,17 @@ public class CurvePlotter {
 	 * Returns whether curve is defined for c(t-eps) and c(t + eps).
 	 */
 	private static boolean isDefinedAround(CurveEvaluable curve, double t,
-			double eps) {
+			double eps, PlotStats stats) {
 		// check if c(t) is undefined
 		double[] eval = curve.newDoubleArray();
 
 		// c(t + eps)
 		curve.evaluateCurve(t + eps, eval);
-		countEvaluations++;
+		stats.evaluations++;
 		if (!isUndefined(eval)) {
 			// c(t - eps)
 			curve.evaluateCurve(t - eps, eval);
-			countEvaluations++;
+			stats.evaluations++;
 			if (!isUndefined(eval)) {
 				// SINGULARITY: c(t) undef, c(t-eps) and c(t+eps) defined
 				return true;
@@ -535,6 +698,11 @@ public class CurvePlotter {
 	 */
 	public static boolean isContinuous(CurveEvaluable c, double from,
 			double to, int MAX_ITERATIONS) {
+		return isContinuous(c, from, to, MAX_ITERATIONS, new PlotStats());
+	}
+
+	private static boolean isContinuous(CurveEvaluable c, double from,
+			double to, int MAX_ITERATIONS, PlotStats stats) {
 		double t1 = from;
 		double t2 = to;
 		if (Kernel.isEqual(t1, t2, Kernel.MAX_DOUBLE_PRECISION))
@@ -543,7 +711,7 @@ public class CurvePlotter {
 		// left = c(t1)
 		double[] left = c.newDoubleArray();
 		c.evaluateCurve(t1, left);
-		countEvaluations++;
+		stats.evaluations++;
 		if (isUndefined(left)) {
 			// NaN or infinite: not continuous
 			return false;
@@ -552,7 +720,7 @@ public class CurvePlotter {
 		// right = c(t2)
 		double[] right = c.newDoubleArray();
 		c.evaluateCurve(t2, right);
-		countEvaluations++;
+		stats.evaluations++;
 		if (isUndefined(right)) {
 			// NaN or infinite: not continuous
 			return false;
@@ -571,7 +739,7 @@ public class CurvePlotter {
 		while (iterations++ < MAX_ITERATIONS && dist > eps) {
 			double m = (t1 + t2) / 2;
 			c.evaluateCurve(m, middle);
-			countEvaluations++;
+			stats.evaluations++;
 			double distLeft = c.distanceMax(left, middle);
 			double distRight = c.distanceMax(right, middle);
 
@@ -605,16 +773,16 @@ public class CurvePlotter {
 	 * @return whether two defined borders could be found.
 	 */
 	private static boolean getDefinedInterval(CurveEvaluable curve, double a,
-			double b, double[] borders) {
+			double b, double[] borders, PlotStats stats) {
 
 		double[] eval = curve.newDoubleArray();
 
 		// check first and last point in interval
 		curve.evaluateCurve(a, eval);
-		countEvaluations++;
+		stats.evaluations++;
 		boolean aDef = !isUndefined(eval);
 		curve.evaluateCurve(b, eval);
-		countEvaluations++;
+		stats.evaluations++;
 		boolean bDef = !isUndefined(eval);
 
 		// both end points defined
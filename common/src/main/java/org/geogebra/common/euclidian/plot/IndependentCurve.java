@@ -0,0 +1,116 @@
+package org.geogebra.common.euclidian.plot;
+
+import org.geogebra.common.kernel.arithmetic.EvaluationContext;
+import org.geogebra.common.kernel.arithmetic.Function;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoFunction;
+import org.geogebra.common.kernel.kernelND.CurveEvaluable;
+import org.geogebra.common.kernel.kernelND.GeoCurveCartesianND;
+
+/**
+ * Curve that evaluates another curve through its own evaluation contexts, so
+ * that several parts of the curve can be sampled by different threads. Use
+ * one instance per thread.
+ */
+final class IndependentCurve implements CurveEvaluable {
+
+	private final CurveEvaluable curve;
+	private final EvaluationContext[] coords;
+	private final boolean swapped;
+
+	private IndependentCurve(CurveEvaluable curve, EvaluationContext[] coords,
+			boolean swapped) {
+		this.curve = curve;
+		this.coords = coords;
+		this.swapped = swapped;
+	}
+
+	/**
+	 * @param curve
+	 *            curve
+	 * @return evaluator of the curve that does not block other threads, null
+	 *         if the curve does not support it
+	 */
+	static IndependentCurve create(CurveEvaluable curve) {
+		// subclasses may evaluate differently
+		if (curve.getClass() == GeoFunction.class) {
+			GeoFunction f = (GeoFunction) curve;
+			EvaluationContext fun = f.createEvaluationContext();
+			if (fun == null || !fun.isIndependent()) {
+				return null;
+			}
+			return new IndependentCurve(curve, new EvaluationContext[] { fun },
+					f.isEvalSwapped());
+		}
+		// 2D and 3D cartesian curves evaluate getFun(i) for each coordinate
+		if (curve instanceof GeoCurveCartesianND) {
+			GeoCurveCartesianND c = (GeoCurveCartesianND) curve;
+			EvaluationContext[] coords = new EvaluationContext[curve
+					.newDoubleArray().length];
+			for (int i = 0; i < coords.length; i++) {
+				Function fun = c.getFun(i);
+				if (fun == null) {
+					return null;
+				}
+				coords[i] = fun.createEvaluationContext();
+				if (!coords[i].isIndependent()) {
+					return null;
+				}
+			}
+			return new IndependentCurve(curve, coords, false);
+		}
+		return null;
+	}
+
+	public void evaluateCurve(double t, double[] out) {
+		if (coords.length == 1) {
+			// function graph (t, f(t))
+			out[swapped ? 1 : 0] = t;
+			out[swapped ? 0 : 1] = coords[0].evaluate(t);
+			return;
+		}
+		for (int i = 0; i < coords.length; i++) {
+			out[i] = coords[i].evaluate(t);
+		}
+	}
+
+	public double[] getDefinedInterval(double a, double b) {
+		// evaluates the shared function
+		synchronized (curve) {
+			return curve.getDefinedInterval(a, b);
+		}
+	}
+
+	public double getMinParameter() {
+		return curve.getMinParameter();
+	}
+
+	public double getMaxParameter() {
+		return curve.getMaxParameter();
+	}
+
+	public double[] newDoubleArray() {
+		return curve.newDoubleArray();
+	}
+
+	public double distanceMax(double[] p1, double[] p2) {
+		return curve.distanceMax(p1, p2);
+	}
+
+	public boolean getTrace() {
+		return curve.getTrace();
+	}
+
+	public boolean isClosedPath() {
+		return curve.isClosedPath();
+	}
+
+	public boolean isFunctionInX() {
+		return curve.isFunctionInX();
+	}
+
+	public GeoElement toGeoElement() {
+		return curve.toGeoElement();
+	}
+
+}
@@ -0,0 +1,145 @@
+package org.geogebra.common.euclidian.plot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.geogebra.common.euclidian.plot.CurvePlotter.Gap;
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.MyPoint;
+import org.geogebra.common.kernel.Matrix.CoordSys;
+import org.geogebra.common.util.Cloner;
+
+/**
+ * Path plotter that remembers all calls so that they can be replayed on
+ * another path plotter later, e.g. after parts of a curve were sampled by
+ * different threads.
+ */
+final class RecordingPathPlotter implements PathPlotter {
+
+	private static final int LINE_TO = 0, MOVE_TO = 1, CORNER = 2,
+			CORNER_AT = 3, FIRST_POINT = 4, END_PLOT = 5;
+
+	private final int dim;
+	private final ArrayList<double[]> positions = new ArrayList<double[]>();
+	private final ArrayList<Gap> gaps = new ArrayList<Gap>();
+	private int[] ops = new int[64];
+	private int size = 0;
+
+	/**
+	 * @param dim
+	 *            dimension of points
+	 */
+	RecordingPathPlotter(int dim) {
+		this.dim = dim;
+	}
+
+	private void add(int op, double[] pos) {
+		if (size == ops.length) {
+			int[] bigger = new int[ops.length * 2];
+			System.arraycopy(ops, 0, bigger, 0, size);
+			ops = bigger;
+		}
+		ops[size++] = op;
+		if (pos != null) {
+			positions.add(Cloner.clone(pos));
+		}
+	}
+
+	/**
+	 * @return last recorded position, i.e. where the path ends; null if
+	 *         nothing was recorded
+	 */
+	double[] getEnd() {
+		return positions.isEmpty() ? null : positions.get(positions.size() - 1);
+	}
+
+	/**
+	 * Repeats all recorded calls in the same order. When the recorded path
+	 * starts where the previous one ended, its first point is skipped, so
+	 * that the paths are joined without a gap as in a sequential plot.
+	 * Otherwise the first point is added with the recorded gap.
+	 * 
+	 * @param gp
+	 *            target
+	 * @param start
+	 *            end of the path recorded before this one, may be null
+	 */
+	void replay(PathPlotter gp, double[] start) {
+		int pos = 0, gap = 0;
+		for (int i = 0; i < size; i++) {
+			switch (ops[i]) {
+			case LINE_TO:
+				gp.lineTo(positions.get(pos++));
+				break;
+			case MOVE_TO:
+				gp.moveTo(positions.get(pos++));
+				break;
+			case CORNER:
+				gp.corner();
+				break;
+			case CORNER_AT:
+				gp.corner(positions.get(pos++));
+				break;
+			case FIRST_POINT:
+				double[] first = positions.get(pos++);
+				Gap firstGap = gaps.get(gap++);
+				if (i > 0 || start == null || !Arrays.equals(start, first)) {
+					gp.firstPoint(first, firstGap);
+				}
+				break;
+			case END_PLOT:
+				gp.endPlot();
+				break;
+			}
+		}
+	}
+
+	public void drawTo(double[] pos, boolean lineTo) {
+		add(lineTo ? LINE_TO : MOVE_TO, pos);
+	}
+
+	public void lineTo(double[] pos) {
+		add(LINE_TO, pos);
+	}
+
+	public void moveTo(double[] pos) {
+		add(MOVE_TO, pos);
+	}
+
+	public void corner() {
+		add(CORNER, null);
+	}
+
+	public void corner(double[] pos) {
+		add(CORNER_AT, pos);
+	}
+
+	public void firstPoint(double[] pos, Gap moveToAllowed) {
+		gaps.add(moveToAllowed);
+		add(FIRST_POINT, pos);
+	}
+
+	public double[] newDoubleArray() {
+		return new double[dim];
+	}
+
+	public boolean copyCoords(MyPoint point, double[] ret, CoordSys sys) {
+		ret[0] = point.x;
+		ret[1] = point.y;
+		if (ret.length > 2) {
+			ret[2] = point.getZ();
+		} else if (!Kernel.isZero(point.getZ())) {
+			return false;
+		}
+		return true;
+	}
+
+	public void endPlot() {
+		add(END_PLOT, null);
+	}
+
+	public boolean supports(CoordSys sys) {
+		return sys == null;
+	}
+
+}
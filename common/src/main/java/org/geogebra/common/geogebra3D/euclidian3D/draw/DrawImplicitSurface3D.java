@@ -6,10 +6,8 @@ import org.geogebra.common.geogebra3D.euclidian3D.Hitting;
 import org.geogebra.common.geogebra3D.euclidian3D.openGL.Manager;
 import org.geogebra.common.geogebra3D.euclidian3D.openGL.PlotterSurface;
 import org.geogebra.common.geogebra3D.euclidian3D.openGL.Renderer;
-import org.geogebra.common.geogebra3D.kernel3D.geos.GeoTriangulatedSurface3D;
-import org.geogebra.common.geogebra3D.kernel3D.geos.GeoTriangulatedSurface3D.SurfaceMover;
-import org.geogebra.common.geogebra3D.kernel3D.geos.GeoTriangulatedSurface3D.Triangle;
 import org.geogebra.common.geogebra3D.kernel3D.implicit3D.GeoImplicitSurface;
+import org.geogebra.common.geogebra3D.kernel3D.implicit3D.GeoImplicitSurface.TriangleBlock;
 import org.geogebra.common.kernel.geos.GeoElement;
 import org.geogebra.common.util.MyMath;
 
@@ -65,10 +63,9 @@ public class DrawImplicitSurface3D extends Drawable3DSurfaces {
 		geo.updateSurface(new double[] { v3d.xmin, v3d.xmax,
 				v3d.ymin, v3d.ymax, v3d.getZmin(), v3d.getZmax(),
 				v3d.getXscale(), v3d.getYscale(), v3d.getZscale() });
-		GeoTriangulatedSurface3D surf = geo.getSurface3D();
-		SurfaceMover surfaceMover = surf.getSurfaceMover();
+		int triangles = geo.getTriangleCount();
 
-		if (!surfaceMover.hasNext()) {
+		if (triangles == 0) {
 			setSurfaceIndex(-1);
 			setGeometryIndex(-1);
 			return true;
@@ -79,12 +76,17 @@ public class DrawImplicitSurface3D extends Drawable3DSurfaces {
 
 		s.start(getReusableSurfaceIndex());
 
-		s.startTriangles();
-		 while (surfaceMover.hasNext()) {
-			Triangle tri = surfaceMover.next();
-			s.triangle(tri.v1, tri.v2, tri.v3, tri.n1, tri.n2, tri.n3);
-		 }
-		s.endGeometry();
+		// write vertices of all blocks directly to the buffers
+		s.startTriangles(3 * triangles);
+		for (TriangleBlock block : geo.getTriangleBlocks()) {
+			double[] data = block.getData();
+			int length = block.getLength();
+			for (int i = 0; i < length; i += TriangleBlock.STRIDE) {
+				s.normalDirect(data[i + 3], data[i + 4], data[i + 5]);
+				s.vertexDirect(data[i], data[i + 1], data[i + 2]);
+			}
+		}
+		s.endGeometryDirect();
 		setSurfaceIndex(s.end());
 
 		return true;
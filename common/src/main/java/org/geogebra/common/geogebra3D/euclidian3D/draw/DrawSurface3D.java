@@ -1,5 +1,7 @@
 package org.geogebra.common.geogebra3D.euclidian3D.draw;
 
+import java.util.ArrayList;
+
 import org.geogebra.common.euclidian.EuclidianController;
 import org.geogebra.common.geogebra3D.euclidian3D.EuclidianView3D;
 import org.geogebra.common.geogebra3D.euclidian3D.Hitting;
@@ -19,6 +21,8 @@ import org.geogebra.common.kernel.kernelND.SurfaceEvaluable;
 import org.geogebra.common.kernel.kernelND.SurfaceEvaluable.LevelOfDetail;
 import org.geogebra.common.main.Feature;
 import org.geogebra.common.plugin.EuclidianStyleConstants;
+import org.geogebra.common.util.ParallelExecutor;
+import org.geogebra.common.util.debug.GeoGebraProfiler;
 import org.geogebra.common.util.debug.Log;
 
 /**
@@ -90,6 +94,23 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 	/** Current culling box - set to view3d.(x|y|z)(max|min) */
 	private double[] cullingBox = new double[6];
 
+	/** minimal number of corners to split for evaluating them in parallel */
+	private static final int MIN_PARALLEL_CORNERS = 16;
+
+	/**
+	 * one evaluator per thread, null if the surface can't be evaluated in
+	 * parallel
+	 */
+	private IndependentSurface[] evaluators;
+	/** whether new corners are evaluated later, see evaluateRootMesh() */
+	private boolean deferEvaluation;
+	/** root mesh points, by index in corner list */
+	private Samples rootSamples;
+	/** points of splits evaluated ahead, by index in the split batch */
+	private Samples[] splitSamples = new Samples[0];
+	/** number of points evaluated by other threads in this update */
+	private int prefetchedPoints;
+
 	/**
 	 * common constructor
 	 * 
@@ -265,6 +286,8 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 		}
 		
 		boolean drawOccured = false;
+		long start = System.currentTimeMillis();
+		prefetchedPoints = 0;
 
 		if (drawFromScratch){
 			
@@ -273,6 +296,7 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 			if (levelOfDetail == LevelOfDetail.QUALITY && splitsStartedNotFinished){
 				draw();
 				drawOccured = true;
+				start = System.currentTimeMillis();
 			}
 			
 			// maybe set to null after redefine
@@ -446,8 +470,14 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 				vMax = vBorderMax - dv;
 			}
 
+			// root mesh points are evaluated all at once, in parallel if
+			// possible
+			evaluators = createEvaluators();
+			deferEvaluation = evaluators != null;
 			firstCorner = createRootMesh(uBorderMin, uMax, uBorderMax, uN,
 					vBorderMin, vMax, vBorderMax, vN);
+			deferEvaluation = false;
+			evaluateRootMesh();
 
 			// split root mesh as start
 			currentSplitIndex = 0;
@@ -455,6 +485,7 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 			nextSplitIndex = 0;
 			drawListIndex = 0;
 			notDrawn = 0;
+			prefetchRootMesh(firstCorner);
 			splitRootMesh(firstCorner);
 			debug("\nnot drawn after split root mesh: " + notDrawn);
 				
@@ -489,6 +520,9 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 
 		splitsStartedNotFinished = (currentSplitIndex - currentSplitStoppedIndex) + nextSplitIndex > 0;
 
+		GeoGebraProfiler.addSurfaceMesh(System.currentTimeMillis() - start,
+				cornerListIndex, prefetchedPoints);
+
 		
 		
 		
@@ -974,7 +1008,11 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 			nextSplitIndex = 0;
 			currentSplitStoppedIndex = 0;
 		}
-		
+
+		// each split or draw counts at least once in loopSplitIndex
+		prefetchSplits(currentSplit, currentSplitStoppedIndex, Math.min(
+				currentSplitIndex, currentSplitStoppedIndex
+						+ maxSplitsInOneUpdate - loopSplitIndex));
 		
 		while (currentSplitStoppedIndex < currentSplitIndex && loopSplitIndex < maxSplitsInOneUpdate) {
 			currentSplit[currentSplitStoppedIndex].split(false);
@@ -1001,6 +1039,283 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 
 	}
 
+	/**
+	 * @return one evaluator per thread, null if the surface can't be
+	 *         evaluated in parallel
+	 */
+	private IndependentSurface[] createEvaluators() {
+		ParallelExecutor executor = ParallelExecutor.prototype;
+		if (!executor.isParallel()) {
+			return null;
+		}
+		IndependentSurface[] ret = new IndependentSurface[executor
+				.getParallelism()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = IndependentSurface.create(surfaceGeo);
+			if (ret[i] == null) {
+				return null;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Evaluates the corners created while deferEvaluation was set
+	 */
+	private void evaluateRootMesh() {
+		if (rootSamples == null || rootSamples.size == 0) {
+			return;
+		}
+		runTasks(null, 0, rootSamples.size);
+		// root mesh starts the corner list
+		for (int k = 0; k < rootSamples.size; k++) {
+			cornerList[k].setEvaluated(rootSamples, k);
+		}
+		rootSamples.size = 0;
+	}
+
+	/**
+	 * Evaluates ahead the points needed to split the cells of the root mesh
+	 * 
+	 * @param first
+	 *            first corner of the root mesh
+	 */
+	private void prefetchRootMesh(Corner first) {
+		if (evaluators == null) {
+			return;
+		}
+		ArrayList<Corner> cells = new ArrayList<Corner>();
+		for (Corner row = first; row.a != null; row = row.a) {
+			for (Corner current = row; current.l != null; current = current.l) {
+				cells.add(current);
+			}
+		}
+		prefetchSplits(cells.toArray(new Corner[cells.size()]), 0,
+				cells.size());
+	}
+
+	/**
+	 * Evaluates ahead, in parallel, the points needed by corners that will
+	 * be split. The mesh itself is still updated in the order of the
+	 * corners, so the result doesn't depend on the number of threads.
+	 * 
+	 * @param corners
+	 *            corners
+	 * @param from
+	 *            first corner index (included)
+	 * @param to
+	 *            last corner index (excluded)
+	 */
+	private void prefetchSplits(Corner[] corners, int from, int to) {
+		if (evaluators == null || to - from < MIN_PARALLEL_CORNERS) {
+			return;
+		}
+		if (splitSamples.length < to - from) {
+			Samples[] tmp = new Samples[to - from];
+			System.arraycopy(splitSamples, 0, tmp, 0, splitSamples.length);
+			for (int i = splitSamples.length; i < tmp.length; i++) {
+				tmp[i] = new Samples();
+			}
+			splitSamples = tmp;
+		}
+		runTasks(corners, from, to);
+	}
+
+	private void runTasks(Corner[] corners, int from, int to) {
+		ArrayList<EvaluationTask> tasks = new ArrayList<EvaluationTask>();
+		int length = to - from;
+		for (int i = 0; i < evaluators.length; i++) {
+			int start = from + (int) ((long) length * i / evaluators.length);
+			int end = from
+					+ (int) ((long) length * (i + 1) / evaluators.length);
+			if (start < end) {
+				tasks.add(new EvaluationTask(evaluators[i], corners, from,
+						start, end));
+			}
+		}
+		ParallelExecutor.prototype.invokeAll(tasks);
+		for (EvaluationTask task : tasks) {
+			prefetchedPoints += task.evaluated;
+		}
+	}
+
+	/**
+	 * Evaluates points for root mesh or splits in one thread
+	 */
+	private class EvaluationTask implements Runnable {
+		private final IndependentSurface surface;
+		private final Corner[] corners;
+		private final int offset, from, to;
+		/** number of points evaluated */
+		int evaluated;
+
+		/**
+		 * @param surface
+		 *            evaluator owned by this task
+		 * @param corners
+		 *            corners to split, null for root mesh
+		 * @param offset
+		 *            index of first corner of the batch
+		 * @param from
+		 *            first index (included)
+		 * @param to
+		 *            last index (excluded)
+		 */
+		EvaluationTask(IndependentSurface surface, Corner[] corners,
+				int offset, int from, int to) {
+			this.surface = surface;
+			this.corners = corners;
+			this.offset = offset;
+			this.from = from;
+			this.to = to;
+		}
+
+		public void run() {
+			if (corners == null) {
+				evaluated = rootSamples.evaluate(surface, from, to);
+				return;
+			}
+			for (int i = from; i < to; i++) {
+				evaluated += corners[i].prefetchSplit(surface,
+						splitSamples[i - offset]);
+			}
+		}
+	}
+
+	/**
+	 * Points and normals evaluated by other threads before the mesh needs
+	 * them
+	 */
+	class Samples {
+		double[] u = new double[0], v = new double[0];
+		Coords3[] p = new Coords3[0], normal = new Coords3[0];
+		boolean[] normalDefined = new boolean[0];
+		int size;
+		/** corner whose split needs these points */
+		Corner owner;
+
+		/**
+		 * @param u1
+		 *            first parameter
+		 * @param v1
+		 *            second parameter
+		 */
+		void add(double u1, double v1) {
+			if (size == u.length) {
+				int length = Math.max(8, size * 2);
+				double[] newU = new double[length];
+				double[] newV = new double[length];
+				Coords3[] newP = new Coords3[length];
+				Coords3[] newNormal = new Coords3[length];
+				System.arraycopy(u, 0, newU, 0, size);
+				System.arraycopy(v, 0, newV, 0, size);
+				System.arraycopy(p, 0, newP, 0, size);
+				System.arraycopy(normal, 0, newNormal, 0, size);
+				for (int k = size; k < length; k++) {
+					newP[k] = newCoords3();
+					newNormal[k] = newCoords3();
+				}
+				u = newU;
+				v = newV;
+				p = newP;
+				normal = newNormal;
+				normalDefined = new boolean[length];
+			}
+			u[size] = u1;
+			v[size] = v1;
+			size++;
+		}
+
+		/**
+		 * @param u1
+		 *            first parameter
+		 * @param v1
+		 *            second parameter
+		 * @return index of the point for these parameters, -1 if none
+		 */
+		int indexOf(double u1, double v1) {
+			for (int k = 0; k < size; k++) {
+				if (u[k] == u1 && v[k] == v1) {
+					return k;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Evaluates points, and normals of points that will be kept in the
+		 * mesh
+		 * 
+		 * @param surface
+		 *            evaluator of the current thread
+		 * @param from
+		 *            first index (included)
+		 * @param to
+		 *            last index (excluded)
+		 * @return number of points evaluated
+		 */
+		int evaluate(IndependentSurface surface, int from, int to) {
+			for (int k = from; k < to; k++) {
+				surface.evaluatePoint(u[k], v[k], p[k]);
+				normalDefined[k] = p[k].isDefined() && inCullingBox(p[k])
+						&& surface.evaluateNormal(p[k], u[k], v[k], normal[k]);
+			}
+			return to - from;
+		}
+	}
+
+	/**
+	 * Same as evaluatePoint(u, v, p) for a point evaluated ahead
+	 * 
+	 * @param evaluated
+	 *            evaluated point
+	 * @param p
+	 *            current point of the corner
+	 * @return point for the corner
+	 */
+	protected Coords3 useEvaluatedPoint(Coords3 evaluated, Coords3 p) {
+		if (!evaluated.isDefined()) {
+			return Coords3.UNDEFINED;
+		}
+
+		updateBounds(evaluated);
+
+		if (!inCullingBox(evaluated)) {
+			return Coords3.UNDEFINED;
+		}
+
+		if (p == null || p.isFinalUndefined()) {
+			return evaluated.copyVector();
+		}
+		p.set(evaluated.getXd(), evaluated.getYd(), evaluated.getZd());
+		return p;
+	}
+
+	/**
+	 * Same as evaluateNormal(p, u, v, normal) for a normal evaluated ahead
+	 * 
+	 * @param samples
+	 *            evaluated points
+	 * @param k
+	 *            index of the point
+	 * @param normal
+	 *            current normal of the corner
+	 * @return normal for the corner
+	 */
+	protected Coords3 useEvaluatedNormal(Samples samples, int k,
+			Coords3 normal) {
+		if (!samples.normalDefined[k]) {
+			return Coords3.UNDEFINED;
+		}
+
+		Coords3 evaluated = samples.normal[k];
+		if (normal == null || normal.isFinalUndefined()) {
+			return evaluated.copyVector();
+		}
+		normal.set(evaluated.getXd(), evaluated.getYd(), evaluated.getZd());
+		return normal;
+	}
+
 	private Coords3 evaluatedPoint = newCoords3();
 	private Coords3 evaluatedNormal = newCoords3();
 	
@@ -1097,6 +1412,8 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 		boolean isNotEnd;
 		Corner a, l; // above, left
 		int id;
+		/** points for next split evaluated ahead, see prefetchSplits() */
+		Samples prefetched;
 		
 		public Corner(int id) {
 			this.id = id;
@@ -1119,6 +1436,41 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 			isNotEnd = true;
 			a = null;
 			l = null;
+			prefetched = null;
+		}
+
+		/**
+		 * set parameters, point and normal are set later by setEvaluated()
+		 * 
+		 * @param u
+		 *            first parameter
+		 * @param v
+		 *            second parameter
+		 */
+		public void setDeferred(double u, double v) {
+			this.u = u;
+			this.v = v;
+			isNotEnd = true;
+			a = null;
+			l = null;
+			prefetched = null;
+		}
+
+		/**
+		 * set point and normal evaluated ahead
+		 * 
+		 * @param samples
+		 *            evaluated points
+		 * @param k
+		 *            index of the point for this corner's parameters
+		 */
+		public void setEvaluated(Samples samples, int k) {
+			p = useEvaluatedPoint(samples.p[k], p);
+			if (p.isFinalUndefined()) {
+				normal = Coords3.UNDEFINED;
+			} else {
+				normal = useEvaluatedNormal(samples, k, normal);
+			}
 		}
 		
 		public void set(Corner c) {
@@ -1142,6 +1494,7 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 			isNotEnd = true;
 			a = null;
 			l = null;
+			prefetched = null;
 		}
 		
 		/**
@@ -2100,6 +2453,12 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 		}
 
 		private void split(Corner subLeft, Corner left, Corner subAbove, Corner above) {
+			Samples samples = prefetched;
+			if (samples != null && samples.owner != this) {
+				// reused for another corner
+				samples = null;
+			}
+			prefetched = null;
 			// new corners
 			double um = (u + left.u) / 2;
 			double vm = (v + above.v) / 2;
@@ -2113,7 +2472,7 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 			if (subAbove != null) {
 				e = subAbove;
 			} else {
-				e = newCorner(u, vm);
+				e = newSplitCorner(samples, u, vm);
 				// new neighbors
 				this.a = e;
 				e.a = above;
@@ -2122,19 +2481,19 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 			if (subLeft != null) {
 				s = subLeft;
 			} else {
-				s = newCorner(um, v);
+				s = newSplitCorner(samples, um, v);
 				// new neighbors
 				this.l = s;
 				s.l = left;
 			}
-			Corner m = newCorner(um, vm);
+			Corner m = newSplitCorner(samples, um, vm);
 			s.a = m;
 			e.l = m;
-			Corner n = newCorner(um, above.v);
+			Corner n = newSplitCorner(samples, um, above.v);
 			n.l = above.l;
 			above.l = n;
 			m.a = n;
-			Corner w = newCorner(left.u, vm);
+			Corner w = newSplitCorner(samples, left.u, vm);
 			w.a = left.a;
 			left.a = w;
 			m.l = w;
@@ -2147,6 +2506,88 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 			loopSplitIndex += 4;
 		}
 
+		/**
+		 * @param samples
+		 *            points evaluated ahead, may be null
+		 * @param u1
+		 *            first parameter
+		 * @param v1
+		 *            second parameter
+		 * @return new corner for parameters u1, v1
+		 */
+		private Corner newSplitCorner(Samples samples, double u1, double v1) {
+			int k = samples == null ? -1 : samples.indexOf(u1, v1);
+			if (k < 0) {
+				return newCorner(u1, v1);
+			}
+			Corner c = newCorner();
+			c.setDeferred(u1, v1);
+			c.setEvaluated(samples, k);
+			return c;
+		}
+
+		/**
+		 * Evaluates the points needed by split(boolean) if this corner's cell
+		 * is defined and will be split. Only reads the mesh, so it can be
+		 * called by another thread while the mesh is not updated.
+		 * 
+		 * @param surface
+		 *            evaluator of the current thread
+		 * @param samples
+		 *            points
+		 * @return number of points evaluated
+		 */
+		int prefetchSplit(IndependentSurface surface, Samples samples) {
+			samples.size = 0;
+			samples.owner = null;
+
+			// same cell as split(boolean)
+			Corner left, above, subLeft, subAbove;
+			if (l.a == null) {
+				left = l.l;
+				subLeft = l;
+			} else {
+				left = l;
+				subLeft = null;
+			}
+			if (a.l == null) {
+				above = a.a;
+				subAbove = a;
+			} else {
+				above = a;
+				subAbove = null;
+			}
+
+			if (p.isFinalUndefined() || left.p.isFinalUndefined()
+					|| above.p.isFinalUndefined()
+					|| left.a.p.isFinalUndefined()) {
+				// boundary of the surface: points depend on each other
+				return 0;
+			}
+			double d = getDistance(this, left, above, left.a);
+			if (!Double.isInfinite(d)
+					&& (d <= maxRWDistanceNoAngleCheck || isAngleOK(maxBend,
+							this, left, above, left.a))) {
+				// will be drawn
+				return 0;
+			}
+
+			double um = subLeft == null ? (u + left.u) / 2 : subLeft.u;
+			double vm = subAbove == null ? (v + above.v) / 2 : subAbove.v;
+			if (subAbove == null) {
+				samples.add(u, vm);
+			}
+			if (subLeft == null) {
+				samples.add(um, v);
+			}
+			samples.add(um, vm);
+			samples.add(um, above.v);
+			samples.add(left.u, vm);
+			samples.owner = this;
+			prefetched = samples;
+			return samples.evaluate(surface, 0, samples.size);
+		}
+
 		private void addToDrawList(Corner end, Corner... corners) {
 
 			CornerAndCenter cc = drawList[drawListIndex];
@@ -2895,6 +3336,15 @@ public class DrawSurface3D extends Drawable3DSurfaces {
 	 * @return new corner calculated for parameters u, v
 	 */
 	protected Corner newCorner(double u, double v) {
+		if (deferEvaluation) {
+			Corner c = newCorner();
+			c.setDeferred(u, v);
+			if (rootSamples == null) {
+				rootSamples = new Samples();
+			}
+			rootSamples.add(u, v);
+			return c;
+		}
 		Corner c = cornerList[cornerListIndex];
 		if (c == null) {
 			c = new Corner(u, v, cornerListIndex);
@@ -0,0 +1,210 @@
+package org.geogebra.common.geogebra3D.euclidian3D.draw;
+
+import org.geogebra.common.geogebra3D.kernel3D.geos.GeoSurfaceCartesian3D;
+import org.geogebra.common.kernel.Matrix.Coords;
+import org.geogebra.common.kernel.Matrix.Coords3;
+import org.geogebra.common.kernel.Matrix.CoordsDouble3;
+import org.geogebra.common.kernel.arithmetic.EvaluationContext;
+import org.geogebra.common.kernel.arithmetic.FunctionNVar;
+import org.geogebra.common.kernel.geos.GeoFunctionNVar;
+import org.geogebra.common.kernel.kernelND.SurfaceEvaluable;
+
+/**
+ * Surface that evaluates points and normals of another surface through its
+ * own evaluation contexts and scratch coords, so that several parts of the
+ * mesh can be evaluated by different threads. Use one instance per thread.
+ * Results are the same as SurfaceEvaluable.evaluatePoint() and
+ * SurfaceEvaluable.evaluateNormal().
+ */
+final class IndependentSurface {
+
+	/** coordinate functions; one function for graphs z = f(x, y) */
+	private final EvaluationContext[] coords;
+	/** derivatives of coordinate functions for u and v */
+	private final EvaluationContext[] du, dv;
+	private final double uMin, uMax, vMin, vMax;
+	private final double[] tmp = new double[2];
+	private final Coords der1, der2, normal = new Coords(3);
+	private final CoordsDouble3 p1 = new CoordsDouble3(),
+			p2 = new CoordsDouble3();
+
+	private IndependentSurface(EvaluationContext[] coords,
+			EvaluationContext[] du, EvaluationContext[] dv, double uMin,
+			double uMax, double vMin, double vMax) {
+		this.coords = coords;
+		this.du = du;
+		this.dv = dv;
+		this.uMin = uMin;
+		this.uMax = uMax;
+		this.vMin = vMin;
+		this.vMax = vMax;
+		if (coords.length == 1) {
+			der1 = new Coords(1, 0, 0);
+			der2 = new Coords(0, 1, 0);
+		} else {
+			der1 = new Coords(3);
+			der2 = new Coords(3);
+		}
+	}
+
+	/**
+	 * Derivatives of the surface have to be set before, see
+	 * SurfaceEvaluable.setDerivatives()
+	 *
+	 * @param surface
+	 *            surface
+	 * @return evaluator of the surface that does not block other threads,
+	 *         null if the surface does not support it
+	 */
+	static IndependentSurface create(SurfaceEvaluable surface) {
+		// subclasses may evaluate differently
+		if (surface.getClass() == GeoFunctionNVar.class) {
+			GeoFunctionNVar f = (GeoFunctionNVar) surface;
+			if (f.getVarNumber() != 2 || f.isBooleanFunction()) {
+				return null;
+			}
+			EvaluationContext fun = f.getFunction().createEvaluationContext();
+			EvaluationContext fu = create(f.getDerivative(0));
+			EvaluationContext fv = create(f.getDerivative(1));
+			if (!fun.isIndependent() || fu == null || fv == null) {
+				return null;
+			}
+			return new IndependentSurface(new EvaluationContext[] { fun },
+					new EvaluationContext[] { fu },
+					new EvaluationContext[] { fv }, f.getMinParameter(0),
+					f.getMaxParameter(0), f.getMinParameter(1),
+					f.getMaxParameter(1));
+		}
+		if (surface.getClass() == GeoSurfaceCartesian3D.class) {
+			GeoSurfaceCartesian3D s = (GeoSurfaceCartesian3D) surface;
+			FunctionNVar[] fun = s.getFunctions();
+			if (fun == null || fun.length != 3) {
+				return null;
+			}
+			EvaluationContext[] coords = new EvaluationContext[3];
+			EvaluationContext[] du = new EvaluationContext[3];
+			EvaluationContext[] dv = new EvaluationContext[3];
+			for (int i = 0; i < 3; i++) {
+				coords[i] = fun[i].createEvaluationContext();
+				du[i] = create(s.getDerivative(0, i));
+				dv[i] = create(s.getDerivative(1, i));
+				if (!coords[i].isIndependent() || du[i] == null
+						|| dv[i] == null) {
+					return null;
+				}
+			}
+			// no domain check for parametric surfaces
+			return new IndependentSurface(coords, du, dv, Double.NaN,
+					Double.NaN, Double.NaN, Double.NaN);
+		}
+		return null;
+	}
+
+	private static EvaluationContext create(FunctionNVar fun) {
+		if (fun == null) {
+			return null;
+		}
+		EvaluationContext context = fun.createEvaluationContext();
+		return context.isIndependent() ? context : null;
+	}
+
+	/**
+	 * @param u
+	 *            first parameter
+	 * @param v
+	 *            second parameter
+	 * @param p
+	 *            point set for parameters u, v
+	 */
+	void evaluatePoint(double u, double v, Coords3 p) {
+		tmp[0] = u;
+		tmp[1] = v;
+		if (coords.length == 1) {
+			p.set(u, v, evaluateGraph(u, v));
+			return;
+		}
+		p.set(coords[0].evaluate(tmp), coords[1].evaluate(tmp),
+				coords[2].evaluate(tmp));
+	}
+
+	private double evaluateGraph(double u, double v) {
+		// same domain check as GeoFunctionNVar
+		if (!Double.isNaN(uMin) && !Double.isNaN(uMax)) {
+			if (u < uMin || u > uMax || v < vMin || v > vMax) {
+				return Double.NaN;
+			}
+		}
+		return coords[0].evaluate(tmp);
+	}
+
+	/**
+	 * @param p
+	 *            point where the normal is computed
+	 * @param u
+	 *            first parameter
+	 * @param v
+	 *            second parameter
+	 * @param n
+	 *            normal
+	 * @return true if the normal is defined
+	 */
+	boolean evaluateNormal(Coords3 p, double u, double v, Coords3 n) {
+		tmp[0] = u;
+		tmp[1] = v;
+		if (coords.length == 1) {
+			double val = du[0].evaluate(tmp);
+			if (Double.isNaN(val)) {
+				return setNormalFromNeighbours(p, u, v, n);
+			}
+			der1.setZ(val);
+			val = dv[0].evaluate(tmp);
+			if (Double.isNaN(val)) {
+				return setNormalFromNeighbours(p, u, v, n);
+			}
+			der2.setZ(val);
+		} else {
+			for (int i = 0; i < 3; i++) {
+				double val = du[i].evaluate(tmp);
+				if (Double.isNaN(val)) {
+					return setNormalFromNeighbours(p, u, v, n);
+				}
+				der1.set(i + 1, val);
+				val = dv[i].evaluate(tmp);
+				if (Double.isNaN(val)) {
+					return setNormalFromNeighbours(p, u, v, n);
+				}
+				der2.set(i + 1, val);
+			}
+		}
+		normal.setCrossProduct(der1, der2);
+		n.setNormalizedIfPossible(normal);
+		return true;
+	}
+
+	private boolean setNormalFromNeighbours(Coords3 p, double u, double v,
+			Coords3 n) {
+		evaluatePoint(u + SurfaceEvaluable.NUMERICAL_DELTA, v, p1);
+		if (!p1.isDefined()) {
+			return false;
+		}
+		evaluatePoint(u, v + SurfaceEvaluable.NUMERICAL_DELTA, p2);
+		if (!p2.isDefined()) {
+			return false;
+		}
+		if (coords.length == 1) {
+			der1.setZ((p1.z - p.getZd()) / SurfaceEvaluable.NUMERICAL_DELTA);
+			der2.setZ((p2.z - p.getZd()) / SurfaceEvaluable.NUMERICAL_DELTA);
+		} else {
+			der1.setX(p1.x - p.getXd());
+			der1.setY(p1.y - p.getYd());
+			der1.setZ(p1.z - p.getZd());
+			der2.setX(p2.x - p.getXd());
+			der2.setY(p2.y - p.getYd());
+			der2.setZ(p2.z - p.getZd());
+		}
+		normal.setCrossProduct(der1, der2);
+		n.setNormalizedIfPossible(normal);
+		return true;
+	}
+
+}
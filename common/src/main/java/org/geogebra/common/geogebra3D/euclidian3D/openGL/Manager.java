@@ -428,13 +428,25 @@ abstract public class Manager {
 	 * @param v
 	 */
 	protected void vertexDirect(Coords3 v) {
+		vertexToScaleDirect(v.getXf(), v.getYf(), v.getZf());
+	}
+
+	/**
+	 * scale vertex and draw it (direct buffer mode)
+	 * 
+	 * @param x
+	 *            x
+	 * @param y
+	 *            y
+	 * @param z
+	 *            z
+	 */
+	protected void vertexToScaleDirect(double x, double y, double z) {
 		if (view3D.getApplication().has(Feature.DIFFERENT_AXIS_RATIO_3D)) {
-			vertexDirect(v.getXf() * getXscale(), v.getYf() * getYscale(),
-					v.getZf() * getZscale());
+			vertexDirect(x * getXscale(), y * getYscale(), z * getZscale());
 		} else {
-			vertexDirect(v.getXf(), v.getYf(), v.getZf());
+			vertexDirect(x, y, z);
 		}
-
 	}
 
 	/**
@@ -338,6 +338,35 @@ public class PlotterSurface {
 		manager.normalDirect(n0);
 	}
 
+	/**
+	 * vertex at (x, y, z) (direct buffer mode); each vertex is used by one
+	 * triangle only, in the order they are given
+	 * 
+	 * @param x
+	 *            x
+	 * @param y
+	 *            y
+	 * @param z
+	 *            z
+	 */
+	public void vertexDirect(double x, double y, double z) {
+		manager.vertexToScaleDirect(x, y, z);
+	}
+
+	/**
+	 * normal (x, y, z) for next vertex (direct buffer mode)
+	 * 
+	 * @param x
+	 *            x
+	 * @param y
+	 *            y
+	 * @param z
+	 *            z
+	 */
+	public void normalDirect(double x, double y, double z) {
+		manager.normalDirect(x, y, z);
+	}
+
 	public void endGeometryDirect() {
 		manager.endGeometryDirect();
 	}
@@ -2162,6 +2162,17 @@ public class PlotterSurfaceElements extends PlotterSurface {
 		manager.normal(n.getXf(), n.getYf(), n.getZf());
 	}
 
+	@Override
+	public void vertexDirect(double x, double y, double z) {
+		manager.vertexToScale(x, y, z);
+		drawIndex(arrayIndex);
+	}
+
+	@Override
+	public void normalDirect(double x, double y, double z) {
+		manager.normal(x, y, z);
+	}
+
 	@Override
 	public void endGeometryDirect() {
 		arrayI.rewind();
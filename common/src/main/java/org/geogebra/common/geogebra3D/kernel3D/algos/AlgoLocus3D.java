@@ -203,8 +203,8 @@ public class AlgoLocus3D extends AlgoLocusND<MyPoint3D> {
 	}
 
 	@Override
-	protected MyPoint3D[] createQCopyCache(int length) {
-		return new MyPoint3D[length];
+	protected void setQCopy(GeoPointND point, MyPoint3D cached) {
+		point.setCoords(cached.getX(), cached.getY(), cached.getZ(), 1.0);
 	}
 
 	@Override
@@ -1,7 +1,10 @@
 package org.geogebra.common.geogebra3D.kernel3D.implicit3D;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
 import org.geogebra.common.geogebra3D.kernel3D.geos.GeoElement3D;
-import org.geogebra.common.geogebra3D.kernel3D.geos.GeoTriangulatedSurface3D;
 import org.geogebra.common.kernel.Construction;
 import org.geogebra.common.kernel.Kernel;
 import org.geogebra.common.kernel.StringTemplate;
@@ -10,6 +13,7 @@ import org.geogebra.common.kernel.Matrix.Coords3;
 import org.geogebra.common.kernel.Matrix.CoordsDouble3;
 import org.geogebra.common.kernel.arithmetic.Equation;
 import org.geogebra.common.kernel.arithmetic.EquationValue;
+import org.geogebra.common.kernel.arithmetic.EvaluationContext;
 import org.geogebra.common.kernel.arithmetic.ExpressionNode;
 import org.geogebra.common.kernel.arithmetic.FunctionNVar;
 import org.geogebra.common.kernel.arithmetic.FunctionVariable;
@@ -26,6 +30,7 @@ import org.geogebra.common.kernel.kernelND.GeoLineND;
 import org.geogebra.common.kernel.kernelND.GeoPointND;
 import org.geogebra.common.plugin.GeoClass;
 import org.geogebra.common.plugin.Operation;
+import org.geogebra.common.util.ParallelExecutor;
 import org.geogebra.common.util.debug.Log;
 
 /**
@@ -36,13 +41,24 @@ public class GeoImplicitSurface extends GeoElement3D implements
 		GeoImplicitSurfaceND, EquationValue {
 	private static final boolean DEBUG = false;
 	private static final Coords3 DUMMY_NORMAL = new CoordsDouble3(0, 0, 1.0);
+	private static final int AVE_PXL = 40;
+	private static final int MAX_SUB_DIV = 25;
+	/** number of cells per block along each axis */
+	private static final int BLOCK_SIZE = 5;
+	/** block indices must fit in 21 bits for the keys of blocks */
+	private static final int MAX_BLOCK_INDEX = 1 << 20;
 	private boolean defined;
 	private boolean hasDerivatives;
 	private double[] evals = new double[3];
 	private double[] normEval = new double[3];
 	private GeoFunctionNVar expression;
-	private GeoTriangulatedSurface3D surface3D;
 	private FunctionNVar[] derivFunc = new FunctionNVar[3];
+	/** blocks of the surface by position, see updateSurface(double[]) */
+	private HashMap<Long, TriangleBlock> blocks = new HashMap<Long, TriangleBlock>();
+	private final ArrayList<TriangleBlock> visibleBlocks = new ArrayList<TriangleBlock>();
+	private double cellX = Double.NaN;
+	private double cellY = Double.NaN;
+	private double cellZ = Double.NaN;
 
 	/**
 	 * Create an empty GeoImplicitSurface
@@ -54,8 +70,6 @@ public class GeoImplicitSurface extends GeoElement3D implements
 		super(cons);
 		setAlphaValue(0.75f); // TODO remove that when construction default will
 		// be created
-		this.surface3D = new GeoTriangulatedSurface3D(cons);
-		cons.removeFromConstructionList(surface3D);
 	}
 
 	/**
@@ -83,7 +97,6 @@ public class GeoImplicitSurface extends GeoElement3D implements
 		super(cons);
 		setAlphaValue(0.75f); // TODO remove that when construction default will
 								// be created
-		this.surface3D = new GeoTriangulatedSurface3D(cons);
 		fromEquation(eqn);
 	}
 	
@@ -134,6 +147,7 @@ public class GeoImplicitSurface extends GeoElement3D implements
 		expression = new GeoFunctionNVar(cons, fun);
 		defined = expression.isDefined();
 		setDerivatives(x, y, z);
+		blocks.clear();
 		updateSurface();
 	}
 
@@ -270,13 +284,6 @@ public class GeoImplicitSurface extends GeoElement3D implements
 		return expression.evaluate(xyz);
 	}
 
-	/**
-	 * @return Surface3D
-	 */
-	public GeoTriangulatedSurface3D getSurface3D() {
-		return surface3D;
-	}
-
 	@Override
 	public Coords getLabelPosition() {
 		return Coords.VZ;
@@ -302,24 +309,190 @@ public class GeoImplicitSurface extends GeoElement3D implements
 	}
 
 	/**
-	 * force to re-evaluate the surface
+	 * force to re-evaluate the surface; parts of the previous surface that are
+	 * still in the bounds are kept if the grid size did not change
 	 * 
 	 * @param bounds
 	 *            surface bound : {xmin, xmax, ymin, ymax, zmin, zmax, xscale,
 	 *            yscale, zscale}
 	 */
 	public void updateSurface(double[] bounds) {
-		if (isDefined()) {
-			surface3D.clear();
-			MarchingCube m = new MarchingCube();
-			m.update(bounds);
+		if (!isDefined()) {
+			return;
+		}
+		double x1 = bounds[0], x2 = bounds[1], y1 = bounds[2], y2 = bounds[3],
+				z1 = bounds[4], z2 = bounds[5];
+		int sizeX = Math.min(MAX_SUB_DIV, pixels(x1, x2, bounds[6]) / AVE_PXL
+				+ 1);
+		int sizeY = Math.min(MAX_SUB_DIV, pixels(y1, y2, bounds[7]) / AVE_PXL
+				+ 1);
+		int sizeZ = Math.min(MAX_SUB_DIV, pixels(z1, z2, bounds[8]) / AVE_PXL
+				+ 1);
+		debug("{x:" + sizeX + ";y:" + sizeY + ";z:" + sizeZ + "}");
+
+		double fracX = (x2 - x1) / sizeX;
+		double fracY = (y2 - y1) / sizeY;
+		double fracZ = (z2 - z1) / sizeZ;
+		if (Kernel.isEqual(fracX, cellX, fracX * 1E-8)
+				&& Kernel.isEqual(fracY, cellY, fracY * 1E-8)
+				&& Kernel.isEqual(fracZ, cellZ, fracZ * 1E-8)) {
+			// same grid as before
+			fracX = cellX;
+			fracY = cellY;
+			fracZ = cellZ;
+		} else {
+			blocks.clear();
+			cellX = fracX;
+			cellY = fracY;
+			cellZ = fracZ;
+		}
+
+		// blocks start at multiples of their size, so that they stay the
+		// same when the view is moved
+		double ox = 0, oy = 0, oz = 0;
+		double bw = BLOCK_SIZE * fracX, bh = BLOCK_SIZE * fracY,
+				bd = BLOCK_SIZE * fracZ;
+		if (Math.max(Math.abs(x1), Math.abs(x2)) / bw >= MAX_BLOCK_INDEX
+				|| Math.max(Math.abs(y1), Math.abs(y2)) / bh >= MAX_BLOCK_INDEX
+				|| Math.max(Math.abs(z1), Math.abs(z2)) / bd >= MAX_BLOCK_INDEX) {
+			// too far from the origin: start blocks at the bounds, don't
+			// keep them
+			blocks.clear();
+			cellX = Double.NaN;
+			ox = x1;
+			oy = y1;
+			oz = z1;
+		}
+		int bx1 = (int) Math.floor((x1 - ox) / bw);
+		int bx2 = (int) Math.ceil((x2 - ox) / bw);
+		int by1 = (int) Math.floor((y1 - oy) / bh);
+		int by2 = (int) Math.ceil((y2 - oy) / bh);
+		int bz1 = (int) Math.floor((z1 - oz) / bd);
+		int bz2 = (int) Math.ceil((z2 - oz) / bd);
+
+		HashMap<Long, TriangleBlock> current = new HashMap<Long, TriangleBlock>();
+		ArrayList<TriangleBlock> toCompute = new ArrayList<TriangleBlock>();
+		visibleBlocks.clear();
+		for (int bz = bz1; bz < bz2; bz++) {
+			double[] zs = gridCoords(bz, fracZ, oz, z1, z2);
+			for (int by = by1; by < by2; by++) {
+				double[] ys = gridCoords(by, fracY, oy, y1, y2);
+				for (int bx = bx1; bx < bx2; bx++) {
+					double[] xs = gridCoords(bx, fracX, ox, x1, x2);
+					if (xs.length < 2 || ys.length < 2 || zs.length < 2) {
+						continue;
+					}
+					Long key = Long
+							.valueOf(((bx + (long) MAX_BLOCK_INDEX) << 42)
+									| ((by + (long) MAX_BLOCK_INDEX) << 21)
+									| (bz + (long) MAX_BLOCK_INDEX));
+					TriangleBlock block = blocks.get(key);
+					if (block == null || !block.hasGrid(xs, ys, zs)) {
+						block = new TriangleBlock(xs, ys, zs);
+						toCompute.add(block);
+					}
+					current.put(key, block);
+					visibleBlocks.add(block);
+				}
+			}
+		}
+		blocks = current;
+
+		ParallelExecutor executor = ParallelExecutor.prototype;
+		boolean parallel = executor.isParallel() && toCompute.size() > 1
+				&& canEvaluateInParallel();
+		ArrayList<MarchingCube> tasks = new ArrayList<MarchingCube>(
+				toCompute.size());
+		for (TriangleBlock block : toCompute) {
+			tasks.add(new MarchingCube(block, parallel));
+		}
+		if (parallel) {
+			executor.invokeAll(tasks);
+		} else {
+			for (MarchingCube task : tasks) {
+				task.run();
+			}
 		}
 	}
 
+	/**
+	 * @param block
+	 *            index of block along one axis
+	 * @param frac
+	 *            cell size
+	 * @param origin
+	 *            start of block 0
+	 * @param min
+	 *            lower bound
+	 * @param max
+	 *            upper bound
+	 * @return grid coordinates in the block, clipped to [min, max]
+	 */
+	private static double[] gridCoords(int block, double frac, double origin,
+			double min, double max) {
+		double[] coords = new double[BLOCK_SIZE + 1];
+		int n = 0;
+		for (int i = 0; i <= BLOCK_SIZE; i++) {
+			double c = Math.max(min, Math.min(max,
+					origin + (block * BLOCK_SIZE + i) * frac));
+			if (n == 0 || c > coords[n - 1]) {
+				coords[n++] = c;
+			}
+		}
+		if (n == coords.length) {
+			return coords;
+		}
+		double[] ret = new double[n];
+		System.arraycopy(coords, 0, ret, 0, n);
+		return ret;
+	}
+
+	private static int pixels(double c1, double c2, double scale) {
+		return (int) Math.ceil((Math.abs(c1 - c2) * scale));
+	}
+
+	/**
+	 * @return whether the function and its derivatives can be evaluated from
+	 *         several threads
+	 */
+	private boolean canEvaluateInParallel() {
+		if (!expression.getFunction().createEvaluationContext()
+				.isIndependent()) {
+			return false;
+		}
+		if (hasDerivatives) {
+			for (int i = 0; i < 3; i++) {
+				if (!derivFunc[i].createEvaluationContext().isIndependent()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return parts of the surface computed by the last update
+	 */
+	public ArrayList<TriangleBlock> getTriangleBlocks() {
+		return visibleBlocks;
+	}
+
+	/**
+	 * @return number of triangles computed by the last update
+	 */
+	public int getTriangleCount() {
+		int count = 0;
+		for (TriangleBlock block : visibleBlocks) {
+			count += block.getLength() / (3 * TriangleBlock.STRIDE);
+		}
+		return count;
+	}
+
 	/**
 	 * Force to re-evaluate the surface
 	 */
 	public void updateSurface() {
+		blocks.clear();
 		double[] bounds = new double[9];
 		double[] views = kernel.getViewBoundsForGeo(this);
 		bounds[0] = views[0];
@@ -384,22 +557,27 @@ public class GeoImplicitSurface extends GeoElement3D implements
 
 	public void dilate(NumberValue r, Coords S) {
 		expression.dilate3D(r, S);
+		blocks.clear();
 	}
 
 	public void translate(Coords v) {
 		expression.translate3D(v);
+		blocks.clear();
 	}
 
 	public void rotate(NumberValue r) {
 		expression.rotate(r);
+		blocks.clear();
 	}
 
 	public void rotate(NumberValue r, GeoPointND S) {
 		expression.rotate(r, S);
+		blocks.clear();
 	}
 
 	public void mirror(Coords Q) {
 		expression.mirror3D(Q);
+		blocks.clear();
 	}
 
 	public void mirror(GeoLineND g) {
@@ -448,325 +626,358 @@ public class GeoImplicitSurface extends GeoElement3D implements
 		return sb.toString();
 	}
 
-	private abstract class ImplicitSurface {
+	/**
+	 * Triangles for each configuration of signs at the vertices of a cube,
+	 * given by the edges containing their vertices
+	 */
+	private static final int[][] EDGE_TABLE = new int[][] { {}, // 0x00, 0xff
+			{ 0, 4, 3 }, // 0x01, 00000001
+			{ 0, 5, 1 }, // 0x02, 00000010
+			{ 1, 3, 4, 4, 5, 1 }, // 0x03, 00000011
+			{ 1, 2, 6 }, // 0x04, 00000100
+			{ 0, 4, 3, 1, 2, 6 }, // 0x05, 00000101
+			{ 6, 5, 0, 0, 2, 6 }, // 0x06, 00000110
+			{ 6, 5, 4, 6, 4, 3, 3, 2, 6 }, // 0x07, 0x00000111
+			{ 2, 3, 7 }, // 0x08, 00001000
+			{ 0, 4, 7, 7, 2, 0 }, // 0x09, 00001001
+			{ 2, 3, 7, 0, 5, 1 }, // 0x0A, 00001010
+			{ 5, 4, 7, 7, 2, 1, 1, 5, 7 }, // 0x0B, 00001011
+			{ 1, 3, 7, 7, 6, 1 }, // 0x0C, 0x00001100
+			{ 4, 7, 6, 6, 1, 0, 0, 4, 6 }, // 0x0D, 0x00001101
+			{ 7, 6, 5, 5, 0, 3, 3, 7, 5 }, // 0x0E, 0x00001110
+			{ 5, 4, 7, 7, 6, 5 }, // 0x0F, 00001111
+			{ 4, 8, 11 }, // 0x10, 00010000
+			{ 0, 8, 11, 0, 3, 11 }, // 0x11, 00010001
+			{ 4, 8, 11, 0, 1, 5 }, // 0x12, 00010010
+			{ 1, 3, 11, 1, 8, 11, 1, 8, 5 }, // 0x13, 00010011
+			{ 4, 8, 11, 1, 2, 6 }, // 0x14, 00010100
+			{ 0, 8, 11, 0, 3, 11, 1, 2, 6 }, // 0x15, 00010101
+			{ 4, 8, 11, 2, 6, 5, 5, 0, 2 }, // 0x16, 00010110
+			{ 8, 5, 11, 8, 10, 11, 5, 2, 3, 5, 2, 6 }, // 0x17, 000010111
+			{ 4, 8, 11, 2, 3, 7 }, // 0x18, 00011000
+			{ 0, 2, 8, 2, 8, 11, 11, 2, 7 }, // 0x19, 00011001
+			{ 4, 8, 11, 2, 3, 7, 0, 1, 5 }, // 0x1A, 00011010
+			{ 1, 5, 8, 1, 2, 8, 2, 8, 11, 2, 7, 11 }, // 0x1B, 00011011
+			{ 4, 8, 11, 1, 3, 6, 3, 6, 7 }, // 0x1C, 00011100
+			{ 0, 1, 8, 1, 6, 7, 1, 7, 8, 7, 8, 11 }, // 0x1D, 00011101
+			{ 5, 6, 7, 0, 5, 7, 3, 7, 0, 4, 8, 11 }, // 0x1E, 00011110
+			{ 5, 6, 7, 5, 8, 11, 5, 11, 7 }, // 0x1F, 00011111
+			{ 5, 8, 9 }, // 0x20, 00100000
+			{ 5, 8, 9, 0, 3, 4 }, // 0x21, 00100001
+			{ 1, 8, 9, 1, 0, 8 }, // 0x22, 00100010
+			{ 1, 3, 9, 9, 3, 8, 3, 8, 4 }, // 0x23, 00100011
+			{ 5, 8, 9, 1, 2, 6 }, // 0x24, 00100100
+			{ 5, 8, 9, 1, 2, 6, 0, 3, 4 }, // 0x25, 00100101
+			{ 0, 2, 8, 8, 9, 2, 9, 2, 6 }, // 0x26, 00100110
+			{ 4, 8, 9, 3, 4, 9, 2, 3, 6, 3, 6, 9 }, // 0x27, 00100111
+			{ 5, 8, 9, 2, 3, 7 }, // 0x28, 00101000
+			{ 5, 8, 9, 0, 4, 7, 0, 2, 7 }, // 0x29, 00101001
+			{ 1, 8, 9, 1, 0, 8, 2, 3, 7 }, // 0x2A, 00101010
+			{ 2, 4, 7, 2, 4, 8, 1, 2, 8, 1, 8, 9 }, // 0x2B, 00101011
+			{ 5, 8, 9, 1, 3, 6, 3, 6, 7 }, // 0x2C, 00101100
+			{ 4, 6, 7, 4, 6, 1, 4, 1, 0, 5, 8, 9 }, // 0x2D, 00101101
+			{ 0, 3, 8, 3, 8, 9, 3, 7, 9, 6, 7, 9 }, // 0x2E, 00101110
+			{ 4, 6, 7, 4, 8, 9, 4, 9, 6 }, // 0x2F, 00101111
+			{ 4, 5, 9, 4, 9, 11 }, // 0x30, 00110000
+			{ 3, 9, 11, 0, 3, 9, 0, 5, 9 }, // 0x31, 00110001
+			{ 1, 9, 11, 0, 1, 11, 0, 4, 11 }, // 0x32, 00110010
+			{ 1, 9, 11, 11, 3, 1 }, // 0x33, 00110011
+			{ 4, 5, 9, 4, 9, 11, 1, 2, 6 }, // 0x34, 00110100
+			{ 3, 9, 11, 0, 3, 9, 0, 5, 9, 1, 2, 6 }, // 0x35, 00110101
+			{ 6, 8, 10, 4, 6, 8, 1, 4, 6, 1, 3, 4 }, // 0x36, 00110110
+			{ 3, 9, 11, 3, 6, 9, 6, 2, 3 }, // 0x37, 00110111
+			{ 4, 5, 9, 4, 9, 11, 2, 3, 7 }, // 0x38, 00111000
+			{ 6, 9, 11, 4, 6, 9, 0, 2, 4, 2, 4, 6 }, // 0x39, 00111001
+			{ 1, 9, 11, 0, 1, 11, 0, 4, 11, 2, 3, 7 }, // 0x3A, 00111010
+			{ 1, 9, 11, 1, 2, 7, 1, 7, 11 }, // 0x3B, 00111011
+			{ 4, 5, 9, 4, 9, 11, 1, 3, 6, 3, 6, 7 }, // 0x3C, 00111100
+			{ 7, 9, 11, 6, 7, 9, 0, 1, 5 }, // 0x3D, 00111101
+			{ 7, 9, 11, 6, 7, 9, 0, 3, 4 }, // 0x3E, 00111110
+			{ 7, 9, 11, 6, 7, 9 }, // 0x3F, 00111111
+			{ 6, 9, 10 }, // 0x40, 01000000
+			{ 6, 9, 10, 0, 3, 4 }, // 0x41, 01000001
+			{ 6, 9, 10, 0, 1, 5 }, // 0x42, 01000010
+			{ 6, 9, 10, 1, 3, 4, 1, 4, 5 }, // 0x43, 01000011
+			{ 1, 2, 9, 2, 9, 10 }, // 0x44, 01000100
+			{ 1, 2, 9, 2, 9, 10, 0, 3, 4 }, // 0x45, 01000101
+			{ 0, 2, 10, 0, 5, 10, 5, 9, 10 }, // 0x46, 01000110
+			{ 4, 5, 9, 3, 4, 9, 2, 3, 10, 3, 9, 10 }, // 0x47, 01000111
+			{ 6, 9, 10, 2, 3, 7 }, // 0x48, 01001000
+			{ 6, 9, 10, 0, 4, 7, 0, 2, 7 }, // 0x49, 01001001
+			{ 6, 9, 10, 2, 3, 7, 0, 1, 5 }, // 0x4A, 01001010
+			{ 4, 5, 7, 2, 5, 7, 1, 2, 5, 6, 9, 10 }, // 0x4B, 01001011
+			{ 1, 9, 3, 3, 9, 10, 3, 10, 7 }, // 0x4C, 01001100
+			{ 4, 7, 10, 0, 4, 10, 0, 1, 9, 0, 9, 10 }, // 0x4D, 01001101
+			{ 0, 3, 5, 3, 5, 9, 3, 7, 9, 7, 9, 10 }, // 0x4E, 01001110
+			{ 4, 5, 7, 9, 10, 7, 9, 7, 5 }, // 0x4F, 01001111
+			{ 6, 9, 10, 4, 8, 11 }, // 0x50, 01010000
+			{ 6, 9, 10, 0, 8, 11, 0, 3, 11 }, // 0x51, 01010001
+			{ 6, 9, 10, 4, 8, 11, 0, 1, 5 }, // 0x52, 01010010
+			{ 1, 3, 11, 1, 8, 11, 1, 8, 5, 6, 9, 10 }, // 0x53, 01010011
+			{ 1, 9, 10, 1, 2, 10, 3, 4, 11 }, // 0x54, 01010100
+			{ 0, 8, 11, 0, 3, 11, 1, 9, 10, 1, 2, 10 }, // 0x55, 01010101
+			{ 0, 2, 10, 0, 5, 10, 5, 9, 10, 4, 8, 11 }, // 0x56, 01010110
+			{ 2, 3, 11, 2, 10, 11, 5, 8, 9 }, // 0x57, 01010111
+			{ 2, 3, 7, 6, 9, 10, 4, 8, 11 }, // 0x58, 01011000
+			{ 0, 2, 8, 2, 8, 11, 11, 2, 7, 6, 9, 10 }, // 0x59, 01011001
+			{ 0, 1, 5, 2, 3, 7, 4, 8, 11, 6, 9, 10 }, // 0x5A, 01011010
+			{ 1, 2, 6, 5, 8, 9, 7, 11, 10 }, // 0x5B, 01011011
+			{ 1, 9, 3, 3, 9, 10, 3, 10, 7, 4, 8, 11 }, // 0x5C, 01011100
+			{ 0, 1, 8, 1, 8, 9, 7, 10, 11 }, // 0x5D, 01011101
+			{ 0, 3, 4, 5, 8, 9, 7, 10, 11 }, // 0x5E, 01011110
+			{ 5, 8, 9, 7, 10, 11 }, // 0x5F, 01011111
+			{ 5, 6, 10, 5, 8, 10 }, // 0x60, 01100000
+			{ 5, 6, 10, 5, 8, 10, 0, 3, 4 }, // 0x61, 01100001
+			{ 0, 8, 10, 0, 1, 6, 0, 6, 10 }, // 0x62, 01100010
+			{ 6, 8, 10, 4, 6, 8, 1, 3, 4, 1, 4, 6 }, // 0x63, 01100011
+			{ 2, 8, 10, 1, 2, 8, 1, 5, 8 }, // 0x64, 01100100
+			{ 2, 8, 10, 1, 2, 8, 1, 5, 8, 0, 3, 4 }, // 0x65, 01100101
+			{ 0, 2, 10, 0, 10, 8 }, // 0x66, 01100110
+			{ 2, 8, 10, 2, 3, 4, 2, 4, 8 }, // 0x67, 01100111
+			{ 5, 6, 10, 5, 8, 10, 2, 3, 7 }, // 0x68, 01101000
+			{ 0, 4, 7, 0, 2, 7, 5, 6, 10, 5, 8, 10 }, // 0x69, 01101001
+			{ 0, 8, 10, 0, 1, 6, 0, 6, 10, 2, 3, 7 }, // 0x6A, 01101010
+			{ 4, 8, 10, 10, 7, 4, 1, 2, 6 }, // 0x6B, 01101011
+			{ 7, 8, 10, 5, 7, 8, 1, 3, 5, 3, 5, 7 }, // 0x6C, 01101100
+			{ 4, 8, 10, 10, 7, 4, 0, 1, 5 }, // 0x6D, 01101101
+			{ 0, 8, 10, 0, 3, 10, 3, 7, 10 }, // 0x6E, 01101110
+			{ 4, 8, 10, 10, 7, 4 }, // 0x6F, 01101111
+			{ 4, 5, 6, 4, 6, 10, 4, 10, 11 }, // 0x70, 01110000
+			{ 3, 10, 11, 0, 3, 10, 0, 6, 10, 0, 5, 6 }, // 0x71, 01110001
+			{ 0, 1, 4, 1, 4, 6, 4, 6, 11, 6, 10, 11 }, // 0x72, 01110010
+			{ 1, 3, 11, 1, 6, 10, 1, 10, 11 }, // 0x73, 01110011
+			{ 1, 2, 10, 1, 10, 11, 1, 5, 11, 4, 5, 11 }, // 0x74, 01110100
+			{ 3, 10, 11, 2, 3, 10, 0, 1, 5 }, // 0x75, 01110101
+			{ 0, 2, 10, 0, 4, 10, 4, 10, 11 }, // 0x76, 01110110
+			{ 3, 10, 11, 2, 3, 10 }, // 0x77, 01110111
+			{ 4, 5, 6, 4, 6, 10, 4, 10, 11, 2, 3, 7 }, // 0x78, 01111000
+			{ 7, 10, 11, 0, 5, 6, 0, 2, 6 }, // 0x79, 01111001
+			{ 7, 10, 11, 0, 3, 4, 1, 2, 6 }, // 0x7A, 01111010
+			{ 7, 10, 11, 1, 2, 6 }, // 0x7B, 01111011
+			{ 7, 10, 11, 1, 5, 4, 4, 3, 1 }, // 0x7C, 01111100
+			{ 7, 10, 11, 0, 1, 5 }, // 0x7D, 01111101
+			{ 7, 10, 11, 0, 3, 4 }, // 0x7E, 01111110
+			{ 7, 10, 11 }, // 0x7F, 01111111
+			{ 7, 10, 11 }, // 0x80, 10000000
+			{ 7, 10, 11, 0, 3, 4 }, // 0x81, 10000001
+			{ 7, 10, 11, 0, 1, 5 }, // 0x82, 10000010
+			{ 7, 10, 11, 1, 5, 4, 4, 3, 1 }, // 0x83, 10000011
+			{ 7, 10, 11, 1, 2, 6 }, // 0x84, 10000100
+			{ 7, 10, 11, 0, 3, 4, 1, 2, 6 }, // 0x85, 10000101
+			{ 7, 10, 11, 0, 5, 6, 0, 2, 6 }, // 0x86, 10000110
+			{ 7, 10, 11, 4, 5, 6, 4, 6, 2, 2, 3, 4 }, // 0x87, 10000111
+			{ 3, 10, 11, 2, 3, 10 }, // 0x88, 10001000
+			{ 0, 2, 10, 0, 4, 10, 4, 10, 11 }, // 0x89, 10001001
+			{ 3, 10, 11, 2, 3, 10, 0, 1, 5 }, // 0x8A, 10001010
+			{ 1, 4, 5, 1, 4, 11, 1, 2, 11, 2, 10, 11 }, // 0x8B, 10001011
+			{ 1, 3, 11, 1, 6, 10, 1, 10, 11 }, // 0x8C, 10001100
+			{ 0, 1, 4, 1, 4, 11, 1, 6, 11, 6, 10, 11 }, // 0x8D, 10001101
+			{ 0, 3, 10, 3, 10, 11, 0, 5, 6, 0, 6, 10 }, // 0x8E, 10001110
+			{ 4, 5, 6, 4, 6, 10, 4, 10, 11 }, // 0x8F, 10001111
+			{ 4, 8, 10, 10, 7, 4 }, // 0x90, 10010000
+			{ 0, 8, 10, 0, 3, 10, 3, 7, 10 }, // 0x91, 10010001
+			{ 4, 8, 10, 10, 7, 4, 0, 1, 5 }, // 0x92, 10010010
+			{ 1, 3, 5, 3, 5, 7, 4, 5, 7, 4, 7, 10 }, // 0x93, 10010011
+			{ 4, 8, 10, 10, 7, 4, 1, 2, 6 }, // 0x94, 10010100
+			{ 0, 8, 10, 0, 3, 10, 3, 7, 10, 1, 2, 6 }, // 0x95, 10010101
+			{ 0, 5, 6, 0, 2, 6, 4, 8, 10, 10, 7, 4 }, // 0x96, 10010110
+			{ 5, 6, 10, 5, 8, 10, 2, 3, 7 }, // 0x97, 10010111
+			{ 2, 8, 10, 2, 3, 4, 2, 4, 8 }, // 0x98, 10011000
+			{ 0, 8, 10, 10, 2, 0 }, // 0x99, 10011001
+			{ 2, 8, 10, 2, 3, 4, 2, 4, 8, 0, 1, 5 }, // 0x9A, 10011010
+			{ 2, 8, 10, 1, 2, 5, 2, 5, 8 }, // 0x9B, 10011011
+			{ 2, 3, 6, 3, 4, 6, 4, 6, 10, 4, 8, 10 }, // 0x9C, 10011100
+			{ 0, 8, 10, 0, 1, 6, 0, 6, 10 }, // 0x9D, 10011101
+			{ 5, 6, 10, 5, 8, 10, 0, 3, 4 }, // 0x9E, 10011110
+			{ 5, 6, 10, 5, 8, 10 }, // 0x9F, 10011111
+			{ 7, 10, 11, 5, 8, 9 }, // 0xA0, 10100000
+			{ 7, 10, 11, 5, 8, 9, 0, 3, 4 }, // 0xA1, 10100001
+			{ 7, 10, 11, 0, 1, 8, 1, 8, 9 }, // 0xA2, 10100010
+			{ 1, 3, 9, 9, 3, 8, 3, 8, 4, 7, 10, 11 }, // 0xA3, 10100011
+			{ 7, 10, 11, 5, 8, 9, 1, 2, 6 }, // 0xA4, 10100100
+			{ 7, 10, 11, 5, 8, 9, 1, 2, 6, 0, 3, 4 }, // 0xA5, 10100101
+			{ 7, 10, 11, 0, 2, 8, 8, 9, 2, 9, 2, 6 }, // 0xA6, 10100110
+			{ 6, 9, 10, 4, 8, 11, 2, 3, 7 }, // 0xA7, 10100111
+			{ 3, 10, 11, 2, 3, 10, 5, 8, 9 }, // 0xA8, 10101000
+			{ 5, 8, 9, 0, 2, 10, 0, 4, 10, 4, 10, 11 }, // 0xA9, 10101001
+			{ 3, 10, 11, 2, 3, 10, 0, 1, 8, 1, 8, 9 }, // 0xAA, 10101010
+			{ 1, 9, 10, 1, 2, 10, 4, 8, 11 }, // 0xAB, 10101011
+			{ 5, 8, 9, 1, 3, 11, 1, 6, 10, 1, 10, 11, }, // 0xAC, 10101100
+			{ 6, 9, 10, 4, 8, 11, 0, 1, 5 }, // 0xAD, 10101101
+			{ 0, 8, 11, 0, 3, 11, 6, 9, 10 }, // 0xAE, 10101110
+			{ 6, 9, 10, 4, 8, 11 }, // 0xAF, 10101111
+			{ 4, 5, 7, 5, 7, 10, 5, 9, 10 }, // 0xB0, 10110000
+			{ 0, 3, 5, 3, 5, 7, 5, 7, 9, 7, 9, 10 }, // 0xB1, 10110001
+			{ 0, 1, 9, 0, 9, 10, 0, 4, 10, 4, 7, 10 }, // 0xB2, 10110010
+			{ 1, 3, 9, 3, 9, 10, 3, 7, 10 }, // 0xB3, 10110011
+			{ 1, 2, 6, 4, 5, 7, 5, 7, 10, 5, 9, 10 }, // 0xB4, 10110100
+			{ 6, 9, 10, 2, 3, 7, 0, 1, 5 }, // 0xB5, 10110101
+			{ 0, 4, 7, 0, 2, 7, 6, 9, 10 }, // 0xB6, 10110110
+			{ 6, 9, 10, 2, 3, 7 }, // 0xB7, 10110111
+			{ 4, 5, 7, 5, 7, 10, 5, 9, 10, 1, 2, 6 }, // 0xB8, 10111000
+			{ 0, 2, 10, 0, 5, 9, 0, 9, 10 }, // 0xB9, 10111001
+			{ 0, 3, 4, 1, 2, 10, 1, 9, 10 }, // 0xBA, 10111010
+			{ 1, 2, 10, 1, 9, 10 }, // 0xBB, 10111011
+			{ 6, 9, 10, 1, 5, 4, 4, 3, 1 }, // 0xBC, 10111100
+			{ 0, 1, 5, 6, 9, 10 }, // 0xBD, 10111101
+			{ 0, 3, 4, 6, 9, 10 }, // 0xBE, 10111110
+			{ 6, 9, 10 }, // 0xBF, 10111111
+			{ 6, 7, 9, 7, 9, 11 }, // 0xC0, 11000000
+			{ 0, 3, 4, 6, 7, 9, 7, 9, 11 }, // 0xC1, 11000001
+			{ 0, 1, 5, 6, 7, 9, 7, 9, 11 }, // 0xC2, 11000010
+			{ 1, 3, 4, 1, 4, 5, 6, 7, 9, 7, 9, 11 }, // 0xC3, 11000011
+			{ 1, 9, 11, 1, 2, 7, 1, 7, 11 }, // 0xC4, 11000100
+			{ 0, 3, 4, 1, 9, 11, 1, 2, 7, 1, 7, 11 }, // 0xC5, 11000101
+			{ 0, 2, 7, 0, 5, 7, 5, 7, 11, 5, 9, 11 }, // 0xC6, 11000110
+			{ 4, 5, 9, 4, 9, 11, 2, 3, 7 }, // 0xC7, 11000111
+			{ 3, 9, 11, 2, 3, 9, 2, 6, 9 }, // 0xC8, 11001000
+			{ 0, 2, 4, 2, 4, 6, 4, 6, 11, 6, 9, 11 }, // 0xC9, 11001001n
+			{ 0, 1, 5, 3, 9, 11, 2, 3, 9, 2, 6, 9 }, // 0xCA, 11001010
+			{ 4, 5, 9, 4, 9, 11, 1, 2, 6 }, // 0xCB, 11001011
+			{ 1, 9, 11, 11, 3, 1 }, // 0xCC, 11001100
+			{ 1, 9, 11, 0, 1, 4, 1, 4, 11 }, // 0xCD, 11001101
+			{ 3, 9, 11, 0, 3, 9, 0, 5, 9 }, // 0xCE, 11001110
+			{ 4, 5, 9, 4, 9, 11 }, // 0xCF, 11001111
+			{ 4, 7, 6, 4, 6, 8, 6, 8, 9 }, // 0xD0, 11010000
+			{ 0, 3, 8, 3, 8, 9, 3, 7, 9, 6, 7, 9 }, // 0xD1, 11010001
+			{ 0, 1, 5, 4, 7, 6, 4, 6, 8, 6, 8, 9 }, // 0xD2, 11010010
+			{ 5, 8, 9, 1, 6, 7, 1, 3, 7 }, // 0xD3, 11010011
+			{ 2, 4, 7, 2, 4, 8, 1, 2, 8, 1, 8, 9 }, // 0xD4, 11010100
+			{ 0, 1, 8, 1, 8, 9, 2, 3, 7 }, // 0xD5, 11010101
+			{ 5, 8, 9, 0, 4, 7, 0, 2, 7 }, // 0xD6, 11010110
+			{ 5, 8, 9, 2, 3, 7 }, // 0xD7, 11010111
+			{ 3, 4, 8, 2, 3, 9, 3, 8, 9, 2, 6, 9 }, // 0xD8, 11011000
+			{ 0, 2, 8, 2, 6, 9, 2, 8, 9 }, // 0xD9, 11011001
+			{ 0, 3, 4, 5, 8, 9, 1, 2, 6 }, // 0xDA, 11011010
+			{ 5, 8, 9, 1, 2, 6 }, // 0xDB, 11011011
+			{ 1, 3, 9, 3, 4, 8, 8, 9, 3 }, // 0xDC, 11011100
+			{ 0, 1, 8, 1, 8, 9 }, // 0xDD, 11011101
+			{ 5, 8, 9, 0, 3, 4 }, // 0xDE, 11011110
+			{ 5, 8, 9 }, // 0xDF, 11011111
+			{ 5, 6, 7, 5, 7, 8, 7, 8, 11 }, // 0xE0, 11100000
+			{ 0, 3, 4, 5, 6, 7, 5, 7, 8, 7, 8, 11 }, // 0xE1, 11100001
+			{ 0, 1, 11, 0, 8, 11, 1, 7, 11, 1, 6, 7 }, // 0xE2, 11100010
+			{ 1, 6, 7, 1, 3, 7, 4, 8, 11 }, // 0xE3, 11100011
+			{ 1, 5, 8, 1, 2, 8, 2, 8, 11, 2, 7, 11 }, // 0xE4, 11100100
+			{ 4, 8, 11, 2, 3, 7, 0, 1, 5 }, // 0xE5, 11100101
+			{ 0, 2, 8, 2, 7, 8, 7, 8, 11 }, // 0xE6, 11100110
+			{ 4, 8, 11, 2, 3, 7 }, // 0xE7, 11100111
+			{ 2, 3, 11, 2, 8, 11, 2, 6, 8, 5, 6, 8 }, // 0xE8, 11101000
+			{ 0, 5, 6, 0, 2, 6, 4, 8, 11 }, // 0xE9, 11101001
+			{ 0, 8, 11, 0, 3, 11, 1, 2, 6 }, // 0xEA, 11101010
+			{ 4, 8, 11, 1, 2, 6 }, // 0xEB, 11101011
+			{ 1, 3, 11, 1, 5, 8, 1, 8, 11 }, // 0xEC, 11101100
+			{ 0, 1, 5, 4, 8, 11 }, // 0xED, 11101101
+			{ 0, 8, 11, 0, 3, 11 }, // 0xEE, 11101110
+			{ 4, 8, 11 }, // 0xEF, 11101111
+			{ 4, 5, 6, 6, 7, 4 }, // 0xF0, 11110000
+			{ 5, 6, 7, 0, 5, 7, 0, 3, 7 }, // 0xF1, 11110001
+			{ 4, 6, 7, 0, 1, 6, 0, 4, 6 }, // 0xF2, 11110010
+			{ 1, 6, 7, 1, 3, 7 }, // 0xF3, 11110011
+			{ 4, 5, 7, 2, 5, 7, 1, 2, 5 }, // 0xF4, 11110100
+			{ 2, 3, 7, 0, 1, 5 }, // 0xF5, 11110101
+			{ 0, 2, 4, 2, 4, 7 }, // 0xF6, 11110110
+			{ 2, 3, 7 }, // 0xF7, 11110111
+			{ 4, 5, 6, 4, 6, 2, 2, 3, 4 }, // 0xF8, 11111000
+			{ 6, 5, 0, 0, 2, 6 }, // 0xF9, 11111001
+			{ 0, 3, 4, 1, 2, 6 }, // 0xFA, 11111010
+			{ 1, 2, 6 }, // 0xFB, 11111011
+			{ 1, 5, 4, 1, 3, 4 }, // 0xFC, 11111100
+			{ 0, 1, 5 }, // 0xFD, 11111101
+			{ 0, 3, 4 }, // 0xFE, 11111110
+			{}, // 0xFF, 11111111
+	};
 
+	/**
+	 * Polygonizes one block of the volume
+	 */
+	private class MarchingCube implements Runnable {
 		private static final int EMPTY_OR_INVALID = 0x1ff;
 
-		public ImplicitSurface() {
-
-		}
+		private final TriangleBlock block;
+		private final EvaluationContext value;
+		private final EvaluationContext[] derivatives;
+		private final Cube cube = new Cube();
+		private final double[] eval = new double[3];
+		private final double[] p1 = new double[3];
+		private final double[] p2 = new double[3];
+		private final double[] p3 = new double[3];
+		private final double[] n1 = new double[3];
+		private final double[] n2 = new double[3];
+		private final double[] n3 = new double[3];
 
-		private final int[][] EDGE_TABLE = new int[][] { {}, // 0x00, 0xff
-				{ 0, 4, 3 }, // 0x01, 00000001
-				{ 0, 5, 1 }, // 0x02, 00000010
-				{ 1, 3, 4, 4, 5, 1 }, // 0x03, 00000011
-				{ 1, 2, 6 }, // 0x04, 00000100
-				{ 0, 4, 3, 1, 2, 6 }, // 0x05, 00000101
-				{ 6, 5, 0, 0, 2, 6 }, // 0x06, 00000110
-				{ 6, 5, 4, 6, 4, 3, 3, 2, 6 }, // 0x07, 0x00000111
-				{ 2, 3, 7 }, // 0x08, 00001000
-				{ 0, 4, 7, 7, 2, 0 }, // 0x09, 00001001
-				{ 2, 3, 7, 0, 5, 1 }, // 0x0A, 00001010
-				{ 5, 4, 7, 7, 2, 1, 1, 5, 7 }, // 0x0B, 00001011
-				{ 1, 3, 7, 7, 6, 1 }, // 0x0C, 0x00001100
-				{ 4, 7, 6, 6, 1, 0, 0, 4, 6 }, // 0x0D, 0x00001101
-				{ 7, 6, 5, 5, 0, 3, 3, 7, 5 }, // 0x0E, 0x00001110
-				{ 5, 4, 7, 7, 6, 5 }, // 0x0F, 00001111
-				{ 4, 8, 11 }, // 0x10, 00010000
-				{ 0, 8, 11, 0, 3, 11 }, // 0x11, 00010001
-				{ 4, 8, 11, 0, 1, 5 }, // 0x12, 00010010
-				{ 1, 3, 11, 1, 8, 11, 1, 8, 5 }, // 0x13, 00010011
-				{ 4, 8, 11, 1, 2, 6 }, // 0x14, 00010100
-				{ 0, 8, 11, 0, 3, 11, 1, 2, 6 }, // 0x15, 00010101
-				{ 4, 8, 11, 2, 6, 5, 5, 0, 2 }, // 0x16, 00010110
-				{ 8, 5, 11, 8, 10, 11, 5, 2, 3, 5, 2, 6 }, // 0x17, 000010111
-				{ 4, 8, 11, 2, 3, 7 }, // 0x18, 00011000
-				{ 0, 2, 8, 2, 8, 11, 11, 2, 7 }, // 0x19, 00011001
-				{ 4, 8, 11, 2, 3, 7, 0, 1, 5 }, // 0x1A, 00011010
-				{ 1, 5, 8, 1, 2, 8, 2, 8, 11, 2, 7, 11 }, // 0x1B, 00011011
-				{ 4, 8, 11, 1, 3, 6, 3, 6, 7 }, // 0x1C, 00011100
-				{ 0, 1, 8, 1, 6, 7, 1, 7, 8, 7, 8, 11 }, // 0x1D, 00011101
-				{ 5, 6, 7, 0, 5, 7, 3, 7, 0, 4, 8, 11 }, // 0x1E, 00011110
-				{ 5, 6, 7, 5, 8, 11, 5, 11, 7 }, // 0x1F, 00011111
-				{ 5, 8, 9 }, // 0x20, 00100000
-				{ 5, 8, 9, 0, 3, 4 }, // 0x21, 00100001
-				{ 1, 8, 9, 1, 0, 8 }, // 0x22, 00100010
-				{ 1, 3, 9, 9, 3, 8, 3, 8, 4 }, // 0x23, 00100011
-				{ 5, 8, 9, 1, 2, 6 }, // 0x24, 00100100
-				{ 5, 8, 9, 1, 2, 6, 0, 3, 4 }, // 0x25, 00100101
-				{ 0, 2, 8, 8, 9, 2, 9, 2, 6 }, // 0x26, 00100110
-				{ 4, 8, 9, 3, 4, 9, 2, 3, 6, 3, 6, 9 }, // 0x27, 00100111
-				{ 5, 8, 9, 2, 3, 7 }, // 0x28, 00101000
-				{ 5, 8, 9, 0, 4, 7, 0, 2, 7 }, // 0x29, 00101001
-				{ 1, 8, 9, 1, 0, 8, 2, 3, 7 }, // 0x2A, 00101010
-				{ 2, 4, 7, 2, 4, 8, 1, 2, 8, 1, 8, 9 }, // 0x2B, 00101011
-				{ 5, 8, 9, 1, 3, 6, 3, 6, 7 }, // 0x2C, 00101100
-				{ 4, 6, 7, 4, 6, 1, 4, 1, 0, 5, 8, 9 }, // 0x2D, 00101101
-				{ 0, 3, 8, 3, 8, 9, 3, 7, 9, 6, 7, 9 }, // 0x2E, 00101110
-				{ 4, 6, 7, 4, 8, 9, 4, 9, 6 }, // 0x2F, 00101111
-				{ 4, 5, 9, 4, 9, 11 }, // 0x30, 00110000
-				{ 3, 9, 11, 0, 3, 9, 0, 5, 9 }, // 0x31, 00110001
-				{ 1, 9, 11, 0, 1, 11, 0, 4, 11 }, // 0x32, 00110010
-				{ 1, 9, 11, 11, 3, 1 }, // 0x33, 00110011
-				{ 4, 5, 9, 4, 9, 11, 1, 2, 6 }, // 0x34, 00110100
-				{ 3, 9, 11, 0, 3, 9, 0, 5, 9, 1, 2, 6 }, // 0x35, 00110101
-				{ 6, 8, 10, 4, 6, 8, 1, 4, 6, 1, 3, 4 }, // 0x36, 00110110
-				{ 3, 9, 11, 3, 6, 9, 6, 2, 3 }, // 0x37, 00110111
-				{ 4, 5, 9, 4, 9, 11, 2, 3, 7 }, // 0x38, 00111000
-				{ 6, 9, 11, 4, 6, 9, 0, 2, 4, 2, 4, 6 }, // 0x39, 00111001
-				{ 1, 9, 11, 0, 1, 11, 0, 4, 11, 2, 3, 7 }, // 0x3A, 00111010
-				{ 1, 9, 11, 1, 2, 7, 1, 7, 11 }, // 0x3B, 00111011
-				{ 4, 5, 9, 4, 9, 11, 1, 3, 6, 3, 6, 7 }, // 0x3C, 00111100
-				{ 7, 9, 11, 6, 7, 9, 0, 1, 5 }, // 0x3D, 00111101
-				{ 7, 9, 11, 6, 7, 9, 0, 3, 4 }, // 0x3E, 00111110
-				{ 7, 9, 11, 6, 7, 9 }, // 0x3F, 00111111
-				{ 6, 9, 10 }, // 0x40, 01000000
-				{ 6, 9, 10, 0, 3, 4 }, // 0x41, 01000001
-				{ 6, 9, 10, 0, 1, 5 }, // 0x42, 01000010
-				{ 6, 9, 10, 1, 3, 4, 1, 4, 5 }, // 0x43, 01000011
-				{ 1, 2, 9, 2, 9, 10 }, // 0x44, 01000100
-				{ 1, 2, 9, 2, 9, 10, 0, 3, 4 }, // 0x45, 01000101
-				{ 0, 2, 10, 0, 5, 10, 5, 9, 10 }, // 0x46, 01000110
-				{ 4, 5, 9, 3, 4, 9, 2, 3, 10, 3, 9, 10 }, // 0x47, 01000111
-				{ 6, 9, 10, 2, 3, 7 }, // 0x48, 01001000
-				{ 6, 9, 10, 0, 4, 7, 0, 2, 7 }, // 0x49, 01001001
-				{ 6, 9, 10, 2, 3, 7, 0, 1, 5 }, // 0x4A, 01001010
-				{ 4, 5, 7, 2, 5, 7, 1, 2, 5, 6, 9, 10 }, // 0x4B, 01001011
-				{ 1, 9, 3, 3, 9, 10, 3, 10, 7 }, // 0x4C, 01001100
-				{ 4, 7, 10, 0, 4, 10, 0, 1, 9, 0, 9, 10 }, // 0x4D, 01001101
-				{ 0, 3, 5, 3, 5, 9, 3, 7, 9, 7, 9, 10 }, // 0x4E, 01001110
-				{ 4, 5, 7, 9, 10, 7, 9, 7, 5 }, // 0x4F, 01001111
-				{ 6, 9, 10, 4, 8, 11 }, // 0x50, 01010000
-				{ 6, 9, 10, 0, 8, 11, 0, 3, 11 }, // 0x51, 01010001
-				{ 6, 9, 10, 4, 8, 11, 0, 1, 5 }, // 0x52, 01010010
-				{ 1, 3, 11, 1, 8, 11, 1, 8, 5, 6, 9, 10 }, // 0x53, 01010011
-				{ 1, 9, 10, 1, 2, 10, 3, 4, 11 }, // 0x54, 01010100
-				{ 0, 8, 11, 0, 3, 11, 1, 9, 10, 1, 2, 10 }, // 0x55, 01010101
-				{ 0, 2, 10, 0, 5, 10, 5, 9, 10, 4, 8, 11 }, // 0x56, 01010110
-				{ 2, 3, 11, 2, 10, 11, 5, 8, 9 }, // 0x57, 01010111
-				{ 2, 3, 7, 6, 9, 10, 4, 8, 11 }, // 0x58, 01011000
-				{ 0, 2, 8, 2, 8, 11, 11, 2, 7, 6, 9, 10 }, // 0x59, 01011001
-				{ 0, 1, 5, 2, 3, 7, 4, 8, 11, 6, 9, 10 }, // 0x5A, 01011010
-				{ 1, 2, 6, 5, 8, 9, 7, 11, 10 }, // 0x5B, 01011011
-				{ 1, 9, 3, 3, 9, 10, 3, 10, 7, 4, 8, 11 }, // 0x5C, 01011100
-				{ 0, 1, 8, 1, 8, 9, 7, 10, 11 }, // 0x5D, 01011101
-				{ 0, 3, 4, 5, 8, 9, 7, 10, 11 }, // 0x5E, 01011110
-				{ 5, 8, 9, 7, 10, 11 }, // 0x5F, 01011111
-				{ 5, 6, 10, 5, 8, 10 }, // 0x60, 01100000
-				{ 5, 6, 10, 5, 8, 10, 0, 3, 4 }, // 0x61, 01100001
-				{ 0, 8, 10, 0, 1, 6, 0, 6, 10 }, // 0x62, 01100010
-				{ 6, 8, 10, 4, 6, 8, 1, 3, 4, 1, 4, 6 }, // 0x63, 01100011
-				{ 2, 8, 10, 1, 2, 8, 1, 5, 8 }, // 0x64, 01100100
-				{ 2, 8, 10, 1, 2, 8, 1, 5, 8, 0, 3, 4 }, // 0x65, 01100101
-				{ 0, 2, 10, 0, 10, 8 }, // 0x66, 01100110
-				{ 2, 8, 10, 2, 3, 4, 2, 4, 8 }, // 0x67, 01100111
-				{ 5, 6, 10, 5, 8, 10, 2, 3, 7 }, // 0x68, 01101000
-				{ 0, 4, 7, 0, 2, 7, 5, 6, 10, 5, 8, 10 }, // 0x69, 01101001
-				{ 0, 8, 10, 0, 1, 6, 0, 6, 10, 2, 3, 7 }, // 0x6A, 01101010
-				{ 4, 8, 10, 10, 7, 4, 1, 2, 6 }, // 0x6B, 01101011
-				{ 7, 8, 10, 5, 7, 8, 1, 3, 5, 3, 5, 7 }, // 0x6C, 01101100
-				{ 4, 8, 10, 10, 7, 4, 0, 1, 5 }, // 0x6D, 01101101
-				{ 0, 8, 10, 0, 3, 10, 3, 7, 10 }, // 0x6E, 01101110
-				{ 4, 8, 10, 10, 7, 4 }, // 0x6F, 01101111
-				{ 4, 5, 6, 4, 6, 10, 4, 10, 11 }, // 0x70, 01110000
-				{ 3, 10, 11, 0, 3, 10, 0, 6, 10, 0, 5, 6 }, // 0x71, 01110001
-				{ 0, 1, 4, 1, 4, 6, 4, 6, 11, 6, 10, 11 }, // 0x72, 01110010
-				{ 1, 3, 11, 1, 6, 10, 1, 10, 11 }, // 0x73, 01110011
-				{ 1, 2, 10, 1, 10, 11, 1, 5, 11, 4, 5, 11 }, // 0x74, 01110100
-				{ 3, 10, 11, 2, 3, 10, 0, 1, 5 }, // 0x75, 01110101
-				{ 0, 2, 10, 0, 4, 10, 4, 10, 11 }, // 0x76, 01110110
-				{ 3, 10, 11, 2, 3, 10 }, // 0x77, 01110111
-				{ 4, 5, 6, 4, 6, 10, 4, 10, 11, 2, 3, 7 }, // 0x78, 01111000
-				{ 7, 10, 11, 0, 5, 6, 0, 2, 6 }, // 0x79, 01111001
-				{ 7, 10, 11, 0, 3, 4, 1, 2, 6 }, // 0x7A, 01111010
-				{ 7, 10, 11, 1, 2, 6 }, // 0x7B, 01111011
-				{ 7, 10, 11, 1, 5, 4, 4, 3, 1 }, // 0x7C, 01111100
-				{ 7, 10, 11, 0, 1, 5 }, // 0x7D, 01111101
-				{ 7, 10, 11, 0, 3, 4 }, // 0x7E, 01111110
-				{ 7, 10, 11 }, // 0x7F, 01111111
-				{ 7, 10, 11 }, // 0x80, 10000000
-				{ 7, 10, 11, 0, 3, 4 }, // 0x81, 10000001
-				{ 7, 10, 11, 0, 1, 5 }, // 0x82, 10000010
-				{ 7, 10, 11, 1, 5, 4, 4, 3, 1 }, // 0x83, 10000011
-				{ 7, 10, 11, 1, 2, 6 }, // 0x84, 10000100
-				{ 7, 10, 11, 0, 3, 4, 1, 2, 6 }, // 0x85, 10000101
-				{ 7, 10, 11, 0, 5, 6, 0, 2, 6 }, // 0x86, 10000110
-				{ 7, 10, 11, 4, 5, 6, 4, 6, 2, 2, 3, 4 }, // 0x87, 10000111
-				{ 3, 10, 11, 2, 3, 10 }, // 0x88, 10001000
-				{ 0, 2, 10, 0, 4, 10, 4, 10, 11 }, // 0x89, 10001001
-				{ 3, 10, 11, 2, 3, 10, 0, 1, 5 }, // 0x8A, 10001010
-				{ 1, 4, 5, 1, 4, 11, 1, 2, 11, 2, 10, 11 }, // 0x8B, 10001011
-				{ 1, 3, 11, 1, 6, 10, 1, 10, 11 }, // 0x8C, 10001100
-				{ 0, 1, 4, 1, 4, 11, 1, 6, 11, 6, 10, 11 }, // 0x8D, 10001101
-				{ 0, 3, 10, 3, 10, 11, 0, 5, 6, 0, 6, 10 }, // 0x8E, 10001110
-				{ 4, 5, 6, 4, 6, 10, 4, 10, 11 }, // 0x8F, 10001111
-				{ 4, 8, 10, 10, 7, 4 }, // 0x90, 10010000
-				{ 0, 8, 10, 0, 3, 10, 3, 7, 10 }, // 0x91, 10010001
-				{ 4, 8, 10, 10, 7, 4, 0, 1, 5 }, // 0x92, 10010010
-				{ 1, 3, 5, 3, 5, 7, 4, 5, 7, 4, 7, 10 }, // 0x93, 10010011
-				{ 4, 8, 10, 10, 7, 4, 1, 2, 6 }, // 0x94, 10010100
-				{ 0, 8, 10, 0, 3, 10, 3, 7, 10, 1, 2, 6 }, // 0x95, 10010101
-				{ 0, 5, 6, 0, 2, 6, 4, 8, 10, 10, 7, 4 }, // 0x96, 10010110
-				{ 5, 6, 10, 5, 8, 10, 2, 3, 7 }, // 0x97, 10010111
-				{ 2, 8, 10, 2, 3, 4, 2, 4, 8 }, // 0x98, 10011000
-				{ 0, 8, 10, 10, 2, 0 }, // 0x99, 10011001
-				{ 2, 8, 10, 2, 3, 4, 2, 4, 8, 0, 1, 5 }, // 0x9A, 10011010
-				{ 2, 8, 10, 1, 2, 5, 2, 5, 8 }, // 0x9B, 10011011
-				{ 2, 3, 6, 3, 4, 6, 4, 6, 10, 4, 8, 10 }, // 0x9C, 10011100
-				{ 0, 8, 10, 0, 1, 6, 0, 6, 10 }, // 0x9D, 10011101
-				{ 5, 6, 10, 5, 8, 10, 0, 3, 4 }, // 0x9E, 10011110
-				{ 5, 6, 10, 5, 8, 10 }, // 0x9F, 10011111
-				{ 7, 10, 11, 5, 8, 9 }, // 0xA0, 10100000
-				{ 7, 10, 11, 5, 8, 9, 0, 3, 4 }, // 0xA1, 10100001
-				{ 7, 10, 11, 0, 1, 8, 1, 8, 9 }, // 0xA2, 10100010
-				{ 1, 3, 9, 9, 3, 8, 3, 8, 4, 7, 10, 11 }, // 0xA3, 10100011
-				{ 7, 10, 11, 5, 8, 9, 1, 2, 6 }, // 0xA4, 10100100
-				{ 7, 10, 11, 5, 8, 9, 1, 2, 6, 0, 3, 4 }, // 0xA5, 10100101
-				{ 7, 10, 11, 0, 2, 8, 8, 9, 2, 9, 2, 6 }, // 0xA6, 10100110
-				{ 6, 9, 10, 4, 8, 11, 2, 3, 7 }, // 0xA7, 10100111
-				{ 3, 10, 11, 2, 3, 10, 5, 8, 9 }, // 0xA8, 10101000
-				{ 5, 8, 9, 0, 2, 10, 0, 4, 10, 4, 10, 11 }, // 0xA9, 10101001
-				{ 3, 10, 11, 2, 3, 10, 0, 1, 8, 1, 8, 9 }, // 0xAA, 10101010
-				{ 1, 9, 10, 1, 2, 10, 4, 8, 11 }, // 0xAB, 10101011
-				{ 5, 8, 9, 1, 3, 11, 1, 6, 10, 1, 10, 11, }, // 0xAC, 10101100
-				{ 6, 9, 10, 4, 8, 11, 0, 1, 5 }, // 0xAD, 10101101
-				{ 0, 8, 11, 0, 3, 11, 6, 9, 10 }, // 0xAE, 10101110
-				{ 6, 9, 10, 4, 8, 11 }, // 0xAF, 10101111
-				{ 4, 5, 7, 5, 7, 10, 5, 9, 10 }, // 0xB0, 10110000
-				{ 0, 3, 5, 3, 5, 7, 5, 7, 9, 7, 9, 10 }, // 0xB1, 10110001
-				{ 0, 1, 9, 0, 9, 10, 0, 4, 10, 4, 7, 10 }, // 0xB2, 10110010
-				{ 1, 3, 9, 3, 9, 10, 3, 7, 10 }, // 0xB3, 10110011
-				{ 1, 2, 6, 4, 5, 7, 5, 7, 10, 5, 9, 10 }, // 0xB4, 10110100
-				{ 6, 9, 10, 2, 3, 7, 0, 1, 5 }, // 0xB5, 10110101
-				{ 0, 4, 7, 0, 2, 7, 6, 9, 10 }, // 0xB6, 10110110
-				{ 6, 9, 10, 2, 3, 7 }, // 0xB7, 10110111
-				{ 4, 5, 7, 5, 7, 10, 5, 9, 10, 1, 2, 6 }, // 0xB8, 10111000
-				{ 0, 2, 10, 0, 5, 9, 0, 9, 10 }, // 0xB9, 10111001
-				{ 0, 3, 4, 1, 2, 10, 1, 9, 10 }, // 0xBA, 10111010
-				{ 1, 2, 10, 1, 9, 10 }, // 0xBB, 10111011
-				{ 6, 9, 10, 1, 5, 4, 4, 3, 1 }, // 0xBC, 10111100
-				{ 0, 1, 5, 6, 9, 10 }, // 0xBD, 10111101
-				{ 0, 3, 4, 6, 9, 10 }, // 0xBE, 10111110
-				{ 6, 9, 10 }, // 0xBF, 10111111
-				{ 6, 7, 9, 7, 9, 11 }, // 0xC0, 11000000
-				{ 0, 3, 4, 6, 7, 9, 7, 9, 11 }, // 0xC1, 11000001
-				{ 0, 1, 5, 6, 7, 9, 7, 9, 11 }, // 0xC2, 11000010
-				{ 1, 3, 4, 1, 4, 5, 6, 7, 9, 7, 9, 11 }, // 0xC3, 11000011
-				{ 1, 9, 11, 1, 2, 7, 1, 7, 11 }, // 0xC4, 11000100
-				{ 0, 3, 4, 1, 9, 11, 1, 2, 7, 1, 7, 11 }, // 0xC5, 11000101
-				{ 0, 2, 7, 0, 5, 7, 5, 7, 11, 5, 9, 11 }, // 0xC6, 11000110
-				{ 4, 5, 9, 4, 9, 11, 2, 3, 7 }, // 0xC7, 11000111
-				{ 3, 9, 11, 2, 3, 9, 2, 6, 9 }, // 0xC8, 11001000
-				{ 0, 2, 4, 2, 4, 6, 4, 6, 11, 6, 9, 11 }, // 0xC9, 11001001n
-				{ 0, 1, 5, 3, 9, 11, 2, 3, 9, 2, 6, 9 }, // 0xCA, 11001010
-				{ 4, 5, 9, 4, 9, 11, 1, 2, 6 }, // 0xCB, 11001011
-				{ 1, 9, 11, 11, 3, 1 }, // 0xCC, 11001100
-				{ 1, 9, 11, 0, 1, 4, 1, 4, 11 }, // 0xCD, 11001101
-				{ 3, 9, 11, 0, 3, 9, 0, 5, 9 }, // 0xCE, 11001110
-				{ 4, 5, 9, 4, 9, 11 }, // 0xCF, 11001111
-				{ 4, 7, 6, 4, 6, 8, 6, 8, 9 }, // 0xD0, 11010000
-				{ 0, 3, 8, 3, 8, 9, 3, 7, 9, 6, 7, 9 }, // 0xD1, 11010001
-				{ 0, 1, 5, 4, 7, 6, 4, 6, 8, 6, 8, 9 }, // 0xD2, 11010010
-				{ 5, 8, 9, 1, 6, 7, 1, 3, 7 }, // 0xD3, 11010011
-				{ 2, 4, 7, 2, 4, 8, 1, 2, 8, 1, 8, 9 }, // 0xD4, 11010100
-				{ 0, 1, 8, 1, 8, 9, 2, 3, 7 }, // 0xD5, 11010101
-				{ 5, 8, 9, 0, 4, 7, 0, 2, 7 }, // 0xD6, 11010110
-				{ 5, 8, 9, 2, 3, 7 }, // 0xD7, 11010111
-				{ 3, 4, 8, 2, 3, 9, 3, 8, 9, 2, 6, 9 }, // 0xD8, 11011000
-				{ 0, 2, 8, 2, 6, 9, 2, 8, 9 }, // 0xD9, 11011001
-				{ 0, 3, 4, 5, 8, 9, 1, 2, 6 }, // 0xDA, 11011010
-				{ 5, 8, 9, 1, 2, 6 }, // 0xDB, 11011011
-				{ 1, 3, 9, 3, 4, 8, 8, 9, 3 }, // 0xDC, 11011100
-				{ 0, 1, 8, 1, 8, 9 }, // 0xDD, 11011101
-				{ 5, 8, 9, 0, 3, 4 }, // 0xDE, 11011110
-				{ 5, 8, 9 }, // 0xDF, 11011111
-				{ 5, 6, 7, 5, 7, 8, 7, 8, 11 }, // 0xE0, 11100000
-				{ 0, 3, 4, 5, 6, 7, 5, 7, 8, 7, 8, 11 }, // 0xE1, 11100001
-				{ 0, 1, 11, 0, 8, 11, 1, 7, 11, 1, 6, 7 }, // 0xE2, 11100010
-				{ 1, 6, 7, 1, 3, 7, 4, 8, 11 }, // 0xE3, 11100011
-				{ 1, 5, 8, 1, 2, 8, 2, 8, 11, 2, 7, 11 }, // 0xE4, 11100100
-				{ 4, 8, 11, 2, 3, 7, 0, 1, 5 }, // 0xE5, 11100101
-				{ 0, 2, 8, 2, 7, 8, 7, 8, 11 }, // 0xE6, 11100110
-				{ 4, 8, 11, 2, 3, 7 }, // 0xE7, 11100111
-				{ 2, 3, 11, 2, 8, 11, 2, 6, 8, 5, 6, 8 }, // 0xE8, 11101000
-				{ 0, 5, 6, 0, 2, 6, 4, 8, 11 }, // 0xE9, 11101001
-				{ 0, 8, 11, 0, 3, 11, 1, 2, 6 }, // 0xEA, 11101010
-				{ 4, 8, 11, 1, 2, 6 }, // 0xEB, 11101011
-				{ 1, 3, 11, 1, 5, 8, 1, 8, 11 }, // 0xEC, 11101100
-				{ 0, 1, 5, 4, 8, 11 }, // 0xED, 11101101
-				{ 0, 8, 11, 0, 3, 11 }, // 0xEE, 11101110
-				{ 4, 8, 11 }, // 0xEF, 11101111
-				{ 4, 5, 6, 6, 7, 4 }, // 0xF0, 11110000
-				{ 5, 6, 7, 0, 5, 7, 0, 3, 7 }, // 0xF1, 11110001
-				{ 4, 6, 7, 0, 1, 6, 0, 4, 6 }, // 0xF2, 11110010
-				{ 1, 6, 7, 1, 3, 7 }, // 0xF3, 11110011
-				{ 4, 5, 7, 2, 5, 7, 1, 2, 5 }, // 0xF4, 11110100
-				{ 2, 3, 7, 0, 1, 5 }, // 0xF5, 11110101
-				{ 0, 2, 4, 2, 4, 7 }, // 0xF6, 11110110
-				{ 2, 3, 7 }, // 0xF7, 11110111
-				{ 4, 5, 6, 4, 6, 2, 2, 3, 4 }, // 0xF8, 11111000
-				{ 6, 5, 0, 0, 2, 6 }, // 0xF9, 11111001
-				{ 0, 3, 4, 1, 2, 6 }, // 0xFA, 11111010
-				{ 1, 2, 6 }, // 0xFB, 11111011
-				{ 1, 5, 4, 1, 3, 4 }, // 0xFC, 11111100
-				{ 0, 1, 5 }, // 0xFD, 11111101
-				{ 0, 3, 4 }, // 0xFE, 11111110
-				{}, // 0xFF, 11111111
-		};
-
-		protected double x1;
-		protected double y1;
-		protected double z1;
-		protected double x2;
-		protected double y2;
-		protected double z2;
-
-		protected double fracX;
-		protected double fracY;
-		protected double fracZ;
-		protected double scaleX;
-		protected double scaleY;
-		protected double scaleZ;
-
-		protected GeoTriangulatedSurface3D surf;
-
-		private final Coords p1 = new Coords(0, 0, 0);
-		private final Coords p2 = new Coords(0, 0, 0);
-		private final Coords p3 = new Coords(0, 0, 0);
-		private final Coords p4 = new Coords(0, 0, 0);
-		private final Coords p5 = new Coords(0, 0, 0);
-		private final Coords n1 = new Coords(0, 0, 0);
-		private final Coords n2 = new Coords(0, 0, 0);
-		private final Coords n3 = new Coords(0, 0, 0);
-
-		public void update(double[] bounds) {
-			this.x1 = bounds[0];
-			this.y1 = bounds[2];
-			this.z1 = bounds[4];
-			this.x2 = bounds[1];
-			this.y2 = bounds[3];
-			this.z2 = bounds[5];
-			this.scaleX = bounds[6];
-			this.scaleY = bounds[7];
-			this.scaleZ = bounds[8];
-			this.surf = getSurface3D();
-			this.update();
+		/**
+		 * @param block
+		 *            block to polygonize
+		 * @param threadSafe
+		 *            whether to use own evaluation contexts so that the block
+		 *            can be polygonized outside of the main thread
+		 */
+		public MarchingCube(TriangleBlock block, boolean threadSafe) {
+			this.block = block;
+			if (threadSafe) {
+				value = expression.getFunction().createEvaluationContext();
+				derivatives = new EvaluationContext[3];
+				if (hasDerivatives) {
+					for (int i = 0; i < 3; i++) {
+						derivatives[i] = derivFunc[i].createEvaluationContext();
+					}
+				}
+			} else {
+				value = null;
+				derivatives = null;
+			}
 		}
 
-		public abstract void update();
-
-		@SuppressWarnings("unused")
-		public boolean hasSegment(Cube cube) {
-			int s = cube.sign(Cube.V0);
-			for (int i = 1; i < 8; i++) {
-				if (cube.sign(i) != s) {
-					return true;
+		public void run() {
+			double[] xs = block.xs;
+			double[] ys = block.ys;
+			double[] zs = block.zs;
+			int nx = xs.length;
+			int ny = ys.length;
+			int nz = zs.length;
+			double[] values = new double[nx * ny * nz];
+			int idx = 0;
+			for (int k = 0; k < nz; k++) {
+				for (int i = 0; i < ny; i++) {
+					for (int j = 0; j < nx; j++) {
+						eval[0] = xs[j];
+						eval[1] = ys[i];
+						eval[2] = zs[k];
+						values[idx++] = value(eval);
+					}
+				}
+			}
+			// layers of vertices with z = zs[k - 1] and z = zs[k]
+			int lower, upper;
+			for (int k = 1; k < nz; k++) {
+				cube.coords[Cube.Z1] = zs[k - 1];
+				cube.coords[Cube.Z2] = zs[k];
+				lower = (k - 1) * ny * nx;
+				upper = k * ny * nx;
+				for (int i = 1; i < ny; i++) {
+					cube.coords[Cube.Y1] = ys[i - 1];
+					cube.coords[Cube.Y2] = ys[i];
+					for (int j = 1; j < nx; j++) {
+						cube.coords[Cube.X1] = xs[j - 1];
+						cube.coords[Cube.X2] = xs[j];
+						cube.cache[Cube.V0] = values[upper + i * nx + j - 1];
+						cube.cache[Cube.V1] = values[upper + i * nx + j];
+						cube.cache[Cube.V2] = values[lower + i * nx + j];
+						cube.cache[Cube.V3] = values[lower + i * nx + j - 1];
+						cube.cache[Cube.V4] = values[upper + (i - 1) * nx + j
+								- 1];
+						cube.cache[Cube.V5] = values[upper + (i - 1) * nx + j];
+						cube.cache[Cube.V6] = values[lower + (i - 1) * nx + j];
+						cube.cache[Cube.V7] = values[lower + (i - 1) * nx + j
+								- 1];
+						addSurface();
+					}
 				}
 			}
-			return false;
 		}
 
-		public int config(Cube cube) {
+		private int config() {
 			int config = cube.sign(Cube.V7);
 			config = (config << 1) | cube.sign(Cube.V6);
 			config = (config << 1) | cube.sign(Cube.V5);
@@ -778,127 +989,137 @@ public class GeoImplicitSurface extends GeoElement3D implements
 			return config <= 0 || config == 0xff ? EMPTY_OR_INVALID : config;
 		}
 
-		public void addSurface(Cube cube) {
-			int config = config(cube);
-			double det;
-			if (config != EMPTY_OR_INVALID) {
-				int[] edges = EDGE_TABLE[config];
-				int len = edges.length;
-				for (int i = 0; i < len; i += 3) {
-					surf.beginTriangulation();
-
-					cube.pointOfIntersection(edges[i], p1.val);
-					cube.pointOfIntersection(edges[i + 1], p2.val);
-					cube.pointOfIntersection(edges[i + 2], p3.val);
-					p2.sub(p1, p4);
-					p3.sub(p1, p5);
-					evaluateNormalAt(p1, n1);
-					evaluateNormalAt(p2, n2);
-					evaluateNormalAt(p3, n3);
-					det = p4.crossProduct(p5).dotproduct(n1);
-					if (det < 0) {
-						surf.insertPoint(p1.val, n1.val);
-						surf.insertPoint(p2.val, n2.val);
-						surf.insertPoint(p3.val, n3.val);
-					} else {
-						surf.insertPoint(p1.val, n1.val);
-						surf.insertPoint(p3.val, n3.val);
-						surf.insertPoint(p2.val, n2.val);
-					}
-					surf.endTriangulation();
+		private void addSurface() {
+			int config = config();
+			if (config == EMPTY_OR_INVALID) {
+				return;
+			}
+			int[] edges = EDGE_TABLE[config];
+			int len = edges.length;
+			for (int i = 0; i < len; i += 3) {
+				cube.pointOfIntersection(edges[i], p1);
+				cube.pointOfIntersection(edges[i + 1], p2);
+				cube.pointOfIntersection(edges[i + 2], p3);
+				normal(p1, n1);
+				normal(p2, n2);
+				normal(p3, n3);
+				// orientation: (p2 - p1) x (p3 - p1) . n1
+				double ax = p2[0] - p1[0], ay = p2[1] - p1[1],
+						az = p2[2] - p1[2];
+				double bx = p3[0] - p1[0], by = p3[1] - p1[1],
+						bz = p3[2] - p1[2];
+				double det = (ay * bz - az * by) * n1[0]
+						+ (az * bx - ax * bz) * n1[1]
+						+ (ax * by - ay * bx) * n1[2];
+				if (det < 0) {
+					block.add(p3, n3);
+					block.add(p2, n2);
+					block.add(p1, n1);
+				} else {
+					block.add(p2, n2);
+					block.add(p3, n3);
+					block.add(p1, n1);
 				}
 			}
 		}
-	}
-
-	private class MarchingCube extends ImplicitSurface {
-		private static final int AVE_PXL = 40;
-		private static final int MAX_SUB_DIV = 25;
-
-		private int sizeX = 20;
-		private int sizeY = 20;
-		private int sizeZ = 20;
-
-
-		public MarchingCube() {
-		}
 
-		private int pixels(double c1, double c2, double scale) {
-			return (int) Math.ceil((Math.abs(c1 - c2) * scale));
+		private double value(double[] xyz) {
+			return value == null ? evaluateAt(xyz) : value.evaluate(xyz);
 		}
 
-		@Override
-		public void update() {
-
-			sizeX = Math.min(MAX_SUB_DIV, pixels(x1, x2, scaleX) / AVE_PXL + 1);
-			sizeY = Math.min(MAX_SUB_DIV, pixels(y1, y2, scaleY) / AVE_PXL + 1);
-			sizeZ = Math.min(MAX_SUB_DIV, pixels(z1, z2, scaleZ) / AVE_PXL + 1);
-			debug("{x:" + sizeX + ";y:" + sizeY + ";z:" + sizeZ + "}");
-
-			this.fracX = (x2 - x1) / sizeX;
-			this.fracY = (y2 - y1) / sizeY;
-			this.fracZ = (z2 - z1) / sizeZ;
-
-			double[] xcoords = new double[sizeX + 1];
-			double[] ycoords = new double[sizeY + 1];
-			double[] zcoords = new double[sizeZ + 1];
-			double[][] grid2d = new double[sizeY + 1][sizeX + 1];
-			double[] grid1d = new double[sizeX + 1];
-
-			double cur, prev;
-
-			Cube cube = new Cube();
-
-			for (int i = 0; i <= sizeX; i++) {
-				xcoords[i] = x1 + i * fracX;
-			}
-			for (int i = 0; i <= sizeY; i++) {
-				ycoords[i] = y1 + i * fracY;
+		/**
+		 * Computes the normal at p like evaluateNormalAt(Coords, Coords)
+		 */
+		private void normal(double[] p, double[] n) {
+			n[0] = 0;
+			n[1] = 0;
+			n[2] = 0;
+			if (!hasDerivatives) {
+				return;
 			}
-			for (int i = 0; i <= sizeZ; i++) {
-				zcoords[i] = z1 + i * fracZ;
+			for (int i = 0; i < 3; i++) {
+				n[i] = derivatives == null ? derivFunc[i].evaluate(p)
+						: derivatives[i].evaluate(p);
 			}
-
-			for (int i = 0; i <= sizeY; i++) {
-				for (int j = 0; j <= sizeX; j++) {
-					grid2d[i][j] = evaluateAt(xcoords[j], ycoords[i], z1);
+			double e = 1e-3, e2 = 2 * e, lt, rt;
+			for (int i = 0; i < 3; i++) {
+				if (!MyDouble.isFinite(n[i])) {
+					eval[0] = p[0];
+					eval[1] = p[1];
+					eval[2] = p[2];
+					eval[i] -= e;
+					lt = value(eval);
+					eval[i] += e2;
+					rt = value(eval);
+					n[i] = (rt - lt) / e2;
 				}
 			}
-			
-			for (int k = 1; k <= sizeZ; k++) {
-				for (int i = 0; i <= sizeX; i++) {
-					grid1d[i] = evaluateAt(xcoords[i], y1, zcoords[k]);
-				}
-				cube.coords[Cube.Z1] = zcoords[k - 1];
-				cube.coords[Cube.Z2] = zcoords[k];
-				for (int i = 1; i <= sizeY; i++) {
-					prev = evaluateAt(x1, ycoords[i], zcoords[k]);
-					cube.coords[Cube.Y1] = ycoords[i - 1];
-					cube.coords[Cube.Y2] = ycoords[i];
-					for (int j = 1; j <= sizeX; j++) {
-						cur = evaluateAt(xcoords[j], ycoords[i], zcoords[k]);
-						cube.coords[Cube.X1] = xcoords[j - 1];
-						cube.coords[Cube.X2] = xcoords[j];
-						cube.cache[Cube.V0] = prev;
-						cube.cache[Cube.V1] = cur;
-						cube.cache[Cube.V2] = grid2d[i][j];
-						cube.cache[Cube.V3] = grid2d[i][j - 1];
-						cube.cache[Cube.V4] = grid1d[j - 1];
-						cube.cache[Cube.V5] = grid1d[j];
-						cube.cache[Cube.V6] = grid2d[i - 1][j];
-						cube.cache[Cube.V7] = grid2d[i - 1][j - 1];
-						super.addSurface(cube);
-						grid2d[i - 1][j - 1] = grid1d[j - 1];
-						grid1d[j - 1] = prev;
-						prev = cur;
-					}
-					grid2d[i - 1][sizeX] = grid1d[sizeX];
-					grid1d[sizeX] = prev;
-				}
-				System.arraycopy(grid1d, 0, grid2d[sizeY], 0, sizeX + 1);
+			double normInv = 1 / Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2]
+					* n[2]);
+			n[0] *= normInv;
+			n[1] *= normInv;
+			n[2] *= normInv;
+		}
+	}
+
+	/**
+	 * Triangles of the surface in one block of the volume. For each vertex,
+	 * the data contains its coordinates followed by its normal.
+	 */
+	public static final class TriangleBlock {
+		/** values per vertex in data */
+		public static final int STRIDE = 6;
+
+		/** x-coordinates of the grid in this block */
+		final double[] xs;
+		/** y-coordinates of the grid in this block */
+		final double[] ys;
+		/** z-coordinates of the grid in this block */
+		final double[] zs;
+		private double[] data = new double[18 * STRIDE];
+		private int length;
+
+		TriangleBlock(double[] xs, double[] ys, double[] zs) {
+			this.xs = xs;
+			this.ys = ys;
+			this.zs = zs;
+		}
+
+		void add(double[] p, double[] n) {
+			if (length + STRIDE > data.length) {
+				double[] bigger = new double[data.length * 2];
+				System.arraycopy(data, 0, bigger, 0, length);
+				data = bigger;
 			}
+			data[length++] = p[0];
+			data[length++] = p[1];
+			data[length++] = p[2];
+			data[length++] = n[0];
+			data[length++] = n[1];
+			data[length++] = n[2];
+		}
+
+		/**
+		 * @return whether this block was computed for the given grid
+		 */
+		boolean hasGrid(double[] xs1, double[] ys1, double[] zs1) {
+			return Arrays.equals(xs, xs1) && Arrays.equals(ys, ys1)
+					&& Arrays.equals(zs, zs1);
+		}
+
+		/**
+		 * @return vertex data, only the first getLength() values are used
+		 */
+		public double[] getData() {
+			return data;
 		}
 
+		/**
+		 * @return number of used values in data, three vertices per triangle
+		 */
+		public int getLength() {
+			return length;
+		}
 	}
 
 	// Here is vertices and edges numbering convention used throughout the
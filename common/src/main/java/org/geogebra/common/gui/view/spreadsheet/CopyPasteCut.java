@@ -427,67 +427,32 @@ public abstract class CopyPasteCut {
 	 */
 	public boolean pasteExternal(String[][] data, int column1, int row1,
 			int maxColumn, int maxRow) {
+		return pasteExternal(data, column1, row1, maxColumn, maxRow, null);
+	}
+
+	/**
+	 * Creates new cell geos using the string values stored in the given
+	 * String[][], see pasteExternal(String[][], int, int, int, int).
+	 * 
+	 * @param data
+	 * @param column1
+	 * @param row1
+	 * @param maxColumn
+	 * @param maxRow
+	 * @param listener
+	 *            gets the progress of large pastes and may cancel them, may
+	 *            be null
+	 * @return false if something went wrong or the paste was cancelled
+	 */
+	public boolean pasteExternal(String[][] data, int column1, int row1,
+			int maxColumn, int maxRow, SpreadsheetImport.Listener listener) {
 		app.setWaitCursor();
 		boolean succ = false;
 
 		try {
-			if (tableModel.getRowCount() < row1 + data.length) {
-				tableModel.setRowCount(row1 + data.length);
-			}
-			GeoElementND[][] values2 = new GeoElement[data.length][];
-			int maxLen = -1;
-			for (int row = row1; row < row1 + data.length; ++row) {
-				if (row < 0 || row > maxRow)
-					continue;
-				int iy = row - row1;
-				values2[iy] = new GeoElement[data[iy].length];
-				if (maxLen < data[iy].length)
-					maxLen = data[iy].length;
-				if (tableModel.getColumnCount() < column1 + data[iy].length) {
-					tableModel.setColumnCount(column1 + data[iy].length);
-				}
-				for (int column = column1; column < column1 + data[iy].length; ++column) {
-					if (column < 0 || column > maxColumn)
-						continue;
-					int ix = column - column1;
-					// Application.debug(iy + " " + ix + " [" + data[iy][ix] +
-					// "]");
-					if (data[iy][ix] == null)
-						continue;
-					data[iy][ix] = data[iy][ix].trim();
-					if (data[iy][ix].length() == 0) {
-						GeoElement value0 = RelativeCopy.getValue(app, column,
-								row);
-						if (value0 != null) {
-							// Application.debug(value0.toValueString());
-							// MyCellEditor.prepareAddingValueToTable(kernel,
-							// table, null, value0, column, row);
-							// value0.remove();
-							value0.removeOrSetUndefinedIfHasFixedDescendent();
-						}
-					} else {
-						GeoElement value0 = RelativeCopy.getValue(app, column,
-								row);
-						values2[iy][ix] = RelativeCopy
-								.prepareAddingValueToTableNoStoringUndoInfo(
-										kernel, app, data[iy][ix], value0,
-										column, row, true);
-						// values2[iy][ix].setAuxiliaryObject(values2[iy][ix].isGeoNumeric());
-						values2[iy][ix].setAuxiliaryObject(true);
-			
-					}
-				}
-			}
-			// Application.debug("maxLen=" + maxLen);
+			succ = new SpreadsheetImport(app, data, column1, row1, maxColumn,
+					maxRow).run(listener);
 			app.repaintSpreadsheet();
-
-			/*
-			 * if (values2.length == 1 || maxLen == 1) {
-			 * createPointsAndAList1(values2); } if (values2.length == 2 ||
-			 * maxLen == 2) { createPointsAndAList2(values2); }
-			 */
-
-			succ = true;
 		} catch (Exception ex) {
 			// app.showError(ex.getMessage());
 			// Util.handleException(table, ex);
@@ -188,7 +188,8 @@ public class DataImport {
 	 */
 	private static String adjustNumberString(String s) {
 
-		if (s == null || s.equals("")) {
+		// nothing to adjust, e.g. most cells of large files
+		if (s == null || s.indexOf(',') == -1) {
 			return s;
 		}
 
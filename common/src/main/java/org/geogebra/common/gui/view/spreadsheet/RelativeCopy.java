@@ -1167,7 +1167,19 @@ public class RelativeCopy {
 		if (s.charAt(s.length() - 1) == Unicode.DEGREE_CHAR || s.charAt(s.length() - 1) == '%') {
 			s = s.substring(0, s.length() - 1);
 		}
-		
+
+		return isPlainNumber(s);
+	}
+
+	/**
+	 * Tests if a string represents a number without degree or percent sign,
+	 * e.g. -12.5 or 1.5E-3
+	 * 
+	 * @param s
+	 *            trimmed string
+	 * @return true if the given string represents a number
+	 */
+	private static boolean isPlainNumber(String s) {
 		// split the string using the exponentiation char
 		// and test for possible number strings
 		String[] s2 = s.split("E");
@@ -1179,6 +1191,27 @@ public class RelativeCopy {
 			return false;
 	}
 
+	/**
+	 * Parses the numbers accepted by isNumber() that have no degree or
+	 * percent sign. Numbers with such a sign are angles or fractions, they
+	 * are left to the algebra processor.
+	 * 
+	 * @param s
+	 *            trimmed string
+	 * @return value of the number, NaN if the string is not such a number
+	 */
+	public static double parseNumber(String s) {
+		if (!isPlainNumber(s)) {
+			return Double.NaN;
+		}
+		try {
+			return Double.parseDouble(s.replace('\u2212', '-'));
+		} catch (NumberFormatException e) {
+			// e.g. sign only or a decimal exponent
+			return Double.NaN;
+		}
+	}
+
 	/**
 	 * Returns true if a string is a standard number, i.e not in scientific
 	 * notation
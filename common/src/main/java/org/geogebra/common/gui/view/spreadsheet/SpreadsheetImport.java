@@ -0,0 +1,248 @@
+package org.geogebra.common.gui.view.spreadsheet;
+
+import org.geogebra.common.kernel.Construction;
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoElementSpreadsheet;
+import org.geogebra.common.kernel.geos.GeoList;
+import org.geogebra.common.kernel.geos.GeoNumeric;
+import org.geogebra.common.kernel.kernelND.GeoElementND;
+import org.geogebra.common.main.App;
+import org.geogebra.common.main.SpreadsheetTableModel;
+
+/**
+ * Imports external data (e.g. CSV) into the spreadsheet.
+ *
+ * Cells of numeric columns, i.e. columns containing only numbers without
+ * degree or percent sign (see RelativeCopy.parseNumber()), are created as
+ * numbers directly; other cells go through the
+ * algebra processor like typed input. Rows are imported in batches, after
+ * each batch the listener gets the progress and may cancel the import. Large
+ * imports are done with the views detached, they get all new cells at the
+ * end. A cancelled import is rolled back to the last undo point, or to the
+ * construction before the import if undo is not active.
+ */
+public class SpreadsheetImport {
+
+	/** rows imported between progress reports */
+	static final int BATCH_ROWS = 500;
+	/** imports of more cells are done with the views detached */
+	static final int DETACH_VIEWS_CELLS = 2000;
+
+	/**
+	 * Progress and cancellation of an import
+	 */
+	public interface Listener {
+		/**
+		 * @param rows
+		 *            number of rows imported so far
+		 * @param total
+		 *            number of rows to be imported
+		 */
+		void progress(int rows, int total);
+
+		/**
+		 * @return whether the import should stop after the current batch
+		 */
+		boolean isCancelled();
+	}
+
+	private final App app;
+	private final Kernel kernel;
+	private final String[][] data;
+	private final int column1, row1, maxColumn, maxRow;
+	/** whether the data columns contain only numbers */
+	private final boolean[] numeric;
+
+	/**
+	 * @param app
+	 *            application
+	 * @param data
+	 *            data by rows, may contain null and empty strings
+	 * @param column1
+	 *            column of the first data column
+	 * @param row1
+	 *            row of the first data row
+	 * @param maxColumn
+	 *            data of later columns is ignored
+	 * @param maxRow
+	 *            data of later rows is ignored
+	 */
+	public SpreadsheetImport(App app, String[][] data, int column1, int row1,
+			int maxColumn, int maxRow) {
+		this.app = app;
+		this.kernel = app.getKernel();
+		this.data = data;
+		this.column1 = column1;
+		this.row1 = row1;
+		this.maxColumn = maxColumn;
+		this.maxRow = maxRow;
+		int columns = 0;
+		for (int i = 0; i < data.length; i++) {
+			columns = Math.max(columns, data[i].length);
+		}
+		numeric = new boolean[columns];
+		for (int ix = 0; ix < columns; ix++) {
+			numeric[ix] = findNumeric(ix);
+		}
+	}
+
+	private boolean findNumeric(int ix) {
+		boolean found = false;
+		for (int iy = 0; iy < getRowCount(); iy++) {
+			String text = ix < data[iy].length ? data[iy][ix] : null;
+			if (text == null || text.trim().length() == 0) {
+				continue;
+			}
+			if (Double.isNaN(RelativeCopy.parseNumber(text.trim()))) {
+				return false;
+			}
+			found = true;
+		}
+		return found;
+	}
+
+	/**
+	 * @param ix
+	 *            data column
+	 * @return whether all non-empty cells of the column up to maxRow are
+	 *         numbers
+	 */
+	public boolean isNumericColumn(int ix) {
+		return ix >= 0 && ix < numeric.length && numeric[ix];
+	}
+
+	/**
+	 * @return number of data rows within maxRow
+	 */
+	private int getRowCount() {
+		return Math.max(0, Math.min(data.length, maxRow - row1 + 1));
+	}
+
+	/**
+	 * Imports the data. If the listener cancels the import, the construction
+	 * is restored from the last undo point, i.e. the state before the import.
+	 * Without undo, the construction XML is kept while importing to restore
+	 * it from.
+	 *
+	 * @param listener
+	 *            listener for progress and cancellation, may be null
+	 * @return false if the import was cancelled
+	 * @throws Exception
+	 *             if a cell could not be created
+	 */
+	public boolean run(Listener listener) throws Exception {
+		SpreadsheetTableModel tableModel = app.getSpreadsheetTableModel();
+		if (tableModel.getRowCount() < row1 + data.length) {
+			tableModel.setRowCount(row1 + data.length);
+		}
+		if (tableModel.getColumnCount() < column1 + numeric.length) {
+			tableModel.setColumnCount(column1 + numeric.length);
+		}
+
+		int rows = getRowCount();
+		boolean detachViews = kernel.isNotifyViewsActive()
+				&& (long) rows * numeric.length > DETACH_VIEWS_CELLS;
+		// without undo there is no undo point to go back to
+		StringBuilder before = null;
+		if (listener != null && !kernel.isUndoActive()) {
+			before = kernel.getConstruction().getCurrentUndoXML(false);
+		}
+		if (detachViews) {
+			kernel.setNotifyViewsActive(false);
+		}
+		boolean cancelled = false;
+		try {
+			for (int start = 0; start < rows; start += BATCH_ROWS) {
+				int end = Math.min(rows, start + BATCH_ROWS);
+				for (int iy = start; iy < end; iy++) {
+					importRow(iy);
+				}
+				if (listener != null) {
+					listener.progress(end, rows);
+					if (end < rows && listener.isCancelled()) {
+						cancelled = true;
+						break;
+					}
+				}
+			}
+		} finally {
+			if (detachViews) {
+				kernel.setNotifyViewsActive(true);
+			}
+		}
+		if (cancelled && before != null) {
+			kernel.getConstruction().getUndoManager()
+					.processXML(before.toString());
+			kernel.notifyReset();
+		} else if (cancelled) {
+			kernel.restoreCurrentUndoInfo();
+		}
+		return !cancelled;
+	}
+
+	private void importRow(int iy) throws Exception {
+		int row = row1 + iy;
+		if (row < 0) {
+			return;
+		}
+		Construction cons = kernel.getConstruction();
+		for (int ix = 0; ix < data[iy].length; ix++) {
+			int column = column1 + ix;
+			if (column < 0 || column > maxColumn || data[iy][ix] == null) {
+				continue;
+			}
+			String text = data[iy][ix].trim();
+			String name = GeoElementSpreadsheet.getSpreadsheetCellName(column,
+					row);
+			// the table model is cleared while the views are detached
+			GeoElement value0 = kernel.lookupLabel(name);
+			if (text.length() == 0) {
+				if (value0 != null) {
+					value0.removeOrSetUndefinedIfHasFixedDescendent();
+				}
+			} else if (numeric[ix] && value0 == null) {
+				GeoNumeric number = new GeoNumeric(cons,
+						RelativeCopy.parseNumber(text));
+				number.setAuxiliaryObject(true);
+				number.setLabel(name);
+			} else {
+				GeoElementND value = RelativeCopy
+						.prepareAddingValueToTableNoStoringUndoInfo(kernel,
+								app, text, value0, column, row, true);
+				if (value != null) {
+					value.setAuxiliaryObject(true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a list of the numbers in a numeric column without creating
+	 * cells; the numbers are kept in an array, see GeoList.setValues().
+	 *
+	 * @param ix
+	 *            data column
+	 * @return unlabeled list of the numbers in the column up to maxRow (empty
+	 *         cells are skipped) or null if the column is not numeric or
+	 *         beyond maxColumn
+	 */
+	public GeoList createColumnList(int ix) {
+		int column = column1 + ix;
+		if (!isNumericColumn(ix) || column < 0 || column > maxColumn) {
+			return null;
+		}
+		int rows = getRowCount();
+		double[] values = new double[rows];
+		int size = 0;
+		for (int iy = Math.max(0, -row1); iy < rows; iy++) {
+			String text = ix < data[iy].length ? data[iy][ix] : null;
+			if (text != null && text.trim().length() > 0) {
+				values[size++] = RelativeCopy.parseNumber(text.trim());
+			}
+		}
+		GeoList list = new GeoList(kernel.getConstruction());
+		list.setValues(values, size);
+		return list;
+	}
+}
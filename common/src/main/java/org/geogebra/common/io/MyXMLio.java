@@ -31,6 +31,12 @@ public abstract class MyXMLio {
 	 */
 	final public static String XML_FILE = "geogebra.xml";
 
+	/**
+	 * Optional binary encoding of the markup of XML_FILE that is faster to
+	 * load; read if it matches XML_FILE, never written by GeoGebra
+	 */
+	final public static String BINARY_FILE = "geogebra.bin";
+
 	/**
 	 * All xml output is zipped. The created zip archive contains an entry named
 	 * XML_FILE_MACRO for the macros
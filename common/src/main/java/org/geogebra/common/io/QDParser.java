@@ -21,28 +21,46 @@ package org.geogebra.common.io;
 
 import java.io.Reader;
 import java.util.LinkedHashMap;
-import java.util.Stack;
 
 import org.geogebra.common.util.StringUtil;
 
 /**
  * Quick and Dirty xml parser. This parser is, like the SAX parser, an event
  * based parser, but with much less functionality.
+ * 
+ * To create little garbage, input is read in blocks, element and attribute
+ * names are interned so that each distinct name is only created once per
+ * parser, the mode stack holds primitive ints and the attribute map is reused
+ * for all elements. Handlers must not keep the attribute map passed to
+ * startElement.
  */
 public class QDParser {
 
-	private LinkedHashMap<String, String> attrs;
-	private Stack<Integer> stack;
-	private StringBuilder sb, etag;
+	private static final int BUFFER_SIZE = 8192;
+
+	private final static int TEXT = 1, ENTITY = 2, OPEN_TAG = 3,
+			CLOSE_TAG = 4, START_TAG = 5, ATTRIBUTE_LVALUE = 6,
+			ATTRIBUTE_EQUAL = 9, ATTRIBUTE_RVALUE = 10, QUOTE = 7,
+			IN_TAG = 8, SINGLE_TAG = 12, COMMENT = 13, DONE = 11,
+			DOCTYPE = 14, PRE = 15, CDATA = 16;
+
+	private final LinkedHashMap<String, String> attrs;
+	private final StringBuilder sb, etag;
+	private final NameTable names;
+	private final char[] buffer;
+	private int[] stack;
+	private int stackSize;
 
 	/**
 	 * Creates new parser
 	 */
 	public QDParser() {
 		attrs = new LinkedHashMap<String, String>();
-		stack = new Stack<Integer>();
 		sb = new StringBuilder();
 		etag = new StringBuilder();
+		names = new NameTable();
+		buffer = new char[BUFFER_SIZE];
+		stack = new int[16];
 	}
 
 	/**
@@ -50,22 +68,26 @@ public class QDParser {
 	 */
 	public void reset() {
 		attrs.clear();
-		stack.clear();
-		sb = new StringBuilder();
-		etag = new StringBuilder();
+		stackSize = 0;
+		sb.setLength(0);
+		etag.setLength(0);
 	}
 
-	private static int popMode(Stack<Integer> st) {
-		if (!st.empty()) {
-			return st.pop().intValue();
+	private void pushMode(int mode) {
+		if (stackSize == stack.length) {
+			int[] bigger = new int[stack.length * 2];
+			System.arraycopy(stack, 0, bigger, 0, stackSize);
+			stack = bigger;
 		}
-		return PRE;
+		stack[stackSize++] = mode;
 	}
 
-	private final static int TEXT = 1, ENTITY = 2, OPEN_TAG = 3, CLOSE_TAG = 4,
-			START_TAG = 5, ATTRIBUTE_LVALUE = 6, ATTRIBUTE_EQUAL = 9,
-			ATTRIBUTE_RVALUE = 10, QUOTE = 7, IN_TAG = 8, SINGLE_TAG = 12,
-			COMMENT = 13, DONE = 11, DOCTYPE = 14, PRE = 15, CDATA = 16;
+	private int popMode() {
+		if (stackSize > 0) {
+			return stack[--stackSize];
+		}
+		return PRE;
+	}
 
 	/**
 	 * @param doc
@@ -76,29 +98,34 @@ public class QDParser {
 	 *             if XML is not valid
 	 */
 	final public void parse(DocHandler doc, Reader r) throws Exception {
-		// Stack stack = new Stack();
-		stack.clear();
+		stackSize = 0;
 
 		int depth = 0;
 		int mode = PRE;
 		int c = 0;
 		int quotec = '"';
-		depth = 0;
-		// StringBuilder sb = new StringBuilder();
-		// StringBuilder etag = new StringBuilder();
 		sb.setLength(0);
 		etag.setLength(0);
 		String tagName = null;
 		String lvalue = null;
 		String rvalue = null;
 
-		// attrs = new LinkedHashMap();
 		attrs.clear();
 
 		doc.startDocument();
 		int line = 1, col = 0;
 		boolean eol = false;
-		while ((c = r.read()) != -1) {
+		int pos = 0, end = 0;
+		while (true) {
+			if (pos == end) {
+				end = r.read(buffer, 0, buffer.length);
+				pos = 0;
+				if (end < 0) {
+					break;
+				}
+				continue;
+			}
+			c = buffer[pos++];
 
 			// We need to map \r, \r\n, and \n to \n
 			// See XML spec section 2.11
@@ -128,7 +155,7 @@ public class QDParser {
 			case TEXT:
 				switch (c) {
 				case '<':
-					stack.push(new Integer(mode));
+					pushMode(mode);
 					mode = START_TAG;
 					if (sb.length() > 0) {
 						doc.text(sb.toString());
@@ -136,7 +163,7 @@ public class QDParser {
 					}
 					break;
 				case '&':
-					stack.push(new Integer(mode));
+					pushMode(mode);
 					mode = ENTITY;
 					etag.setLength(0);
 					break;
@@ -149,8 +176,8 @@ public class QDParser {
 			case CLOSE_TAG:
 				switch (c) {
 				case '>':
-					mode = popMode(stack);
-					tagName = sb.toString();
+					mode = popMode();
+					tagName = names.get(sb);
 					sb.setLength(0);
 					depth--;
 					if (depth == 0)
@@ -164,11 +191,11 @@ public class QDParser {
 
 			// we are processing CDATA
 			case CDATA:
-				if (c == '>' && sb.toString().endsWith("]]")) {
+				if (c == '>' && endsWith(sb, ']', ']')) {
 					sb.setLength(sb.length() - 2);
 					doc.text(sb.toString());
 					sb.setLength(0);
-					mode = popMode(stack);
+					mode = popMode();
 				} else
 					sb.append((char) c);
 				break;
@@ -176,9 +203,9 @@ public class QDParser {
 			// we are processing a comment. We are inside
 			// the <!-- .... --> looking for the -->.
 			case COMMENT:
-				if (c == '>' && sb.toString().endsWith("--")) {
+				if (c == '>' && endsWith(sb, '-', '-')) {
 					sb.setLength(0);
-					mode = popMode(stack);
+					mode = popMode();
 				} else
 					sb.append((char) c);
 				break;
@@ -187,7 +214,7 @@ public class QDParser {
 			case PRE:
 				if (c == '<') {
 					mode = TEXT;
-					stack.push(new Integer(mode));
+					pushMode(mode);
 					mode = START_TAG;
 				}
 				break;
@@ -196,7 +223,7 @@ public class QDParser {
 			// or one of these <!DOCTYPE ... >
 			case DOCTYPE:
 				if (c == '>') {
-					mode = popMode(stack);
+					mode = popMode();
 					if (mode == TEXT)
 						mode = PRE;
 				}
@@ -206,20 +233,19 @@ public class QDParser {
 			// are wondering what we are looking at
 			// <foo>, </foo>, <!-- ... --->, etc.
 			case START_TAG:
-				mode = popMode(stack);
+				mode = popMode();
 				switch (c) {
 				case '/':
-					stack.push(new Integer(mode));
+					pushMode(mode);
 					mode = CLOSE_TAG;
 					break;
 				case '?':
 					mode = DOCTYPE;
 					break;
 				default:
-					stack.push(new Integer(mode));
+					pushMode(mode);
 					mode = OPEN_TAG;
 					tagName = null;
-					// attrs = new LinkedHashMap();
 					sb.append((char) c);
 				}
 				break;
@@ -227,27 +253,8 @@ public class QDParser {
 			// we are processing an entity, e.g. &lt;, &#187;, etc.
 			case ENTITY:
 				if (c == ';') {
-					mode = popMode(stack);
-					String cent = etag.toString();
-					etag.setLength(0);
-					if (cent.equals("lt"))
-						sb.append('<');
-					else if (cent.equals("gt"))
-						sb.append('>');
-					else if (cent.equals("amp"))
-						sb.append('&');
-					else if (cent.equals("quot"))
-						sb.append('"');
-					else if (cent.equals("apos"))
-						sb.append('\'');
-					// Could parse hex entities if we wanted to
-					else if (cent.startsWith("#x"))
-						sb.append((char) Integer.parseInt(cent.substring(2), 16));
-					else if (cent.charAt(0) == '#')
-						sb.append((char) Integer.parseInt(cent.substring(1)));
-					// Insert custom entity definitions here
-					else
-						exc("Unknown entity: &" + cent + ";", line, col);
+					mode = popMode();
+					appendEntity(line, col);
 				} else {
 					etag.append((char) c);
 				}
@@ -258,7 +265,7 @@ public class QDParser {
 			// and are looking for the final >.
 			case SINGLE_TAG:
 				if (tagName == null)
-					tagName = sb.toString();
+					tagName = names.get(sb);
 				if (c != '>')
 					exc("Expected > for tag: <" + tagName + "/>", line, col);
 				doc.startElement(tagName, attrs);
@@ -268,10 +275,9 @@ public class QDParser {
 					return;
 				}
 				sb.setLength(0);
-				// attrs = new LinkedHashMap();
 				attrs.clear();
 				tagName = null;
-				mode = popMode(stack);
+				mode = popMode();
 				break;
 
 			// we are processing something
@@ -281,14 +287,13 @@ public class QDParser {
 				switch (c) {
 				case '>':
 					if (tagName == null)
-						tagName = sb.toString();
+						tagName = names.get(sb);
 					sb.setLength(0);
 					depth++;
 					doc.startElement(tagName, attrs);
 					tagName = null;
-					// attrs = new LinkedHashMap();
 					attrs.clear();
-					mode = popMode(stack);
+					mode = popMode();
 					break;
 
 				case '/':
@@ -296,7 +301,7 @@ public class QDParser {
 					break;
 
 				case '-':
-					if (sb.toString().equals("!-")) {
+					if (equals(sb, "!-")) {
 						mode = COMMENT;
 					} else {
 						sb.append((char) c);
@@ -304,14 +309,14 @@ public class QDParser {
 					break;
 
 				case '[':
-					if (sb.toString().equals("![CDATA")) {
+					if (equals(sb, "![CDATA")) {
 						mode = CDATA;
 						sb.setLength(0);
 					}
 					break;
 
 				case 'E':
-					if (sb.toString().equals("!DOCTYP")) {
+					if (equals(sb, "!DOCTYP")) {
 						sb.setLength(0);
 						mode = DOCTYPE;
 					}
@@ -319,7 +324,7 @@ public class QDParser {
 
 				default:
 					if (StringUtil.isWhitespace((char) c)) {
-						tagName = sb.toString();
+						tagName = names.get(sb);
 						sb.setLength(0);
 						mode = IN_TAG;
 					} else {
@@ -336,20 +341,8 @@ public class QDParser {
 					sb.setLength(0);
 					attrs.put(lvalue, rvalue);
 					mode = IN_TAG;
-					// See section the XML spec, section 3.3.3
-					// on normalization processing.
-				}
-
-				// Markus Hohenwarter, begin
-				// I need to get all characters within quotes
-				// including newlines
-				// else if (" \r\n\u0009".indexOf(c) >= 0) {
-				// sb.append(' ');
-				// }
-				// Markus Hohenwarter, end
-
-				else if (c == '&') {
-					stack.push(new Integer(mode));
+				} else if (c == '&') {
+					pushMode(mode);
 					mode = ENTITY;
 					etag.setLength(0);
 				} else {
@@ -368,11 +361,11 @@ public class QDParser {
 
 			case ATTRIBUTE_LVALUE:
 				if (StringUtil.isWhitespace((char) c)) {
-					lvalue = sb.toString();
+					lvalue = names.get(sb);
 					sb.setLength(0);
 					mode = ATTRIBUTE_EQUAL;
 				} else if (c == '=') {
-					lvalue = sb.toString();
+					lvalue = names.get(sb);
 					sb.setLength(0);
 					mode = ATTRIBUTE_RVALUE;
 				} else {
@@ -391,11 +384,10 @@ public class QDParser {
 			case IN_TAG:
 				switch (c) {
 				case '>':
-					mode = popMode(stack);
+					mode = popMode();
 					doc.startElement(tagName, attrs);
 					depth++;
 					tagName = null;
-					// attrs = new LinkedHashMap();
 					attrs.clear();
 					break;
 
@@ -420,7 +412,101 @@ public class QDParser {
 
 	}
 
+	private void appendEntity(int line, int col) throws Exception {
+		if (equals(etag, "lt"))
+			sb.append('<');
+		else if (equals(etag, "gt"))
+			sb.append('>');
+		else if (equals(etag, "amp"))
+			sb.append('&');
+		else if (equals(etag, "quot"))
+			sb.append('"');
+		else if (equals(etag, "apos"))
+			sb.append('\'');
+		else {
+			String cent = etag.toString();
+			etag.setLength(0);
+			if (cent.startsWith("#x"))
+				sb.append((char) Integer.parseInt(cent.substring(2), 16));
+			else if (cent.charAt(0) == '#')
+				sb.append((char) Integer.parseInt(cent.substring(1)));
+			else
+				exc("Unknown entity: &" + cent + ";", line, col);
+		}
+		etag.setLength(0);
+	}
+
+	private static boolean equals(StringBuilder sb, String s) {
+		if (sb.length() != s.length()) {
+			return false;
+		}
+		for (int i = 0; i < s.length(); i++) {
+			if (sb.charAt(i) != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean endsWith(StringBuilder sb, char c1, char c2) {
+		int len = sb.length();
+		return len >= 2 && sb.charAt(len - 2) == c1 && sb.charAt(len - 1) == c2;
+	}
+
 	private static void exc(String s, int line, int col) throws Exception {
 		throw new Exception(s + " near line " + line + ", column " + col);
 	}
+
+	/**
+	 * Open addressing hash set of names; returns the same String for equal
+	 * character sequences without creating a new one.
+	 */
+	private static final class NameTable {
+		/** stop interning when a document has more distinct names */
+		private static final int MAX_NAMES = 4096;
+
+		private String[] table = new String[512];
+		private int count = 0;
+
+		String get(StringBuilder name) {
+			int len = name.length();
+			int hash = 0;
+			for (int i = 0; i < len; i++) {
+				hash = 31 * hash + name.charAt(i);
+			}
+			int mask = table.length - 1;
+			int i = hash & mask;
+			while (table[i] != null) {
+				if (QDParser.equals(name, table[i])) {
+					return table[i];
+				}
+				i = (i + 1) & mask;
+			}
+			String ret = name.toString();
+			if (count < MAX_NAMES) {
+				table[i] = ret;
+				count++;
+				if (2 * count > table.length) {
+					grow();
+				}
+			}
+			return ret;
+		}
+
+		private void grow() {
+			String[] old = table;
+			table = new String[old.length * 2];
+			int mask = table.length - 1;
+			for (int k = 0; k < old.length; k++) {
+				if (old[k] != null) {
+					// String.hashCode() uses the same function as get()
+					int i = old[k].hashCode() & mask;
+					while (table[i] != null) {
+						i = (i + 1) & mask;
+					}
+					table[i] = old[k];
+				}
+			}
+		}
+	}
 }
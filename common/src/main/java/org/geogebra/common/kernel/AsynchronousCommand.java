@@ -11,17 +11,17 @@ the Free Software Foundation.
  */
 package org.geogebra.common.kernel;
 
+import org.geogebra.common.kernel.arithmetic.MyArbitraryConstant;
+
 /**
- * Interface for classes that can call CAS asynchronously and receive callbacks
+ * Interface for classes that can call CAS asynchronously and receive callbacks.
+ * When the CAS is asynchronous (see Kernel.isCASAsynchronous()), the callbacks
+ * come later from the main thread; they should only set the outputs, the
+ * kernel updates everything that depends on them afterwards.
  * 
  * @author Zbynek Konecny
  */
 public interface AsynchronousCommand {
-	/**
-	 * This flag switches using asyncronous CAS on or off in Desktop, has no
-	 * effect in Web.
-	 */
-	public boolean USE_ASYNCHRONOUS = false;
 
 	/**
 	 * @param output
@@ -49,6 +49,11 @@ public interface AsynchronousCommand {
 	 */
 	public String getCasInput();
 
+	/**
+	 * @return handler for arbitrary constants in the output, may be null
+	 */
+	public MyArbitraryConstant getArbitraryConstant();
+
 	public Kernel getKernel();
 
 }
@@ -69,6 +69,12 @@ public interface CASGenericInterface extends SettingListener {
 	 */
 	public void evaluateGeoGebraCASAsync(final AsynchronousCommand c);
 
+	/**
+	 * @return whether evaluateGeoGebraCASAsync returns before the result is
+	 *         passed to the command
+	 */
+	public boolean isAsynchronous();
+
 	/**
 	 * Appends list start marker to the builder (eg {)
 	 * 
@@ -47,12 +47,14 @@ import org.geogebra.common.kernel.optimization.ExtremumFinder;
 import org.geogebra.common.kernel.prover.AlgoProve;
 import org.geogebra.common.kernel.prover.AlgoProveDetails;
 import org.geogebra.common.main.App;
+import org.geogebra.common.main.Feature;
 import org.geogebra.common.main.Localization;
 import org.geogebra.common.main.MyError;
 import org.geogebra.common.main.SelectionManager;
 import org.geogebra.common.plugin.GeoClass;
 import org.geogebra.common.plugin.Operation;
 import org.geogebra.common.util.StringUtil;
+import org.geogebra.common.util.debug.GeoGebraProfiler;
 import org.geogebra.common.util.debug.Log;
 
 /**
@@ -962,14 +964,73 @@ public class Construction {
 	 * Updates all algorithms in this construction
 	 */
 	public final void updateAllAlgorithms() {
+		updateAllAlgorithms(false);
+	}
+
+	/**
+	 * Updates all algorithms in this construction
+	 * 
+	 * @param onlyChanged
+	 *            whether to skip computing algorithms whose input did not
+	 *            change since their last update
+	 */
+	public final void updateAllAlgorithms(boolean onlyChanged) {
+		boolean incremental = onlyChanged && isIncrementalUpdateEnabled();
+		int skipped = 0;
 		// update all algorithms
 
 		// *** algoList.size() can change during the loop
 		for (int i = 0; i < algoList.size(); ++i) {
 			AlgoElement algo = algoList.get(i);
-			algo.update();
+			if (incremental) {
+				if (algo.updateIfInputChanged()) {
+					skipped++;
+				}
+			} else {
+				algo.update();
+			}
 			// AbstractApplication.debug("#"+i+" : "+algo);
 		}
+		if (incremental) {
+			GeoGebraProfiler.addUpdateConstruction(algoList.size() - skipped,
+					skipped);
+		}
+	}
+
+	private boolean isIncrementalUpdateEnabled() {
+		return kernel.getApplication() != null
+				&& kernel.getApplication().has(
+						Feature.INCREMENTAL_UPDATE_CONSTRUCTION);
+	}
+
+	/**
+	 * @return new change stamp for an updated geo
+	 */
+	public long nextChangeStamp() {
+		return ++changeStamp;
+	}
+
+	/**
+	 * @return last change stamp given to a geo
+	 */
+	public long getChangeStamp() {
+		return changeStamp;
+	}
+
+	/**
+	 * @param flag
+	 *            true to let geos keep their change stamps on update, because
+	 *            their value did not change
+	 */
+	public void setKeepingChangeStamps(boolean flag) {
+		keepingChangeStamps = flag;
+	}
+
+	/**
+	 * @return whether geos keep their change stamps on update
+	 */
+	public boolean isKeepingChangeStamps() {
+		return keepingChangeStamps;
 	}
 
 	/**
@@ -1117,6 +1178,20 @@ public class Construction {
 	 * Updates all objects in this construction.
 	 */
 	final public void updateConstruction() {
+		updateConstruction(false);
+	}
+
+	/**
+	 * Updates all objects in this construction.
+	 * 
+	 * @param onlyChanged
+	 *            whether to skip computing algorithms whose input did not
+	 *            change since their last update; use when only the way objects
+	 *            are displayed changed
+	 */
+	final public void updateConstruction(boolean onlyChanged) {
+		boolean incremental = onlyChanged && isIncrementalUpdateEnabled();
+		int skipped = 0;
 		// collect notifyUpdate calls using xAxis as dummy geo
 		updateConstructionRunning = true;
 		try {
@@ -1126,6 +1201,8 @@ public class Construction {
 			// kernel.app.getGuiManager().startCollectingSpreadsheetTraces();
 
 			// update all independent GeoElements
+			// (only views need to know in incremental mode)
+			keepingChangeStamps = incremental;
 			int size = ceList.size();
 			for (int i = 0; i < size; ++i) {
 				ConstructionElement ce = ceList.get(i);
@@ -1133,6 +1210,7 @@ public class Construction {
 					ce.update();
 				}
 			}
+			keepingChangeStamps = false;
 
 			// update all free random numbers() (dependent random numbers will
 			// be updated from algo list)
@@ -1171,13 +1249,21 @@ public class Construction {
 				algo.initForNearToRelationship();
 
 				// update algorithm
-				algo.update();
+				if (!incremental) {
+					algo.update();
+				} else if (algo.updateIfInputChanged()) {
+					skipped++;
+				}
+			}
+			if (incremental) {
+				GeoGebraProfiler.addUpdateConstruction(size - skipped, skipped);
 			}
 
 			// G.Sturr 2010-5-28:
 			// if (!kernel.isMacroKernel() && kernel.app.hasGuiManager())
 			// kernel.app.getGuiManager().stopCollectingSpreadsheetTraces();
 		} finally {
+			keepingChangeStamps = false;
 			updateConstructionRunning = false;
 		}
 	}
@@ -3097,6 +3183,9 @@ public class Construction {
 	private boolean casCellUpdate = false;
 	private boolean notXmlLoading = false;
 	private boolean updateConstructionRunning;
+	// see GeoElement.getChangeStamp()
+	private long changeStamp = 0;
+	private boolean keepingChangeStamps = false;
 
 	/**
 	 * Let construction know about file being loaded. When this is true, user
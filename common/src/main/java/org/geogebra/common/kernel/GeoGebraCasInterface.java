@@ -3,6 +3,7 @@ package org.geogebra.common.kernel;
 import java.util.ArrayList;
 import java.util.Set;
 
+import org.geogebra.common.cas.CASCacheStore;
 import org.geogebra.common.kernel.arithmetic.Command;
 import org.geogebra.common.kernel.arithmetic.ExpressionNode;
 import org.geogebra.common.kernel.arithmetic.MyArbitraryConstant;
@@ -164,6 +165,12 @@ public interface GeoGebraCasInterface {
 	 */
 	public void clearCache();
 
+	/**
+	 * @param store
+	 *            persistent store for cached results, may be null
+	 */
+	public void setCacheStore(CASCacheStore store);
+
 	/**
 	 * @param string
 	 *            signature, eg Midpoint.2
@@ -8,6 +8,8 @@ import java.util.List;
 import java.util.TreeSet;
 
 import org.geogebra.common.GeoGebraConstants;
+import org.geogebra.common.cas.CASCache;
+import org.geogebra.common.cas.CASCacheStore;
 import org.geogebra.common.cas.GeoGebraCAS;
 import org.geogebra.common.euclidian.EuclidianView;
 import org.geogebra.common.euclidian.EuclidianViewInterfaceCommon;
@@ -83,7 +85,6 @@ import org.geogebra.common.plugin.Operation;
 import org.geogebra.common.plugin.script.GgbScript;
 import org.geogebra.common.plugin.script.Script;
 import org.geogebra.common.util.Exercise;
-import org.geogebra.common.util.MaxSizeHashMap;
 import org.geogebra.common.util.MyMath;
 import org.geogebra.common.util.NumberFormatAdapter;
 import org.geogebra.common.util.ScientificFormatAdapter;
@@ -2747,7 +2748,7 @@ public class Kernel {
 		// evaluate in GeoGebraCAS
 		result = getGeoGebraCAS().evaluateRaw(exp);
 
-		getCasCache().put(exp, result);
+		getCasCache().put(exp, result, false);
 
 		return result;
 	}
@@ -2768,6 +2769,41 @@ public class Kernel {
 		getGeoGebraCAS().evaluateGeoGebraCASAsync(c);
 	}
 
+	/**
+	 * @return whether CAS results for asynchronous commands are passed to them
+	 *         later
+	 */
+	public boolean isCASAsynchronous() {
+		return app.getSettings().getCasSettings().isEnabled()
+				&& getGeoGebraCAS().getCurrentCAS().isAsynchronous();
+	}
+
+	/**
+	 * Updates dependent objects of commands that received asynchronous CAS
+	 * results, all in one cascade.
+	 * 
+	 * @param commands
+	 *            commands whose outputs changed
+	 */
+	public void updateAfterAsynchronousCAS(
+			ArrayList<AsynchronousCommand> commands) {
+		ArrayList<GeoElement> outputs = new ArrayList<GeoElement>();
+		for (AsynchronousCommand c : commands) {
+			// command may have been removed meanwhile
+			if (c instanceof AlgoElement
+					&& ((AlgoElement) c).isInConstructionList()) {
+				for (GeoElement geo : ((AlgoElement) c).getOutput()) {
+					outputs.add(geo);
+				}
+			}
+		}
+		if (outputs.isEmpty()) {
+			return;
+		}
+		GeoElement.updateCascade(outputs, new TreeSet<AlgoElement>(), true);
+		notifyRepaint();
+	}
+
 	public void putToCasCache(String exp, String result) {
 		getCasCache().put(exp, result);
 	}
@@ -2806,19 +2842,43 @@ public class Kernel {
 		return algebraStyleSpreadsheet;
 	}
 
-	private MaxSizeHashMap<String, String> ggbCasCache;
+	private CASCache ggbCasCache;
+	private CASCacheStore casCacheStore;
 
 	/**
-	 * @return Hash map for caching CAS results.
+	 * @return cache for CAS results.
 	 */
-	public MaxSizeHashMap<String, String> getCasCache() {
+	public CASCache getCasCache() {
 		if (ggbCasCache == null) {
-			ggbCasCache = new MaxSizeHashMap<String, String>(
-					GEOGEBRA_CAS_CACHE_SIZE);
+			ggbCasCache = new CASCache("ggb", GEOGEBRA_CAS_CACHE_SIZE,
+					CASCache.DEFAULT_MAX_CHARS);
+			ggbCasCache.setStore(getCasCacheStore());
 		}
 		return ggbCasCache;
 	}
 
+	/**
+	 * @param store
+	 *            persistent store for CAS results, null to keep them in memory
+	 *            only
+	 */
+	public void setCasCacheStore(CASCacheStore store) {
+		casCacheStore = store;
+		if (ggbCasCache != null) {
+			ggbCasCache.setStore(store);
+		}
+		if (ggbCAS != null) {
+			ggbCAS.setCacheStore(store);
+		}
+	}
+
+	/**
+	 * @return persistent store for CAS results, may be null
+	 */
+	public CASCacheStore getCasCacheStore() {
+		return casCacheStore;
+	}
+
 	/**
 	 * @return Whether kernel is already using CAS caching.
 	 */
@@ -3886,9 +3946,20 @@ public class Kernel {
 	 * /************************** Undo /Redo
 	 */
 	public void updateConstruction() {
+		updateConstruction(false);
+	}
+
+	/**
+	 * Updates all objects and repaints views
+	 * 
+	 * @param onlyChanged
+	 *            whether to skip computing algorithms whose input did not
+	 *            change; use when only the way objects are displayed changed
+	 */
+	public void updateConstruction(boolean onlyChanged) {
 
 		// views are notified about update at the end of this method
-		cons.updateConstruction();
+		cons.updateConstruction(onlyChanged);
 
 		// latexes in GeoGebraWeb are rendered afterwards and set updateEVAgain
 		if (getUpdateAgain()) {
@@ -13,6 +13,8 @@ package org.geogebra.common.kernel;
 
 import java.util.LinkedHashMap;
 
+import org.geogebra.common.cas.CASCache;
+import org.geogebra.common.cas.CASCacheStore;
 import org.geogebra.common.io.MyXMLHandler;
 import org.geogebra.common.kernel.algos.AlgoDispatcher;
 import org.geogebra.common.kernel.arithmetic.ExpressionNodeEvaluator;
@@ -21,7 +23,6 @@ import org.geogebra.common.kernel.geos.GeoElement;
 import org.geogebra.common.kernel.kernelND.GeoDirectionND;
 import org.geogebra.common.kernel.kernelND.GeoPlaneND;
 import org.geogebra.common.main.MyError;
-import org.geogebra.common.util.MaxSizeHashMap;
 
 /**
  * Kernel with its own construction for macros.
@@ -197,13 +198,21 @@ public class MacroKernel extends Kernel {
 	}
 
 	/**
-	 * @return Hash map for caching CAS results from parent kernel.
+	 * @return cache for CAS results from parent kernel.
 	 */
 	@Override
-	public MaxSizeHashMap<String, String> getCasCache() {
+	public CASCache getCasCache() {
 		return parentKernel.getCasCache();
 	}
 
+	/**
+	 * @return persistent store for CAS results of parent kernel.
+	 */
+	@Override
+	public CASCacheStore getCasCacheStore() {
+		return parentKernel.getCasCacheStore();
+	}
+
 	/**
 	 * @return Whether parent kernel is already using CAS caching.
 	 */
@@ -1,9 +1,17 @@
 package org.geogebra.common.kernel;
 
-import org.geogebra.common.main.App;
-
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.geogebra.common.GeoGebraConstants;
+import org.geogebra.common.kernel.algos.AlgoElement;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.main.App;
+import org.geogebra.common.util.debug.Log;
 
 /**
  * Undo manager common to Desktop and Web
@@ -12,6 +20,10 @@ public abstract class UndoManager {
 
 	/** maximum capacity of undo info list: you can undo MAX_CAPACITY - 1 steps */
 	private static final int MAX_CAPACITY = 100;
+	/** every n-th undo point is stored in full, others as delta */
+	private static final int CHECKPOINT_INTERVAL = 10;
+	/** oldest undo points are dropped when all together are bigger (chars) */
+	private static final long MAX_STORED_SIZE = 32L * 1024 * 1024;
 
 	/**
 	 * Interface for application state
@@ -23,6 +35,28 @@ public abstract class UndoManager {
 		/** deletes this application state (i.e. deletes file) */
 		void delete();
 
+		/** @return stored size in characters */
+		int getSize();
+	}
+
+	/**
+	 * Undo point stored in memory as difference to the previous undo point in
+	 * the list
+	 */
+	protected static class DeltaAppState implements AppState {
+		private final XMLDelta delta;
+
+		DeltaAppState(XMLDelta delta) {
+			this.delta = delta;
+		}
+
+		public void delete() {
+			// nothing stored outside
+		}
+
+		public int getSize() {
+			return delta.getSize();
+		}
 	}
 
 	/** application */
@@ -33,6 +67,10 @@ public abstract class UndoManager {
 	protected LinkedList<AppState> undoInfoList;
 	/** invariant: iterator.previous() is current state */
 	public ListIterator<AppState> iterator;
+	/** XML of current state, null if unknown */
+	private String currentXML;
+	/** whether restoreCurrentUndoInfo() is running */
+	private boolean restoringCurrent;
 
 	/**
 	 * @param cons
@@ -109,7 +147,13 @@ public abstract class UndoManager {
 	final public synchronized void restoreCurrentUndoInfo() {
 		app.getKernel().storeSelectedGeosNames();
 		if (iterator != null) {
-			loadUndoInfo(iterator.previous());
+			// the construction may be broken, rebuild it
+			restoringCurrent = true;
+			try {
+				loadUndoInfo(iterator.previous());
+			} finally {
+				restoringCurrent = false;
+			}
 			iterator.next();
 			updateUndoActions();
 		}
@@ -167,12 +211,146 @@ public abstract class UndoManager {
 	 */
 	protected abstract void loadUndoInfo(AppState state);
 
+	/**
+	 * Stores full construction XML
+	 * 
+	 * @param xml
+	 *            construction XML
+	 * @return state that keeps the XML
+	 * @throws Exception
+	 *             if XML can't be stored
+	 */
+	protected abstract AppState createCheckpoint(String xml) throws Exception;
+
+	/**
+	 * @param state
+	 *            state created by createCheckpoint
+	 * @return construction XML stored in the state
+	 * @throws Exception
+	 *             if XML can't be read
+	 */
+	protected abstract String getCheckpointXML(AppState state)
+			throws Exception;
+
+	/**
+	 * Creates undo point to be inserted after the current one: a delta to the
+	 * current state or, every few steps or if the delta is big, a checkpoint
+	 * with the full XML.
+	 * 
+	 * @param undoXML
+	 *            construction XML
+	 * @return undo point
+	 * @throws Exception
+	 *             if XML can't be stored
+	 */
+	protected final synchronized AppState createUndoInfo(
+			StringBuilder undoXML) throws Exception {
+		String xml = undoXML.toString();
+		AppState state = null;
+		if (currentXML != null && iterator.hasPrevious()
+				&& getDeltasBefore(iterator.previousIndex()) < CHECKPOINT_INTERVAL - 1) {
+			XMLDelta delta = XMLDelta.create(currentXML, xml);
+			if (delta.getSize() < xml.length() / 2) {
+				state = new DeltaAppState(delta);
+			}
+		}
+		if (state == null) {
+			state = createCheckpoint(xml);
+		}
+		currentXML = xml;
+		return state;
+	}
+
+	/**
+	 * @param state
+	 *            undo point
+	 * @return construction XML of the undo point, remembered as XML of current
+	 *         state for next delta
+	 * @throws Exception
+	 *             if XML can't be read
+	 */
+	protected final synchronized String getUndoXML(AppState state)
+			throws Exception {
+		int index = undoInfoList.indexOf(state);
+		currentXML = null;
+		String xml = index < 0 ? getCheckpointXML(state) : getUndoXML(index);
+		currentXML = xml;
+		return xml;
+	}
+
+	/**
+	 * Restores a state that differs from the current construction only in
+	 * properties of free objects (e.g. after dragging them) by processing the
+	 * XML of these objects and updating their dependent objects, without
+	 * rebuilding the construction.
+	 * 
+	 * @param undoXML
+	 *            construction XML of the state
+	 * @return false if the state has to be restored by reloading the whole
+	 *         construction
+	 * @throws Exception
+	 *             if processing the XML fails
+	 */
+	protected final boolean restoreInPlace(String undoXML) throws Exception {
+		if (restoringCurrent) {
+			return false;
+		}
+		LinkedHashMap<String, String> changed = XMLDelta.getChangedElements(
+				construction.getCurrentUndoXML(true).toString(), undoXML);
+		if (changed == null) {
+			return false;
+		}
+		ArrayList<GeoElement> geos = new ArrayList<GeoElement>();
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, String> entry : changed.entrySet()) {
+			GeoElement geo = construction.lookupLabel(entry.getKey());
+			if (geo == null || !geo.isIndependent()) {
+				return false;
+			}
+			geos.add(geo);
+			sb.append(entry.getValue());
+		}
+		if (geos.isEmpty()) {
+			return true;
+		}
+		construction.getXMLio().processXMLString(
+				"<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+						+ "<geogebra format=\""
+						+ GeoGebraConstants.XML_FILE_FORMAT + "\">\n"
+						+ "<construction>\n" + sb
+						+ "</construction>\n</geogebra>\n", false, false);
+		GeoElement.updateCascade(geos, new TreeSet<AlgoElement>(), true);
+		construction.getKernel().notifyRepaint();
+		return true;
+	}
+
+	private String getUndoXML(int index) throws Exception {
+		int start = index - getDeltasBefore(index);
+		String xml = getCheckpointXML(undoInfoList.get(start));
+		for (int i = start + 1; i <= index; i++) {
+			xml = ((DeltaAppState) undoInfoList.get(i)).delta.apply(xml);
+		}
+		return xml;
+	}
+
+	/**
+	 * @return number of deltas up to given index since last checkpoint
+	 */
+	private int getDeltasBefore(int index) {
+		int count = 0;
+		while (undoInfoList.get(index - count) instanceof DeltaAppState) {
+			count++;
+		}
+		return count;
+	}
+
 	/**
 	 * Clears all undo information
 	 */
 	public synchronized void clearUndoInfo() {
 		undoInfoList.clear();
 		iterator = undoInfoList.listIterator();
+		currentXML = null;
 	}
 
 	/**
@@ -188,8 +366,20 @@ public abstract class UndoManager {
 			appState.delete();
 		}
 
-		// delete first if too many in list
-		if (undoInfoList.size() > MAX_CAPACITY) {
+		// delete first if too many in list or too big
+		while (undoInfoList.size() > MAX_CAPACITY
+				|| (undoInfoList.size() > 2 && getStoredSize() > MAX_STORED_SIZE)) {
+			// the new first one must not depend on the removed one
+			String secondXML = null;
+			if (undoInfoList.get(1) instanceof DeltaAppState) {
+				try {
+					secondXML = getUndoXML(1);
+				} catch (Exception e) {
+					Log.error("undo checkpoint: " + e);
+					clearUndoInfo();
+					return;
+				}
+			}
 			// use iterator to delete to avoid
 			// ConcurrentModificationException
 			// go to beginning of list
@@ -199,9 +389,28 @@ public abstract class UndoManager {
 			iterator.remove();
 			appState.delete();
 
+			if (secondXML != null) {
+				try {
+					iterator.next();
+					iterator.set(createCheckpoint(secondXML));
+				} catch (Exception e) {
+					Log.error("undo checkpoint: " + e);
+					clearUndoInfo();
+					return;
+				}
+			}
+
 			while (iterator.hasNext())
 				iterator.next();
 		}
 
 	}
+
+	private long getStoredSize() {
+		long size = 0;
+		for (AppState state : undoInfoList) {
+			size += state.getSize();
+		}
+		return size;
+	}
 }
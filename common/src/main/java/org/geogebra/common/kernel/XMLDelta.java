@@ -0,0 +1,259 @@
+package org.geogebra.common.kernel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Difference between two versions of construction XML, stored as a sequence
+ * of operations that either copy a range of lines of the old version or insert
+ * new text. Elements that did not change, were moved or were removed cost
+ * only one operation, so an undo point is about as big as the changed
+ * elements.
+ */
+final class XMLDelta {
+
+	/** resynchronize on shorter lines only if the next line matches too */
+	private static final int MIN_ANCHOR_LENGTH = 32;
+	/** how many equal lines to try when looking for a copy source */
+	private static final int MAX_CANDIDATES = 64;
+
+	// for op i: copy old lines from[i] .. from[i]+length[i]-1 if text[i] is
+	// null, insert text[i] otherwise
+	private final int[] from;
+	private final int[] length;
+	private final String[] text;
+	private final int size;
+
+	private XMLDelta(ArrayList<Integer> from, ArrayList<Integer> length,
+			ArrayList<String> text) {
+		int n = text.size();
+		this.from = new int[n];
+		this.length = new int[n];
+		this.text = new String[n];
+		int s = 0;
+		for (int i = 0; i < n; i++) {
+			this.from[i] = from.get(i);
+			this.length[i] = length.get(i);
+			this.text[i] = text.get(i);
+			// two ints per operation
+			s += this.text[i] == null ? 4 : this.text[i].length() + 4;
+		}
+		size = s;
+	}
+
+	/**
+	 * @param oldXML
+	 *            old version
+	 * @param newXML
+	 *            new version
+	 * @return delta that turns oldXML into newXML
+	 */
+	static XMLDelta create(String oldXML, String newXML) {
+		ArrayList<String> oldLines = split(oldXML);
+		ArrayList<String> newLines = split(newXML);
+
+		// first occurrence of each line, next occurrence of the same line
+		HashMap<String, Integer> first = new HashMap<String, Integer>();
+		int[] next = new int[oldLines.size()];
+		for (int i = oldLines.size() - 1; i >= 0; i--) {
+			Integer f = first.put(oldLines.get(i), i);
+			next[i] = f == null ? -1 : f.intValue();
+		}
+
+		ArrayList<Integer> from = new ArrayList<Integer>();
+		ArrayList<Integer> length = new ArrayList<Integer>();
+		ArrayList<String> text = new ArrayList<String>();
+		StringBuilder insert = new StringBuilder();
+		int cursor = 0;
+		for (int j = 0; j < newLines.size(); j++) {
+			String line = newLines.get(j);
+			int pos;
+			if (cursor < oldLines.size() && oldLines.get(cursor).equals(line)) {
+				pos = cursor;
+			} else {
+				pos = findAnchor(oldLines, newLines, j, cursor, first, next);
+			}
+			if (pos < 0) {
+				insert.append(line);
+				continue;
+			}
+			if (insert.length() > 0) {
+				from.add(0);
+				length.add(0);
+				text.add(insert.toString());
+				insert.setLength(0);
+			}
+			int last = text.size() - 1;
+			if (last >= 0 && text.get(last) == null
+					&& from.get(last) + length.get(last) == pos) {
+				length.set(last, length.get(last) + 1);
+			} else {
+				from.add(pos);
+				length.add(1);
+				text.add(null);
+			}
+			cursor = pos + 1;
+		}
+		if (insert.length() > 0) {
+			from.add(0);
+			length.add(0);
+			text.add(insert.toString());
+		}
+		return new XMLDelta(from, length, text);
+	}
+
+	private static int findAnchor(ArrayList<String> oldLines,
+			ArrayList<String> newLines, int j, int cursor,
+			HashMap<String, Integer> first, int[] next) {
+		String line = newLines.get(j);
+		Integer f = first.get(line);
+		if (f == null) {
+			return -1;
+		}
+		// prefer the first occurrence after the cursor
+		int pos = f.intValue();
+		for (int k = 0; k < MAX_CANDIDATES && pos >= 0 && pos < cursor; k++) {
+			pos = next[pos];
+		}
+		if (pos < 0 || pos < cursor) {
+			pos = f.intValue();
+		}
+		if (line.length() >= MIN_ANCHOR_LENGTH) {
+			return pos;
+		}
+		// short lines like </element> are everywhere, check the next one
+		if (j + 1 < newLines.size() && pos + 1 < oldLines.size()
+				&& oldLines.get(pos + 1).equals(newLines.get(j + 1))) {
+			return pos;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param oldXML
+	 *            the XML this delta was created from
+	 * @return new version of the XML
+	 */
+	String apply(String oldXML) {
+		ArrayList<String> oldLines = split(oldXML);
+		StringBuilder sb = new StringBuilder(oldXML.length() + size);
+		for (int i = 0; i < text.length; i++) {
+			if (text[i] != null) {
+				sb.append(text[i]);
+			} else {
+				for (int k = from[i]; k < from[i] + length[i]; k++) {
+					sb.append(oldLines.get(k));
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Finds the elements that have to be changed to turn oldXML into newXML
+	 * if nothing else differs, e.g. after dragging free objects. Lines of
+	 * changed elements may only differ in attribute values, so that
+	 * processing the new element XML overwrites all the changes.
+	 *
+	 * @param oldXML
+	 *            old version
+	 * @param newXML
+	 *            new version
+	 * @return &lt;element&gt; blocks of newXML that differ from oldXML by
+	 *         label, null if the versions differ in anything else
+	 */
+	static LinkedHashMap<String, String> getChangedElements(String oldXML,
+			String newXML) {
+		ArrayList<String> oldLines = split(oldXML);
+		ArrayList<String> newLines = split(newXML);
+		if (oldLines.size() != newLines.size()) {
+			return null;
+		}
+		LinkedHashMap<String, String> changed = new LinkedHashMap<String, String>();
+		int start = -1;
+		boolean macro = false;
+		boolean differs = false;
+		for (int i = 0; i < newLines.size(); i++) {
+			String line = newLines.get(i);
+			String trimmed = line.trim();
+			if (trimmed.startsWith("<macro")) {
+				macro = true;
+			}
+			if (!line.equals(oldLines.get(i))) {
+				// also element types and labels must be the same
+				if (start < 0 || !getShape(line).equals(getShape(oldLines.get(i)))) {
+					return null;
+				}
+				differs = true;
+			}
+			if (macro) {
+				if (trimmed.startsWith("</macro")) {
+					macro = false;
+				}
+			} else if (start < 0 && trimmed.startsWith("<element ")) {
+				start = i;
+				differs = false;
+			} else if (start >= 0 && "</element>".equals(trimmed)) {
+				if (differs) {
+					String label = getLabel(newLines.get(start));
+					if (label == null) {
+						return null;
+					}
+					StringBuilder sb = new StringBuilder();
+					for (int k = start; k <= i; k++) {
+						sb.append(newLines.get(k));
+					}
+					changed.put(label, sb.toString());
+				}
+				start = -1;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * @return line with all attribute values removed
+	 */
+	private static String getShape(String line) {
+		return line.replaceAll("\"[^\"]*\"", "\"\"");
+	}
+
+	/**
+	 * @return label of &lt;element&gt; start tag, null if missing or escaped
+	 */
+	private static String getLabel(String line) {
+		int start = line.indexOf(" label=\"");
+		if (start < 0) {
+			return null;
+		}
+		start += 8;
+		int end = line.indexOf('"', start);
+		if (end < 0 || line.substring(start, end).indexOf('&') >= 0) {
+			return null;
+		}
+		return line.substring(start, end);
+	}
+
+	/**
+	 * @return approximate memory needed for this delta in characters
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return lines including their line breaks
+	 */
+	private static ArrayList<String> split(String xml) {
+		ArrayList<String> lines = new ArrayList<String>();
+		int start = 0;
+		while (start < xml.length()) {
+			int end = xml.indexOf('\n', start);
+			end = end < 0 ? xml.length() : end + 1;
+			lines.add(xml.substring(start, end));
+			start = end;
+		}
+		return lines;
+	}
+}
@@ -13,6 +13,7 @@ the Free Software Foundation.
 package org.geogebra.common.kernel.advanced;
 
 import org.geogebra.common.kernel.Construction;
+import org.geogebra.common.kernel.Kernel;
 import org.geogebra.common.kernel.algos.AlgoElement;
 import org.geogebra.common.kernel.algos.DrawInformationAlgo;
 import org.geogebra.common.kernel.commands.Commands;
@@ -20,6 +21,7 @@ import org.geogebra.common.kernel.geos.CasEvaluableFunction;
 import org.geogebra.common.kernel.geos.GeoElement;
 import org.geogebra.common.kernel.geos.GeoList;
 import org.geogebra.common.kernel.geos.GeoNumeric;
+import org.geogebra.common.kernel.geos.GeoPoint;
 import org.geogebra.common.util.debug.Log;
 
 /**
@@ -40,6 +42,8 @@ public class AlgoZip extends AlgoElement {
 	private int last_length = 0;
 	private boolean expIsFunctionOrCurve, isEmpty;
 	private AlgoElement expressionParentAlgo;
+	/** values of number or point lists, see GeoList.setValues() */
+	private double[] valueBuffer;
 
 	// we need to check that some Object[] reference didn't cause infinite
 	// update cycle
@@ -181,7 +185,9 @@ public class AlgoZip extends AlgoElement {
 		cons.setSuppressLabelCreation(true);
 
 		// update list
-		if (setValuesOnly)
+		if (canComputeValues())
+			computeValues();
+		else if (setValuesOnly)
 			updateListItems();
 		else
 			createNewList();
@@ -191,6 +197,76 @@ public class AlgoZip extends AlgoElement {
 		updateRunning = false;
 	}
 
+	/**
+	 * @return whether the elements are numbers or points that can be stored
+	 *         in an array
+	 */
+	private boolean canComputeValues() {
+		// angles, sliders etc. need their own elements
+		if (expression.getClass() == GeoNumeric.class) {
+			return !(expression
+					.getDrawAlgorithm() instanceof DrawInformationAlgo);
+		}
+		if (expression.getClass() != GeoPoint.class) {
+			return false;
+		}
+		// complex and polar points or points on paths need their own
+		// elements, the array only keeps the coordinates
+		GeoPoint point = (GeoPoint) expression;
+		return point.getMode() == Kernel.COORD_CARTESIAN && !point.hasPath()
+				&& !point.hasRegion();
+	}
+
+	/**
+	 * Copies the values of expression into an array instead of copying
+	 * expression into an element for every value.
+	 */
+	private void computeValues() {
+		int oldListSize = Math.min(list.size(), list.getCacheSize());
+		int n = isEmpty ? 0 : minOverSize();
+		boolean points = expression.isGeoPoint();
+		double[] values = getValueBuffer(points ? 2 * n : n);
+		for (int i = 0; i < n; i++) {
+			updateLocalVar(i);
+			if (points) {
+				GeoPoint point = (GeoPoint) expression;
+				values[2 * i] = point.getInhomX();
+				values[2 * i + 1] = point.getInhomY();
+			} else {
+				values[i] = ((GeoNumeric) expression).getDouble();
+			}
+		}
+		if (points) {
+			list.setPointValues(values, n);
+		} else {
+			list.setValues(values, n);
+		}
+
+		// if the old list was longer than the new one
+		// we need to set some cached elements to undefined
+		for (int k = oldListSize - 1; k >= n; k--) {
+			GeoElement oldElement = list.getCached(k);
+			oldElement.setUndefined();
+			oldElement.update();
+		}
+		last_length = n;
+	}
+
+	/**
+	 * The list keeps using the buffer, so it is only reused for the next
+	 * computation, which replaces the values of the list.
+	 * 
+	 * @param size
+	 *            number of values
+	 * @return buffer for list values
+	 */
+	private double[] getValueBuffer(int size) {
+		if (valueBuffer == null || valueBuffer.length < size) {
+			valueBuffer = new double[size];
+		}
+		return valueBuffer;
+	}
+
 	private void createNewList() {
 		// clear list if defined
 		int i = 0;
@@ -360,8 +436,15 @@ public class AlgoZip extends AlgoElement {
 	 */
 	private void updateLocalVar(int index) {
 		// set local variable to given value
-		for (int i = 0; i < listCount; i++)
-			vars[i].set(over[i].get(index));
+		for (int i = 0; i < listCount; i++) {
+			double[] values = over[i].getValues();
+			if (values != null && vars[i] instanceof GeoNumeric) {
+				// no need to create the elements of number lists
+				((GeoNumeric) vars[i]).setValue(values[index]);
+			} else {
+				vars[i].set(over[i].get(index));
+			}
+		}
 		if (varCount > listCount) {
 			((GeoNumeric) vars[varCount - 1]).setValue(index + 1);
 		}
@@ -12,25 +12,38 @@ the Free Software Foundation.
 
 package org.geogebra.common.kernel.algos;
 
+import org.geogebra.common.kernel.AsynchronousCommand;
 import org.geogebra.common.kernel.Construction;
 import org.geogebra.common.kernel.StringTemplate;
+import org.geogebra.common.kernel.arithmetic.FunctionNVar;
+import org.geogebra.common.kernel.arithmetic.MyArbitraryConstant;
 import org.geogebra.common.kernel.cas.UsesCAS;
 import org.geogebra.common.kernel.commands.Commands;
 import org.geogebra.common.kernel.commands.EvalInfo;
 import org.geogebra.common.kernel.geos.CasEvaluableFunction;
 import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoFunction;
+import org.geogebra.common.kernel.geos.GeoFunctionNVar;
 
 /**
- * Base class for algorithms using the CAS.
+ * Base class for algorithms using the CAS. When the CAS is asynchronous,
+ * labeled functions keep their old value until the result arrives; the first
+ * computation and unlabeled (e.g. temporary) results are synchronous, because
+ * they are used right away.
  * 
  * @author Markus Hohenwarter
  */
-public abstract class AlgoCasBase extends AlgoElement implements UsesCAS {
+public abstract class AlgoCasBase extends AlgoElement implements UsesCAS,
+		AsynchronousCommand {
 	/** Input function */
 	protected CasEvaluableFunction f;
 	/** Output function */
 	protected CasEvaluableFunction g;
 	private Commands cmd;
+	// input function, CAS input and arbitrary constants of pending request
+	private FunctionNVar casFunction;
+	private String casInput;
+	private MyArbitraryConstant casArbconst;
 
 	/**
 	 * Creates CAS algo and sets input, output and label. Do not use if
@@ -112,6 +125,90 @@ public abstract class AlgoCasBase extends AlgoElement implements UsesCAS {
 	 */
 	protected abstract void applyCasCommand(StringTemplate tpl);
 
+	/**
+	 * Sets the result by applying a GeoGebraCAS command to the input, see
+	 * {@link CasEvaluableFunction#setUsingCasCommand}
+	 * 
+	 * @param ggbCasCmd
+	 *            the GeoGebraCAS command needs to include % in all places where
+	 *            the function f should be substituted, e.g. "Derivative(%,x)"
+	 * @param symbolic
+	 *            true for symbolic evaluation, false to use values of
+	 *            GeoElement variables
+	 * @param arbconst
+	 *            arbitrary constant handler
+	 */
+	protected void setUsingCasCommand(String ggbCasCmd, boolean symbolic,
+			MyArbitraryConstant arbconst) {
+		FunctionNVar fun = null;
+		if (g.toGeoElement().isLabelSet() && kernel.isCASAsynchronous()) {
+			// curves need one CAS call per coordinate
+			if (f instanceof GeoFunction) {
+				fun = ((GeoFunction) f).getFunction();
+			} else if (f instanceof GeoFunctionNVar) {
+				fun = ((GeoFunctionNVar) f).getFunction();
+			}
+		}
+		if (fun == null) {
+			g.setUsingCasCommand(ggbCasCmd, f, symbolic, arbconst);
+			updateCasResult();
+			return;
+		}
+		casFunction = fun;
+		casInput = fun.getCasCommand(ggbCasCmd, symbolic);
+		casArbconst = arbconst;
+		FunctionNVar cached = fun.lookupCasResult(casInput);
+		if (cached != null) {
+			setCasResult(cached);
+			return;
+		}
+		kernel.evaluateGeoGebraCASAsync(this);
+	}
+
+	private void setCasResult(FunctionNVar result) {
+		if (g instanceof GeoFunction) {
+			((GeoFunction) g).setUsingCasResult(result);
+		} else {
+			((GeoFunctionNVar) g).setUsingCasResult(result);
+		}
+		updateCasResult();
+	}
+
+	/**
+	 * Called after the result was set from the CAS output, also when it
+	 * arrives asynchronously
+	 */
+	protected void updateCasResult() {
+		// only needed for some commands
+	}
+
+	public void handleCASoutput(String output, int requestID) {
+		FunctionNVar result = null;
+		try {
+			result = casFunction.parseCasResult(casInput, output);
+		} catch (Throwable e) {
+			// result = null
+		}
+		setCasResult(result);
+	}
+
+	public void handleException(Throwable exception, int requestID) {
+		setCasResult(null);
+	}
+
+	public boolean useCacheing() {
+		// same as the synchronous evaluation
+		return !casFunction.isCasCommandSymbolic();
+	}
+
+	public String getCasInput() {
+		return casInput;
+	}
+
+	public MyArbitraryConstant getArbitraryConstant() {
+		return casArbconst;
+	}
+
 	/**
 	 * Clears the cache (needed in Web when the CAS loads)
 	 * 
@@ -555,10 +555,14 @@ public class AlgoDependentNumber extends AlgoElement
 					// numbers
 					if (polyNode.getLeft().getPoly() != null
 							&& polyNode.getLeft().getPoly().isConstant()) {
+						Long constant = polyNode.getLeft().getPoly()
+								.getConstant();
+						if (constant == null) {
+							throw new NoSymbolicParametersException();
+						}
 						switch (polyNode.getOperation()) {
 						case MULTIPLY:
-							i = (int) (polyNode.getLeft().getPoly()
-									.getConstant() * d);
+							i = (int) (constant * d);
 							break;
 						case DIVIDE:
 							i = 1;
@@ -91,6 +91,11 @@ public class AlgoDistancePoints extends AlgoElement implements DistanceAlgo,
 	 * GeoPoint getP() { return P; } GeoPoint getQ() { return Q; }
 	 */
 
+	@Override
+	public boolean isComputeThreadSafe() {
+		return true;
+	}
+
 	// calc length of vector v
 	@Override
 	public final void compute() {
@@ -167,6 +167,8 @@ public abstract class AlgoElement extends ConstructionElement implements
 	 */
 	private List<OutputHandler<?>> outputHandler;
 	private boolean mayHaveRandomAncestors = true;
+	/** change stamp of the construction when this was last computed */
+	private long computeStamp = -1;
 
 	/**
 	 * One OutputHandler has been changed, we put together the new output.
@@ -577,6 +579,7 @@ public abstract class AlgoElement extends ConstructionElement implements
 
 		// compute output from input
 		compute();
+		stampCompute();
 
 		// endTime = System.currentTimeMillis();
 		// computeTime += (endTime - startTime);
@@ -588,6 +591,64 @@ public abstract class AlgoElement extends ConstructionElement implements
 		// updateTime += (endTime - startTime );
 	}
 
+	/**
+	 * Remembers that the output is up to date with the current input.
+	 */
+	final void stampCompute() {
+		computeStamp = cons.getChangeStamp();
+	}
+
+	/**
+	 * @return false if no input changed since this algo was last updated and
+	 *         the output depends on nothing but the input
+	 */
+	public boolean isInputChangedSinceUpdate() {
+		if (computeStamp < 0 || mayHaveRandomAncestors || input.length == 0
+				|| this instanceof EuclidianViewCE) {
+			return true;
+		}
+		for (int i = 0; i < input.length; i++) {
+			if (input[i].getChangeStamp() > computeStamp) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Same as update(), but compute() is skipped if no input changed since the
+	 * last update.
+	 * 
+	 * @return whether compute() was skipped
+	 */
+	public final boolean updateIfInputChanged() {
+		if (isInputChangedSinceUpdate()) {
+			update();
+			return false;
+		}
+		if (stopUpdateCascade) {
+			return true;
+		}
+		// output values are the same, only let the views know
+		boolean keep = cons.isKeepingChangeStamps();
+		cons.setKeepingChangeStamps(true);
+		try {
+			updateDependentGeos();
+		} finally {
+			cons.setKeepingChangeStamps(keep);
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if compute() only reads the input and writes to the output
+	 *         of this algo, so that it may run in parallel with other algos,
+	 *         see ParallelAlgorithmUpdater
+	 */
+	public boolean isComputeThreadSafe() {
+		return false;
+	}
+
 	/**
 	 * update input random numbers without label
 	 * 
@@ -65,6 +65,7 @@ public class AlgoIterationList extends AlgoElement {
 	// update cycle
 	private boolean updateRunning = false;
 	private int iterationsOld = -1;
+	private double[] valueBuffer;
 
 	/**
 	 * @param cons
@@ -525,12 +526,14 @@ public class AlgoIterationList extends AlgoElement {
 
 		// perform iteration f(f(f(...(startValue))))
 		// and fill list with all intermediate results
+		double[] values = getValueBuffer(iterations + 1);
 		double val = startValue.getDouble();
-		setListElement(0, val);
+		values[0] = val;
 		for (int i = 0; i < iterations; i++) {
 			val = f.evaluate(val);
-			setListElement(i + 1, val);
+			values[i + 1] = val;
 		}
+		list.setValues(values, iterations + 1);
 	}
 
 	private void computeDouble() {
@@ -573,30 +576,29 @@ public class AlgoIterationList extends AlgoElement {
 		double u = ((GeoNumberValue) startValue2).getDouble();
 
 		// perform iterations u(n+1)=f(n,u(n))
-		list.clear();
-		setListElement(0, u);
+		double[] values = getValueBuffer(iterations + 1);
+		values[0] = u;
 		for (int i = 0; i < iterations; i++) {
 			u = fNVar.evaluate(nU, u);
-			setListElement(i + 1, u);
+			values[i + 1] = u;
 			nU++;
 		}
+		list.setValues(values, iterations + 1);
 	}
 
-	private void setListElement(int index, double value) {
-		GeoNumeric listElement;
-		if (index < list.getCacheSize()) {
-			// use existing list element
-			listElement = (GeoNumeric) list.getCached(index);
-		} else {
-			// create a new list element
-			listElement = new GeoNumeric(cons);
-			listElement.setParentAlgorithm(this);
-			listElement.setConstructionDefaults();
-			listElement.setUseVisualDefaults(false);
+	/**
+	 * The list keeps using the buffer, so it is only reused for the next
+	 * computation, which replaces the values of the list.
+	 * 
+	 * @param size
+	 *            number of values
+	 * @return buffer for list values
+	 */
+	private double[] getValueBuffer(int size) {
+		if (valueBuffer == null || valueBuffer.length < size) {
+			valueBuffer = new double[size];
 		}
-
-		list.add(listElement);
-		listElement.setValue(value);
+		return valueBuffer;
 	}
 
 	// TODO Consider locusequability
@@ -117,6 +117,11 @@ public class AlgoJoinPoints extends AlgoElement implements
 		return Q;
 	}
 
+	@Override
+	public boolean isComputeThreadSafe() {
+		return true;
+	}
+
 	// calc the line g through P and Q
 	@Override
 	public final void compute() {
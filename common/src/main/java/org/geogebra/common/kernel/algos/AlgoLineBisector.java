@@ -98,6 +98,11 @@ public class AlgoLineBisector extends AlgoElement implements
 		return midPoint;
 	}
 
+	@Override
+	public boolean isComputeThreadSafe() {
+		return true;
+	}
+
 	// line through P normal to v
 	@Override
 	public final void compute() {
@@ -114,6 +114,11 @@ public class AlgoLinePointLine extends AlgoElement implements
 		return l;
 	}
 
+	@Override
+	public boolean isComputeThreadSafe() {
+		return true;
+	}
+
 	// calc the line g through P and parallel to l
 	@Override
 	public final void compute() {
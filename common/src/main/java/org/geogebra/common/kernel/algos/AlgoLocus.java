@@ -140,11 +140,6 @@ public class AlgoLocus extends AlgoLocusND<MyPoint> {
 		return ((GeoPoint) p1).isEqual(((GeoPoint) p2), Kernel.MIN_PRECISION);
 	}
 
-	@Override
-	protected MyPoint[] createQCopyCache(int length) {
-		return new MyPoint[length];
-	}
-
 	@Override
 	protected void setQCopyCache(MyPoint copy, GeoPointND point) {
 		copy.setX(((GeoPoint) point).inhomX);
@@ -13,10 +13,10 @@ the Free Software Foundation.
 package org.geogebra.common.kernel.algos;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.TreeSet;
 
-import org.geogebra.common.awt.GPoint2D;
 import org.geogebra.common.awt.GRectangle2D;
 import org.geogebra.common.euclidian.EuclidianConstants;
 import org.geogebra.common.factories.AwtFactory;
@@ -34,6 +34,8 @@ import org.geogebra.common.kernel.geos.GeoLocusND;
 import org.geogebra.common.kernel.implicit.GeoImplicit;
 import org.geogebra.common.kernel.kernelND.GeoPointND;
 import org.geogebra.common.main.App;
+import org.geogebra.common.util.ParallelExecutor;
+import org.geogebra.common.util.debug.GeoGebraProfiler;
 import org.geogebra.common.util.debug.Log;
 
 /**
@@ -50,6 +52,11 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 	/** maximum time for the computation of one locus point in millis **/
 	public static final int MAX_TIME_FOR_ONE_STEP = 500;
 
+	/** cache is cleared when it gets bigger */
+	private static final int MAX_CACHED_POINTS = 4 * PathMover.MAX_POINTS;
+	/** path steps computed in parallel per copy when the cache misses */
+	private static final int PREFETCH_ROUNDS = 4;
+
 	public int MIN_STEPS_INSTANCE = PathMover.MIN_STEPS;
 
 	protected static final int MAX_X_PIXEL_DIST = 5;
@@ -86,6 +93,17 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 	private boolean maxTimeExceeded;
 	private Construction macroCons;
 	private MacroKernel macroKernel;
+	// XML of the macro construction, for further copies
+	private String locusConsXML;
+	// copies of the macro construction for computing steps in parallel
+	private ArrayList<LocusCopy> copies;
+	private boolean copiesReset;
+	// walks the path ahead of pathMover, see prefetch()
+	private PathMover prefetchMover;
+	private boolean prefetchDone;
+	private int cacheHits, prefetched;
+	// input did not change since last compute()
+	private boolean keepCache;
 	// private AlgorithmSet macroConsAlgoSet;
 	// list with all original elements used for the macro construction
 	private TreeSet<ConstructionElement> locusConsOrigElements;
@@ -331,28 +349,11 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 
 	private void buildLocusMacroConstruction(
 			TreeSet<ConstructionElement> locusConsElements) {
-		// build macro construction
-		macroKernel = kernel.newMacroKernel();
-		macroKernel.setGlobalVariableLookup(true);
-
-		// tell the macro construction about reserved names:
-		// these names will not be looked up in the parent
-		// construction
-		Iterator<ConstructionElement> it = locusConsElements.iterator();
-		while (it.hasNext()) {
-			ConstructionElement ce = it.next();
-			if (ce.isGeoElement()) {
-				GeoElement geo = (GeoElement) ce;
-				macroKernel.addReservedLabel(geo
-						.getLabel(StringTemplate.defaultTemplate));
-			}
-		}
-
 		try {
 			// get XML for macro construction of P -> Q
-			String locusConsXML = Macro
-					.buildMacroXML(kernel, locusConsElements).toString();
-			macroKernel.loadXML(locusConsXML);
+			locusConsXML = Macro.buildMacroXML(kernel, locusConsElements)
+					.toString();
+			macroKernel = newLocusKernel();
 
 			// get the copies of P and Q from the macro kernel
 			Pcopy = (GeoPointND) macroKernel
@@ -395,11 +396,39 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 		// //Application.debug("Q == Qcopy: " + (Q == Qcopy));
 	}
 
+	/**
+	 * @return new macro kernel with the construction of P -> Q
+	 * @throws Exception
+	 *             if the construction cannot be loaded
+	 */
+	private MacroKernel newLocusKernel() throws Exception {
+		MacroKernel mk = kernel.newMacroKernel();
+		mk.setGlobalVariableLookup(true);
+
+		// tell the macro construction about reserved names:
+		// these names will not be looked up in the parent
+		// construction
+		Iterator<ConstructionElement> it = locusConsOrigElements.iterator();
+		while (it.hasNext()) {
+			ConstructionElement ce = it.next();
+			if (ce.isGeoElement()) {
+				GeoElement geo = (GeoElement) ce;
+				mk.addReservedLabel(geo
+						.getLabel(StringTemplate.defaultTemplate));
+			}
+		}
+		mk.loadXML(locusConsXML);
+		return mk;
+	}
+
 	/**
 	 * Set all elements in locusConsElements to the current values of the main
 	 * construction
+	 * 
+	 * @param macroCons
+	 *            macro construction or one of its copies
 	 */
-	private void resetMacroConstruction() {
+	private void resetMacroConstruction(Construction macroCons) {
 		Iterator<ConstructionElement> it = locusConsOrigElements.iterator();
 		while (it.hasNext()) {
 			ConstructionElement ce = it.next();
@@ -435,9 +464,16 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 			return;
 		}
 		updateScreenBordersIfNecessary();
+		long startTime = System.currentTimeMillis();
 
 		locus.clearPoints();
-		clearCache();
+		// Qcopy for a given parameter only changes with the input, not
+		// with the views
+		if (!keepCache) {
+			pointCache.clear();
+		}
+		cacheHits = 0;
+		prefetched = 0;
 		pointCount = 0;
 		lastX = Double.MAX_VALUE;
 		lastY = Double.MAX_VALUE;
@@ -451,12 +487,14 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 		macroKernel.setContinuous(continuous);
 
 		// update macro construction with current values of global vars
-		resetMacroConstruction();
+		resetMacroConstruction(macroCons);
 		macroCons.updateConstruction();
+		copiesReset = false;
 
 		// use current position of movingPoint to start Pcopy
 		Pcopy.getPathParameter().setT(path.getMinParameter());
 		pathMover.init(Pcopy, MIN_STEPS_INSTANCE);
+		initPrefetch();
 
 		if (continuous) {
 			// continous constructions may need several parameter run throughs
@@ -503,7 +541,7 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 						while (Qcopy.isDefined() && !Qcopy.isInfinite()
 								&& !distanceOK(Qcopy) && !maxTimeExceeded) {
 							// go back and try smaller step
-							boolean smallerStep = pathMover.smallerStep();
+							boolean smallerStep = smallerStep();
 							if (!smallerStep)
 								break;
 
@@ -537,7 +575,7 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 					if (prevQcopyDefined && !parameterJump) {
 						pathMover.stepBack();
 						// set smallest step
-						if (!pathMover.smallerStep()) {
+						if (!smallerStep()) {
 							prevQcopyDefined = false;
 						} else
 							stepChanged = true;
@@ -560,7 +598,7 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 						finishedRun = true;
 					} else {
 						// decrease step until another step is possible
-						while (!pathMover.hasNext() && pathMover.smallerStep()) {
+						while (!pathMover.hasNext() && smallerStep()) {
 							// do nothing
 						}
 						// no smaller step possible: run finished
@@ -572,7 +610,8 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 
 			// calculating the steps took too long, so we stopped somewhere
 			if (maxTimeExceeded) {
-				Log.error("AlgoLocus: max time exceeded");
+				GeoGebraProfiler.addLocus(System.currentTimeMillis()
+						- startTime, pointCount, cacheHits, prefetched, true);
 				return;
 			}
 			// make sure that Pcopy is back at startPos now
@@ -604,6 +643,8 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 
 		// set defined/undefined
 		locus.setDefined(foundDefined);
+		GeoGebraProfiler.addLocus(System.currentTimeMillis() - startTime,
+				pointCount, cacheHits, prefetched, false);
 
 		// System.out.println("  first point: " +
 		// locus.getMyPointList().get(0));
@@ -656,7 +697,10 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 			// NON-CONTINOUS construction
 			// check if the path parameter's resulting Qcopy is already in cache
 			double param = Pcopy.getPathParameter().t;
-			GPoint2D cachedPoint = getCachedPoint(param);
+			T cachedPoint = pointCache.get(param);
+			if (cachedPoint == null && prefetch()) {
+				cachedPoint = pointCache.get(param);
+			}
 
 			if (cachedPoint == null) {
 				// measure time needed for update of construction
@@ -669,7 +713,6 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 
 				// if it takes too much time to calculate a single step, we stop
 				if (updateTime > MAX_TIME_FOR_ONE_STEP) {
-					Log.debug("AlgoLocus: max time exceeded " + updateTime);
 					maxTimeExceeded = true;
 				}
 
@@ -678,8 +721,9 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 			} else {
 				// use cached result to set Qcopy
 				ExpressionNode qDef = Qcopy.getDefinition();
-				Qcopy.setCoords(cachedPoint.getX(), cachedPoint.getY(), 1.0);
+				setQCopy(Qcopy, cachedPoint);
 				Qcopy.setDefinition(qDef);
+				cacheHits++;
 			}
 		}
 
@@ -700,6 +744,7 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 		// check found defined
 		if (!foundDefined && Qcopy.isDefined() && !Qcopy.isInfinite()) {
 			pathMover.init(Pcopy, MIN_STEPS_INSTANCE);
+			initPrefetch();
 			((GeoElement) PstartPos).set(Pcopy);
 			((GeoElement) QstartPos).set(Qcopy);
 			foundDefined = true;
@@ -709,45 +754,179 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 		}
 	}
 
-	private void clearCache() {
-		for (int i = 0; i < paramCache.length; i++) {
-			paramCache[i] = Double.NaN;
-			if (qcopyCache[i] == null)
-				qcopyCache[i] = newCache();
+	private void putCachedPoint(double param, GeoPointND Qcopy0) {
+		if (pointCache.size() >= MAX_CACHED_POINTS) {
+			pointCache.clear();
 		}
+		T cached = newCache();
+		setQCopyCache(cached, Qcopy0);
+		pointCache.put(param, cached);
 	}
 
-	private GPoint2D getCachedPoint(double param) {
-		// search for cached parameter
-		for (int i = 0; i < paramCache.length; i++) {
-			if (param == paramCache[i])
-				return qcopyCache[i];
+	// positions of Qcopy for path parameters of Pcopy
+	private HashMap<Double, T> pointCache = new HashMap<Double, T>();
+
+	/**
+	 * Starts prefetching for the current position of pathMover: the steps of
+	 * pathMover are the same as long as it keeps its maximal step width.
+	 */
+	private void initPrefetch() {
+		prefetchDone = true;
+		if (continuous || !ParallelExecutor.prototype.isParallel()
+				|| !isUpdateThreadSafe(Pcopy)) {
+			return;
 		}
+		if (prefetchMover == null) {
+			prefetchMover = path.createPathMover();
+		}
+		prefetchMover.init(Pcopy, MIN_STEPS_INSTANCE);
+		prefetchDone = false;
+	}
 
-		return null;
+	/**
+	 * Makes the steps of pathMover smaller; prefetched steps don't match
+	 * them any more, so prefetching stops
+	 * 
+	 * @return whether the step was changed
+	 */
+	private boolean smallerStep() {
+		if (pathMover.smallerStep()) {
+			prefetchDone = true;
+			return true;
+		}
+		return false;
 	}
 
-	private void putCachedPoint(double param, GeoPointND Qcopy0) {
-		cacheIndex++;
-		if (cacheIndex >= paramCache.length)
-			cacheIndex = 0;
+	/**
+	 * @param P
+	 *            moving point of a macro construction
+	 * @return whether all algos depending on P may be updated in parallel
+	 *         with other copies of the construction
+	 */
+	private static boolean isUpdateThreadSafe(GeoPointND P) {
+		AlgorithmSet.AlgorithmSetIterator it = ((GeoElement) P)
+				.getAlgoUpdateSet().getIterator();
+		while (it.hasNext()) {
+			if (!it.next().isComputeThreadSafe()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the next steps of prefetchMover in copies of the macro
+	 * construction, in parallel, and puts the results into the cache.
+	 * 
+	 * @return whether any steps were computed
+	 */
+	private boolean prefetch() {
+		if (prefetchDone || maxTimeExceeded || !initCopies()) {
+			return false;
+		}
+		ArrayList<LocusCopy> tasks = new ArrayList<LocusCopy>(copies.size());
+		for (int round = 0; round < PREFETCH_ROUNDS && !prefetchDone; round++) {
+			tasks.clear();
+			for (int i = 0; i < copies.size(); i++) {
+				if (!prefetchMover.hasNext()) {
+					prefetchDone = true;
+					break;
+				}
+				// path is not thread safe, move points here
+				LocusCopy copy = copies.get(i);
+				prefetchMover.getNext(copy.P);
+				if (!pointCache.containsKey(copy.P.getPathParameter().t)) {
+					tasks.add(copy);
+				}
+			}
+			ParallelExecutor.prototype.invokeAll(tasks);
+			for (int i = 0; i < tasks.size(); i++) {
+				LocusCopy copy = tasks.get(i);
+				putCachedPoint(copy.P.getPathParameter().t, copy.Q);
+				if (copy.updateTime > MAX_TIME_FOR_ONE_STEP) {
+					maxTimeExceeded = true;
+				}
+			}
+			prefetched += tasks.size();
+		}
+		return true;
+	}
 
-		paramCache[cacheIndex] = param;
-		setQCopyCache(qcopyCache[cacheIndex], Qcopy0);
+	/**
+	 * @return whether copies of the macro construction are ready for
+	 *         prefetching
+	 */
+	private boolean initCopies() {
+		if (copies == null) {
+			copies = new ArrayList<LocusCopy>();
+			int n = ParallelExecutor.prototype.getParallelism();
+			try {
+				for (int i = 0; i < n; i++) {
+					MacroKernel mk = newLocusKernel();
+					GeoPointND P = (GeoPointND) mk
+							.lookupLabel(((GeoElement) movingPoint)
+									.getLabelSimple());
+					((GeoElement) P).setFixed(false);
+					P.setPath(movingPoint.getPath());
+					GeoPointND Q = (GeoPointND) mk
+							.lookupLabel(((GeoElement) locusPoint)
+									.getLabelSimple());
+					copies.add(new LocusCopy(mk, P, Q));
+				}
+			} catch (Exception e) {
+				Log.debug("AlgoLocus: no copies for prefetching "
+						+ e.getMessage());
+				copies.clear();
+			}
+		}
+		if (copies.isEmpty()) {
+			return false;
+		}
+		if (!copiesReset) {
+			for (int i = 0; i < copies.size(); i++) {
+				MacroKernel mk = copies.get(i).macroKernel;
+				mk.setContinuous(continuous);
+				resetMacroConstruction(mk.getConstruction());
+				mk.getConstruction().updateConstruction();
+			}
+			copiesReset = true;
+		}
+		return true;
 	}
 
-	// small cache of 3 last parameters and Qcopy positions
-	private double[] paramCache = new double[3];
-	private T[] qcopyCache = createQCopyCache(3);
-	private int cacheIndex = 0;
+	/**
+	 * Copy of the macro construction that computes Qcopy for one step in
+	 * another thread
+	 */
+	private static final class LocusCopy implements Runnable {
+		final MacroKernel macroKernel;
+		final GeoPointND P, Q;
+		long updateTime;
+
+		LocusCopy(MacroKernel macroKernel, GeoPointND P, GeoPointND Q) {
+			this.macroKernel = macroKernel;
+			this.P = P;
+			this.Q = Q;
+		}
+
+		public void run() {
+			long startTime = System.currentTimeMillis();
+			P.updateCascade();
+			updateTime = System.currentTimeMillis() - startTime;
+		}
+	}
 
 	/**
+	 * set point's coords from cache
 	 * 
-	 * @param length
-	 *            number of elements
-	 * @return new q copy cache
+	 * @param point
+	 *            point
+	 * @param cached
+	 *            cached coords
 	 */
-	abstract protected T[] createQCopyCache(int length);
+	protected void setQCopy(GeoPointND point, T cached) {
+		point.setCoords(cached.getX(), cached.getY(), 1.0);
+	}
 
 	/**
 	 * set point's coords to copy
@@ -931,7 +1110,12 @@ public abstract class AlgoLocusND<T extends MyPoint> extends AlgoElement {
 	public boolean euclidianViewUpdate() {
 		boolean changed = updateScreenBorders();
 		if (changed || !locus.getAlgoUpdateSet().isEmpty()) {
-			update();
+			keepCache = true;
+			try {
+				update();
+			} finally {
+				keepCache = false;
+			}
 		}
 		return false;
 	}
@@ -12,7 +12,6 @@ the Free Software Foundation.
 
 package org.geogebra.common.kernel.algos;
 
-import java.util.Arrays;
 import java.util.TreeMap;
 
 import org.geogebra.common.kernel.Construction;
@@ -21,6 +20,7 @@ import org.geogebra.common.kernel.commands.Commands;
 import org.geogebra.common.kernel.geos.GeoElement;
 import org.geogebra.common.kernel.geos.GeoList;
 import org.geogebra.common.kernel.geos.GeoNumeric;
+import org.geogebra.common.kernel.statistics.ListStatistics;
 
 /**
  * Sort a list. Adapted from AlgoSort
@@ -99,22 +99,13 @@ public class AlgoMedian extends AlgoElement {
 		// CASE 1: raw data
 		// ========================================
 		if (freqList == null) {
-			double[] sortList = new double[size];
-
-			// copy inputList into an array
-			for (int i = 0; i < size; i++) {
-				GeoElement geo = inputList.get(i);
-				if (geo instanceof NumberValue) {
-					NumberValue num = (NumberValue) geo;
-					sortList[i] = num.getDouble();
-				} else {
-					median.setUndefined();
-					return;
-				}
+			// sorted values are shared with other statistics of the list
+			ListStatistics stats = inputList.getStatistics();
+			if (!stats.isNumbers()) {
+				median.setUndefined();
+				return;
 			}
-
-			// do the sorting
-			Arrays.sort(sortList);
+			double[] sortList = stats.getSorted();
 
 			if (Math.floor((double) size / 2) == size / 2.0) {
 				median.setValue((sortList[size / 2] + sortList[size / 2 - 1]) / 2);
@@ -130,6 +130,11 @@ public class AlgoOrthoLinePointLine extends AlgoElement implements
 		return l;
 	}
 
+	@Override
+	public boolean isComputeThreadSafe() {
+		return true;
+	}
+
 	// calc the line g through P and normal to l
 	@Override
 	public final void compute() {
@@ -20,6 +20,10 @@ package org.geogebra.common.kernel.algos;
 
 import org.geogebra.common.kernel.Construction;
 import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.arithmetic.ExpressionNode;
+import org.geogebra.common.kernel.arithmetic.Function;
+import org.geogebra.common.kernel.arithmetic.FunctionVariable;
+import org.geogebra.common.kernel.arithmetic.Traversing;
 import org.geogebra.common.kernel.commands.Commands;
 import org.geogebra.common.kernel.geos.CasEvaluableFunction;
 import org.geogebra.common.kernel.geos.GeoElement;
@@ -43,6 +47,9 @@ public class AlgoSequence extends AlgoElement {
 		SIMPLE, RANGE, FULL
 	}
 
+	/** more values are only allocated as they are computed */
+	private static final int MAX_INITIAL_VALUES = 1 << 16;
+
 	private GeoElementND expression; // input expression dependent on var
 	private GeoNumeric var; // input: local variable
 	private GeoNumberValue var_from, var_to, var_step;
@@ -55,6 +62,15 @@ public class AlgoSequence extends AlgoElement {
 			last_step = Double.MIN_VALUE;
 	private boolean expIsFunctionOrCurve, isEmpty;
 	private AlgoElement expressionParentAlgo;
+	/** expression as function of var, for sequences of numbers */
+	private Function valueFunction;
+	/**
+	 * values of number sequences, see GeoList.setValues(); the list does not
+	 * change them, so values of simple sequences are kept between updates
+	 */
+	private double[] valueBuffer;
+	/** number of valid entries of valueBuffer for simple sequences */
+	private int simpleValues;
 
 	// we need to check that some Object[] reference didn't cause infinite
 	// update cycle
@@ -321,10 +337,13 @@ public class AlgoSequence extends AlgoElement {
 		cons.setSuppressLabelCreation(true);
 
 		// update list
-		if (setValuesOnly)
+		if (canComputeValues()) {
+			computeValues(from, to, step);
+		} else if (setValuesOnly) {
 			updateListItems(from, to, step);
-		else
+		} else {
 			createNewList(from, to, step);
+		}
 
 		// revert label creation setting
 		cons.setSuppressLabelCreation(oldSuppressLabels);
@@ -344,47 +363,187 @@ public class AlgoSequence extends AlgoElement {
 			return;
 		}
 
-		list.clear();
+		double size = Math.abs(to - from) + 1;
+		if (size > Integer.MAX_VALUE - 8) {
+			list.setUndefined();
+			return;
+		}
+		int n = (int) size;
+		double[] values = getValueBuffer(Math.min(n, MAX_INITIAL_VALUES), 0);
 
 		// also see Operation.java case Sequence:
-		if (from < to) {
+		// increasing or decreasing list
+		double dir = from < to ? 1 : -1;
+		for (int i = 0; i < n; i++) {
+			if (i == values.length) {
+				values = growValueBuffer(i);
+				if (values == null) {
+					return;
+				}
+			}
+			values[i] = from + dir * i;
+		}
+		list.setValues(values, n);
+	}
 
-			// increasing list
-			for (double k = from; k <= to; k++) {
-				list.addNumber(k, null);
+	private void computeSimple() {
+		int to = (int) Math.round(var_to.getDouble());
+		int n = Math.max(to, 0);
+
+		// values 1, 2, ... computed by previous updates stay valid
+		double[] values = getValueBuffer(
+				Math.min(n, simpleValues + MAX_INITIAL_VALUES), simpleValues);
+		for (int k = simpleValues; k < n; k++) {
+			if (k == values.length) {
+				simpleValues = k;
+				values = growValueBuffer(k);
+				if (values == null) {
+					return;
+				}
 			}
+			values[k] = k + 1;
+		}
+		simpleValues = Math.max(simpleValues, n);
+		list.setValues(values, n);
+		last_to = to;
 
-		} else {
+	}
 
-			// decreasing list
-			for (double k = from; k >= to; k--) {
-				list.addNumber(k, null);
+	/**
+	 * Grows the buffer unless free memory is critical
+	 * 
+	 * @param n
+	 *            number of values to keep
+	 * @return buffer for more than n values, null if aborted
+	 */
+	private double[] growValueBuffer(int n) {
+		// check we haven't run out of memory
+		if (kernel.getApplication().freeMemoryIsCritical()) {
+			long mem = kernel.getApplication().freeMemory();
+			list.clearCache();
+			kernel.initUndoInfo(); // clear all undo info
+			Log.debug("AlgoSequence aborted: free memory reached " + mem);
+			return null;
+		}
+		return getValueBuffer(n + 1, n);
+	}
+
+	/**
+	 * @param size
+	 *            needed size
+	 * @param keep
+	 *            number of values to keep when the buffer grows
+	 * @return buffer for at least size values
+	 */
+	private double[] getValueBuffer(int size, int keep) {
+		if (valueBuffer == null || valueBuffer.length < size) {
+			double[] old = valueBuffer;
+			// grow in steps, sequences change length while dragging sliders
+			valueBuffer = new double[Math.max(size,
+					old == null ? 0 : old.length + old.length / 2)];
+			if (old != null && keep > 0) {
+				System.arraycopy(old, 0, valueBuffer, 0, keep);
 			}
+		}
+		return valueBuffer;
+	}
 
+	/**
+	 * @return whether the elements are numbers that can be computed from var
+	 *         without updating expression, i.e. expression is var itself or
+	 *         an arithmetic expression of var and objects independent of var
+	 */
+	private boolean canComputeValues() {
+		if (expression == var) {
+			return true;
+		}
+		// angles, sliders etc. need their own elements
+		if (expression.getClass() != GeoNumeric.class
+				|| expression.getDrawAlgorithm() instanceof DrawInformationAlgo
+				|| expressionParentAlgo == null
+				|| expressionParentAlgo.getClass() != AlgoDependentNumber.class) {
+			return false;
 		}
+		// e.g. Element[list1, i] + 1 needs AlgoListElement updated
+		AlgorithmSet.AlgorithmSetIterator it = var.getAlgoUpdateSet()
+				.getIterator();
+		while (it.hasNext()) {
+			AlgoElement algo = it.next();
+			if (algo != expressionParentAlgo && algo != this) {
+				return false;
+			}
+		}
+		if (valueFunction == null) {
+			FunctionVariable fv = new FunctionVariable(kernel,
+					var.getLabelSimple());
+			ExpressionNode def = ((AlgoDependentNumber) expressionParentAlgo)
+					.getExpression().deepCopy(kernel);
+			valueFunction = new Function(def.traverse(
+					Traversing.Replacer.getReplacer(var, fv)).wrap(), fv);
+		}
+		return true;
 	}
 
-	private void computeSimple() {
-		int to = (int) Math.round(var_to.getDouble());
+	/**
+	 * Evaluates the sequence of numbers into an array instead of updating
+	 * expression and copying it for every element.
+	 */
+	private void computeValues(double from, double to, double step) {
+		int oldListSize = Math.min(list.size(), list.getCacheSize());
+		int n = 0;
+		if (!isEmpty) {
+			if (Double.isInfinite((to - from) / step)) {
+				list.setUndefined();
+				return;
+			}
+			double size = Math.ceil((to - from) / step) + 2;
+			double[] values = getValueBuffer(
+					(int) Math.min(size, MAX_INITIAL_VALUES), 0);
 
-		if (last_to < to) {
-			for (int k = (int) last_to; k < to; k++) {
-				if (k >= 0) {
-					list.addNumber(k + 1, null);
+			// same steps as createNewList()
+			double currentVal = from;
+			while ((step > 0 && currentVal <= to + Kernel.MIN_PRECISION)
+					|| (step < 0 && currentVal >= to - Kernel.MIN_PRECISION)) {
+				if (n == values.length) {
+					values = growValueBuffer(n);
+					if (values == null) {
+						return;
+					}
 				}
-			}
-		}
-		if (last_to > to) {
-			for (int k = (int) last_to; k > to; k--) {
-				if (k >= 1) {
-					GeoElement ge = list.get(k - 1);
-					ge.remove();
-					list.remove(k - 1);
+				values[n] = evaluate(currentVal);
+				currentVal += step;
+				if (Kernel.isInteger(currentVal)) {
+					currentVal = Math.round(currentVal);
 				}
+				n++;
 			}
 		}
+		list.setValues(valueBuffer, n);
+
+		// if the old list was longer than the new one
+		// we need to set some cached elements to undefined
+		for (int k = oldListSize - 1; k >= n; k--) {
+			GeoElement oldElement = list.getCached(k);
+			oldElement.setUndefined();
+			oldElement.update();
+		}
+
+		// remember current values
+		last_from = from;
 		last_to = to;
+		last_step = step;
+	}
 
+	private double evaluate(double varVal) {
+		if (expression == var) {
+			return varVal;
+		}
+		try {
+			return valueFunction.evaluate(varVal);
+		} catch (Throwable e) {
+			// same as AlgoDependentNumber
+			return Double.NaN;
+		}
 	}
 
 	private void createNewList(double from, double to, double step) {
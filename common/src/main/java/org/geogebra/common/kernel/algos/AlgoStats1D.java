@@ -21,6 +21,7 @@ import org.geogebra.common.kernel.geos.GeoElement;
 import org.geogebra.common.kernel.geos.GeoList;
 import org.geogebra.common.kernel.geos.GeoNumeric;
 import org.geogebra.common.kernel.geos.GeoAngle.AngleStyle;
+import org.geogebra.common.kernel.statistics.ListStatistics;
 
 /**
  * Mean, variance, sum, sum of squares, standard deviation of a list adapted
@@ -199,20 +200,36 @@ public abstract class AlgoStats1D extends AlgoElement {
 		double var, mu;
 		GeoElement geo, geoFreq, geo2;
 
+		// sums of the whole list are shared with other statistics of the list
+		ListStatistics stats = null;
+		if (geoList2 == null && size == geoList.size()) {
+			stats = geoList.getStatistics();
+		}
+
 		// list of numbers only, no frequencies
-		if (geoList2 == null) {
+		if (stats != null && stats.isNumbers()) {
+			// sums are shared with other statistics of the list
+			sumVal = stats.getSum();
+			sumSquares = stats.getSumSquares();
+			product = stats.getProduct();
+		} else if (geoList2 == null) {
 			double val;
+			// numbers stored in an array don't need elements
+			double[] values = geoList.getValues();
 			for (int i = 0; i < size; i++) {
-				geo = geoList.get(i);
-				if (geo instanceof NumberValue) {
-					val = ((NumberValue) geo).getDouble();
-					sumVal += val;
-					sumSquares += val * val;
-					product *= val;
+				if (values != null) {
+					val = values[i];
 				} else {
-					result.setUndefined();
-					return;
+					geo = geoList.get(i);
+					if (!(geo instanceof NumberValue)) {
+						result.setUndefined();
+						return;
+					}
+					val = ((NumberValue) geo).getDouble();
 				}
+				sumVal += val;
+				sumSquares += val * val;
+				product *= val;
 			}
 		}
 
@@ -187,6 +187,11 @@ public class AlgorithmSet {
 	 * Updates all algorithms of this set.
 	 */
 	final public void updateAll() {
+		if (size >= ParallelAlgorithmUpdater.MIN_PARALLEL_SIZE
+				&& ParallelAlgorithmUpdater.isEnabled(head.algo.getKernel())) {
+			ParallelAlgorithmUpdater.updateAll(getIterator());
+			return;
+		}
 		Link cur = getHead();
 		while (cur != null) {
 			cur.algo.update();
@@ -0,0 +1,167 @@
+/*
+GeoGebra - Dynamic Mathematics for Everyone
+http://www.geogebra.org
+
+This file is part of GeoGebra.
+
+This program is free software; you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published by
+the Free Software Foundation.
+
+ */
+
+package org.geogebra.common.kernel.algos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.main.App;
+import org.geogebra.common.main.Feature;
+import org.geogebra.common.util.ParallelExecutor;
+
+/**
+ * Updates a topologically sorted sequence of algorithms, computing
+ * independent algorithms in parallel.
+ *
+ * Consecutive algorithms whose compute() is thread safe (see
+ * AlgoElement.isComputeThreadSafe()) are grouped into dependency levels: an
+ * algorithm's level is one more than the highest level of its input's parent
+ * algorithms within the group. Levels are computed one after another, the
+ * algorithms of one level in parallel. Output geos of the group are updated
+ * (and views notified) afterwards in the calling thread, in the original
+ * order. Other algorithms are updated in the calling thread as usual and
+ * separate the groups.
+ */
+public final class ParallelAlgorithmUpdater {
+
+	/** smaller groups and levels are computed in the calling thread */
+	public static final int MIN_PARALLEL_SIZE = 16;
+
+	private ParallelAlgorithmUpdater() {
+		// utility class
+	}
+
+	/**
+	 * @param kernel
+	 *            kernel
+	 * @return whether parallel update is switched on and supported by the
+	 *         platform
+	 */
+	public static boolean isEnabled(Kernel kernel) {
+		if (!ParallelExecutor.prototype.isParallel()) {
+			return false;
+		}
+		App app = kernel.getApplication();
+		return app != null && app.has(Feature.PARALLEL_UPDATE_CASCADE);
+	}
+
+	/**
+	 * Updates all algorithms, same as calling update() for each of them.
+	 *
+	 * @param algos
+	 *            algorithms sorted by construction order
+	 */
+	public static void updateAll(Iterator<AlgoElement> algos) {
+		ArrayList<AlgoElement> group = new ArrayList<AlgoElement>();
+		while (algos.hasNext()) {
+			AlgoElement algo = algos.next();
+			if (algo.isComputeThreadSafe() && algo.getUpdateAfterAlgo() == null) {
+				group.add(algo);
+			} else {
+				updateGroup(group);
+				group.clear();
+				algo.update();
+			}
+		}
+		updateGroup(group);
+	}
+
+	private static void updateGroup(ArrayList<AlgoElement> group) {
+		if (group.size() < MIN_PARALLEL_SIZE) {
+			for (int i = 0; i < group.size(); i++) {
+				group.get(i).update();
+			}
+			return;
+		}
+
+		// sort into dependency levels
+		HashMap<AlgoElement, Integer> levelOf = new HashMap<AlgoElement, Integer>();
+		ArrayList<ArrayList<AlgoElement>> levels = new ArrayList<ArrayList<AlgoElement>>();
+		for (int i = 0; i < group.size(); i++) {
+			AlgoElement algo = group.get(i);
+			int level = 0;
+			GeoElement[] input = algo.getInput();
+			for (int j = 0; j < input.length; j++) {
+				Integer parentLevel = levelOf.get(input[j].getParentAlgorithm());
+				if (parentLevel != null) {
+					level = Math.max(level, parentLevel.intValue() + 1);
+				}
+			}
+			levelOf.put(algo, level);
+			if (level == levels.size()) {
+				levels.add(new ArrayList<AlgoElement>());
+			}
+			levels.get(level).add(algo);
+		}
+
+		for (int i = 0; i < levels.size(); i++) {
+			computeLevel(levels.get(i));
+		}
+
+		// update outputs and notify views in construction order
+		for (int i = 0; i < group.size(); i++) {
+			AlgoElement algo = group.get(i);
+			if (!algo.doStopUpdateCascade()) {
+				algo.stampCompute();
+				algo.updateDependentGeos();
+			}
+		}
+	}
+
+	private static void computeLevel(ArrayList<AlgoElement> level) {
+		ArrayList<AlgoElement> toCompute = new ArrayList<AlgoElement>(
+				level.size());
+		for (int i = 0; i < level.size(); i++) {
+			AlgoElement algo = level.get(i);
+			if (!algo.doStopUpdateCascade()) {
+				// may compute other algos, so do it before going parallel
+				algo.updateUnlabeledRandomGeos();
+				toCompute.add(algo);
+			}
+		}
+
+		ParallelExecutor executor = ParallelExecutor.prototype;
+		int chunks = Math.min(executor.getParallelism(),
+				toCompute.size() / MIN_PARALLEL_SIZE);
+		if (chunks < 2) {
+			new ComputeTask(toCompute, 0, toCompute.size()).run();
+			return;
+		}
+		ArrayList<ComputeTask> tasks = new ArrayList<ComputeTask>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			tasks.add(new ComputeTask(toCompute, i * toCompute.size() / chunks,
+					(i + 1) * toCompute.size() / chunks));
+		}
+		executor.invokeAll(tasks);
+	}
+
+	private static final class ComputeTask implements Runnable {
+		private final ArrayList<AlgoElement> algos;
+		private final int from, to;
+
+		ComputeTask(ArrayList<AlgoElement> algos, int from, int to) {
+			this.algos = algos;
+			this.from = from;
+			this.to = to;
+		}
+
+		public void run() {
+			for (int i = from; i < to; i++) {
+				algos.get(i).compute();
+			}
+		}
+	}
+}
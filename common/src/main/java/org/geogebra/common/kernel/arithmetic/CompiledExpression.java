@@ -0,0 +1,535 @@
+package org.geogebra.common.kernel.arithmetic;
+
+import java.util.ArrayList;
+
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.geos.GeoDummyVariable;
+import org.geogebra.common.kernel.geos.GeoNumeric;
+import org.geogebra.common.plugin.Operation;
+import org.geogebra.common.util.MyMath;
+
+/**
+ * Flat, register based form of a numeric expression tree. It is built once
+ * from the tree and then evaluated without creating any MyDouble objects.
+ *
+ * Register layout: the first registers hold the function variables, every
+ * instruction writes its result to its own register after them. Numbers and
+ * GeoNumerics are read at evaluation time, so changing a slider does not
+ * require recompilation.
+ *
+ * The results are the same as from ExpressionNode.evaluateDouble(): nodes
+ * handled by the shortcuts in evaluateDouble() are compiled in "direct" mode,
+ * everything below other operations uses the semantics of
+ * ExpressionNodeEvaluator.
+ *
+ * Expression nodes are sometimes changed in place (e.g. when variables are
+ * replaced), so the compiled form keeps the children and operation of every
+ * node it was compiled from, see isCompiledFrom().
+ *
+ * The program itself is immutable: evaluate(double[], double[]) may be called
+ * from several threads at once as long as each of them passes its own
+ * registers, see createRegisters().
+ */
+public final class CompiledExpression {
+
+	private static final int LOAD = 0;
+	private static final int PLUS = 1;
+	private static final int MINUS = 2;
+	private static final int MULTIPLY_DIRECT = 3;
+	private static final int MULTIPLY = 4;
+	private static final int DIVIDE = 5;
+	private static final int POWER_DIRECT = 6;
+	private static final int POWER = 7;
+	private static final int POWER_FRACTION_DIRECT = 8;
+	private static final int POWER_FRACTION = 9;
+	private static final int SIN_DIRECT = 10;
+	private static final int SIN = 11;
+	private static final int COS_DIRECT = 12;
+	private static final int COS = 13;
+	private static final int SQRT = 14;
+	private static final int TAN = 15;
+	private static final int EXP = 16;
+	private static final int LOG = 17;
+	private static final int ABS = 18;
+	private static final int SGN = 19;
+	private static final int CBRT = 20;
+	private static final int LOG10 = 21;
+	private static final int LOG2 = 22;
+	private static final int SINH = 23;
+	private static final int COSH = 24;
+	private static final int TANH = 25;
+	private static final int SEC = 26;
+	private static final int CSC = 27;
+	private static final int COT = 28;
+	private static final int ARCTAN = 29;
+
+	private final ExpressionNode source;
+	private final FunctionVariable[] vars;
+	private final int[] code;
+	private final int[] arg1;
+	private final int[] arg2;
+	private final int[] arg3;
+	private final int[] arg4;
+	private final NumberValue[] leaves;
+	/** compiled nodes with their children and operations at compile time */
+	private final ExpressionNode[] nodes;
+	private final ExpressionValue[] nodeLefts;
+	private final ExpressionValue[] nodeRights;
+	private final Operation[] nodeOperations;
+	private final int result;
+	private final double[] registers;
+
+	private CompiledExpression(ExpressionNode source, FunctionVariable[] vars,
+			Compiler c, int result) {
+		this.source = source;
+		this.vars = vars;
+		int n = c.instructions.size();
+		code = new int[n];
+		arg1 = new int[n];
+		arg2 = new int[n];
+		arg3 = new int[n];
+		arg4 = new int[n];
+		for (int k = 0; k < n; k++) {
+			int[] ins = c.instructions.get(k);
+			code[k] = ins[0];
+			arg1[k] = ins[1];
+			arg2[k] = ins[2];
+			arg3[k] = ins[3];
+			arg4[k] = ins[4];
+		}
+		leaves = c.leaves.toArray(new NumberValue[c.leaves.size()]);
+		int m = c.nodes.size();
+		nodes = c.nodes.toArray(new ExpressionNode[m]);
+		nodeLefts = new ExpressionValue[m];
+		nodeRights = new ExpressionValue[m];
+		nodeOperations = new Operation[m];
+		for (int k = 0; k < m; k++) {
+			nodeLefts[k] = nodes[k].getLeft();
+			nodeRights[k] = nodes[k].getRight();
+			nodeOperations[k] = nodes[k].getOperation();
+		}
+		this.result = result;
+		registers = new double[vars.length + n];
+	}
+
+	/**
+	 * @param exp
+	 *            numeric expression
+	 * @param vars
+	 *            function variables, their values are passed to evaluate()
+	 * @return compiled expression or null if the expression contains
+	 *         operations or values that cannot be compiled
+	 */
+	public static CompiledExpression compile(ExpressionNode exp,
+			FunctionVariable[] vars) {
+		if (exp == null || vars == null) {
+			return null;
+		}
+		for (int i = 0; i < vars.length; i++) {
+			if (vars[i] == null) {
+				return null;
+			}
+		}
+		Compiler c = new Compiler(vars);
+		int result = c.compile(exp, true);
+		if (result < 0) {
+			return null;
+		}
+		return new CompiledExpression(exp, vars, c, result);
+	}
+
+	/**
+	 * @param exp
+	 *            expression
+	 * @param fVars
+	 *            function variables
+	 * @return whether this was compiled from given expression and variables
+	 *         and none of the compiled nodes was changed since
+	 */
+	public boolean isCompiledFrom(ExpressionNode exp, FunctionVariable[] fVars) {
+		if (source != exp || vars != fVars) {
+			return false;
+		}
+		for (int k = 0; k < nodes.length; k++) {
+			if (nodes[k].getLeft() != nodeLefts[k]
+					|| nodes[k].getRight() != nodeRights[k]
+					|| nodes[k].getOperation() != nodeOperations[k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param x
+	 *            value of the only variable
+	 * @return value of the expression
+	 */
+	public double evaluate(double x) {
+		registers[0] = x;
+		return run(registers);
+	}
+
+	/**
+	 * @param x
+	 *            value of first variable
+	 * @param y
+	 *            value of second variable
+	 * @return value of the expression
+	 */
+	public double evaluate(double x, double y) {
+		registers[0] = x;
+		registers[1] = y;
+		return run(registers);
+	}
+
+	/**
+	 * @param vals
+	 *            values of the variables
+	 * @return value of the expression
+	 */
+	public double evaluate(double[] vals) {
+		return evaluate(vals, registers);
+	}
+
+	/**
+	 * Evaluates the expression using the given registers instead of the
+	 * shared ones, so that it can be called from several threads.
+	 * 
+	 * @param vals
+	 *            values of the variables
+	 * @param regs
+	 *            registers created by createRegisters()
+	 * @return value of the expression
+	 */
+	public double evaluate(double[] vals, double[] regs) {
+		for (int i = 0; i < vars.length; i++) {
+			regs[i] = vals[i];
+		}
+		return run(regs);
+	}
+
+	/**
+	 * @return new registers for evaluate(double[], double[])
+	 */
+	public double[] createRegisters() {
+		return new double[registers.length];
+	}
+
+	private double run(double[] r) {
+		int offset = vars.length;
+		for (int k = 0; k < code.length; k++) {
+			if (code[k] == LOAD) {
+				r[offset + k] = leaves[arg1[k]].getDouble();
+				continue;
+			}
+			double a = r[arg1[k]];
+			double val;
+			switch (code[k]) {
+			case PLUS:
+				val = a + r[arg2[k]];
+				break;
+			case MINUS:
+				val = a - r[arg2[k]];
+				break;
+			case MULTIPLY_DIRECT:
+				val = a * r[arg2[k]];
+				break;
+			case MULTIPLY:
+				val = multiply(a, r[arg2[k]]);
+				break;
+			case DIVIDE:
+				val = a / r[arg2[k]];
+				break;
+			case POWER_DIRECT:
+				val = Math.pow(a, r[arg2[k]]);
+				break;
+			case POWER:
+				val = a == Math.E ? Math.exp(r[arg2[k]]) : MyDouble.pow(a,
+						r[arg2[k]]);
+				break;
+			case POWER_FRACTION_DIRECT:
+				val = a < 0 ? ExpressionNodeEvaluator.negPower(a, r[arg3[k]],
+						r[arg4[k]]) : Math.pow(a, r[arg2[k]]);
+				break;
+			case POWER_FRACTION:
+				if (a == Math.E) {
+					val = Math.exp(r[arg2[k]]);
+				} else if (a < 0) {
+					val = ExpressionNodeEvaluator.negPower(a, r[arg3[k]],
+							r[arg4[k]]);
+				} else {
+					val = MyDouble.pow(a, r[arg2[k]]);
+				}
+				break;
+			case SIN_DIRECT:
+				val = Math.sin(a);
+				break;
+			case SIN:
+				val = checkZero(Math.sin(a));
+				break;
+			case COS_DIRECT:
+				val = Math.cos(a);
+				break;
+			case COS:
+				val = checkZero(Math.cos(a));
+				break;
+			case SQRT:
+				val = Math.sqrt(a);
+				break;
+			case TAN:
+				// same as MyDouble.tan()
+				val = Kernel.isEqual(Math.abs(a) % Math.PI, Kernel.PI_HALF) ? Double.NaN
+						: checkZero(Math.tan(a));
+				break;
+			case EXP:
+				val = Math.exp(a);
+				break;
+			case LOG:
+				val = Math.log(a);
+				break;
+			case ABS:
+				val = Math.abs(a);
+				break;
+			case SGN:
+				val = MyMath.sgn(a);
+				break;
+			case CBRT:
+				val = MyMath.cbrt(a);
+				break;
+			case LOG10:
+				val = Math.log(a) / MyMath.LOG10;
+				break;
+			case LOG2:
+				val = Math.log(a) / MyMath.LOG2;
+				break;
+			case SINH:
+				val = MyMath.sinh(a);
+				break;
+			case COSH:
+				val = MyMath.cosh(a);
+				break;
+			case TANH:
+				val = MyMath.tanh(a);
+				break;
+			case SEC:
+				val = MyMath.sec(a);
+				break;
+			case CSC:
+				val = MyMath.csc(a);
+				break;
+			case COT:
+				val = MyMath.cot(a);
+				break;
+			case ARCTAN:
+				val = Math.atan(a);
+				break;
+			default:
+				val = Double.NaN;
+			}
+			r[offset + k] = val;
+		}
+		return r[result];
+	}
+
+	/**
+	 * Same as MyDouble.mult()
+	 */
+	private static double multiply(double a, double b) {
+		if (Double.isNaN(a) || Double.isNaN(b)) {
+			return Double.NaN;
+		}
+		if (Double.isInfinite(a) && Double.isInfinite(b)
+				&& Math.signum(a) != Math.signum(b)) {
+			return Double.NaN;
+		}
+		return a * b;
+	}
+
+	/**
+	 * Same as MyDouble.checkZero()
+	 */
+	private static double checkZero(double val) {
+		return Kernel.isZero(val) ? 0 : val;
+	}
+
+	/**
+	 * Translates expression tree into instruction list
+	 */
+	private static class Compiler {
+		final FunctionVariable[] fVars;
+		final ArrayList<int[]> instructions = new ArrayList<int[]>();
+		final ArrayList<NumberValue> leaves = new ArrayList<NumberValue>();
+		final ArrayList<ExpressionNode> nodes = new ArrayList<ExpressionNode>();
+
+		Compiler(FunctionVariable[] fVars) {
+			this.fVars = fVars;
+		}
+
+		private int emit(int op, int a, int b, int c, int d) {
+			instructions.add(new int[] { op, a, b, c, d });
+			return fVars.length + instructions.size() - 1;
+		}
+
+		private int emit(int op, int a, int b) {
+			return emit(op, a, b, 0, 0);
+		}
+
+		/**
+		 * @param ev
+		 *            expression
+		 * @param direct
+		 *            whether ev is evaluated by ExpressionNode.evaluateDouble
+		 *            (rather than by ExpressionNodeEvaluator)
+		 * @return register containing the value of ev, -1 if ev can't be
+		 *         compiled
+		 */
+		int compile(ExpressionValue ev, boolean direct) {
+			if (ev instanceof ExpressionNode) {
+				return compileNode((ExpressionNode) ev, direct);
+			}
+			if (ev instanceof FunctionVariable) {
+				for (int i = 0; i < fVars.length; i++) {
+					if (fVars[i] == ev) {
+						return i;
+					}
+				}
+				return -1;
+			}
+			if (ev instanceof MyDouble
+					|| (ev instanceof GeoNumeric && !(ev instanceof GeoDummyVariable))) {
+				leaves.add((NumberValue) ev);
+				return emit(LOAD, leaves.size() - 1, 0);
+			}
+			return -1;
+		}
+
+		private int compileNode(ExpressionNode node, boolean direct0) {
+			nodes.add(node);
+			if (node.isLeaf()) {
+				return compile(node.getLeft(), direct0);
+			}
+			Operation op = node.getOperation();
+			boolean direct = direct0 && hasShortcut(op);
+			switch (op) {
+			case NO_OPERATION:
+				// evaluated by ExpressionNodeEvaluator in both modes
+				return compile(node.getLeft(), false);
+			case PLUS:
+				return binary(PLUS, node, direct);
+			case MINUS:
+				return binary(MINUS, node, direct);
+			case MULTIPLY:
+				return binary(direct ? MULTIPLY_DIRECT : MULTIPLY, node, direct);
+			case DIVIDE:
+				return binary(DIVIDE, node, direct);
+			case POWER:
+				return power(node, direct);
+			case SIN:
+				return unary(direct ? SIN_DIRECT : SIN, node, direct);
+			case COS:
+				return unary(direct ? COS_DIRECT : COS, node, direct);
+			case SQRT:
+			case SQRT_SHORT:
+				return unary(SQRT, node, direct);
+			case TAN:
+				return unary(TAN, node, direct);
+			case EXP:
+				return unary(EXP, node, direct);
+			case LOG:
+				return unary(LOG, node, direct);
+			case ABS:
+				return unary(ABS, node, direct);
+			case SGN:
+				return unary(SGN, node, direct);
+			case CBRT:
+				return unary(CBRT, node, direct);
+			case LOG10:
+				return unary(LOG10, node, direct);
+			case LOG2:
+				return unary(LOG2, node, direct);
+			case SINH:
+				return unary(SINH, node, direct);
+			case COSH:
+				return unary(COSH, node, direct);
+			case TANH:
+				return unary(TANH, node, direct);
+			case SEC:
+				return unary(SEC, node, direct);
+			case CSC:
+				return unary(CSC, node, direct);
+			case COT:
+				return unary(COT, node, direct);
+			case ARCTAN:
+				return unary(ARCTAN, node, direct);
+			default:
+				return -1;
+			}
+		}
+
+		/**
+		 * @return whether ExpressionNode.evaluateDouble() handles op itself
+		 */
+		private static boolean hasShortcut(Operation op) {
+			switch (op) {
+			case PLUS:
+			case MINUS:
+			case MULTIPLY:
+			case DIVIDE:
+			case POWER:
+			case SIN:
+			case COS:
+			case SQRT:
+				return true;
+			default:
+				return false;
+			}
+		}
+
+		private int unary(int code, ExpressionNode node, boolean direct) {
+			int a = compile(node.getLeft(), direct);
+			return a < 0 ? -1 : emit(code, a, 0);
+		}
+
+		private int binary(int code, ExpressionNode node, boolean direct) {
+			int a = compile(node.getLeft(), direct);
+			if (a < 0) {
+				return -1;
+			}
+			int b = compile(node.getRight(), direct);
+			return b < 0 ? -1 : emit(code, a, b);
+		}
+
+		private int power(ExpressionNode node, boolean direct) {
+			int base = compile(node.getLeft(), direct);
+			if (base < 0) {
+				return -1;
+			}
+			ExpressionValue right = node.getRight();
+			if (right.isExpressionNode()
+					&& ((ExpressionNode) right).getOperation() == Operation.DIVIDE) {
+				// negative base: numerator and denominator are evaluated
+				// separately by evaluateDouble(), see negPower()
+				ExpressionNode fraction = (ExpressionNode) right;
+				int num = compile(fraction.getLeft(), true);
+				if (num < 0) {
+					return -1;
+				}
+				int den = compile(fraction.getRight(), true);
+				if (den < 0) {
+					return -1;
+				}
+				int exponent = direct ? emit(DIVIDE, num, den) : compile(right,
+						false);
+				if (exponent < 0) {
+					return -1;
+				}
+				return emit(direct ? POWER_FRACTION_DIRECT : POWER_FRACTION,
+						base, exponent, num, den);
+			}
+			int exponent = compile(right, direct);
+			return exponent < 0 ? -1 : emit(direct ? POWER_DIRECT : POWER,
+					base, exponent);
+		}
+	}
+}
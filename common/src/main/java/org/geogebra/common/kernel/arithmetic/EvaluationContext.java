@@ -0,0 +1,69 @@
+package org.geogebra.common.kernel.arithmetic;
+
+import org.geogebra.common.kernel.roots.RealRootFunction;
+
+/**
+ * Evaluator of a function that keeps the values of the function variables to
+ * itself rather than writing them to the shared FunctionVariable objects.
+ * Each thread that evaluates a function needs its own context, see
+ * FunctionNVar.createEvaluationContext().
+ *
+ * If the function cannot be compiled, evaluation falls back to the tree
+ * walker, one thread at a time.
+ */
+public final class EvaluationContext implements RealRootFunction {
+
+	private final FunctionNVar fun;
+	private final CompiledExpression compiled;
+	private final double[] registers;
+	private final double[] args;
+
+	/**
+	 * @param fun
+	 *            function
+	 * @param compiled
+	 *            compiled expression of fun, may be null
+	 */
+	EvaluationContext(FunctionNVar fun, CompiledExpression compiled) {
+		this.fun = fun;
+		this.compiled = compiled;
+		this.registers = compiled == null ? null : compiled.createRegisters();
+		this.args = new double[fun.getVarNumber()];
+	}
+
+	/**
+	 * @return whether contexts of the same function may be used from
+	 *         different threads at the same time without blocking each other
+	 */
+	public boolean isIndependent() {
+		return compiled != null;
+	}
+
+	/**
+	 * @param x
+	 *            value of first variable
+	 * @return function value
+	 */
+	public double evaluate(double x) {
+		args[0] = x;
+		return evaluate(args);
+	}
+
+	/**
+	 * @param vals
+	 *            values of the variables
+	 * @return function value
+	 */
+	public double evaluate(double[] vals) {
+		if (compiled != null) {
+			return compiled.evaluate(vals, registers);
+		}
+		synchronized (fun) {
+			if (fun instanceof Function) {
+				return ((Function) fun).evaluate(vals[0]);
+			}
+			return fun.evaluate(vals);
+		}
+	}
+
+}
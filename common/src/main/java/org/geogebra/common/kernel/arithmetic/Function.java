@@ -175,6 +175,10 @@ public class Function extends FunctionNVar implements
 			return evaluateBoolean(x) ? 1 : 0;
 		}
 		// NumberValue
+		CompiledExpression ce = getCompiledExpression();
+		if (ce != null) {
+			return ce.evaluate(x);
+		}
 		fVars[0].set(x);
 		return expression.evaluateDouble();
 
@@ -62,6 +62,11 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 	/** kernel */
 	protected Kernel kernel;
 
+	/** compiled form of the expression, see getCompiledExpression() */
+	private CompiledExpression compiled;
+	/** last expression that could not be compiled */
+	private ExpressionNode notCompilable;
+
 	/**
 	 * Creates new Function from expression. Note: call initFunction() after
 	 * this constructor.
@@ -175,6 +180,7 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 
 	public void resolveVariables(EvalInfo info) {
 		expression.resolveVariables(info);
+		resetCompiledExpression();
 	}
 
 	/**
@@ -188,6 +194,7 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 		if (expression != null) {
 			expression.replaceChildrenByValues(geo);
 		}
+		resetCompiledExpression();
 	}
 
 	/**
@@ -289,6 +296,7 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 	 * @return whether this is a valid (numeric or boolean) function
 	 */
 	public boolean initFunction(boolean simplifyInt) {
+		resetCompiledExpression();
 
 		// replace function variables in tree
 		for (int i = 0; i < fVars.length; i++) {
@@ -434,6 +442,10 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 			return evaluateBoolean(vals) ? 1 : 0;
 		}
 		// NumberValue
+		CompiledExpression ce = getCompiledExpression();
+		if (ce != null) {
+			return ce.evaluate(vals);
+		}
 		for (int i = 0; i < fVars.length; i++) {
 			fVars[i].set(vals[i]);
 		}
@@ -446,6 +458,10 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 			return evaluateBoolean(new double[] { x, y }) ? 1 : 0;
 		}
 		// NumberValue
+		CompiledExpression ce = getCompiledExpression();
+		if (ce != null) {
+			return ce.evaluate(x, y);
+		}
 
 		fVars[0].set(x);
 		fVars[1].set(y);
@@ -453,6 +469,61 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 		return expression.evaluateDouble();
 	}
 
+	/**
+	 * Returns the compiled form of the expression, compiles it if necessary.
+	 * The compiled form is dropped whenever expression or variables are
+	 * replaced or the expression is changed in place, see also
+	 * resetCompiledExpression().
+	 * 
+	 * @return compiled expression, null if compiled functions are disabled or
+	 *         the expression contains operations that can only be handled by
+	 *         the ExpressionNodeEvaluator
+	 */
+	protected final CompiledExpression getCompiledExpression() {
+		if (compiled != null && compiled.isCompiledFrom(expression, fVars)) {
+			return compiled;
+		}
+		if (notCompilable == expression || expression == null) {
+			return null;
+		}
+		compiled = null;
+		if (kernel.getApplication().has(Feature.COMPILED_FUNCTIONS)) {
+			compiled = CompiledExpression.compile(expression, fVars);
+		}
+		if (compiled == null) {
+			notCompilable = expression;
+		}
+		return compiled;
+	}
+
+	/**
+	 * Creates an evaluator that does not write to the function variables of
+	 * this function. Use one context per thread; contexts of compiled
+	 * functions can run in parallel, see EvaluationContext.isIndependent().
+	 * 
+	 * @return new evaluation context
+	 */
+	public EvaluationContext createEvaluationContext() {
+		CompiledExpression ce = null;
+		// subclasses may override evaluate, see GeoFunction
+		if (!isBooleanFunction
+				&& (getClass() == Function.class || getClass() == FunctionNVar.class)) {
+			synchronized (this) {
+				ce = getCompiledExpression();
+			}
+		}
+		return new EvaluationContext(this, ce);
+	}
+
+	/**
+	 * Drops the compiled form of the expression; needed when the expression
+	 * tree was changed in place.
+	 */
+	public final void resetCompiledExpression() {
+		compiled = null;
+		notCompilable = null;
+	}
+
 	/**
 	 * Returns this function's value at position vals. (Note: use this method if
 	 * isBooleanFunction() returns true.
@@ -518,15 +589,49 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 	 */
 	final public FunctionNVar evalCasCommand(String ggbCasCmd, boolean symb,
 			MyArbitraryConstant arbconst) {
-		StringBuilder sb = new StringBuilder(80);
-		// remember expression and its CAS string
-		boolean useCaching = true;
-		boolean symbolic = symb;
+		String casString = getCasCommand(ggbCasCmd, symb);
+
+		// eval with CAS
+		try {
+			// check if result is in cache
+			FunctionNVar resultFun = lookupCasResult(casString);
+			if (resultFun != null) {
+				return resultFun;
+			}
+			// evaluate expression by CAS
+			String result = casEvalSymbolic ? kernel.evaluateGeoGebraCAS(
+					casString, arbconst) : // symbolic
+					kernel.evaluateCachedGeoGebraCAS(casString, arbconst); // value
+																			// string
+			return parseCasResult(casString, result);
+		} catch (Error err) {
+			err.printStackTrace();
+		} catch (Exception e) {
+			e.printStackTrace();
+		} catch (Throwable e) {
+			// resultFun = null
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the CAS input for a command applied to this function, see
+	 * {@link #evalCasCommand(String, boolean, MyArbitraryConstant)}
+	 * 
+	 * @param ggbCasCmd
+	 *            the GeoGebraCAS command needs to include % in all places where
+	 *            the function f should be substituted, e.g. "Derivative(%,x)"
+	 * @param symb
+	 *            true for symbolic evaluation, false to use values of
+	 *            GeoElement variables
+	 * @return CAS input
+	 */
+	public String getCasCommand(String ggbCasCmd, boolean symb) {
 		// for multi-variate functions we need to ensure value form,
 		// i.e. f(x,m)=x^2+m, g(x)=f(x,2), Derivative[g] gets sent as
 		// Derivative[x^2+2] instead of Derivative[f(x,2)]
 		// see http://www.geogebra.org/trac/ticket/1466
-		symbolic = symbolic && !expression.containsGeoFunctionNVar();
+		casEvalSymbolic = symb && !expression.containsGeoFunctionNVar();
 
 		// make sure to use temporary variable names
 		// e.g. a in Derivative[a*x^2,x] needs to be renamed temporarily when a
@@ -537,9 +642,9 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 		// did expression change since last time?
 		// or did symbolic falg change?
 		if (casEvalExpression != expression
-				|| (symbolic && casEvalStringSymbolic == null)) {
+				|| (casEvalSymbolic && casEvalStringSymbolic == null)) {
 			casEvalExpression = expression;
-			if (symbolic) {
+			if (casEvalSymbolic) {
 				casEvalStringSymbolic = expression.getCASstring(tpl, true);
 			}
 
@@ -550,79 +655,79 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 			// where we cannot cache the derivative of g because g may have
 			// changed
 			if (kernel.getApplication().has(Feature.XML_CAS_CACHE)) {
-				useCaching = !expression.containsCasEvaluableFunction();
+				casEvalUseCaching = !expression.containsCasEvaluableFunction();
 			} else {
-				useCaching = symbolic
+				casEvalUseCaching = casEvalSymbolic
 						&& !expression.containsCasEvaluableFunction();
 			}
 		}
 
 		// build command string for CAS
-		String expString = symbolic ? casEvalStringSymbolic : expression
-				.getCASstring(tpl, false);
+		String expString = casEvalSymbolic ? casEvalStringSymbolic
+				: expression.getCASstring(tpl, false);
 
 		// substitute % by expString in ggbCasCmd
-		String casString = ggbCasCmd.replaceAll("%", expString);
-		FunctionNVar resultFun = null;
+		return ggbCasCmd.replaceAll("%", expString);
+	}
 
-		// eval with CAS
-		try {
-			if (useCaching) {
-				// check if result is in cache
-
-				resultFun = lookupCasEvalMap(casString);
-				if (resultFun != null) {
-					// System.out.println("caching worked: " + casString +
-					// " -> " + resultFun);
-					return resultFun;
-				}
-			}
-			// evaluate expression by CAS
-			String result = symbolic ? kernel.evaluateGeoGebraCAS(casString,
-					arbconst) : // symbolic
-					kernel.evaluateCachedGeoGebraCAS(casString, arbconst); // value
-																			// string
-			// System.out.println("evaluateGeoGebraCAS: " + casString + " -> " +
-			// result);
-
-			// parse CAS result back into GeoGebra
-			sb.setLength(0);
-			sb.append("f("); // this name is never used, just needed for parsing
-			sb.append(getVarString(StringTemplate.defaultTemplate));
-			sb.append(") = ");
-			sb.append(result);
-
-			// parse result
-			if (getVarNumber() == 1) {
-				resultFun = (kernel.getParser().parseFunction(sb.toString()));
-			} else {
-				resultFun = (kernel.getParser()
-						.parseFunctionNVar(sb.toString()));
-			}
+	/**
+	 * @return whether the last command from
+	 *         {@link #getCasCommand(String, boolean)} is evaluated
+	 *         symbolically; value strings may be cached by the kernel
+	 */
+	public boolean isCasCommandSymbolic() {
+		return casEvalSymbolic;
+	}
 
-			resultFun.initFunction();
-		} catch (Error err) {
-			err.printStackTrace();
-			resultFun = null;
-		} catch (Exception e) {
-			e.printStackTrace();
-			resultFun = null;
-		} catch (Throwable e) {
-			resultFun = null;
+	/**
+	 * @param casString
+	 *            CAS input from {@link #getCasCommand(String, boolean)}
+	 * @return cached result or null
+	 */
+	public FunctionNVar lookupCasResult(String casString) {
+		return casEvalUseCaching ? lookupCasEvalMap(casString) : null;
+	}
+
+	/**
+	 * Parses the CAS result back into GeoGebra and caches it when allowed
+	 * 
+	 * @param casString
+	 *            CAS input from {@link #getCasCommand(String, boolean)}
+	 * @param result
+	 *            CAS output
+	 * @return resulting function
+	 * @throws Throwable
+	 *             when the result can't be parsed
+	 */
+	public FunctionNVar parseCasResult(String casString, String result)
+			throws Throwable {
+		StringBuilder sb = new StringBuilder(80);
+		sb.append("f("); // this name is never used, just needed for parsing
+		sb.append(getVarString(StringTemplate.defaultTemplate));
+		sb.append(") = ");
+		sb.append(result);
+
+		// parse result
+		FunctionNVar resultFun;
+		if (getVarNumber() == 1) {
+			resultFun = (kernel.getParser().parseFunction(sb.toString()));
+		} else {
+			resultFun = (kernel.getParser().parseFunctionNVar(sb.toString()));
 		}
 
+		resultFun.initFunction();
+
 		// cache result
-		if (useCaching && resultFun != null) {
+		if (casEvalUseCaching) {
 			getCasEvalMap().put(casString, resultFun);
 		}
-
-		// System.out.println("NO caching: " + casString + " -> " + resultFun);
-
 		return resultFun;
 	}
 
 	private ExpressionNode casEvalExpression;
 	private String casEvalStringSymbolic;
+	private boolean casEvalSymbolic;
+	private boolean casEvalUseCaching = true;
 
 	/**
 	 * 
@@ -1229,6 +1334,7 @@ public class FunctionNVar extends ValidExpression implements FunctionalNVar,
 		if (ev != this)
 			return ev;
 		expression = expression.traverse(t).wrap();
+		resetCompiledExpression();
 		return this;
 	}
 
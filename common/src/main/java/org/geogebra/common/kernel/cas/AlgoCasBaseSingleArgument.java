@@ -46,8 +46,11 @@ public class AlgoCasBaseSingleArgument extends AlgoCasBase {
 	protected void applyCasCommand(StringTemplate tpl) {
 		// factor value form of f
 		Commands cmd = this.getClassName();
-		g.setUsingCasCommand(cmd.name() + "[%]", f, false,
-				arbconst);
+		setUsingCasCommand(cmd.name() + "[%]", false, arbconst);
+	}
+
+	@Override
+	protected void updateCasResult() {
 		if (f.isDefined() && !g.isDefined()) {
 			g.toGeoElement().set(f.toGeoElement());
 		}
@@ -230,7 +230,7 @@ public class AlgoDerivative extends AlgoCasBase {
 		sbAE.append("]");
 
 		// find symbolic derivative of f
-		g.setUsingCasCommand(sbAE.toString(), f, true, arbconst);
+		setUsingCasCommand(sbAE.toString(), true, arbconst);
 
 	}
 
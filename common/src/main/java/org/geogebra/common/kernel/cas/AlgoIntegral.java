@@ -135,8 +135,12 @@ public class AlgoIntegral extends AlgoCasBase {
 		sbAE.append("]");
 
 		// find symbolic derivative of f
-		g.setUsingCasCommand(sbAE.toString(), f, true,
+		setUsingCasCommand(sbAE.toString(), true,
 				this.allowConstant ? arbconst : null);
+	}
+
+	@Override
+	protected void updateCasResult() {
 		updateSecret();
 	}
 
@@ -12,6 +12,8 @@ the Free Software Foundation.
 
 package org.geogebra.common.kernel.cas;
 
+import java.util.ArrayList;
+
 import org.apache.commons.math.ConvergenceException;
 import org.apache.commons.math.FunctionEvaluationException;
 import org.apache.commons.math.MaxIterationsExceededException;
@@ -22,6 +24,7 @@ import org.geogebra.common.kernel.StringTemplate;
 import org.geogebra.common.kernel.algos.AlgoFunctionFreehand;
 import org.geogebra.common.kernel.algos.DrawInformationAlgo;
 import org.geogebra.common.kernel.algos.GetCommand;
+import org.geogebra.common.kernel.arithmetic.EvaluationContext;
 import org.geogebra.common.kernel.arithmetic.ExpressionNode;
 import org.geogebra.common.kernel.arithmetic.ExpressionValue;
 import org.geogebra.common.kernel.arithmetic.Function;
@@ -39,6 +42,7 @@ import org.geogebra.common.kernel.geos.GeoNumberValue;
 import org.geogebra.common.kernel.geos.GeoNumeric;
 import org.geogebra.common.kernel.roots.RealRootAdapter;
 import org.geogebra.common.kernel.roots.RealRootFunction;
+import org.geogebra.common.util.ParallelExecutor;
 import org.geogebra.common.util.debug.Log;
 
 /**
@@ -64,9 +68,10 @@ public class AlgoIntegralDefinite extends AlgoUsingTempCASalgo implements
 	private static final int FIRST_ORDER = 3;
 	private static final int SECOND_ORDER = 5;
 	private static final int MAX_ITER = 5;
-	private static LegendreGaussIntegrator firstGauss, secondGauss;
-	private static int adaptiveGaussQuadCounter = 0;
 	private static final int MAX_GAUSS_QUAD_CALLS = 500;
+	// extra levels of bisection per doubling of threads, so that the work
+	// is spread evenly even if the function is hard only in a small interval
+	private static final int PARALLEL_EXTRA_DEPTH = 2;
 
 	/**
 	 * @param cons
@@ -349,8 +354,8 @@ public class AlgoIntegralDefinite extends AlgoUsingTempCASalgo implements
 				// freehand functions aren't generally nice and smooth, so more
 				// iterations may be needed
 				// https://www.geogebra.org/help/topic/problem-mit-integral-unter-freihandskizze
-				n.setValue(numericIntegration(f, lowerLimit, upperLimit,
-						f.includesFreehandOrData() ? 10 : 1));
+				n.setValue(numericIntegrationParallel(f, lowerLimit,
+						upperLimit, f.includesFreehandOrData() ? 10 : 1));
 			}
 		}
 		/*
@@ -706,72 +711,199 @@ public class AlgoIntegralDefinite extends AlgoUsingTempCASalgo implements
 	 */
 	public static double numericIntegration(RealRootFunction fun, double a,
 			double b, int maxMultiplier) {
-		adaptiveGaussQuadCounter = 0;
+		GaussQuad quad = new GaussQuad(MAX_GAUSS_QUAD_CALLS * maxMultiplier);
 		RealRootAdapter ad = new RealRootAdapter(fun);
 		if (a > b) {
-			return -doAdaptiveGaussQuad(ad, b, a, maxMultiplier);
+			return -quad.integrate(ad, b, a);
 		}
-		return doAdaptiveGaussQuad(ad, a, b, maxMultiplier);
-
-		// System.out.println("calls: " + adaptiveGaussQuadCounter);
-
+		return quad.integrate(ad, a, b);
 	}
 
-	private static double doAdaptiveGaussQuad(RealRootAdapter fun, double a,
+	/**
+	 * Same as numericIntegration(f, a, b, maxMultiplier), but the top levels
+	 * of the bisection are done first and the resulting intervals are
+	 * integrated in parallel if the platform supports it. The result is the
+	 * same as for the sequential version.
+	 * 
+	 * @param f
+	 *            function
+	 * @param a
+	 *            lower bound
+	 * @param b
+	 *            upper bound
+	 * @param maxMultiplier
+	 *            multiplier (to allow more iterations for freehand functions)
+	 * @return integral value
+	 */
+	static double numericIntegrationParallel(GeoFunction f, double a,
 			double b, int maxMultiplier) {
-		if (++adaptiveGaussQuadCounter > MAX_GAUSS_QUAD_CALLS * maxMultiplier) {
-			return Double.NaN;
+		ParallelExecutor executor = ParallelExecutor.prototype;
+		EvaluationContext context = executor.isParallel()
+				? f.createEvaluationContext() : null;
+		if (context == null || !context.isIndependent()) {
+			return numericIntegration(f, a, b, maxMultiplier);
+		}
+		if (a > b) {
+			return -numericIntegrationParallel(f, b, a, maxMultiplier);
+		}
+		int maxCalls = MAX_GAUSS_QUAD_CALLS * maxMultiplier;
+		int depth = PARALLEL_EXTRA_DEPTH;
+		for (int p = executor.getParallelism(); p > 1; p /= 2) {
+			depth++;
 		}
 
-		// init GaussQuad classes for numerical integration
-		if (firstGauss == null) {
-			firstGauss = new LegendreGaussIntegrator(FIRST_ORDER, MAX_ITER);
-			secondGauss = new LegendreGaussIntegrator(SECOND_ORDER, MAX_ITER);
+		GaussQuad quad = new GaussQuad(maxCalls);
+		ArrayList<GaussQuadTask> tasks = new ArrayList<GaussQuadTask>();
+		GaussQuadTask root = new GaussQuadTask(a, b);
+		root.split(quad, new RealRootAdapter(context), depth, tasks);
+		for (GaussQuadTask task : tasks) {
+			task.init(f, maxCalls);
 		}
+		executor.invokeAll(tasks);
 
-		double firstSum = 0;
-		double secondSum = 0;
+		int calls = quad.calls;
+		for (GaussQuadTask task : tasks) {
+			calls += task.quad.calls;
+		}
+		if (calls > maxCalls) {
+			return Double.NaN;
+		}
+		return root.sum();
+	}
 
-		boolean error = false;
+	/**
+	 * Adaptive Gauss quadrature; holds its own integrators and call counter
+	 * so that several integrations may run at the same time.
+	 */
+	private static final class GaussQuad {
+		private final LegendreGaussIntegrator firstGauss = new LegendreGaussIntegrator(
+				FIRST_ORDER, MAX_ITER);
+		private final LegendreGaussIntegrator secondGauss = new LegendreGaussIntegrator(
+				SECOND_ORDER, MAX_ITER);
+		private final int maxCalls;
+		/** number of intervals checked so far */
+		int calls = 0;
+		/** whether last estimate was accurate enough */
+		boolean converged;
+
+		GaussQuad(int maxCalls) {
+			this.maxCalls = maxCalls;
+		}
 
-		// integrate using gauss quadrature
-		try {
-			firstSum = firstGauss.integrate(fun, a, b);
-			if (Double.isNaN(firstSum))
+		double integrate(RealRootAdapter fun, double a, double b) {
+			if (++calls > maxCalls) {
 				return Double.NaN;
-			secondSum = secondGauss.integrate(fun, a, b);
-			if (Double.isNaN(secondSum))
+			}
+			double sum = estimate(fun, a, b);
+			if (converged || Double.isNaN(sum)) {
+				return sum;
+			}
+			double mid = (a + b) / 2;
+			double left = integrate(fun, a, mid);
+			if (Double.isNaN(left)) {
 				return Double.NaN;
-		} catch (MaxIterationsExceededException e) {
-			error = true;
-		} catch (ConvergenceException e) {
-			error = true;
-		} catch (FunctionEvaluationException e) {
-			return Double.NaN;
-		} catch (IllegalArgumentException e) {
-			return Double.NaN;
+			}
+			return left + integrate(fun, mid, b);
 		}
 
-		// if (!error) Application.debug(a+" "+b+" "+(firstSum - secondSum),
-		// Kernel.isEqual(firstSum, secondSum, Kernel.STANDARD_PRECISION) ? 1 :
-		// 0);
-		// else Application.debug(a+" "+b+" error",1);
-
-		// check if both results are equal
-		boolean equal = !error
-				&& Kernel.isEqual(firstSum, secondSum,
-						Kernel.STANDARD_PRECISION);
+		/**
+		 * Compares Gauss quadratures of two orders, sets converged to true
+		 * if they are equal.
+		 * 
+		 * @return integral estimate or NaN
+		 */
+		double estimate(RealRootAdapter fun, double a, double b) {
+			converged = false;
+			double firstSum = 0;
+			double secondSum = 0;
+
+			boolean error = false;
+
+			// integrate using gauss quadrature
+			try {
+				firstSum = firstGauss.integrate(fun, a, b);
+				if (Double.isNaN(firstSum))
+					return Double.NaN;
+				secondSum = secondGauss.integrate(fun, a, b);
+				if (Double.isNaN(secondSum))
+					return Double.NaN;
+			} catch (MaxIterationsExceededException e) {
+				error = true;
+			} catch (ConvergenceException e) {
+				error = true;
+			} catch (FunctionEvaluationException e) {
+				return Double.NaN;
+			} catch (IllegalArgumentException e) {
+				return Double.NaN;
+			}
 
-		if (equal) {
-			// success
+			// check if both results are equal
+			converged = !error
+					&& Kernel.isEqual(firstSum, secondSum,
+							Kernel.STANDARD_PRECISION);
 			return secondSum;
 		}
-		double mid = (a + b) / 2;
-		double left = doAdaptiveGaussQuad(fun, a, mid, maxMultiplier);
-		if (Double.isNaN(left)) {
-			return Double.NaN;
+	}
+
+	/**
+	 * Node of the bisection tree for parallel integration: either the value
+	 * is known after the first levels, or it has children, or it is a leaf
+	 * that is integrated by a worker thread.
+	 */
+	private static final class GaussQuadTask implements Runnable {
+		private final double a, b;
+		private GaussQuadTask left, right;
+		private double value;
+		private RealRootAdapter fun;
+		/** quadrature of this task */
+		GaussQuad quad;
+
+		GaussQuadTask(double a, double b) {
+			this.a = a;
+			this.b = b;
+		}
+
+		/**
+		 * Does the first levels of bisection, collects the intervals that
+		 * still need to be integrated.
+		 */
+		void split(GaussQuad topQuad, RealRootAdapter topFun, int depth,
+				ArrayList<GaussQuadTask> tasks) {
+			if (depth == 0) {
+				tasks.add(this);
+				return;
+			}
+			topQuad.calls++;
+			value = topQuad.estimate(topFun, a, b);
+			if (topQuad.converged || Double.isNaN(value)) {
+				return;
+			}
+			double mid = (a + b) / 2;
+			left = new GaussQuadTask(a, mid);
+			right = new GaussQuadTask(mid, b);
+			left.split(topQuad, topFun, depth - 1, tasks);
+			right.split(topQuad, topFun, depth - 1, tasks);
+		}
+
+		void init(GeoFunction f, int maxCalls) {
+			fun = new RealRootAdapter(f.createEvaluationContext());
+			quad = new GaussQuad(maxCalls);
+		}
+
+		public void run() {
+			value = quad.integrate(fun, a, b);
+		}
+
+		double sum() {
+			if (left == null) {
+				return value;
+			}
+			double leftSum = left.sum();
+			if (Double.isNaN(leftSum)) {
+				return Double.NaN;
+			}
+			return leftSum + right.sum();
 		}
-		return left + doAdaptiveGaussQuad(fun, mid, b, maxMultiplier);
 	}
 
 	@Override
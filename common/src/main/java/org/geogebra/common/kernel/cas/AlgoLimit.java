@@ -106,6 +106,12 @@ public class AlgoLimit extends AlgoElement implements AsynchronousCommand,
 			return;
 		}
 
+		if (kernel.isCASAsynchronous()) {
+			// keep old value until the result arrives
+			kernel.evaluateGeoGebraCASAsync(this);
+			return;
+		}
+
 		try {
 			String numStr = kernel.evaluateCachedGeoGebraCAS(limitString,
 					arbconst);
@@ -126,6 +132,10 @@ public class AlgoLimit extends AlgoElement implements AsynchronousCommand,
 		return limitString;
 	}
 
+	public MyArbitraryConstant getArbitraryConstant() {
+		return arbconst;
+	}
+
 	/**
 	 * 
 	 * @return direction -- 0 default, -1 above, +1 below
@@ -139,8 +149,6 @@ public class AlgoLimit extends AlgoElement implements AsynchronousCommand,
 		NumberValue nv = kernel.getAlgebraProcessor().evaluateToNumeric(output,
 				ErrorHelper.silent());
 		outNum.setValue(nv.getDouble());
-		if (USE_ASYNCHRONOUS)
-			outNum.updateCascade();
 
 	}
 
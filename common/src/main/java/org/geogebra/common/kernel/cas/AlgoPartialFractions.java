@@ -55,7 +55,7 @@ public class AlgoPartialFractions extends AlgoCasBase {
 		sbAE.append(varStr);
 		sbAE.append("]");
 
-		g.setUsingCasCommand(sbAE.toString(), f, false, arbconst);
+		setUsingCasCommand(sbAE.toString(), false, arbconst);
 	}
 
 }
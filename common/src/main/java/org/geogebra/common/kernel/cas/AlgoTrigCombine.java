@@ -57,6 +57,6 @@ public class AlgoTrigCombine extends AlgoCasBase {
 			sb.append(target.toValueString(tpl));
 		}
 		sb.append(']');
-		g.setUsingCasCommand(sb.toString(), f, true, arbconst);
+		setUsingCasCommand(sb.toString(), true, arbconst);
 	}
 }
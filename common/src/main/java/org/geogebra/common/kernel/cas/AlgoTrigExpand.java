@@ -58,6 +58,6 @@ public class AlgoTrigExpand extends AlgoCasBase {
 			sb.append(target.toValueString(tpl));
 		}
 		sb.append(']');
-		g.setUsingCasCommand(sb.toString(), f, true, arbconst);
+		setUsingCasCommand(sb.toString(), true, arbconst);
 	}
 }
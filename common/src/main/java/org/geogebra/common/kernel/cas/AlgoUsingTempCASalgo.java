@@ -4,7 +4,9 @@ import org.geogebra.common.kernel.Construction;
 import org.geogebra.common.kernel.algos.AlgoElement;
 
 /**
- * Abstract class for algos that use some CAS algo as helper
+ * Abstract class for algos that use some CAS algo as helper. The helper's
+ * output is unlabeled and used right away, so it is computed synchronously
+ * even when the CAS is asynchronous (see AlgoCasBase).
  */
 public abstract class AlgoUsingTempCASalgo extends AlgoElement implements
 		UsesCAS {
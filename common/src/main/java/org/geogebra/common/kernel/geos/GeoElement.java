@@ -65,6 +65,7 @@ import org.geogebra.common.kernel.algos.AlgorithmSet;
 import org.geogebra.common.kernel.algos.ConstructionElement;
 import org.geogebra.common.kernel.algos.DrawInformationAlgo;
 import org.geogebra.common.kernel.algos.EquationElementInterface;
+import org.geogebra.common.kernel.algos.ParallelAlgorithmUpdater;
 import org.geogebra.common.kernel.algos.TableAlgo;
 import org.geogebra.common.kernel.arithmetic.ExpressionNode;
 import org.geogebra.common.kernel.arithmetic.ExpressionNodeConstants.StringType;
@@ -208,6 +209,7 @@ public abstract class GeoElement extends ConstructionElement implements
 	public boolean labelSet = false;
 	
 	private boolean localVarLabelSet = false;
+	private long changeStamp = 0;
 	private boolean euclidianVisible = true;
 	private boolean forceEuclidianVisible = false;
 	private boolean algebraVisible = true;
@@ -3824,6 +3826,14 @@ public abstract class GeoElement extends ConstructionElement implements
 		kernel.notifyUpdate(this);
 	}
 
+	/**
+	 * @return construction change stamp of the last update of this geo, see
+	 *         AlgoElement.isInputChangedSinceUpdate()
+	 */
+	final public long getChangeStamp() {
+		return changeStamp;
+	}
+
 	/**
 	 * Same as update(), but do not notify kernel
 	 * 
@@ -3832,6 +3842,10 @@ public abstract class GeoElement extends ConstructionElement implements
 	 */
 	protected final void updateGeo(boolean mayUpdateCas) {
 
+		if (!cons.isKeepingChangeStamps()) {
+			changeStamp = cons.nextChangeStamp();
+		}
+
 		if (labelWanted && !labelSet) {
 			// check if this object's label needs to be set
 			if (isVisible()) {
@@ -3866,7 +3880,10 @@ public abstract class GeoElement extends ConstructionElement implements
 		kernel.notifyBatchUpdate();
 		update();
 		updateDependentObjects();
-		GeoGebraProfiler.addUpdateCascade(System.currentTimeMillis() -l);
+		// macro kernels of loci may update in other threads
+		if (!kernel.isMacroKernel()) {
+			GeoGebraProfiler.addUpdateCascade(System.currentTimeMillis() - l);
+		}
 		kernel.notifyEndBatchUpdate();
 		
 	}
@@ -3969,7 +3986,11 @@ public abstract class GeoElement extends ConstructionElement implements
 			}
 	
 			// now we have one nice algorithm set that we can update
-			if (tempSet1.size() > 0) {
+			if (tempSet1.size() >= ParallelAlgorithmUpdater.MIN_PARALLEL_SIZE
+					&& ParallelAlgorithmUpdater.isEnabled(tempSet1.first()
+							.getKernel())) {
+				ParallelAlgorithmUpdater.updateAll(tempSet1.iterator());
+			} else if (tempSet1.size() > 0) {
 				final Iterator<AlgoElement> it = tempSet1.iterator();
 				while (it.hasNext()) {
 					final AlgoElement algo = it.next();
@@ -34,6 +34,7 @@ import org.geogebra.common.kernel.algos.AlgoElement;
 import org.geogebra.common.kernel.algos.AlgoFunctionFreehand;
 import org.geogebra.common.kernel.algos.AlgoMacroInterface;
 import org.geogebra.common.kernel.arithmetic.BooleanValue;
+import org.geogebra.common.kernel.arithmetic.EvaluationContext;
 import org.geogebra.common.kernel.arithmetic.ExpressionNode;
 import org.geogebra.common.kernel.arithmetic.ExpressionNodeConstants.StringType;
 import org.geogebra.common.kernel.arithmetic.ExpressionValue;
@@ -552,6 +553,18 @@ CasEvaluableFunction, ParametricCurve,
 		}
 	}
 
+	/**
+	 * Sets this function to the result of a CAS command that was evaluated
+	 * asynchronously, see {@link FunctionNVar#parseCasResult(String, String)}
+	 * 
+	 * @param result
+	 *            resulting function, null if the CAS failed
+	 */
+	public void setUsingCasResult(FunctionNVar result) {
+		fun = (Function) result;
+		checkDefined();
+	}
+
 	/**
 	 * Returns this function's value at position x.
 	 * 
@@ -572,6 +585,17 @@ CasEvaluableFunction, ParametricCurve,
 
 	}
 
+	/**
+	 * @return evaluator for this function that can be used by another thread,
+	 *         null if the function is undefined
+	 */
+	public EvaluationContext createEvaluationContext() {
+		if (fun == null || !isDefined) {
+			return null;
+		}
+		return fun.createEvaluationContext();
+	}
+
 	/**
 	 * Returns this function's value at position x.
 	 * 
@@ -1344,6 +1368,13 @@ CasEvaluableFunction, ParametricCurve,
 		evalSwapped = !evalSwapped;
 	}
 
+	/**
+	 * @return whether the function is considered to be x=f(y), see swapEval()
+	 */
+	public boolean isEvalSwapped() {
+		return evalSwapped;
+	}
+
 	public void evaluateCurve(double t, double[] out) {
 		if (evalSwapped) {
 			out[1] = t;
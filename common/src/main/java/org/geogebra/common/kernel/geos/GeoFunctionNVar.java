@@ -249,6 +249,16 @@ public class GeoFunctionNVar extends GeoElement implements FunctionalNVar,
 		fun1 = null;
 	}
 
+	/**
+	 * @param index
+	 *            index of variable
+	 * @return partial derivative for the variable, null if derivatives are
+	 *         not set
+	 */
+	public FunctionNVar getDerivative(int index) {
+		return fun1 == null ? null : fun1[index];
+	}
+
 	final public FunctionNVar getFunction() {
 		return fun;
 	}
@@ -356,6 +366,20 @@ public class GeoFunctionNVar extends GeoElement implements FunctionalNVar,
 		}
 	}
 
+	/**
+	 * Sets this function to the result of a CAS command that was evaluated
+	 * asynchronously, see {@link FunctionNVar#parseCasResult(String, String)}
+	 * 
+	 * @param result
+	 *            resulting function, null if the CAS failed
+	 */
+	public void setUsingCasResult(FunctionNVar result) {
+		// reset derivatives
+		fun1 = null;
+		fun = result;
+		checkDefined();
+	}
+
 	@Override
 	public boolean isDefined() {
 		return isDefined && fun != null;
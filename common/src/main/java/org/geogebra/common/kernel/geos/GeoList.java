@@ -13,7 +13,11 @@ the Free Software Foundation.
 package org.geogebra.common.kernel.geos;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.TreeSet;
 
 import org.geogebra.common.awt.GColor;
@@ -48,6 +52,7 @@ import org.geogebra.common.kernel.geos.GeoAngle.AngleStyle;
 import org.geogebra.common.kernel.kernelND.GeoElementND;
 import org.geogebra.common.kernel.kernelND.GeoPointND;
 import org.geogebra.common.kernel.kernelND.GeoQuadricND;
+import org.geogebra.common.kernel.statistics.ListStatistics;
 import org.geogebra.common.plugin.EuclidianStyleConstants;
 import org.geogebra.common.plugin.GeoClass;
 import org.geogebra.common.util.StringUtil;
@@ -66,13 +71,16 @@ SpreadsheetTraceable, AbsoluteScreenLocateable, Furniture, InequalityProperties,
 	private boolean trace;
 
 
-	// GeoElement list members
-	private final ArrayList<GeoElement> geoList;
+	// GeoElement list members, may be stored as numbers or points in an
+	// array, see ElementList
+	private final ElementList geoList;
 
 	// lists will often grow and shrink dynamically,
 	// so we keep a cacheList of all old list elements
 	private final ArrayList<GeoElementND> cacheList;
 
+	private ListStatistics statistics;
+
 	private boolean isDefined = true;
 	private boolean isDrawable = true;
 	private boolean drawAsComboBox = false;
@@ -104,7 +112,7 @@ SpreadsheetTraceable, AbsoluteScreenLocateable, Furniture, InequalityProperties,
 		// http://benpryor.com/blog/2008/01/02/dont-call-subclass-methods-from-a-superclass-constructor/
 		setConstructionDefaults(); // init visual settings
 
-		geoList = new ArrayList<GeoElement>(size);
+		geoList = new ElementList(size);
 		cacheList = new ArrayList<GeoElementND>(size);
 		setEuclidianVisible(false);
 		// don't add here, see GGB-264
@@ -198,6 +206,15 @@ SpreadsheetTraceable, AbsoluteScreenLocateable, Furniture, InequalityProperties,
 	}
 
 	private void copyListElements(final GeoList otherList) {
+		if (otherList.geoList.values != null) {
+			// no need to create elements
+			ElementList other = otherList.geoList;
+			int length = other.valueCount * (other.points ? 2 : 1);
+			double[] values = new double[length];
+			System.arraycopy(other.values, 0, values, 0, length);
+			setValues(values, other.valueCount, other.points);
+			return;
+		}
 		final int otherListSize = otherList.size();
 		ensureCapacity(otherListSize);
 		geoList.clear();
@@ -546,6 +563,16 @@ SpreadsheetTraceable, AbsoluteScreenLocateable, Furniture, InequalityProperties,
 		isDefined = flag;
 
 		if (!isDefined) {
+
+			if (geoList.values != null) {
+				// values only: no elements to set undefined; the array
+				// belongs to the caller of setValues, so it is replaced
+				double[] undefined = new double[geoList.valueCount
+						* (geoList.points ? 2 : 1)];
+				Arrays.fill(undefined, Double.NaN);
+				geoList.values = undefined;
+				return;
+			}
 			
 			final int size = geoList.size();
 			for (int i = 0; i < size; i++) {
@@ -736,6 +763,12 @@ SpreadsheetTraceable, AbsoluteScreenLocateable, Furniture, InequalityProperties,
 	@Override
 	public double[] toDouble(int offset) {
 		int length = geoList.size();
+		double[] values = getValues();
+		if (values != null) {
+			final double[] valueArray = new double[length - offset];
+			System.arraycopy(values, offset, valueArray, 0, length - offset);
+			return valueArray;
+		}
 		try {
 			final double[] valueArray = new double[length - offset];
 			for (int i = offset; i < length; i++) {
@@ -747,6 +780,120 @@ SpreadsheetTraceable, AbsoluteScreenLocateable, Furniture, InequalityProperties,
 		}
 	}
 
+	/**
+	 * Replaces the elements of this list by numbers. The numbers are kept in
+	 * the array; elements are only created when they are accessed, e.g. by
+	 * get(int), so large lists of numbers need little memory.
+	 * 
+	 * @param values
+	 *            values, the list keeps using this array without changing
+	 *            it; the caller may only change it to set new values
+	 * @param size
+	 *            number of values
+	 */
+	public void setValues(double[] values, int size) {
+		setValues(values, size, false);
+	}
+
+	/**
+	 * Replaces the elements of this list by points (x, y), see
+	 * setValues(double[], int)
+	 * 
+	 * @param coords
+	 *            x and y coordinates of the points, one after the other; the
+	 *            list keeps using this array without changing it
+	 * @param size
+	 *            number of points
+	 */
+	public void setPointValues(double[] coords, int size) {
+		setValues(coords, size, true);
+	}
+
+	private void setValues(double[] values, int size, boolean points) {
+		geoList.setValues(values, size, points);
+		if (size > 0) {
+			// same as add() for the first element
+			elementType = points ? GeoClass.POINT : GeoClass.NUMERIC;
+			isDrawable = points;
+			setTypeStringForXML(points ? "point" : "numeric");
+		}
+	}
+
+	/**
+	 * @return numbers of this list if they are stored in an array (read only,
+	 *         may be longer than the list), null otherwise
+	 */
+	public double[] getValues() {
+		return geoList.points ? null : geoList.values;
+	}
+
+	/**
+	 * @return x and y coordinates of the points of this list if they are
+	 *         stored in an array (read only, may be longer than twice the
+	 *         list), null otherwise
+	 */
+	public double[] getPointValues() {
+		return geoList.points ? geoList.values : null;
+	}
+
+	/**
+	 * @return values, sums and sorted values of this list, shared by all
+	 *         statistics of this list
+	 */
+	public ListStatistics getStatistics() {
+		if (statistics == null) {
+			statistics = new ListStatistics(this);
+		}
+		statistics.update();
+		return statistics;
+	}
+
+	/**
+	 * Creates the elements of a list stored in an array, reusing cached
+	 * elements
+	 */
+	void createElements() {
+		final double[] values = geoList.values;
+		final int size = geoList.valueCount;
+		final boolean points = geoList.points;
+		// stored as elements from now on
+		geoList.values = null;
+		for (int i = 0; i < size; i++) {
+			GeoElementND cached = i < cacheList.size() ? cacheList.get(i)
+					: null;
+			if (points) {
+				GeoPoint point;
+				if (cached != null && cached.getClass() == GeoPoint.class
+						&& !cached.isLabelSet()) {
+					point = (GeoPoint) cached;
+				} else {
+					point = new GeoPoint(cons);
+					initElement(point);
+				}
+				point.setCoords(values[2 * i], values[2 * i + 1], 1.0);
+				add(point);
+			} else {
+				GeoNumeric num;
+				if (cached != null && cached.getClass() == GeoNumeric.class
+						&& !cached.isLabelSet()
+						&& ((GeoNumeric) cached).getDefinition() == null) {
+					num = (GeoNumeric) cached;
+				} else {
+					num = new GeoNumeric(cons);
+					initElement(num);
+				}
+				num.setValue(values[i]);
+				add(num);
+			}
+		}
+	}
+
+	private void initElement(GeoElement geo) {
+		geo.setParentAlgorithm(getParentAlgorithm());
+		geo.setConstructionDefaults();
+		geo.setUseVisualDefaults(false);
+	}
+
 	/**
 	 * Increases capcity of this list if necessary
 	 * @param size capcity to ensure
@@ -834,7 +981,17 @@ SpreadsheetTraceable, AbsoluteScreenLocateable, Furniture, InequalityProperties,
 
 		// first (n-1) elements
 		final int lastIndex = geoList.size() - 1;
-		if (lastIndex > -1) {
+		double[] values = getValues();
+		if (values != null && !tpl.hasCASType()) {
+			// same as GeoNumeric.toValueString() without creating elements
+			for (int i = 0; i <= lastIndex; i++) {
+				sbBuildValueString.append(kernel.format(values[i], tpl));
+				if (i < lastIndex) {
+					sbBuildValueString.append(getLoc().unicodeComma);
+					sbBuildValueString.append(" ");
+				}
+			}
+		} else if (lastIndex > -1) {
 			for (int i = 0; i < lastIndex; i++) {
 				final GeoElement geo = geoList.get(i);
 				sbBuildValueString.append(geo.toOutputValueString(tpl));
@@ -3044,4 +3201,167 @@ SpreadsheetTraceable, AbsoluteScreenLocateable, Furniture, InequalityProperties,
 		}
 	}
 
+	/**
+	 * Elements of a list, stored as numbers or points in an array until they
+	 * are needed as GeoElements. The size is known without creating them.
+	 */
+	private final class ElementList extends ArrayList<GeoElement> {
+
+		private static final long serialVersionUID = 1L;
+
+		/** numbers or point coordinates, null if stored as elements */
+		double[] values;
+		/** number of values or points */
+		int valueCount;
+		/** whether values are (x, y) coordinates of points */
+		boolean points;
+
+		ElementList(int size) {
+			super(size);
+		}
+
+		void setValues(double[] newValues, int size, boolean newPoints) {
+			super.clear();
+			values = newValues;
+			valueCount = size;
+			points = newPoints;
+		}
+
+		private void createElements() {
+			if (values != null) {
+				GeoList.this.createElements();
+			}
+		}
+
+		@Override
+		public int size() {
+			return values == null ? super.size() : valueCount;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return size() == 0;
+		}
+
+		@Override
+		public void clear() {
+			values = null;
+			super.clear();
+		}
+
+		@Override
+		public GeoElement get(int index) {
+			createElements();
+			return super.get(index);
+		}
+
+		@Override
+		public GeoElement set(int index, GeoElement element) {
+			createElements();
+			return super.set(index, element);
+		}
+
+		@Override
+		public boolean add(GeoElement element) {
+			createElements();
+			return super.add(element);
+		}
+
+		@Override
+		public void add(int index, GeoElement element) {
+			createElements();
+			super.add(index, element);
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends GeoElement> c) {
+			createElements();
+			return super.addAll(c);
+		}
+
+		@Override
+		public boolean addAll(int index, Collection<? extends GeoElement> c) {
+			createElements();
+			return super.addAll(index, c);
+		}
+
+		@Override
+		public GeoElement remove(int index) {
+			createElements();
+			return super.remove(index);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			createElements();
+			return super.remove(o);
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> c) {
+			createElements();
+			return super.removeAll(c);
+		}
+
+		@Override
+		public boolean retainAll(Collection<?> c) {
+			createElements();
+			return super.retainAll(c);
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			createElements();
+			return super.contains(o);
+		}
+
+		@Override
+		public int indexOf(Object o) {
+			createElements();
+			return super.indexOf(o);
+		}
+
+		@Override
+		public int lastIndexOf(Object o) {
+			createElements();
+			return super.lastIndexOf(o);
+		}
+
+		@Override
+		public Object[] toArray() {
+			createElements();
+			return super.toArray();
+		}
+
+		@Override
+		public <T> T[] toArray(T[] a) {
+			createElements();
+			return super.toArray(a);
+		}
+
+		@Override
+		public Iterator<GeoElement> iterator() {
+			createElements();
+			return super.iterator();
+		}
+
+		@Override
+		public ListIterator<GeoElement> listIterator() {
+			createElements();
+			return super.listIterator();
+		}
+
+		@Override
+		public ListIterator<GeoElement> listIterator(int index) {
+			createElements();
+			return super.listIterator(index);
+		}
+
+		@Override
+		public List<GeoElement> subList(int fromIndex, int toIndex) {
+			createElements();
+			return super.subList(fromIndex, toIndex);
+		}
+	}
+
 }
@@ -22,6 +22,7 @@ import org.geogebra.common.kernel.algos.AlgoPointOnPath;
 import org.geogebra.common.kernel.arithmetic.Equation;
 import org.geogebra.common.kernel.arithmetic.EquationValue;
 import org.geogebra.common.kernel.arithmetic.Evaluate2Var;
+import org.geogebra.common.kernel.arithmetic.EvaluationContext;
 import org.geogebra.common.kernel.arithmetic.ExpressionNode;
 import org.geogebra.common.kernel.arithmetic.ExpressionNodeConstants.StringType;
 import org.geogebra.common.kernel.arithmetic.ExpressionValue;
@@ -51,7 +52,9 @@ import org.geogebra.common.kernel.kernelND.GeoPointND;
 import org.geogebra.common.kernel.parser.ParseException;
 import org.geogebra.common.plugin.GeoClass;
 import org.geogebra.common.plugin.Operation;
+import org.geogebra.common.util.ParallelExecutor;
 import org.geogebra.common.util.StringUtil;
+import org.geogebra.common.util.debug.GeoGebraProfiler;
 import org.geogebra.common.util.debug.Log;
 
 /**
@@ -68,6 +71,8 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 	 */
 	static final int[][] MOVE = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 },
 			{ -3, 0 }, { 3, 0 }, { 0, -3 }, { 0, 3 } };
+	/** maximal refinement depth, see setRefinementDepth */
+	public static final int MAX_REFINEMENT_DEPTH = 6;
 	/* The input expression. */
 	private FunctionNVar expression;
 	/*
@@ -105,6 +110,7 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 	private double[] eval = new double[2];
 	private boolean calcPath = true;
 	private boolean inputForm;
+	private int refinementDepth = 0;
 
 	/**
 	 * Construct an empty Implicit Curve Object
@@ -283,7 +289,7 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 			}
 		}
 
-		euclidianViewUpdate();
+		curveChanged();
 	}
 
 	/*
@@ -621,6 +627,15 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 	 * Updates the path of the curve.
 	 */
 	public void updatePath() {
+		quadTree.invalidateSamples();
+		updatePathForView();
+	}
+
+	/**
+	 * Updates the path when only the view changed, values of the curve
+	 * computed for the previous path are reused.
+	 */
+	private void updatePathForView() {
 		if (!calcPath) {
 			return;
 		}
@@ -646,12 +661,43 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 	@Override
 	public boolean euclidianViewUpdate() {
 		if (isDefined()) {
-			updatePath();
+			updatePathForView();
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Update path after the curve was changed
+	 */
+	private void curveChanged() {
+		if (isDefined()) {
+			updatePath();
+		}
+	}
+
+	/**
+	 * Fixes the refinement depth, so that the path does not depend on the
+	 * speed of the device, e.g. for exports and tests. Takes effect with the
+	 * next update of the path.
+	 * 
+	 * @param depth
+	 *            how often cells of the coarse grid are split where the curve
+	 *            crosses them, at most MAX_REFINEMENT_DEPTH; 0 to choose
+	 *            depending on the speed of the device
+	 */
+	public void setRefinementDepth(int depth) {
+		refinementDepth = Math.max(0, Math.min(MAX_REFINEMENT_DEPTH, depth));
+	}
+
+	/**
+	 * @return fixed refinement depth, 0 if it depends on the speed of the
+	 *         device
+	 */
+	public int getRefinementDepth() {
+		return refinementDepth;
+	}
+
 	@Override
 	final public HitType getLastHitType() {
 		return HitType.ON_BOUNDARY;
@@ -846,7 +892,7 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 			factorExpression[factor].translate(v);
 		}
 		updateCoeffFromExpr();
-		euclidianViewUpdate();
+		curveChanged();
 	}
 
 	private void updateCoeffFromExpr() {
@@ -880,7 +926,7 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 			factorExpression[factor].mirror(Q);
 		}
 		updateCoeffFromExpr();
-		euclidianViewUpdate();
+		curveChanged();
 	}
 
 	@Override
@@ -890,7 +936,7 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 			factorExpression[factor].mirror((GeoLine) g);
 		}
 		updateCoeffFromExpr();
-		euclidianViewUpdate();
+		curveChanged();
 	}
 
 	@Override
@@ -900,7 +946,7 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 			factorExpression[factor].dilate(r, S);
 		}
 		updateCoeffFromExpr();
-		euclidianViewUpdate();
+		curveChanged();
 	}
 
 	@Override
@@ -910,7 +956,7 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 			factorExpression[factor].rotate(phi);
 		}
 		updateCoeffFromExpr();
-		euclidianViewUpdate();
+		curveChanged();
 	}
 
 	@Override
@@ -920,7 +966,7 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 			factorExpression[factor].rotate(phi, S.getInhomCoords());
 		}
 		updateCoeffFromExpr();
-		euclidianViewUpdate();
+		curveChanged();
 	}
 
 	/* mirror about a circle */
@@ -987,7 +1033,7 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 			setDefinition(
 					new Equation(kernel, expr, new MyDouble(kernel, 0)).wrap());
 			// for polynomials pluhIn does that
-			euclidianViewUpdate();
+			curveChanged();
 		}
 	}
 
@@ -1475,6 +1521,8 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 	private class WebExperimentalQuadTree extends QuadTree {
 		private static final int RES_COARSE = 8;
 		private static final int MAX_SPLIT = 40;
+		/** evaluate in parallel if at least this many values are missing */
+		private static final int MIN_PARALLEL_SAMPLES = 128;
 		private int plotDepth;
 		private int segmentCheckDepth;
 		private int sw;
@@ -1482,142 +1530,264 @@ public class GeoImplicitCurve extends GeoElement implements EuclidianViewCE,
 		private Rect[][] grid;
 		private Rect temp;
 		private Timer timer = Timer.newTimer();
+		private SampleGrid[] samples = new SampleGrid[0];
+		private boolean slowDevice;
+		private boolean speedKnown;
+		private int evaluations;
+		private int reused;
 
 		public WebExperimentalQuadTree() {
 			super(GeoImplicitCurve.this);
 		}
 
+		@Override
+		public void invalidateSamples() {
+			for (SampleGrid sample : samples) {
+				sample.invalidate();
+			}
+		}
+
 		@Override
 		public void updatePath() {
+			if (samples.length != factorExpression.length) {
+				samples = new SampleGrid[factorExpression.length];
+				for (int i = 0; i < samples.length; i++) {
+					samples[i] = new SampleGrid();
+				}
+			}
+			long start = System.currentTimeMillis();
+			evaluations = 0;
+			reused = 0;
 			for (int factor = 0; factor < factorExpression.length; ++factor) {
 				try {
 					evaluateImplicitCurve(0, 0, factor);
 				} catch (Throwable e) {
 					continue;
 				}
-				this.sw = Math.min(MAX_SPLIT, (int) (w * scaleX / RES_COARSE));
-				this.sh = Math.min(MAX_SPLIT, (int) (h * scaleY / RES_COARSE));
-				if (sw == 0 || sh == 0) {
-					return;
+				if (!updatePath(factor)) {
+					break;
 				}
+			}
+			GeoGebraProfiler.addImplicitCurvePlot(
+					System.currentTimeMillis() - start, plotDepth,
+					evaluations, reused);
+		}
 
-				if (grid == null || grid.length != sh || grid[0].length != sw) {
-					this.grid = new Rect[sh][sw];
-					for (int i = 0; i < sh; i++) {
-						for (int j = 0; j < sw; j++) {
-							this.grid[i][j] = new Rect();
-						}
-					}
-				}
-
-				if (temp == null) {
-					temp = new Rect();
-				}
-
-				double frx = w / sw;
-				double fry = h / sh;
-
-				double[] vertices = new double[sw + 1];
-				double[] xcoords = new double[sw + 1];
-				double[] ycoords = new double[sh + 1];
-				double cur, prev;
-
-				for (int i = 0; i <= sw; i++) {
-					xcoords[i] = x + i * frx;
-				}
+		/**
+		 * @return false if there is no time left for other factors
+		 */
+		private boolean updatePath(int factor) {
+			this.sw = Math.min(MAX_SPLIT, (int) (w * scaleX / RES_COARSE));
+			this.sh = Math.min(MAX_SPLIT, (int) (h * scaleY / RES_COARSE));
+			if (sw == 0 || sh == 0) {
+				return false;
+			}
 
-				for (int i = 0; i <= sh; i++) {
-					ycoords[i] = y + i * fry;
+			timer.reset();
+			SampleGrid sample = samples[factor];
+			int kept = sample.moveTo(x, y, w / sw, h / sh, sw, sh);
+			// one more cell per row and column, see SampleGrid
+			sw++;
+			sh++;
+			reused += kept;
+			int computed = computeSamples(sample, factor);
+			evaluations += computed;
+
+			if (grid == null || grid.length != sh || grid[0].length != sw) {
+				this.grid = new Rect[sh][sw];
+				for (int i = 0; i < sh; i++) {
+					for (int j = 0; j < sw; j++) {
+						this.grid[i][j] = new Rect();
+					}
 				}
+			}
 
-				for (int i = 0; i <= sw; i++) {
-					vertices[i] = evaluateImplicitCurve(xcoords[i], ycoords[0],
-							factor);
-				}
+			if (temp == null) {
+				temp = new Rect();
+			}
 
-				// initialize grid configuration at the search depth
-				int i, j;
-				double dx, dy, fx, fy;
-				// debug = true;
-				timer.reset();
-				for (i = 1; i <= sh; i++) {
-					prev = evaluateImplicitCurve(xcoords[0], ycoords[i],
-							factor);
-					fy = ycoords[i] - 0.5 * fry;
-					for (j = 1; j <= sw; j++) {
-						cur = evaluateImplicitCurve(xcoords[j], ycoords[i],
-								factor);
-						Rect rect = this.grid[i - 1][j - 1];
-						rect.set(j - 1, i - 1, frx, fry, false);
-						rect.coords.val[0] = xcoords[j - 1];
-						rect.coords.val[1] = ycoords[i - 1];
-						rect.evals[0] = vertices[j - 1];
-						rect.evals[1] = vertices[j];
-						rect.evals[2] = cur;
-						rect.evals[3] = prev;
-						rect.status = edgeConfig(rect);
-						rect.shares = 0xff;
-						fx = xcoords[j] - 0.5 * frx;
+			double frx = sample.getCellWidth();
+			double fry = sample.getCellHeight();
+			double[] vals = sample.values;
+			int cols = sample.cols;
+
+			// initialize grid configuration at the search depth
+			int i, j;
+			double dx, dy, fx, fy;
+			for (i = 1; i <= sh; i++) {
+				fy = sample.y(i) - 0.5 * fry;
+				for (j = 1; j <= sw; j++) {
+					Rect rect = this.grid[i - 1][j - 1];
+					rect.set(j - 1, i - 1, frx, fry, false);
+					rect.coords.val[0] = sample.x(j - 1);
+					rect.coords.val[1] = sample.y(i - 1);
+					rect.evals[0] = vals[(i - 1) * cols + j - 1];
+					rect.evals[1] = vals[(i - 1) * cols + j];
+					rect.evals[2] = vals[i * cols + j];
+					rect.evals[3] = vals[i * cols + j - 1];
+					rect.status = edgeConfig(rect);
+					rect.shares = 0xff;
+					int cell = (i - 1) * sw + j - 1;
+					if (sample.cellMissing[cell]) {
+						fx = sample.x(j) - 0.5 * frx;
 						dx = derivativeX(fx, fy);
 						dy = derivativeY(fx, fy);
 						dx = Math.abs(dx) + Math.abs(dy);
-						if (Kernel.isZero(dx, 0.001)) {
-							rect.singular = true;
-						}
-						this.grid[i - 1][j - 1] = rect;
-						vertices[j - 1] = prev;
-						prev = cur;
+						sample.singular[cell] = Kernel.isZero(dx, 0.001);
+						sample.cellMissing[cell] = false;
 					}
-					vertices[sw] = prev;
+					rect.singular = sample.singular[cell];
 				}
+			}
 
-				timer.record();
+			timer.record();
 
-				if (timer.elapse <= 10) {
-					// Fast device optimize for UX
-					plotDepth = 3;
-					segmentCheckDepth = 2;
-					LIST_THRESHOLD = 48;
-				} else {
-					// Slow device detected reduce parameters
-					plotDepth = 2;
-					segmentCheckDepth = 1;
-					LIST_THRESHOLD = 24;
+			// values taken from the previous view say nothing about the
+			// speed of the device
+			if (!speedKnown || computed > kept) {
+				slowDevice = timer.elapse > 10;
+				speedKnown = true;
+			}
+			if (refinementDepth > 0) {
+				plotDepth = refinementDepth;
+				segmentCheckDepth = refinementDepth - 1;
+				LIST_THRESHOLD = 48;
+			} else if (!slowDevice) {
+				// Fast device optimize for UX
+				plotDepth = 3;
+				segmentCheckDepth = 2;
+				LIST_THRESHOLD = 48;
+			} else {
+				// Slow device detected reduce parameters
+				plotDepth = 2;
+				segmentCheckDepth = 1;
+				LIST_THRESHOLD = 24;
+			}
+
+			for (i = 0; i < sh; i++) {
+				for (j = 0; j < sw; j++) {
+					if (!grid[i][j].singular && grid[i][j].status != EMPTY) {
+						temp.set(grid[i][j]);
+						plot(temp, 0, factor);
+						grid[i][j].status = FINISHED;
+					}
 				}
+			}
+
+			timer.record();
+
+			if (timer.elapse >= 500) {
+				// I can't do anything more. I've been working for 500 ms
+				// Therefore I am tired
+				return false;
+			} else if (timer.elapse >= 300 && refinementDepth == 0) {
+				// I am exhausted, reducing load!
+				plotDepth -= 1;
+				segmentCheckDepth -= 1;
+			}
 
+			for (int k = 0; k < 4; k++) {
 				for (i = 0; i < sh; i++) {
 					for (j = 0; j < sw; j++) {
-						if (!grid[i][j].singular
-								&& grid[i][j].status != EMPTY) {
+						if (grid[i][j].singular
+								&& grid[i][j].status != FINISHED) {
 							temp.set(grid[i][j]);
 							plot(temp, 0, factor);
 							grid[i][j].status = FINISHED;
 						}
 					}
 				}
+			}
+			return true;
+		}
 
-				timer.record();
-
-				if (timer.elapse >= 500) {
-					// I can't do anything more. I've been working for 500 ms
-					// Therefore I am tired
-					return;
-				} else if (timer.elapse >= 300) {
-					// I am exhausted, reducing load!
-					plotDepth -= 1;
-					segmentCheckDepth -= 1;
+		/**
+		 * Evaluates the factor at all vertices of the grid that have no value
+		 * yet, in parallel if the factor can be evaluated from several threads
+		 *
+		 * @return number of evaluations
+		 */
+		private int computeSamples(SampleGrid sample, int factor) {
+			int count = 0;
+			for (boolean m : sample.missing) {
+				if (m) {
+					count++;
 				}
+			}
+			ParallelExecutor executor = ParallelExecutor.prototype;
+			if (!executor.isParallel() || count < MIN_PARALLEL_SAMPLES) {
+				new SampleTask(sample, 0, sample.rows, factor, null, null)
+						.run();
+				return count;
+			}
+			double[][] polyCoeff = coeffSquarefree == null ? null
+					: coeffSquarefree[factor];
+			EvaluationContext context = polyCoeff == null
+					? factorExpression[factor].createEvaluationContext() : null;
+			if (context != null && !context.isIndependent()) {
+				new SampleTask(sample, 0, sample.rows, factor, null, null)
+						.run();
+				return count;
+			}
+			int tasks = Math.min(2 * executor.getParallelism(), sample.rows);
+			ArrayList<SampleTask> list = new ArrayList<SampleTask>(tasks);
+			for (int t = 0; t < tasks; t++) {
+				list.add(new SampleTask(sample, t * sample.rows / tasks,
+						(t + 1) * sample.rows / tasks, factor, polyCoeff,
+						t == 0 || context == null ? context
+								: factorExpression[factor]
+										.createEvaluationContext()));
+			}
+			executor.invokeAll(list);
+			return count;
+		}
 
-				for (int k = 0; k < 4; k++) {
-					for (i = 0; i < sh; i++) {
-						for (j = 0; j < sw; j++) {
-							if (grid[i][j].singular
-									&& grid[i][j].status != FINISHED) {
-								temp.set(grid[i][j]);
-								plot(temp, 0, factor);
-								grid[i][j].status = FINISHED;
-							}
+		/**
+		 * Computes missing values of some rows of a sample grid
+		 */
+		private final class SampleTask implements Runnable {
+			private final SampleGrid sample;
+			private final int fromRow;
+			private final int toRow;
+			private final int factor;
+			private final double[][] polyCoeff;
+			private final EvaluationContext context;
+
+			/**
+			 * If both polyCoeff and context are null, the curve is evaluated
+			 * directly, which is only allowed in the calling thread.
+			 */
+			SampleTask(SampleGrid sample, int fromRow, int toRow, int factor,
+					double[][] polyCoeff, EvaluationContext context) {
+				this.sample = sample;
+				this.fromRow = fromRow;
+				this.toRow = toRow;
+				this.factor = factor;
+				this.polyCoeff = polyCoeff;
+				this.context = context;
+			}
+
+			public void run() {
+				double[] args = new double[2];
+				int cols = sample.cols;
+				for (int i = fromRow; i < toRow; i++) {
+					args[1] = sample.y(i);
+					for (int j = 0; j < cols; j++) {
+						int k = i * cols + j;
+						if (!sample.missing[k]) {
+							continue;
+						}
+						args[0] = sample.x(j);
+						if (polyCoeff != null) {
+							sample.values[k] = evalPolyCoeffAt(args[0],
+									args[1], polyCoeff);
+						} else if (context != null) {
+							sample.values[k] = context.evaluate(args);
+						} else {
+							sample.values[k] = evaluateImplicitCurve(args[0],
+									args[1], factor);
 						}
+						sample.missing[k] = false;
 					}
 				}
 			}
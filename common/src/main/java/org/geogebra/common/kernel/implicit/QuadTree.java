@@ -275,6 +275,14 @@ abstract class QuadTree {
 		this.abortList();
 	}
 
+	/**
+	 * Forget values of the curve computed for previous paths, needed when the
+	 * curve changes
+	 */
+	public void invalidateSamples() {
+		// no samples kept by default
+	}
+
 	public void polishPointOnPath(GeoPointND pt) {
 		// pt.setUndefined();
 	}
@@ -0,0 +1,157 @@
+package org.geogebra.common.kernel.implicit;
+
+import org.geogebra.common.kernel.Kernel;
+
+/**
+ * Values of one factor of an implicit curve at the vertices of a grid whose
+ * lines are at multiples of the cell size. When the view is moved without
+ * zooming, the cell size stays the same and the values of vertices in both
+ * the old and the new view are kept.
+ */
+class SampleGrid {
+	/** larger grid indices are not aligned, to avoid overflow */
+	private static final double MAX_INDEX = 1E8;
+
+	/** values at vertices, row by row */
+	double[] values = new double[0];
+	/** whether value of a vertex needs to be computed */
+	boolean[] missing = new boolean[0];
+	/** whether derivative vanishes in the middle of a cell, row by row */
+	boolean[] singular = new boolean[0];
+	/** whether singular needs to be computed for a cell */
+	boolean[] cellMissing = new boolean[0];
+	/** number of vertices per row */
+	int cols;
+	/** number of vertex rows */
+	int rows;
+	private double cellW;
+	private double cellH;
+	private double col0;
+	private double row0;
+	private double offsetX;
+	private double offsetY;
+	private boolean valid;
+
+	/**
+	 * Moves the grid so that it covers the rectangle starting at (x, y) with
+	 * the given number of cells.
+	 *
+	 * @param x
+	 *            minimal x
+	 * @param y
+	 *            minimal y
+	 * @param width
+	 *            cell width
+	 * @param height
+	 *            cell height
+	 * @param cellsX
+	 *            number of cells per row, grid gets one more to stay aligned
+	 * @param cellsY
+	 *            number of cell rows, grid gets one more to stay aligned
+	 * @return number of values kept from the previous position
+	 */
+	int moveTo(double x, double y, double width, double height, int cellsX,
+			int cellsY) {
+		boolean keep = valid && Kernel.isEqual(width, cellW, width * 1E-8)
+				&& Kernel.isEqual(height, cellH, height * 1E-8);
+		if (keep) {
+			// exactly the same vertices as before
+			width = cellW;
+			height = cellH;
+		}
+		double newCol0 = Math.floor(x / width);
+		double newRow0 = Math.floor(y / height);
+		boolean aligned = Math.abs(newCol0) < MAX_INDEX
+				&& Math.abs(newRow0) < MAX_INDEX;
+		if (!aligned) {
+			keep = false;
+			newCol0 = 0;
+			newRow0 = 0;
+		}
+		int newCols = cellsX + 2;
+		int newRows = cellsY + 2;
+		double[] newValues = new double[newCols * newRows];
+		boolean[] newMissing = new boolean[newCols * newRows];
+		boolean[] newSingular = new boolean[(newCols - 1) * (newRows - 1)];
+		boolean[] newCellMissing = new boolean[(newCols - 1) * (newRows - 1)];
+		int dc = (int) (newCol0 - col0);
+		int dr = (int) (newRow0 - row0);
+		int kept = 0;
+		for (int i = 0; i < newRows; i++) {
+			for (int j = 0; j < newCols; j++) {
+				int oi = i + dr;
+				int oj = j + dc;
+				boolean old = keep && oi >= 0 && oi < rows && oj >= 0
+						&& oj < cols;
+				int k = i * newCols + j;
+				if (old) {
+					newValues[k] = values[oi * cols + oj];
+					kept++;
+				} else {
+					newMissing[k] = true;
+				}
+				if (i < newRows - 1 && j < newCols - 1) {
+					int c = i * (newCols - 1) + j;
+					if (old && oi < rows - 1 && oj < cols - 1) {
+						newSingular[c] = singular[oi * (cols - 1) + oj];
+					} else {
+						newCellMissing[c] = true;
+					}
+				}
+			}
+		}
+		values = newValues;
+		missing = newMissing;
+		singular = newSingular;
+		cellMissing = newCellMissing;
+		cols = newCols;
+		rows = newRows;
+		cellW = width;
+		cellH = height;
+		col0 = newCol0;
+		row0 = newRow0;
+		offsetX = aligned ? 0 : x;
+		offsetY = aligned ? 0 : y;
+		valid = aligned;
+		return kept;
+	}
+
+	/**
+	 * @param j
+	 *            column of vertex
+	 * @return x-coordinate of vertex
+	 */
+	double x(int j) {
+		return (col0 + j) * cellW + offsetX;
+	}
+
+	/**
+	 * @param i
+	 *            row of vertex
+	 * @return y-coordinate of vertex
+	 */
+	double y(int i) {
+		return (row0 + i) * cellH + offsetY;
+	}
+
+	/**
+	 * @return cell width
+	 */
+	double getCellWidth() {
+		return cellW;
+	}
+
+	/**
+	 * @return cell height
+	 */
+	double getCellHeight() {
+		return cellH;
+	}
+
+	/**
+	 * Forget all values, e.g. because the curve changed
+	 */
+	void invalidate() {
+		valid = false;
+	}
+}
@@ -138,6 +138,18 @@ public abstract class GeoSurfaceCartesianND extends GeoElement implements
 		fun1 = null;
 		fun2 = null;
 	}
+
+	/**
+	 * @param param
+	 *            index of parameter
+	 * @param coord
+	 *            index of coordinate
+	 * @return derivative of the coordinate function for the parameter, null
+	 *         if derivatives are not set
+	 */
+	public FunctionNVar getDerivative(int param, int coord) {
+		return fun1 == null ? null : fun1[param][coord];
+	}
 	
 	private static FunctionExpander functionExpander;
 
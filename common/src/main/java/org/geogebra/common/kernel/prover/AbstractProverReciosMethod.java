@@ -1,6 +1,7 @@
 package org.geogebra.common.kernel.prover;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -10,6 +11,7 @@ import java.util.TreeSet;
 
 import org.geogebra.common.factories.UtilFactory;
 import org.geogebra.common.kernel.StringTemplate;
+import org.geogebra.common.kernel.algos.AlgoDependentBoolean;
 import org.geogebra.common.kernel.algos.SymbolicParameters;
 import org.geogebra.common.kernel.algos.SymbolicParametersAlgo;
 import org.geogebra.common.kernel.algos.SymbolicParametersBotanaAlgo;
@@ -18,6 +20,7 @@ import org.geogebra.common.kernel.prover.ProverBotanasMethod.AlgebraicStatement;
 import org.geogebra.common.kernel.prover.polynomial.Polynomial;
 import org.geogebra.common.kernel.prover.polynomial.Variable;
 import org.geogebra.common.main.ProverSettings;
+import org.geogebra.common.util.ParallelExecutor;
 import org.geogebra.common.util.Prover;
 import org.geogebra.common.util.Prover.ProofResult;
 import org.geogebra.common.util.Prover.ProverEngine;
@@ -26,6 +29,10 @@ import org.geogebra.common.util.debug.Log;
 /**
  * A prover which uses Tomas Recios method to prove geometric theorems.
  * 
+ * The statement is checked in a number of test points depending on its
+ * degree; the checks of the native computations run in parallel on platforms
+ * with threads, see ParallelExecutor.
+ * 
  * @author Simon Weitzhofer
  *
  */
@@ -200,58 +207,148 @@ public abstract class AbstractProverReciosMethod {
 			deg = Math.max(deg, i);
 		}
 
+		Variable[] freeVars = freeVariables
+				.toArray(new Variable[nrFreeVariables]);
+		List<BigInteger[]> testPoints;
 		switch (nrFreeVariables) {
 		case 0:
-			return compute0d(values, s, as);
+			testPoints = new ArrayList<BigInteger[]>();
+			testPoints.add(new BigInteger[0]);
+			break;
 		case 1:
-			return compute1d(freeVariables, values, deg, s, as);
+			testPoints = testPoints1d(deg);
+			break;
 		case 2:
-			return compute2d(freeVariables, values, deg, s, as);
+			testPoints = testPoints2d(deg);
+			break;
 		default:
-			return computeNd(freeVariables, values, deg, s, as);
+			testPoints = testPointsNd(nrFreeVariables, deg);
 		}
+		// boolean expressions create and remove helper algos in the
+		// construction for each test point, so they are checked one by one
+		boolean parallel = !(statement
+				.getParentAlgorithm() instanceof AlgoDependentBoolean);
+		return testPoints(freeVars, testPoints, values, s, as, parallel);
 
 	}
 
-	private static ProofResult compute0d(HashMap<Variable, BigInteger> values,
-			SymbolicParameters s, AlgebraicStatement as) {
-		if (as != null) {
-			// use Botana's method
-			HashMap<Variable, Long> substitutions = new HashMap<Variable, Long>();
-			for (Variable v : values.keySet()) {
-				// FIXME: Change Long in Variable to BigInteger
-				substitutions.put(v, values.get(v).longValue());
+	private static List<BigInteger[]> testPoints1d(int deg) {
+		List<BigInteger[]> testPoints = new ArrayList<BigInteger[]>();
+		for (int i = 1; i <= deg + 2; i++) {
+			testPoints.add(new BigInteger[] { BigInteger.valueOf(i) });
+		}
+		return testPoints;
+	}
+
+	private static List<BigInteger[]> testPoints2d(int deg) {
+		List<BigInteger[]> testPoints = new ArrayList<BigInteger[]>();
+		for (int i = 1; i < /* = */deg + 2; i++) {
+			for (int j = 1; j <= i; j++) {
+				testPoints.add(new BigInteger[] {
+						BigInteger.valueOf((deg + 2 - i) * (deg + 2 - j)),
+						BigInteger.valueOf(i * j) });
 			}
-			Boolean solvable = Polynomial.solvable(as.polynomials
-					.toArray(new Polynomial[as.polynomials.size()]),
-					substitutions, as.geoStatement.getKernel(),
-					ProverSettings.transcext);
-			Log.debug("Recio meets Botana:" + substitutions);
-			if (solvable) {
-				return ProofResult.FALSE;
+		}
+		return testPoints;
+	}
+
+	private static List<BigInteger[]> testPointsNd(int n, int deg) {
+		List<BigInteger[]> testPoints = new ArrayList<BigInteger[]>();
+		int[] indices = new int[n];
+		for (int i = 0; i < n; i++) {
+			indices[i] = n - i;
+		}
+
+		boolean indicesChanged;
+		int changedIndex = n - 1;
+		BigInteger[][] cache = new BigInteger[n][n];
+
+		do {
+			BigInteger[] coordinates = new BigInteger[n];
+			for (int i = 0; i < n; i++) {
+				BigInteger result;
+
+				if (changedIndex == n - 1) {
+					result = BigInteger.ONE;
+				} else {
+					result = cache[i][changedIndex + 1];
+				}
+
+				for (int j = changedIndex; j >= 0; j--) {
+					result = result.multiply((BigInteger.valueOf(n)
+							.multiply(BigInteger.valueOf(indices[j])))
+							.subtract(BigInteger.valueOf(i)));
+					cache[i][j] = result;
+				}
+				coordinates[i] = result;
 			}
-		} else
-		try {
-			BigInteger[] exactCoordinates = s.getExactCoordinates(values);
-			for (BigInteger result : exactCoordinates) {
-				if (!result.equals(BigInteger.ZERO)) {
-					return ProofResult.FALSE;
+			testPoints.add(coordinates);
+
+			// the following is the loop header
+			// the created indices sequence is:
+			// [n n-1 n-2 ... 1]
+			// [n+1 n-1 n-2 ... 1]
+			// ...
+			// [n+d n-1 n-2 ... 1]
+			// [n+1 n n-2 ... 1]
+			// [n+2 n n-2 ... 1]
+			// ...
+			// [n+d n+d-1 ... d]
+
+			indicesChanged = false;
+
+			for (int i = 0; i < n; i++) {
+				if (indices[i] < (deg - i + n)) {
+					indices[i]++;
+					for (int j = 0; j < i; j++) {
+						indices[j] = indices[i] + i - j;
+					}
+					changedIndex = i;
+					indicesChanged = true;
+					break;
 				}
 			}
-		} catch (NoSymbolicParametersException e) {
-			return ProofResult.UNKNOWN;
-		}
-		return ProofResult.TRUE;
+
+		} while (indicesChanged);
+		return testPoints;
 	}
 
-	private static ProofResult compute1d(final HashSet<Variable> freeVariables,
-			final HashMap<Variable, BigInteger> values, final int deg,
-			final SymbolicParameters s, AlgebraicStatement as) {
-		Variable variable = freeVariables.iterator().next();
-		for (int i = 1; i <= deg + 2; i++) {
-			values.put(variable, BigInteger.valueOf(i));
-			if (as != null) {
-				// use Botana's method
+	/**
+	 * Checks the statement in the test points. The checks of the native
+	 * computations are independent of each other and run in parallel when
+	 * the platform supports it; Botana's equations are checked one by one
+	 * since they need the CAS.
+	 * 
+	 * @param variables
+	 *            The free variables ruling the construction
+	 * @param testPoints
+	 *            values of the free variables for each test point
+	 * @param values
+	 *            The values for the fixed variables (If e.g. one point gets
+	 *            fixed coordinates (0,0) and another (0,1)
+	 * @param s
+	 *            The Symbolic parameters class that is used to test the
+	 *            statement for a fixed point
+	 * @param as
+	 *            The algebraic translation of the statement, if null, use
+	 *            native computations (by Weitzhofer), otherwise use the Botana
+	 *            equations (by Kovacs/Solyom-Gecse)
+	 * @param parallel
+	 *            whether the native computations may run in parallel
+	 * @return the result of the proof
+	 */
+	private static ProofResult testPoints(Variable[] variables,
+			List<BigInteger[]> testPoints, HashMap<Variable, BigInteger> values,
+			SymbolicParameters s, AlgebraicStatement as, boolean parallel) {
+		long time = System.currentTimeMillis();
+		if (as != null) {
+			// use Botana's method
+			int caseno = 0;
+			for (BigInteger[] coordinates : testPoints) {
+				caseno++;
+				for (int i = 0; i < variables.length; i++) {
+					values.put(variables[i], coordinates[i]);
+				}
 				HashMap<Variable, Long> substitutions = new HashMap<Variable, Long>();
 				for (Variable v : values.keySet()) {
 					// FIXME: Change Long in Variable to BigInteger
@@ -261,102 +358,132 @@ public abstract class AbstractProverReciosMethod {
 						.toArray(new Polynomial[as.polynomials.size()]),
 						substitutions, as.geoStatement.getKernel(),
 						ProverSettings.transcext);
-				Log.debug("Recio meets Botana: #" + i + " " + substitutions);
+				Log.debug("Recio meets Botana: #" + caseno + " "
+						+ substitutions);
 				if (solvable) {
+					logReport(caseno, testPoints.size(), 1, time);
 					return ProofResult.FALSE;
 				}
-			} else
-				try {
-				BigInteger[] exactCoordinates = s.getExactCoordinates(values);
-				for (BigInteger result : exactCoordinates) {
-					if (!result.equals(BigInteger.ZERO)) {
-						return ProofResult.FALSE;
-					}
-				}
-			} catch (NoSymbolicParametersException e) {
-				return ProofResult.UNKNOWN;
 			}
+			logReport(caseno, testPoints.size(), 1, time);
+			return ProofResult.TRUE;
 		}
-		return ProofResult.TRUE;
+
+		ParallelExecutor executor = ParallelExecutor.prototype;
+		int nrOfTasks = parallel ? Math.max(1,
+				Math.min(executor.getParallelism(), testPoints.size())) : 1;
+		PointTesters testers = new PointTesters();
+		ArrayList<PointTester> tasks = new ArrayList<PointTester>(nrOfTasks);
+		for (int i = 0; i < nrOfTasks; i++) {
+			tasks.add(new PointTester(testers, variables, testPoints, i,
+					nrOfTasks, values, s));
+		}
+		executor.invokeAll(tasks);
+
+		int nrOfTests = 0;
+		for (PointTester task : tasks) {
+			nrOfTests += task.nrOfTests;
+		}
+		logReport(nrOfTests, testPoints.size(), nrOfTasks, time);
+		return testers.getResult();
+	}
+
+	private static void logReport(int nrOfTests, int nrOfPoints,
+			int nrOfTasks, long startTime) {
+		Log.debug("Recio's method: " + nrOfTests + " of " + nrOfPoints
+				+ " test points checked in "
+				+ (System.currentTimeMillis() - startTime) + " ms by "
+				+ nrOfTasks + " task(s)");
 	}
 
-	private static ProofResult compute2d(final HashSet<Variable> freeVariables,
-			final HashMap<Variable, BigInteger> values, final int deg,
-			final SymbolicParameters s, AlgebraicStatement as) {
-		Variable[] variables = new Variable[freeVariables.size()];
-		Iterator<Variable> it = freeVariables.iterator();
-		for (int i = 0; i < variables.length; i++) {
-			variables[i] = it.next();
+	/**
+	 * State shared by the testers of one proof. Like a sequential check, the
+	 * result is decided by the first test point (in the order of the list)
+	 * where the statement is false or cannot be checked, no matter which
+	 * tester finds it first.
+	 */
+	private static final class PointTesters {
+		/** index of the first failed test point found so far */
+		private volatile int failed = Integer.MAX_VALUE;
+		/** the statement could not be checked in the failed test point */
+		private boolean error;
+
+		synchronized void fail(int k, boolean isError) {
+			if (k < failed) {
+				failed = k;
+				error = isError;
+			}
 		}
 
-		int nrOfTests = ((deg + 2) * (deg + 1)) / 2;
-		Log.debug("nr of tests: " + nrOfTests);
-		int caseno = 0;
-		for (int i = 1; i < /* = */deg + 2; i++) {
-			for (int j = 1; j <= i; j++) {
-				caseno++;
-				values.put(variables[0],
-						BigInteger.valueOf((deg + 2 - i) * (deg + 2 - j)));
-				values.put(variables[1], BigInteger.valueOf(i * j));
-
-				if (as != null) {
-					// use Botana's method
-					HashMap<Variable, Long> substitutions = new HashMap<Variable, Long>();
-					for (Variable v : values.keySet()) {
-						// FIXME: Change Long in Variable to BigInteger
-						substitutions.put(v, values.get(v).longValue());
-					}
-					Boolean solvable = Polynomial.solvable(as.polynomials
-							.toArray(new Polynomial[as.polynomials.size()]),
-							substitutions, as.geoStatement.getKernel(),
-							ProverSettings.transcext);
-					Log.debug("Recio meets Botana: #" + caseno + " "
-							+ substitutions);
-					if (solvable) {
-						return ProofResult.FALSE;
-					}
-				} else
-					try {
+		/**
+		 * @param k
+		 *            index of test point
+		 * @return whether the test point may still decide the result
+		 */
+		boolean isNeeded(int k) {
+			return k < failed;
+		}
+
+		synchronized ProofResult getResult() {
+			if (failed == Integer.MAX_VALUE) {
+				return ProofResult.TRUE;
+			}
+			return error ? ProofResult.UNKNOWN : ProofResult.FALSE;
+		}
+	}
+
+	/**
+	 * Checks every step-th test point from first on, until all are checked
+	 * or any tester of the same proof failed in an earlier point. Only reads
+	 * the construction; the values are a private copy.
+	 */
+	private static final class PointTester implements Runnable {
+		private final PointTesters testers;
+		private final Variable[] variables;
+		private final List<BigInteger[]> testPoints;
+		private final int first, step;
+		private final HashMap<Variable, BigInteger> values;
+		private final SymbolicParameters s;
+		/** number of points checked by this tester */
+		int nrOfTests;
+
+		PointTester(PointTesters testers, Variable[] variables,
+				List<BigInteger[]> testPoints, int first, int step,
+				HashMap<Variable, BigInteger> values, SymbolicParameters s) {
+			this.testers = testers;
+			this.variables = variables;
+			this.testPoints = testPoints;
+			this.first = first;
+			this.step = step;
+			this.values = new HashMap<Variable, BigInteger>(values);
+			this.s = s;
+		}
+
+		public void run() {
+			for (int k = first; k < testPoints.size()
+					&& testers.isNeeded(k); k += step) {
+				BigInteger[] coordinates = testPoints.get(k);
+				for (int i = 0; i < variables.length; i++) {
+					values.put(variables[i], coordinates[i]);
+				}
+				nrOfTests++;
+				try {
 					BigInteger[] exactCoordinates = s
 							.getExactCoordinates(values);
 					for (BigInteger result : exactCoordinates) {
 						if (!result.equals(BigInteger.ZERO)) {
-							return ProofResult.FALSE;
+							testers.fail(k, false);
+							return;
 						}
 					}
 				} catch (NoSymbolicParametersException e) {
-					return ProofResult.UNKNOWN;
+					testers.fail(k, true);
+					return;
 				}
 			}
 		}
-		return ProofResult.TRUE;
 	}
 
-	/**
-	 * More complicated calculations are done by multiple threads in desktop
-	 * 
-	 * @param freeVariables
-	 *            The free variables ruling the construction
-	 * @param values
-	 *            The values for the fixed variables (If e.g. one point gets
-	 *            fixed coordinates (0,0) and another (0,1)
-	 * @param deg
-	 *            The bound for the degree of the statement
-	 * @param s
-	 *            The Symbolic parameters class that is used to test the
-	 *            statement for a fixed point
-	 * @param as
-	 *            The algebraic translation of the statement, if null, use
-	 *            native computations (by Weitzhofer), otherwise use the Botana
-	 *            equations (by Kovacs/Solyom-Gecse)
-	 * @return the result of the proof
-	 */
-
-	protected abstract ProofResult computeNd(
-			final HashSet<Variable> freeVariables,
-			final HashMap<Variable, BigInteger> values, final int deg,
-			final SymbolicParameters s, AlgebraicStatement as);
-
 	/**
 	 * Returns the elements which are fixed by Recio's method prover
 	 * 
@@ -1,5 +1,6 @@
 package org.geogebra.common.kernel.prover;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -7,7 +8,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
-import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.geogebra.common.kernel.Kernel;
@@ -108,33 +108,33 @@ public class NDGDetector {
 				boolean qFormula = true;
 				Kernel kernel = statement.getKernel();
 
-				TreeMap<Term, Long> tm1 = p.getTerms();
 				ExpressionNode lhs = new ExpressionNode(kernel, 0);
 				ExpressionNode rhs = new ExpressionNode(kernel, 0);
 				/* are there any expressions on boths sides? */
 				boolean lt = false;
 				boolean rt = false;
 
-				outerloop: for (Term t1 : tm1.keySet()) { // e.g. 5*v1^3*v2
-					Long coeff = tm1.get(t1); // e.g. 5
+				outerloop: for (int i = 0; i < p.size(); i++) {
+					Term t1 = p.getTerm(i); // e.g. 5*v1^3*v2
+					BigInteger coeff = p.getCoefficient(i); // e.g. 5
 					/* always use the absolute value */
 					ExpressionNode c = new ExpressionNode(kernel,
-							coeff > 0 ? coeff : -coeff);
+							coeff.abs().doubleValue());
 
-					TreeMap<Variable, Integer> tm2 = t1.getTerm();
 					ExpressionNode en = new ExpressionNode(kernel, 1);
 					/* e.g. v1->3, v2->1 */
 
 					TreeSet<GeoElement> geoSet = new TreeSet<GeoElement>();
 					HashMap<GeoElement, ExpressionNode> bases = new HashMap<GeoElement, ExpressionNode>();
-					for (Variable t2 : tm2.keySet()) { // e.g. v1
+					for (int j = 0; j < t1.size(); j++) {
+						Variable t2 = t1.getVariable(j); // e.g. v1
 						if (!geos.containsKey(t2)) {
 							qFormula = false;
 							break outerloop;
 						}
 						GeoElement g = geos.get(t2);
 						ExpressionValue t = g.toValidExpression();
-						int exponent = tm2.get(t2);
+						int exponent = t1.getExponent(j);
 						ExpressionNode base = new ExpressionNode(kernel, t);
 						if (exponent > 1) {
 							base = base.power(exponent);
@@ -154,7 +154,7 @@ public class NDGDetector {
 						en = en.multiply(bases.get(g));
 					}
 
-					if (coeff > 0) {
+					if (coeff.signum() > 0) {
 						lhs = lhs.plus(c.multiply(en));
 						lt = true;
 					} else {
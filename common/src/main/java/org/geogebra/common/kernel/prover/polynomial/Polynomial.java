@@ -1,13 +1,13 @@
 package org.geogebra.common.kernel.prover.polynomial;
 
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.geogebra.common.cas.GeoGebraCAS;
@@ -24,13 +24,19 @@ import org.geogebra.common.util.debug.Log;
  * 
  */
 public class Polynomial implements Comparable<Polynomial> {
-	private TreeMap<Term, Long> terms;
+	private static final Term[] NO_TERMS = new Term[0];
+	private static final BigInteger[] NO_COEFFS = new BigInteger[0];
+
+	/** terms in ascending order */
+	private final Term[] terms;
+	/** non-zero coefficients of the terms */
+	private final BigInteger[] coeffs;
 
 	/**
 	 * Creates the 0 polynomial
 	 */
 	public Polynomial() {
-		terms = new TreeMap<Term, Long>();
+		this(NO_TERMS, NO_COEFFS);
 	}
 
 	/**
@@ -40,21 +46,18 @@ public class Polynomial implements Comparable<Polynomial> {
 	 *            the polynomial to copy
 	 */
 	public Polynomial(final Polynomial poly) {
-		terms = new TreeMap<Term, Long>(poly.getTerms());
-	}
-
-	private Polynomial(final TreeMap<Term, Long> terms) {
-		this.terms = terms;
+		this(poly.terms, poly.coeffs);
 	}
 
 	/**
-	 * Getter for the map which contains the terms and the according
-	 * coefficients.
-	 * 
-	 * @return the map
+	 * @param terms
+	 *            terms in ascending order, not changed later
+	 * @param coeffs
+	 *            non-zero coefficients, not changed later
 	 */
-	public TreeMap<Term, Long> getTerms() {
-		return terms;
+	private Polynomial(final Term[] terms, final BigInteger[] coeffs) {
+		this.terms = terms;
+		this.coeffs = coeffs;
 	}
 
 	/**
@@ -74,8 +77,7 @@ public class Polynomial implements Comparable<Polynomial> {
 	 *            the variable
 	 */
 	public Polynomial(final Variable fv) {
-		this();
-		terms.put(new Term(fv), 1L);
+		this(1, new Term(fv));
 	}
 
 	/**
@@ -87,9 +89,7 @@ public class Polynomial implements Comparable<Polynomial> {
 	 *            the variable
 	 */
 	public Polynomial(final long coeff, final Variable variable) {
-		this();
-		if (coeff != 0)
-			terms.put(new Term(variable), coeff);
+		this(coeff, new Term(variable));
 	}
 
 	/**
@@ -104,9 +104,7 @@ public class Polynomial implements Comparable<Polynomial> {
 	 */
 	public Polynomial(final long coeff, final Variable variable,
 			final int power) {
-		this();
-		if (coeff != 0)
-			terms.put(new Term(variable, power), coeff);
+		this(coeff, new Term(variable, power));
 	}
 
 	/**
@@ -116,8 +114,7 @@ public class Polynomial implements Comparable<Polynomial> {
 	 *            the term
 	 */
 	public Polynomial(final Term t) {
-		this();
-		terms.put(t, 1L);
+		this(1, t);
 	}
 
 	/**
@@ -129,11 +126,36 @@ public class Polynomial implements Comparable<Polynomial> {
 	 *            the term
 	 */
 	public Polynomial(final long coeff, final Term t) {
-		this();
-		if (coeff != 0)
-			terms.put(t, coeff);
+		this(coeff == 0 ? NO_TERMS : new Term[] { t },
+				coeff == 0 ? NO_COEFFS
+						: new BigInteger[] { BigInteger.valueOf(coeff) });
 	}
-	
+
+	/**
+	 * @return number of terms
+	 */
+	public int size() {
+		return terms.length;
+	}
+
+	/**
+	 * @param i
+	 *            index
+	 * @return i-th term in ascending order
+	 */
+	public Term getTerm(int i) {
+		return terms[i];
+	}
+
+	/**
+	 * @param i
+	 *            index
+	 * @return coefficient of the i-th term, not zero
+	 */
+	public BigInteger getCoefficient(int i) {
+		return coeffs[i];
+	}
+
 	/**
 	 * Returns the sum of the polynomial plus another polynomial.
 	 * 
@@ -142,23 +164,7 @@ public class Polynomial implements Comparable<Polynomial> {
 	 * @return the sum
 	 */
 	public Polynomial add(final Polynomial poly) {
-		TreeMap<Term, Long> result = new TreeMap<Term, Long>(terms);
-		TreeMap<Term, Long> terms2 = poly.getTerms();
-		Iterator<Term> it = terms2.keySet().iterator();
-		while (it.hasNext()) {
-			Term t = it.next();
-			if (terms.containsKey(t)) {
-				long coefficient = terms.get(t) + terms2.get(t);
-				if (coefficient == 0) {
-					result.remove(t);
-				} else {
-					result.put(t, terms.get(t) + terms2.get(t));
-				}
-			} else {
-				result.put(t, terms2.get(t));
-			}
-		}
-		return new Polynomial(result);
+		return merge(this, poly, false);
 	}
 
 	/**
@@ -167,13 +173,11 @@ public class Polynomial implements Comparable<Polynomial> {
 	 * @return the negation of the polynomial
 	 */
 	public Polynomial negate() {
-		TreeMap<Term, Long> result = new TreeMap<Term, Long>();
-		Iterator<Term> it = terms.keySet().iterator();
-		while (it.hasNext()) {
-			Term t = it.next();
-			result.put(t, 0 - terms.get(t));
+		BigInteger[] result = new BigInteger[coeffs.length];
+		for (int i = 0; i < coeffs.length; i++) {
+			result[i] = coeffs[i].negate();
 		}
-		return new Polynomial(result);
+		return new Polynomial(terms, result);
 	}
 
 	/**
@@ -184,7 +188,59 @@ public class Polynomial implements Comparable<Polynomial> {
 	 * @return the difference
 	 */
 	public Polynomial subtract(final Polynomial poly) {
-		return add(poly.negate());
+		return merge(this, poly, true);
+	}
+
+	/**
+	 * @return p1 + p2 or p1 - p2, both sorted arrays are merged
+	 */
+	private static Polynomial merge(Polynomial p1, Polynomial p2,
+			boolean subtract) {
+		Term[] t1 = p1.terms, t2 = p2.terms;
+		BigInteger[] c1 = p1.coeffs, c2 = p2.coeffs;
+		if (t2.length == 0) {
+			return p1;
+		}
+		if (t1.length == 0) {
+			return subtract ? p2.negate() : p2;
+		}
+		Term[] terms = new Term[t1.length + t2.length];
+		BigInteger[] coeffs = new BigInteger[terms.length];
+		int i = 0, j = 0, k = 0;
+		while (i < t1.length || j < t2.length) {
+			int compare = i == t1.length ? 1 : (j == t2.length ? -1
+					: t1[i].compareTo(t2[j]));
+			if (compare < 0) {
+				terms[k] = t1[i];
+				coeffs[k++] = c1[i++];
+			} else if (compare > 0) {
+				terms[k] = t2[j];
+				coeffs[k++] = subtract ? c2[j].negate() : c2[j];
+				j++;
+			} else {
+				BigInteger sum = subtract ? c1[i].subtract(c2[j]) : c1[i]
+						.add(c2[j]);
+				if (sum.signum() != 0) {
+					terms[k] = t1[i];
+					coeffs[k++] = sum;
+				}
+				i++;
+				j++;
+			}
+		}
+		return trim(terms, coeffs, k);
+	}
+
+	private static Polynomial trim(Term[] terms, BigInteger[] coeffs,
+			int length) {
+		if (length == terms.length) {
+			return new Polynomial(terms, coeffs);
+		}
+		Term[] t = new Term[length];
+		BigInteger[] c = new BigInteger[length];
+		System.arraycopy(terms, 0, t, 0, length);
+		System.arraycopy(coeffs, 0, c, 0, length);
+		return new Polynomial(t, c);
 	}
 
 	/**
@@ -195,110 +251,75 @@ public class Polynomial implements Comparable<Polynomial> {
 	 * @return the product
 	 */
 	public Polynomial multiply(final Polynomial poly) {
-
-		/*
-		if (AbstractApplication.singularWS != null && AbstractApplication.singularWS.isAvailable()) {
-			if (poly.toString().length()>100 && this.toString().length()>100) {
-				String singularMultiplicationProgram = getSingularMultiplication("rr", poly, this);
-				AbstractApplication.trace(singularMultiplicationProgram.length() + " bytes -> singular");
-				String singularMultiplication = AbstractApplication.singularWS.directCommand(singularMultiplicationProgram);
-				return new Polynomial(singularMultiplication);
+		Polynomial small = this, large = poly;
+		if (small.terms.length > large.terms.length) {
+			small = poly;
+			large = this;
+		}
+		if (small.terms.length == 0) {
+			return small;
+		}
+		// the term order is a monomial order (lex), so multiplying the terms
+		// of large by one term keeps them sorted
+		Polynomial[] runs = new Polynomial[small.terms.length];
+		for (int i = 0; i < runs.length; i++) {
+			Term t = small.terms[i];
+			BigInteger c = small.coeffs[i];
+			Term[] terms = new Term[large.terms.length];
+			BigInteger[] coeffs = new BigInteger[terms.length];
+			for (int j = 0; j < terms.length; j++) {
+				terms[j] = large.terms[j].times(t);
+				coeffs[j] = large.coeffs[j].multiply(c);
 			}
+			runs[i] = new Polynomial(terms, coeffs);
 		}
-		*/
-		
-		TreeMap<Term, Long> result = new TreeMap<Term, Long>();
-		TreeMap<Term, Long> terms2 = poly.getTerms();
-		Iterator<Term> it1 = terms.keySet().iterator();
-		while (it1.hasNext()) {
-			Term t1 = it1.next();
-			Iterator<Term> it2 = terms2.keySet().iterator();
-			while (it2.hasNext()) {
-				Term t2 = it2.next();
-				Term product = t1.times(t2);
-				long productCoefficient = terms.get(t1) * terms2.get(t2);
-				if (result.containsKey(product)) {
-					long sum = result.get(product) + productCoefficient;
-					if (sum == 0) {
-						result.remove(product);
-					} else {
-						result.put(product, result.get(product)
-								+ productCoefficient);
-					}
-				} else {
-					result.put(product, productCoefficient);
-				}
+		// merge runs pairwise
+		for (int n = runs.length; n > 1; n = (n + 1) / 2) {
+			for (int i = 0; i < n / 2; i++) {
+				runs[i] = merge(runs[2 * i], runs[2 * i + 1], false);
+			}
+			if (n % 2 == 1) {
+				runs[n / 2] = runs[n - 1];
 			}
-
 		}
-		return new Polynomial(result);
+		return runs[0];
 	}
 
 	public int compareTo(Polynomial poly) {
 		if (this==poly){
 			return 0;
 		}
-
-		TreeMap<Term, Long> polyVars = poly.getTerms();
-		if (polyVars.isEmpty()) {
-			if (terms.isEmpty()) {
-				return 0;
+		// from the highest term down
+		int i = terms.length - 1;
+		int j = poly.terms.length - 1;
+		while (i >= 0 && j >= 0) {
+			int compare = terms[i].compareTo(poly.terms[j]);
+			if (compare == 0) {
+				compare = coeffs[i].compareTo(poly.coeffs[j]);
 			}
-			return 1;
-		}
-		if (terms.isEmpty()) {
-			return -1;
-		}
-		
-		Term termsLastKey=terms.lastKey(),
-				polyVarsLastKey=polyVars.lastKey();
-
-		int compare = termsLastKey.compareTo(polyVarsLastKey);
-
-		if (compare == 0) {
-			compare = terms.get(termsLastKey).compareTo(polyVars.get(polyVarsLastKey));
+			if (compare != 0) {
+				return compare;
+			}
+			i--;
+			j--;
 		}
-
-		if (compare != 0) {
-			return compare;
+		if (i < 0) {
+			return j < 0 ? 0 : -1;
 		}
-		
-		do {
-			SortedMap<Term, Long> termsSub = terms.headMap(termsLastKey);
-			SortedMap<Term, Long> oSub = polyVars.headMap(polyVarsLastKey);
-			if (termsSub.isEmpty()) {
-				if (oSub.isEmpty()) {
-					return 0;
-				}
-				return -1;
-			}
-			if (oSub.isEmpty()) {
-				return 1;
-			}
-			termsLastKey=termsSub.lastKey();
-			polyVarsLastKey=oSub.lastKey();
-			compare = termsLastKey.compareTo(polyVarsLastKey);
-			if (compare == 0) {
-				compare = termsSub.get(termsLastKey).compareTo(
-						oSub.get(polyVarsLastKey));
-			}
-		} while (compare == 0);
-
-		return compare;
+		return 1;
 	}
 
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
-		Iterator<Term> it = terms.keySet().iterator();
-		if (!it.hasNext()) {
+		if (terms.length == 0) {
 			return "0";
 		}
-		while (it.hasNext()) {
-			Term t = it.next();
-			long c = terms.get(t);
-			if (!t.getTerm().isEmpty()) {
-				if (c != 1)
+		for (int i = 0; i < terms.length; i++) {
+			Term t = terms[i];
+			BigInteger c = coeffs[i];
+			if (!t.isOne()) {
+				if (!c.equals(BigInteger.ONE))
 					sb.append(c + "*");
 				sb.append(t);
 			}
@@ -315,17 +336,17 @@ public class Polynomial implements Comparable<Polynomial> {
 	 */
 	public String toTeX() {
 		StringBuilder sb = new StringBuilder();
-		Iterator<Term> it = terms.keySet().iterator();
-		if (!it.hasNext()) {
+		if (terms.length == 0) {
 			return "0";
 		}
-		while (it.hasNext()) {
-			Term t = it.next();
-			long c = terms.get(t);
-			if (!t.getTerm().isEmpty()) {
-				if (c != 1) {
-					if (c != -1) {
-						if (c < -1) {
+		BigInteger minusOne = BigInteger.ONE.negate();
+		for (int i = 0; i < terms.length; i++) {
+			Term t = terms[i];
+			BigInteger c = coeffs[i];
+			if (!t.isOne()) {
+				if (!c.equals(BigInteger.ONE)) {
+					if (!c.equals(minusOne)) {
+						if (c.compareTo(minusOne) < 0) {
 							if (sb.length() > 0) {
 								sb.deleteCharAt(sb.length()-1); // removing last "+"
 							}
@@ -355,10 +376,10 @@ public class Polynomial implements Comparable<Polynomial> {
 	 */
 	public HashSet<Variable> getVars() {
 		HashSet<Variable> v = new HashSet<Variable>();
-		Iterator<Term> it = terms.keySet().iterator();
-		while (it.hasNext()) {
-			Term t = it.next();
-			v.addAll(t.getVars());
+		for (Term t : terms) {
+			for (int i = 0; i < t.size(); i++) {
+				v.add(t.getVariable(i));
+			}
 		}
 		return v;
 	}
@@ -590,32 +611,29 @@ public class Polynomial implements Comparable<Polynomial> {
 	 * @return the determinant
 	 */
 	public static Polynomial det4(final Polynomial[][] matrix){
-		return matrix[0][3].multiply(matrix[1][2].multiply(matrix[2][1].multiply(matrix[3][0]))).subtract(
-				matrix[0][2].multiply(matrix[1][3]).multiply(matrix[2][1]).multiply(matrix[3][0])).subtract(
-				matrix[0][3].multiply(matrix[1][1]).multiply(matrix[2][2]).multiply(matrix[3][0])).add(
-				matrix[0][1].multiply(matrix[1][3]).multiply(matrix[2][2]).multiply(matrix[3][0])).add(
-				matrix[0][2].multiply(matrix[1][1]).multiply(matrix[2][3]).multiply(matrix[3][0])).subtract(
-				matrix[0][1].multiply(matrix[1][2]).multiply(matrix[2][3]).multiply(matrix[3][0])).subtract(
-				matrix[0][3].multiply(matrix[1][2]).multiply(matrix[2][0]).multiply(matrix[3][1])).add(
-				matrix[0][2].multiply(matrix[1][3]).multiply(matrix[2][0]).multiply(matrix[3][1])).add(
-				matrix[0][3].multiply(matrix[1][0]).multiply(matrix[2][2]).multiply(matrix[3][1])).subtract(
-				matrix[0][0].multiply(matrix[1][3]).multiply(matrix[2][2]).multiply(matrix[3][1])).subtract(
-				matrix[0][2].multiply(matrix[1][0]).multiply(matrix[2][3]).multiply(matrix[3][1])).add(
-				matrix[0][0].multiply(matrix[1][2]).multiply(matrix[2][3]).multiply(matrix[3][1])).add(
-				matrix[0][3].multiply(matrix[1][1]).multiply(matrix[2][0]).multiply(matrix[3][2])).subtract(
-				matrix[0][1].multiply(matrix[1][3]).multiply(matrix[2][0]).multiply(matrix[3][2])).subtract(
-				matrix[0][3].multiply(matrix[1][0]).multiply(matrix[2][1]).multiply(matrix[3][2])).add(
-				matrix[0][0].multiply(matrix[1][3]).multiply(matrix[2][1]).multiply(matrix[3][2])).add(
-				matrix[0][1].multiply(matrix[1][0]).multiply(matrix[2][3]).multiply(matrix[3][2])).subtract(
-				matrix[0][0].multiply(matrix[1][1]).multiply(matrix[2][3]).multiply(matrix[3][2])).subtract(
-				matrix[0][2].multiply(matrix[1][1]).multiply(matrix[2][0]).multiply(matrix[3][3])).add(
-				matrix[0][1].multiply(matrix[1][2]).multiply(matrix[2][0]).multiply(matrix[3][3])).add(
-				matrix[0][2].multiply(matrix[1][0]).multiply(matrix[2][1]).multiply(matrix[3][3])).subtract(
-				matrix[0][0].multiply(matrix[1][2]).multiply(matrix[2][1]).multiply(matrix[3][3])).subtract(
-				matrix[0][1].multiply(matrix[1][0]).multiply(matrix[2][2]).multiply(matrix[3][3])).add(
-				matrix[0][0].multiply(matrix[1][1]).multiply(matrix[2][2]).multiply(matrix[3][3]));
+		// Laplace expansion along the first two rows: 2x2 minors of the top
+		// rows times the complementary minors of the bottom rows
+		Polynomial[][] m = matrix;
+		Polynomial ret = new Polynomial();
+		for (int j = 0; j < 4; j++) {
+			for (int k = j + 1; k < 4; k++) {
+				// complementary columns l < n
+				int l = j == 0 ? (k == 1 ? 2 : 1) : 0;
+				int n = 6 - j - k - l;
+				Polynomial top = m[0][j].multiply(m[1][k]).subtract(
+						m[0][k].multiply(m[1][j]));
+				Polynomial bottom = m[2][l].multiply(m[3][n]).subtract(
+						m[2][n].multiply(m[3][l]));
+				if ((j + k) % 2 == 0) {
+					ret = ret.subtract(top.multiply(bottom));
+				} else {
+					ret = ret.add(top.multiply(bottom));
+				}
+			}
+		}
+		return ret;
 	}
-	
+
 	/** 
 	 * Calculates the cross product of two vectors of dimension three.
 	 * @param a the first vector
@@ -643,46 +661,68 @@ public class Polynomial implements Comparable<Polynomial> {
 		if (substitutions == null)
 			return this;
 			
-		TreeMap<Term, Long> result = new TreeMap<Term, Long>();
-
-		Iterator<Term> it = terms.keySet().iterator();
-		while (it.hasNext()) {
-			Term t1 = it.next();
-			TreeMap<Variable, Integer> term = new TreeMap<Variable, Integer>(t1.getTerm());
-			BigInteger product = BigInteger.ONE;
-			Iterator<Variable> itSubst = substitutions.keySet().iterator();
-			while (itSubst.hasNext()) {
-				Variable variable = itSubst.next();
-				Integer exponent = term.get(variable);
-				if (exponent != null) {
+		Term[] result = new Term[terms.length];
+		BigInteger[] resultCoeffs = new BigInteger[terms.length];
+		boolean[] remove = null;
+		for (int i = 0; i < terms.length; i++) {
+			Term t = terms[i];
+			BigInteger product = coeffs[i];
+			int removed = 0;
+			for (int j = 0; j < t.size(); j++) {
+				Long value = substitutions.get(t.getVariable(j));
+				if (value != null) {
+					if (remove == null) {
+						remove = new boolean[t.size()];
+					}
 					product = product.multiply(BigInteger.valueOf(
-							substitutions.get(variable)).pow(exponent));
-					term.remove(variable);
+							value.longValue()).pow(t.getExponent(j)));
+					remove[j] = true;
+					removed++;
 				}
 			}
-			product = product.multiply(BigInteger.valueOf(terms.get(t1)));
-			Term t = new Term(term);
-			if (result.containsKey(t)) {
-				BigInteger sum = BigInteger.valueOf(result.get(t)).add(
-						product);
-//				if (sum.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > -1) {
-//					throw new ArithmeticException(
-//							"Integer Overflow in polynomial class");
-//				}
-				if (sum.longValue() == 0) {
-					result.remove(t);
-				} else {
-					result.put(t, sum.longValue());
-				}
-			} else if (product.intValue() != 0){
-//				if (product.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > -1) {
-//					throw new ArithmeticException(
-//							"Integer Overflow in polynomial class");
-//				}
-				result.put(t, product.longValue());
+			if (removed > 0) {
+				t = t.remove(remove, removed);
+				remove = null;
+			}
+			result[i] = t;
+			resultCoeffs[i] = product;
+		}
+		return sum(result, resultCoeffs);
+	}
+
+	/**
+	 * @param terms
+	 *            terms in any order, may be equal
+	 * @param coeffs
+	 *            coefficients, may be zero
+	 * @return sum of the coefficients times the terms
+	 */
+	private static Polynomial sum(final Term[] terms,
+			final BigInteger[] coeffs) {
+		Integer[] order = new Integer[terms.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return terms[a].compareTo(terms[b]);
+			}
+		});
+		Term[] sorted = new Term[terms.length];
+		BigInteger[] sortedCoeffs = new BigInteger[terms.length];
+		int k = 0;
+		for (int i = 0; i < order.length;) {
+			Term t = terms[order[i]];
+			BigInteger c = coeffs[order[i++]];
+			while (i < order.length && terms[order[i]].equals(t)) {
+				c = c.add(coeffs[order[i++]]);
+			}
+			if (c.signum() != 0) {
+				sorted[k] = t;
+				sortedCoeffs[k++] = c;
 			}
 		}
-		return new Polynomial(result);
+		return trim(sorted, sortedCoeffs, k);
 	}
 
 	
@@ -697,7 +737,11 @@ public class Polynomial implements Comparable<Polynomial> {
 
 	@Override
 	public int hashCode() {
-		return terms.hashCode();
+		int h = 0;
+		for (int i = 0; i < terms.length; i++) {
+			h += terms[i].hashCode() ^ coeffs[i].hashCode();
+		}
+		return h;
 	}
 
 	/**
@@ -705,7 +749,7 @@ public class Polynomial implements Comparable<Polynomial> {
 	 * @return true if the polynomial is zero false otherwise
 	 */
 	public boolean isZero() {
-		return terms.isEmpty();
+		return terms.length == 0;
 	}
 	
 	/**
@@ -713,23 +757,27 @@ public class Polynomial implements Comparable<Polynomial> {
 	 * @return if input is a constant
 	 */
 	public boolean isConstant() {
-		if (terms.size() > 1) {
+		if (terms.length > 1) {
 			return false;
 		}
-		if (terms.firstKey().equals(new Term())) {
-			return true;
-		}
-		return false;
+		return terms.length == 0 || terms[0].isOne();
 		}
 	
 	/**
-	 * @return Integer value of Polynomial if it is constant
+	 * @return Integer value of Polynomial if it is constant, null if it is
+	 *         not constant or does not fit into a long
 	 */
 	public Long getConstant() {
-		if (terms.size() > 1) {
+		if (terms.length > 1) {
+			return null;
+		}
+		if (terms.length == 0) {
+			return 0L;
+		}
+		if (coeffs[0].bitLength() > 63) {
 			return null;
 		}
-		return terms.firstEntry().getValue();
+		return coeffs[0].longValue();
 	}
 
 	/**
@@ -748,7 +796,8 @@ public class Polynomial implements Comparable<Polynomial> {
 	 * @return true if the polynomial is zero false otherwise
 	 */
 	public boolean isOne() {
-		return equals(new Polynomial(1));
+		return terms.length == 1 && terms[0].isOne()
+				&& coeffs[0].equals(BigInteger.ONE);
 	}
 	
 
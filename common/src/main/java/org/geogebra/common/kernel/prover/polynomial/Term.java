@@ -1,170 +1,224 @@
 package org.geogebra.common.kernel.prover.polynomial;
 
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /**
  * A simple class for terms which are a products of potences of variables.
- * 
+ *
+ * Terms are immutable. The variables are stored in an array sorted by
+ * Variable.compareTo(), i.e. by descending id, together with an array of their
+ * (positive) exponents.
+ *
  * @author Simon Weitzhofer
- * 
+ *
  */
 public class Term implements Comparable<Term> {
-	private TreeMap<Variable, Integer> variables;
+	private static final Variable[] NO_VARIABLES = new Variable[0];
+	private static final int[] NO_EXPONENTS = new int[0];
+
+	private final Variable[] variables;
+	private final int[] exponents;
+	private final int hash;
 
 	/**
 	 * creates the 1 term
 	 */
 	public Term() {
-		variables = new TreeMap<Variable, Integer>();
+		this(NO_VARIABLES, NO_EXPONENTS);
 	}
 
 	/**
 	 * Copies a term
-	 * 
+	 *
 	 * @param t
 	 *            the term to copy
 	 */
 	public Term(final Term t) {
-		variables = new TreeMap<Variable, Integer>(t.getTerm());
+		this(t.variables, t.exponents);
 	}
 
 	/**
-	 * Creates a Term out of a map from variables to integers. The term is the
-	 * product of the variables raised by the corresponding integers.
-	 * 
 	 * @param variables
-	 *            The map
+	 *            variables sorted by Variable.compareTo(), not changed later
+	 * @param exponents
+	 *            exponents of the variables, not changed later
 	 */
-	Term(final TreeMap<Variable, Integer> variables) {
+	private Term(final Variable[] variables, final int[] exponents) {
 		this.variables = variables;
+		this.exponents = exponents;
+		int h = 0;
+		for (int i = 0; i < variables.length; i++) {
+			h = 31 * h + variables[i].getId();
+			h = 31 * h + exponents[i];
+		}
+		hash = h;
 	}
 
 	/**
 	 * Creates a term which consist only of one variable
-	 * 
+	 *
 	 * @param variable
 	 *            the variable
 	 */
 	public Term(final Variable variable) {
-		variables = new TreeMap<Variable, Integer>();
-		variables.put(variable, 1);
+		this(variable, 1);
 	}
 
 	/**
 	 * Creates a term variable^exponent
-	 * 
+	 *
 	 * @param variable
 	 *            the variable
 	 * @param exponent
 	 *            the exponent
 	 */
 	public Term(final Variable variable, final int exponent) {
-		variables = new TreeMap<Variable, Integer>();
-		variables.put(variable, exponent);
+		this(new Variable[] { variable }, new int[] { exponent });
 	}
 
 	/**
 	 * Calculates the product of the term and another term
-	 * 
+	 *
 	 * @param term
 	 *            the other term
 	 * @return the product
 	 */
 	public Term times(final Term term) {
-		TreeMap<Variable, Integer> productTerm = new TreeMap<Variable, Integer>(
-				variables);
-
-		TreeMap<Variable, Integer> variables2 = term.getTerm();
-		Iterator<Variable> it = term.getTerm().keySet().iterator();
-		while (it.hasNext()) {
-			Variable vp = it.next();
-			if (variables.containsKey(vp)) {
-				productTerm.put(vp, variables.get(vp) + variables2.get(vp));
+		Variable[] vars2 = term.variables;
+		int[] exps2 = term.exponents;
+		if (vars2.length == 0) {
+			return this;
+		}
+		if (variables.length == 0) {
+			return term;
+		}
+		Variable[] vars = new Variable[variables.length + vars2.length];
+		int[] exps = new int[vars.length];
+		int i = 0, j = 0, k = 0;
+		while (i < variables.length && j < vars2.length) {
+			int compare = variables[i].compareTo(vars2[j]);
+			if (compare < 0) {
+				vars[k] = variables[i];
+				exps[k++] = exponents[i++];
+			} else if (compare > 0) {
+				vars[k] = vars2[j];
+				exps[k++] = exps2[j++];
 			} else {
-				productTerm.put(vp, variables2.get(vp));
+				vars[k] = variables[i];
+				exps[k++] = exponents[i++] + exps2[j++];
+			}
+		}
+		while (i < variables.length) {
+			vars[k] = variables[i];
+			exps[k++] = exponents[i++];
+		}
+		while (j < vars2.length) {
+			vars[k] = vars2[j];
+			exps[k++] = exps2[j++];
+		}
+		if (k < vars.length) {
+			Variable[] shortVars = new Variable[k];
+			int[] shortExps = new int[k];
+			System.arraycopy(vars, 0, shortVars, 0, k);
+			System.arraycopy(exps, 0, shortExps, 0, k);
+			return new Term(shortVars, shortExps);
+		}
+		return new Term(vars, exps);
+	}
+
+	/**
+	 * Removes variables from the term
+	 *
+	 * @param remove
+	 *            whether the i-th variable should be removed
+	 * @param count
+	 *            number of variables to be removed
+	 * @return term without the variables
+	 */
+	Term remove(boolean[] remove, int count) {
+		Variable[] vars = new Variable[variables.length - count];
+		int[] exps = new int[vars.length];
+		int k = 0;
+		for (int i = 0; i < variables.length; i++) {
+			if (!remove[i]) {
+				vars[k] = variables[i];
+				exps[k++] = exponents[i];
 			}
 		}
-		return new Term(productTerm);
+		return new Term(vars, exps);
+	}
+
+	/**
+	 * @return number of variables in this term
+	 */
+	public int size() {
+		return variables.length;
+	}
+
+	/**
+	 * @return whether this is the 1 term
+	 */
+	public boolean isOne() {
+		return variables.length == 0;
+	}
+
+	/**
+	 * @param i
+	 *            index
+	 * @return i-th variable in the order of Variable.compareTo()
+	 */
+	public Variable getVariable(int i) {
+		return variables[i];
 	}
 
 	/**
-	 * Getter for the map containing the variables and the exponent
-	 * 
-	 * @return the map
+	 * @param i
+	 *            index
+	 * @return exponent of the i-th variable
 	 */
-	public TreeMap<Variable, Integer> getTerm() {
-		return variables;
+	public int getExponent(int i) {
+		return exponents[i];
 	}
 
 	/**
 	 * Gets the variable with the highest order
-	 * 
+	 *
 	 * @return the variable with the highest order
 	 */
 	public Variable getHighestVariable() {
-		return variables.lastKey();
+		return variables[variables.length - 1];
 	}
-	
+
 	public int compareTo(Term o) {
-		if (this==o){
+		if (this == o) {
 			return 0;
 		}
-
-		TreeMap<Variable, Integer> t=o.getTerm();
-		if (t.isEmpty()) {
-			if (variables.isEmpty()) {
-				return 0;
+		// from the highest variable down
+		Variable[] vars2 = o.variables;
+		int i = variables.length - 1;
+		int j = vars2.length - 1;
+		while (i >= 0 && j >= 0) {
+			int compare = variables[i].compareTo(vars2[j]);
+			if (compare == 0) {
+				compare = exponents[i] < o.exponents[j] ? -1
+						: (exponents[i] == o.exponents[j] ? 0 : 1);
 			}
-			return 1;
-		}
-		if (variables.isEmpty()) {
-			return -1;
-		}
-		
-		Variable variablesLastKey=variables.lastKey(),
-				tLastKey=t.lastKey();
-
-		int compare = variablesLastKey.compareTo(tLastKey);
-
-		if (compare == 0) {
-			compare = variables.get(variablesLastKey).compareTo(t.get(tLastKey));
+			if (compare != 0) {
+				return compare;
+			}
+			i--;
+			j--;
 		}
-
-		if (compare != 0) {
-			return compare;
+		if (i < 0) {
+			return j < 0 ? 0 : -1;
 		}
-		
-		do {
-			SortedMap<Variable, Integer> variablesSub = variables.headMap(variablesLastKey);
-			SortedMap<Variable, Integer> oSub = t.headMap(tLastKey);
-			if (variablesSub.isEmpty()) {
-				if (oSub.isEmpty()) {
-					return 0;
-				}
-				return -1;
-			}
-			if (oSub.isEmpty()) {
-				return 1;
-			}
-			variablesLastKey=variablesSub.lastKey();
-			tLastKey=oSub.lastKey();
-			compare = variablesLastKey.compareTo(tLastKey);
-			if (compare == 0) {
-				compare = variablesSub.get(variablesLastKey).compareTo(
-						oSub.get(tLastKey));
-			}
-		} while (compare == 0);
-
-		return compare;
+		return 1;
 	}
 
 	@Override
 	public boolean equals(Object o) {
 		if (o instanceof Term) {
-			return this.compareTo((Term) o) == 0;
+			return hash == ((Term) o).hash && this.compareTo((Term) o) == 0;
 		}
 		return super.equals(o);
 	}
@@ -172,12 +226,10 @@ public class Term implements Comparable<Term> {
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder("");
-		Iterator<Variable> it = variables.keySet().iterator();
-		while (it.hasNext()) {
-			Variable fv = it.next();
+		for (int i = 0; i < variables.length; i++) {
 			sb.append("*");
-			sb.append(fv);
-			int power = variables.get(fv);
+			sb.append(variables[i]);
+			int power = exponents[i];
 			if (power > 1) {
 				sb.append("^");
 				sb.append(power);
@@ -186,7 +238,7 @@ public class Term implements Comparable<Term> {
 		if (sb.length()>0) {
 			return sb.substring(1); // removing first "*" character
 		}
-		return "";	
+		return "";
 	}
 
 	/**
@@ -195,38 +247,31 @@ public class Term implements Comparable<Term> {
 	 */
 	public String toTeX() {
 		StringBuilder sb = new StringBuilder("");
-		Iterator<Variable> it = variables.keySet().iterator();
-		while (it.hasNext()) {
-			Variable fv = it.next();
-			sb.append(fv.toTeX());
-			int power = variables.get(fv);
+		for (int i = 0; i < variables.length; i++) {
+			sb.append(variables[i].toTeX());
+			int power = exponents[i];
 			if (power > 1)
 				sb.append("^{" + power + "}");
 		}
 		return sb.toString();
 	}
 
-	
+
 	/**
 	 * The set of variables in this term
 	 * @return the set of variables
 	 */
 	public HashSet<Variable> getVars() {
 		HashSet<Variable> v = new HashSet<Variable>();
-		Iterator<Variable> it = variables.keySet().iterator();
-		while (it.hasNext()) {
-			Variable fv  = it.next();
-			v.add(fv);
+		for (int i = 0; i < variables.length; i++) {
+			v.add(variables[i]);
 		}
 		return v;
 	}
-	
+
 	@Override
 	public int hashCode() {
-		if (variables.isEmpty()){
-			return 0;
-		}
-		return variables.firstKey().hashCode()>>variables.lastKey().hashCode();
+		return hash;
 	}
 
 	/**
@@ -236,12 +281,15 @@ public class Term implements Comparable<Term> {
 	 * @return true if g divides f and false otherwise
 	 */
 	public static boolean divides(final Term f, final Term g) {
-		TreeMap<Variable, Integer> termG = g.getTerm();
-		Iterator<Variable> itG = termG.keySet().iterator();
-		while(itG.hasNext()){
-			Variable var = itG.next();
-			Integer powF=f.getTerm().get(var);
-			if (powF==null || powF.intValue() < termG.get(var).intValue()){
+		int i = 0;
+		for (int j = 0; j < g.variables.length; j++) {
+			while (i < f.variables.length
+					&& f.variables[i].compareTo(g.variables[j]) < 0) {
+				i++;
+			}
+			if (i == f.variables.length
+					|| !f.variables[i].equals(g.variables[j])
+					|| f.exponents[i] < g.exponents[j]) {
 				return false;
 			}
 		}
@@ -91,6 +91,19 @@ public class AlgoPercentile extends AlgoElement {
 		// ==========================
 		// compute result
 
+		// sorted values are shared with other statistics of the list
+		ListStatistics stats = inputList.getStatistics();
+		if (!stats.isNumbers()) {
+			result.setUndefined();
+			return;
+		}
+		double[] sorted = stats.getSorted();
+		// NaN is sorted last, Percentile treats it differently
+		if (!Double.isNaN(sorted[size - 1])) {
+			result.setValue(percentile(sorted, size, val));
+			return;
+		}
+
 		inputArray = new double[size];
 
 		// load input value array from geoList
@@ -112,6 +125,37 @@ public class AlgoPercentile extends AlgoElement {
 		result.setValue(percentile.evaluate(val));
 	}
 
+	/**
+	 * Same estimate as Percentile.evaluate(), but for sorted values
+	 * 
+	 * @param sorted
+	 *            values in ascending order
+	 * @param length
+	 *            number of values
+	 * @param p
+	 *            percentage in (0, 100]
+	 * @return percentile
+	 */
+	static double percentile(double[] sorted, int length, double p) {
+		if (length == 1) {
+			return sorted[0];
+		}
+		double n = length;
+		double pos = p * (n + 1) / 100;
+		double fpos = Math.floor(pos);
+		int intPos = (int) fpos;
+		double dif = pos - fpos;
+		if (pos < 1) {
+			return sorted[0];
+		}
+		if (pos >= n) {
+			return sorted[length - 1];
+		}
+		double lower = sorted[intPos - 1];
+		double upper = sorted[intPos];
+		return lower + dif * (upper - lower);
+	}
+
 	// TODO Consider locusequability
 
 }
@@ -129,45 +129,69 @@ public abstract class AlgoStats2D extends AlgoElement {
 				return;
 			}
 
-			for (int i = 0; i < sizex; i++) {
-				GeoElement geox = geoListx.get(i);
-				GeoElement geoy = geoListy.get(i);
-				if (geox instanceof NumberValue && geoy instanceof NumberValue) {
-					NumberValue numx = (NumberValue) geox;
-					NumberValue numy = (NumberValue) geoy;
-					valx = numx.getDouble();
-					valy = numy.getDouble();
-					sumx += valx;
-					sumy += valy;
-					sumxx += valx * valx;
-					sumyy += valy * valy;
-					sumxy += valx * valy;
-				} else {
-					result.setUndefined();
-					return;
+			// values and sums are shared with other statistics of the lists
+			ListStatistics statsx = geoListx.getStatistics();
+			ListStatistics statsy = geoListy.getStatistics();
+			if (statsx.isNumbers() && statsy.isNumbers()) {
+				sumx = statsx.getSum();
+				sumxx = statsx.getSumSquares();
+				sumy = statsy.getSum();
+				sumyy = statsy.getSumSquares();
+				double[] valuesx = statsx.getX();
+				double[] valuesy = statsy.getX();
+				for (int i = 0; i < sizex; i++) {
+					sumxy += valuesx[i] * valuesy[i];
+				}
+			} else {
+				for (int i = 0; i < sizex; i++) {
+					GeoElement geox = geoListx.get(i);
+					GeoElement geoy = geoListy.get(i);
+					if (geox instanceof NumberValue && geoy instanceof NumberValue) {
+						NumberValue numx = (NumberValue) geox;
+						NumberValue numy = (NumberValue) geoy;
+						valx = numx.getDouble();
+						valy = numy.getDouble();
+						sumx += valx;
+						sumy += valy;
+						sumxx += valx * valx;
+						sumyy += valy * valy;
+						sumxy += valx * valy;
+					} else {
+						result.setUndefined();
+						return;
+					}
 				}
 			}
 		} else { // MODE_LISTOFPOINTS
-			for (int i = 0; i < sizex; i++) {
-				GeoElement geo = geoListx.get(i);
-				if (geo.isGeoPoint()) {
-					Coords coords = ((GeoPointND) geo).getInhomCoordsInD3();
-					double x = coords.getX();
-					double y = coords.getY();
-
-					valx = x;
-					valy = y;
-					sumx += valx;
-					sumy += valy;
-					sumxx += valx * valx;
-					sumyy += valy * valy;
-					sumxy += valx * valy;
-				} else {
-					result.setUndefined();
-					return;
+			// sums are shared with other statistics of the list
+			ListStatistics stats = geoListx.getStatistics();
+			if (stats.isPoints()) {
+				sumx = stats.getSum();
+				sumy = stats.getSumY();
+				sumxx = stats.getSumSquares();
+				sumyy = stats.getSumYY();
+				sumxy = stats.getSumXY();
+			} else {
+				for (int i = 0; i < sizex; i++) {
+					GeoElement geo = geoListx.get(i);
+					if (geo.isGeoPoint()) {
+						Coords coords = ((GeoPointND) geo).getInhomCoordsInD3();
+						double x = coords.getX();
+						double y = coords.getY();
+
+						valx = x;
+						valy = y;
+						sumx += valx;
+						sumy += valy;
+						sumxx += valx * valx;
+						sumyy += valy * valy;
+						sumxy += valx * valy;
+					} else {
+						result.setUndefined();
+						return;
+					}
 				}
 			}
-
 		}
 
 		double mux = sumx / sizex;
@@ -0,0 +1,335 @@
+package org.geogebra.common.kernel.statistics;
+
+import java.util.Arrays;
+
+import org.geogebra.common.kernel.Matrix.Coords;
+import org.geogebra.common.kernel.arithmetic.NumberValue;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoList;
+import org.geogebra.common.kernel.geos.GeoPoint;
+import org.geogebra.common.kernel.kernelND.GeoPointND;
+
+/**
+ * Values of a list of numbers or points together with sums and the sorted
+ * values, shared by all statistics algos of the list, see
+ * GeoList.getStatistics().
+ *
+ * The values are read once per update of the list. When elements were only
+ * appended, sums are continued from the previous ones and the new values are
+ * inserted into the sorted values; when a few elements changed, the sorted
+ * values are patched. Sums are always accumulated in list order, so the
+ * results are the same as summing up the elements in a loop.
+ */
+public final class ListStatistics {
+
+	/** more changed values than this are sorted again */
+	private static final int MAX_PATCHED_VALUES = 32;
+
+	private static final int EMPTY = 0, NUMBERS = 1, POINTS = 2, OTHER = 3;
+
+	private final GeoList list;
+	private long stamp = -1;
+	private int kind = OTHER;
+	private boolean points2D;
+	private int size;
+	// numbers or x-coordinates, y-coordinates of points
+	private double[] x = new double[0], y = new double[0];
+	// values of the previous update
+	private double[] oldX = new double[0], oldY = new double[0];
+
+	// incremented when values other than appended ones changed
+	private int generation;
+	// number of values contained in the sums
+	private int summed;
+	private double sum, sumSquares, product;
+	private double sumY, sumYY, sumXY;
+
+	private double[] sorted;
+	private int sortedSize;
+
+	/**
+	 * @param list
+	 *            list
+	 */
+	public ListStatistics(GeoList list) {
+		this.list = list;
+	}
+
+	/**
+	 * Reads the values of the list if it was updated since the last call.
+	 */
+	public void update() {
+		long newStamp = list.getChangeStamp();
+		int newSize = list.size();
+		// stamp 0: list was never updated, elements may change anyway
+		if (newStamp != 0 && newStamp == stamp && newSize == size) {
+			return;
+		}
+		stamp = newStamp;
+
+		double[] swap = oldX;
+		oldX = x;
+		x = swap;
+		swap = oldY;
+		oldY = y;
+		y = swap;
+		int oldSize = size;
+		int oldKind = kind;
+		read(newSize);
+
+		if (kind != oldKind || kind == OTHER) {
+			generation++;
+			summed = 0;
+			sorted = null;
+			return;
+		}
+		int common = Math.min(oldSize, size);
+		int changed = 0;
+		for (int i = 0; i < common && changed <= MAX_PATCHED_VALUES; i++) {
+			if (!same(x[i], oldX[i]) || (kind == POINTS && !same(y[i], oldY[i]))) {
+				changed++;
+			}
+		}
+		if (changed > 0 || size < oldSize) {
+			generation++;
+			summed = 0;
+		}
+		if (sorted != null) {
+			if (kind != NUMBERS || changed > MAX_PATCHED_VALUES
+					|| size < oldSize || size - oldSize > MAX_PATCHED_VALUES) {
+				sorted = null;
+			} else {
+				patchSorted(common);
+			}
+		}
+	}
+
+	private static boolean same(double a, double b) {
+		return a == b || (Double.isNaN(a) && Double.isNaN(b));
+	}
+
+	private void read(int newSize) {
+		size = newSize;
+		if (x.length < newSize) {
+			x = new double[newSize];
+			y = new double[newSize];
+		}
+		double[] values = list.getValues();
+		if (values != null) {
+			System.arraycopy(values, 0, x, 0, newSize);
+			kind = newSize == 0 ? EMPTY : NUMBERS;
+			return;
+		}
+		double[] coords = list.getPointValues();
+		if (coords != null) {
+			for (int i = 0; i < newSize; i++) {
+				x[i] = coords[2 * i];
+				y[i] = coords[2 * i + 1];
+			}
+			kind = newSize == 0 ? EMPTY : POINTS;
+			points2D = true;
+			return;
+		}
+		kind = EMPTY;
+		points2D = true;
+		for (int i = 0; i < newSize; i++) {
+			GeoElement geo = list.get(i);
+			if (geo instanceof NumberValue && kind != POINTS) {
+				kind = NUMBERS;
+				x[i] = ((NumberValue) geo).getDouble();
+			} else if (geo.isGeoPoint() && kind != NUMBERS) {
+				kind = POINTS;
+				Coords coords3D = ((GeoPointND) geo).getInhomCoordsInD3();
+				x[i] = coords3D.getX();
+				y[i] = coords3D.getY();
+				points2D = points2D && geo instanceof GeoPoint;
+			} else {
+				kind = OTHER;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Replaces changed values in the sorted values and inserts appended ones
+	 */
+	private void patchSorted(int common) {
+		for (int i = 0; i < common; i++) {
+			if (!same(x[i], oldX[i])) {
+				if (Double.isNaN(x[i]) || Double.isNaN(oldX[i])) {
+					sorted = null;
+					return;
+				}
+				int pos = Arrays.binarySearch(sorted, 0, sortedSize, oldX[i]);
+				if (pos < 0) {
+					sorted = null;
+					return;
+				}
+				System.arraycopy(sorted, pos + 1, sorted, pos, sortedSize - pos
+						- 1);
+				sortedSize--;
+				insertSorted(x[i]);
+			}
+		}
+		for (int i = common; i < size && sorted != null; i++) {
+			insertSorted(x[i]);
+		}
+	}
+
+	private void insertSorted(double val) {
+		if (Double.isNaN(val)) {
+			sorted = null;
+			return;
+		}
+		if (sorted.length == sortedSize) {
+			double[] grown = new double[sortedSize + sortedSize / 2 + 1];
+			System.arraycopy(sorted, 0, grown, 0, sortedSize);
+			sorted = grown;
+		}
+		int pos = Arrays.binarySearch(sorted, 0, sortedSize, val);
+		if (pos < 0) {
+			pos = -pos - 1;
+		}
+		System.arraycopy(sorted, pos, sorted, pos + 1, sortedSize - pos);
+		sorted[pos] = val;
+		sortedSize++;
+	}
+
+	/**
+	 * @return number of values
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return whether all elements are numbers (true for empty list)
+	 */
+	public boolean isNumbers() {
+		return kind == NUMBERS || kind == EMPTY;
+	}
+
+	/**
+	 * @return whether all elements are points (true for empty list)
+	 */
+	public boolean isPoints() {
+		return kind == POINTS || kind == EMPTY;
+	}
+
+	/**
+	 * @return whether all elements are 2D points (true for empty list)
+	 */
+	public boolean isPoints2D() {
+		return isPoints() && points2D;
+	}
+
+	/**
+	 * Results computed from the first values stay valid as long as the
+	 * generation is the same, more values may have been appended though.
+	 *
+	 * @return number of updates that changed, removed or reinterpreted values
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return numbers or x-coordinates of points (read only, may be longer
+	 *         than the list)
+	 */
+	public double[] getX() {
+		return x;
+	}
+
+	/**
+	 * @return y-coordinates of points (read only, may be longer than the
+	 *         list)
+	 */
+	public double[] getY() {
+		return y;
+	}
+
+	private void updateSums() {
+		if (summed == 0) {
+			sum = sumSquares = sumY = sumYY = sumXY = 0;
+			product = 1;
+		}
+		for (int i = summed; i < size; i++) {
+			double valx = x[i];
+			sum += valx;
+			sumSquares += valx * valx;
+			if (kind == POINTS) {
+				double valy = y[i];
+				sumY += valy;
+				sumYY += valy * valy;
+				sumXY += valx * valy;
+			} else {
+				product *= valx;
+			}
+		}
+		summed = size;
+	}
+
+	/**
+	 * @return sum of numbers or x-coordinates
+	 */
+	public double getSum() {
+		updateSums();
+		return sum;
+	}
+
+	/**
+	 * @return sum of squares of numbers or x-coordinates
+	 */
+	public double getSumSquares() {
+		updateSums();
+		return sumSquares;
+	}
+
+	/**
+	 * @return product of numbers
+	 */
+	public double getProduct() {
+		updateSums();
+		return product;
+	}
+
+	/**
+	 * @return sum of y-coordinates
+	 */
+	public double getSumY() {
+		updateSums();
+		return sumY;
+	}
+
+	/**
+	 * @return sum of squares of y-coordinates
+	 */
+	public double getSumYY() {
+		updateSums();
+		return sumYY;
+	}
+
+	/**
+	 * @return sum of products of x- and y-coordinates
+	 */
+	public double getSumXY() {
+		updateSums();
+		return sumXY;
+	}
+
+	/**
+	 * @return numbers in ascending order (read only, may be longer than the
+	 *         list)
+	 */
+	public double[] getSorted() {
+		if (sorted == null) {
+			sorted = new double[size];
+			System.arraycopy(x, 0, sorted, 0, size);
+			Arrays.sort(sorted);
+			sortedSize = size;
+		}
+		return sorted;
+	}
+
+}
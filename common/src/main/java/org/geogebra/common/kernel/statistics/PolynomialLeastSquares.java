@@ -0,0 +1,148 @@
+package org.geogebra.common.kernel.statistics;
+
+/**
+ * Least squares polynomial of given degree through points that are added one
+ * by one. Keeps the QR decomposition of the Vandermonde matrix, which is
+ * updated by Givens rotations in O(degree^2) per point, so the normal
+ * equations (and their squared condition number) are never formed.
+ *
+ * Powers are taken of t = (x - center) / scale rather than of x, with center
+ * and scale chosen so that the x-values seen so far are in [-1, 1]; this keeps
+ * the matrix well conditioned also for high degrees. Points far outside of
+ * that range make the decomposition inaccurate, see contains().
+ */
+final class PolynomialLeastSquares {
+
+	/** diagonal elements of R smaller than this (relative) are zero */
+	private static final double SINGULAR = 1E-14;
+
+	private final int degree;
+	private final double center, scale;
+	/** upper triangular matrix R, row by row */
+	private final double[][] r;
+	/** first degree + 1 components of Q^T y */
+	private final double[] qty;
+	private final double[] row;
+	private int count;
+
+	/**
+	 * @param degree
+	 *            degree of polynomial
+	 * @param min
+	 *            minimal x-value
+	 * @param max
+	 *            maximal x-value
+	 */
+	PolynomialLeastSquares(int degree, double min, double max) {
+		this.degree = degree;
+		double c = (min + max) / 2;
+		double s = (max - min) / 2;
+		if (Double.isNaN(c) || Double.isInfinite(c)) {
+			c = 0;
+		}
+		if (!(s > 0) || Double.isInfinite(s)) {
+			s = Math.max(Math.abs(c), 1);
+		}
+		center = c;
+		scale = s;
+		r = new double[degree + 1][degree + 1];
+		qty = new double[degree + 1];
+		row = new double[degree + 1];
+	}
+
+	/**
+	 * @return degree of polynomial
+	 */
+	int getDegree() {
+		return degree;
+	}
+
+	/**
+	 * @return number of points added
+	 */
+	int getCount() {
+		return count;
+	}
+
+	/**
+	 * @param x
+	 *            x-value
+	 * @return whether x is close enough to the x-values this was created for
+	 *         to keep the decomposition accurate
+	 */
+	boolean contains(double x) {
+		return Math.abs(x - center) <= 2 * scale;
+	}
+
+	/**
+	 * @param x
+	 *            x-coordinate
+	 * @param y
+	 *            y-coordinate
+	 */
+	void add(double x, double y) {
+		double t = (x - center) / scale;
+		row[0] = 1;
+		for (int j = 1; j <= degree; j++) {
+			row[j] = row[j - 1] * t;
+		}
+		double rhs = y;
+		for (int k = 0; k <= degree; k++) {
+			double b = row[k];
+			if (b == 0) {
+				continue;
+			}
+			double[] rk = r[k];
+			double a = rk[k];
+			double h = Math.sqrt(a * a + b * b);
+			double c = a / h;
+			double s = b / h;
+			rk[k] = h;
+			for (int j = k + 1; j <= degree; j++) {
+				double rkj = rk[j];
+				rk[j] = c * rkj + s * row[j];
+				row[j] = c * row[j] - s * rkj;
+			}
+			double q = qty[k];
+			qty[k] = c * q + s * rhs;
+			rhs = c * rhs - s * q;
+		}
+		count++;
+	}
+
+	/**
+	 * @return coefficients of the polynomial in x, constant first; null if
+	 *         the points do not determine the polynomial
+	 */
+	double[] solve() {
+		double maxDiag = 0;
+		for (int k = 0; k <= degree; k++) {
+			maxDiag = Math.max(maxDiag, Math.abs(r[k][k]));
+		}
+		double[] coef = new double[degree + 1];
+		for (int k = degree; k >= 0; k--) {
+			double d = r[k][k];
+			if (!(Math.abs(d) > maxDiag * SINGULAR)) {
+				return null;
+			}
+			double val = qty[k];
+			for (int j = k + 1; j <= degree; j++) {
+				val -= r[k][j] * coef[j];
+			}
+			coef[k] = val / d;
+		}
+		// back to powers of x - center
+		double f = 1;
+		for (int k = 1; k <= degree; k++) {
+			f /= scale;
+			coef[k] *= f;
+		}
+		// Taylor shift to powers of x
+		for (int i = 0; i < degree; i++) {
+			for (int j = degree - 1; j >= i; j--) {
+				coef[j] -= center * coef[j + 1];
+			}
+		}
+		return coef;
+	}
+}
@@ -1,13 +1,6 @@
 package org.geogebra.common.kernel.statistics;
 
-import org.apache.commons.math.linear.Array2DRowRealMatrix;
-import org.apache.commons.math.linear.DecompositionSolver;
-import org.apache.commons.math.linear.QRDecompositionImpl;
-import org.apache.commons.math.linear.RealMatrix;
-import org.geogebra.common.kernel.geos.GeoElement;
 import org.geogebra.common.kernel.geos.GeoList;
-import org.geogebra.common.kernel.geos.GeoPoint;
-import org.geogebra.common.util.debug.Log;
 
 /* 
  GeoGebra - Dynamic Mathematics for Everyone
@@ -82,9 +75,16 @@ public final class RegressionMath {
 	private int size;
 
 	// 27.01.09:
-	private double[][] marray, yarray; // For (M_T*M)*Par=(M_T*Y)
 	private double[] pararray; // Parameter array
 
+	// sums are continued while points are only appended to the same list
+	private ListStatistics summedStats;
+	private int summedGeneration, summedPoints, summedDegree;
+	// QR decomposition for doPolyN, continued the same way
+	private ListStatistics polyStats;
+	private int polyGeneration;
+	private PolynomialLeastSquares poly;
+
 	// / --- Interface --- ///
 	/** Constructor not needed */
 	public RegressionMath() { // private: Safety measure to avoid wrong use
@@ -137,54 +137,63 @@ public final class RegressionMath {
 		return pararray;
 	}
 
-	/** Does the Polynom regression for degree > 4 */
+	/**
+	 * Does the Polynom regression for degree > 4. The QR decomposition is
+	 * kept, when points were appended to the list since the last call only
+	 * the new points are added to it.
+	 */
 	public final boolean doPolyN(GeoList gl, int degree) {
 		error = false;
 		geolist = gl;
 		size = geolist.size();
-		getPoints(); // getPoints from geolist
-		if (error) {
+		ListStatistics stats = geolist.getStatistics();
+		if (!stats.isPoints2D()) {
+			error = true;
 			return false;
 		}
-		try {
-			/*
-			 * Old Jama version: long time=System.currentTimeMillis();
-			 * makeMatrixArrays(degree); //make marray and yarray Matrix M=new
-			 * Matrix(marray); Matrix Y=new Matrix(yarray); Matrix
-			 * Par=M.solve(Y); //Par.print(3,3);
-			 * pararray=Par.getRowPackedCopy();
-			 * System.out.println(System.currentTimeMillis()-time);
-			 */
-			makeMatrixArrays(degree); // make marray and yarray
-			RealMatrix M = new Array2DRowRealMatrix(marray, false);
-			DecompositionSolver solver = new QRDecompositionImpl(M).getSolver();
-			// time=System.currentTimeMillis();
-			RealMatrix Y = new Array2DRowRealMatrix(yarray, false);
-			RealMatrix P = solver.solve(Y);
-
-			pararray = P.getColumn(0);
-
-			// System.out.println(System.currentTimeMillis()-time);
-			// diff(pararray,par);
-		} catch (Throwable t) {
-			Log.debug(t.toString());
-			error = true;
-		}// try-catch. ToDo: A bit more fine-grained error-handling...
+		double[] x = stats.getX();
+		double[] y = stats.getY();
+		boolean keep = poly != null && stats == polyStats
+				&& stats.getGeneration() == polyGeneration
+				&& poly.getDegree() == degree && poly.getCount() <= size;
+		for (int i = keep ? poly.getCount() : 0; keep && i < size; i++) {
+			keep = poly.contains(x[i]);
+		}
+		if (!keep) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < size; i++) {
+				min = Math.min(min, x[i]);
+				max = Math.max(max, x[i]);
+			}
+			poly = new PolynomialLeastSquares(degree, min, max);
+			polyStats = stats;
+			polyGeneration = stats.getGeneration();
+		}
+		for (int i = poly.getCount(); i < size; i++) {
+			poly.add(x[i], y[i]);
+		}
+		pararray = poly.solve();
+		error = pararray == null;
 		return !error;
 	}// doPolyN()
 
 	public final boolean doLinear(GeoList gl) {
 		error = false;
+		summedStats = null;
 		geolist = gl;
 		size = geolist.size();
-		getPoints(); // getPoints from geolist
-		if (error) {
-			return false;
-		}
-		doSums(LINEAR); // calculate neccessary sigmas
-		if (error) {
+		// sums are shared with other statistics of the list
+		ListStatistics stats = geolist.getStatistics();
+		if (!stats.isPoints2D()) {
+			error = true;
 			return false;
 		}
+		sigmax = stats.getSum();
+		sigmax2 = stats.getSumSquares();
+		sigmay = stats.getSumY();
+		sigmay2 = stats.getSumYY();
+		sigmaxy = stats.getSumXY();
 
 		double n = det22(1.0d * size, sigmax, sigmax, sigmax2);
 		if (Math.abs(n - 0.0d) < 1.0E-15d) {
@@ -200,12 +209,7 @@ public final class RegressionMath {
 		error = false;
 		geolist = gl;
 		size = geolist.size();
-		getPoints(); // getPoints from geolist
-		if (error) {
-			return false;
-		}
-		doSums(QUAD); // calculate neccessary sigmas
-		if (error) {
+		if (!continueSums(QUAD)) { // calculate neccessary sigmas
 			return false;
 		}
 
@@ -229,12 +233,7 @@ public final class RegressionMath {
 		error = false;
 		geolist = gl;
 		size = geolist.size();
-		getPoints(); // getPoints from geolist
-		if (error) {
-			return false;
-		}
-		doSums(CUBIC); // calculate neccessary sigmas
-		if (error) {
+		if (!continueSums(CUBIC)) { // calculate neccessary sigmas
 			return false;
 		}
 
@@ -269,12 +268,7 @@ public final class RegressionMath {
 		error = false;
 		geolist = gl;
 		size = geolist.size();
-		getPoints(); // getPoints from geolist
-		if (error) {
-			return false;
-		}
-		doSums(QUART); // calculate neccessary sigmas
-		if (error) {
+		if (!continueSums(QUART)) { // calculate neccessary sigmas
 			return false;
 		}
 
@@ -530,11 +524,46 @@ public final class RegressionMath {
 
 	/* Do whatever sums neccessary */
 	private final void doSums(int degree) { // do whatever sums neccessary
-		double x, y, xx, xy;
+		// transformed points, not continued
+		summedStats = null;
+		clearSums();
+		addSums(degree, xlist, ylist, 0, size);
+	}// doSums(degree)
+
+	/*
+	 * Sums for points of the list; when points were only appended since the
+	 * last call, the sums are continued, so that the result is the same as
+	 * with doSums()
+	 */
+	private final boolean continueSums(int degree) {
+		ListStatistics stats = geolist.getStatistics();
+		if (!stats.isPoints2D()) {
+			error = true;
+			return false;
+		}
+		if (stats != summedStats || stats.getGeneration() != summedGeneration
+				|| degree > summedDegree || size < summedPoints) {
+			clearSums();
+			summedStats = stats;
+			summedGeneration = stats.getGeneration();
+			summedDegree = degree;
+			summedPoints = 0;
+		}
+		addSums(summedDegree, stats.getX(), stats.getY(), summedPoints, size);
+		summedPoints = size;
+		return true;
+	}// continueSums(degree)
+
+	private final void clearSums() {
 		sigmax = sigmax2 = sigmax3 = sigmax4 = sigmax5 = sigmax6 = sigmax7 = sigmax8 = sigmaxy = sigmax2y = sigmax3y = sigmax4y = sigmay = sigmay2 = 0.0d;
-		for (int i = 0; i < size; i++) {
-			x = xlist[i];
-			y = ylist[i];
+	}// clearSums()
+
+	private final void addSums(int degree, double[] xs, double[] ys,
+			int from, int to) {
+		double x, y, xx, xy;
+		for (int i = from; i < to; i++) {
+			x = xs[i];
+			y = ys[i];
 			xx = x * x;
 			xy = x * y; // save some calculations
 			switch (degree) { // fall-through-switch
@@ -559,45 +588,23 @@ public final class RegressionMath {
 				sigmay += y;
 			}// switch
 		}// for
-	}// doSums(degree)
+	}// addSums(degree)
 
 	/* Get points to local array */
 	private final void getPoints() {
-		// double x,y;
-		double xy[] = new double[2];
-		GeoElement geoelement;
-		// GeoPoint geopoint;
+		// coordinates are read once per update of the list, shared with
+		// other statistics; copied because some regressions transform them
+		ListStatistics stats = geolist.getStatistics();
+		if (!stats.isPoints2D()) {
+			error = true;
+			return;
+		}
 		xlist = new double[size];
 		ylist = new double[size];
-		for (int i = 0; i < size; i++) {
-			geoelement = geolist.get(i);
-			if (geoelement instanceof GeoPoint) {
-				((GeoPoint) geoelement).getInhomCoords(xy);
-				xlist[i] = xy[0];
-				ylist[i] = xy[1];
-			} else {
-				error = true;
-				xlist[i] = 0.0d;
-				ylist[i] = 0.0d;
-			}// if
-		}// for all points
+		System.arraycopy(stats.getX(), 0, xlist, 0, size);
+		System.arraycopy(stats.getY(), 0, ylist, 0, size);
 	}// getPoints()
 
-	// Make M with 1,x,x^2,... , and Y with y1,y2,.. for all datapoints
-	private final void makeMatrixArrays(int degree) {
-		marray = new double[size][degree + 1];
-		yarray = new double[size][1]; // column matrix
-		for (int i = 0; i < size; i++) {
-			// Y:
-			yarray[i][0] = ylist[i];
-			// M:
-			for (int j = 0; j < (degree + 1); j++) {
-				marray[i][j] = Math.pow(xlist[i], j);
-			}// for j (all degrees =columns in marray)
-		}// for i (all datapoints = rows in marray, cols in yarray)
-
-	}// makeMatrixArrays()
-
 	// / --- DEBUG --- /// !!! Remember to comment out calls before distribution
 	// !!!
 
@@ -1,6 +1,7 @@
 package org.geogebra.common.main;
 
 import java.util.HashMap;
+import java.util.List;
 
 import org.geogebra.common.awt.GPoint;
 import org.geogebra.common.kernel.Construction;
@@ -10,7 +11,8 @@ import org.geogebra.common.kernel.statistics.AlgoCellRange;
 /**
  * Maintains a list of all instances of AlgoCellRange in a construction and
  * handles updates to the AlgoCellRanges when a spreadsheet cell GeoElement is
- * changed.
+ * changed. The algos are indexed by their cell ranges, so that a changed cell
+ * only touches the algos whose range contains it.
  * 
  * @author G. Sturr
  * 
@@ -26,6 +28,7 @@ public class AlgoCellRangeManager {
 	public void unregisterCellRangeListenerAlgo(AlgoCellRange algo) {
 		if (algos != null) {
 			algos.remove(getKey(algo.getStart(), algo.getEnd()));
+			index.remove(algo);
 		}
 
 	}
@@ -51,11 +54,9 @@ public class AlgoCellRangeManager {
 			return;
 		}
 
-		for (AlgoCellRange algo : algos.values()) {
-			// System.out.println("geo label: " + geo.getLabelSimple());
-			if (algo.getCellRange().contains(location)) {
-				algo.updateList(geo, isRemoveAction);
-			}
+		List<AlgoCellRange> containing = index.getAlgos(location);
+		for (int i = 0; i < containing.size(); i++) {
+			containing.get(i).updateList(geo, isRemoveAction);
 		}
 
 	}
@@ -74,11 +75,9 @@ public class AlgoCellRangeManager {
 			return;
 		}
 
-		for (AlgoCellRange algo : algos.values()) {
-			// System.out.println("geo label: " + geo.getLabelSimple());
-			if (algo.getCellRange().contains(location)) {
-				algo.addToList(geo, location);
-			}
+		List<AlgoCellRange> containing = index.getAlgos(location);
+		for (int i = 0; i < containing.size(); i++) {
+			containing.get(i).addToList(geo, location);
 		}
 
 	}
@@ -86,10 +85,12 @@ public class AlgoCellRangeManager {
 	public void removeAll() {
 		if (algos != null) {
 			algos.clear();
+			index.clear();
 		}
 	}
 
 	private HashMap<String, AlgoCellRange> algos;
+	private final CellRangeIndex index = new CellRangeIndex();
 
 	/**
 	 * 
@@ -115,6 +116,7 @@ public class AlgoCellRangeManager {
 		if (algo == null) {
 			algo = new AlgoCellRange(cons, label, start, end);
 			algos.put(key, algo);
+			index.add(algo);
 		} else {
 			if (label != null && label.length() > 0) {
 				algo.getList().setLabel(label);
@@ -2437,6 +2437,8 @@ public abstract class App implements UpdateSelection {
 	 * Update font sizes of all components to match current GUI font size
 	 */
 	final public void resetFonts() {
+		// formulas were laid out with the old fonts
+		getDrawEquation().clearCache();
 		companion.resetFonts();
 	}
 
@@ -4087,6 +4089,30 @@ public abstract class App implements UpdateSelection {
 		case DRAGGING_NON_MOVEABLE_OBJECT_SPIN_THE_VIEW:
 			return true;
 
+		// evaluate functions with compiled, allocation-free expressions
+		case COMPILED_FUNCTIONS:
+			return prerelease;
+
+		// compute independent algos of update cascade in parallel
+		case PARALLEL_UPDATE_CASCADE:
+			return prerelease;
+
+		// skip algos with unchanged input in updateConstruction(true)
+		case INCREMENTAL_UPDATE_CONSTRUCTION:
+			return prerelease;
+
+		// evaluate CAS commands of algos in background and update afterwards
+		case ASYNCHRONOUS_CAS:
+			return prerelease;
+
+		// spatial index for hit testing in graphics views
+		case HIT_INDEX:
+			return prerelease;
+
+		// cache layers of graphics views in offscreen images
+		case LAYER_CACHE:
+			return prerelease;
+
 		default:
 			Log.debug("missing case in Feature: " + f);
 			return false;
@@ -0,0 +1,225 @@
+package org.geogebra.common.main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.geogebra.common.awt.GPoint;
+import org.geogebra.common.gui.view.spreadsheet.CellRange;
+import org.geogebra.common.kernel.statistics.AlgoCellRange;
+
+/**
+ * Finds the cell range algos containing a spreadsheet cell without looking at
+ * all of them.
+ *
+ * The ranges are kept in a centered interval tree over columns; the ranges of
+ * each node (those containing its center column) are kept in a centered
+ * interval tree over rows. The trees are built lazily; ranges added since the
+ * last build are checked one by one until there are enough of them to make a
+ * rebuild worthwhile, removing a range always causes a rebuild.
+ */
+class CellRangeIndex {
+
+	/** more ranges added since the last build trigger a rebuild */
+	private static final int MAX_PENDING = 16;
+
+	private final ArrayList<Entry> entries = new ArrayList<Entry>();
+	private final ArrayList<Entry> pending = new ArrayList<Entry>();
+	private Node root;
+	private boolean dirty;
+
+	/**
+	 * @param algo
+	 *            cell range algo
+	 */
+	void add(AlgoCellRange algo) {
+		Entry entry = new Entry(algo);
+		entries.add(entry);
+		pending.add(entry);
+	}
+
+	/**
+	 * @param algo
+	 *            cell range algo
+	 */
+	void remove(AlgoCellRange algo) {
+		for (int i = 0; i < entries.size(); i++) {
+			if (entries.get(i).algo == algo) {
+				entries.remove(i);
+				dirty = true;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Removes all ranges
+	 */
+	void clear() {
+		entries.clear();
+		pending.clear();
+		root = null;
+		dirty = false;
+	}
+
+	/**
+	 * @param location
+	 *            spreadsheet cell location
+	 * @return algos whose cell range contains the location
+	 */
+	List<AlgoCellRange> getAlgos(GPoint location) {
+		ArrayList<AlgoCellRange> result = new ArrayList<AlgoCellRange>();
+		if (location == null) {
+			return result;
+		}
+		if (dirty || pending.size() > MAX_PENDING) {
+			root = build(entries, true);
+			pending.clear();
+			dirty = false;
+		}
+		query(root, location, result);
+		for (Entry entry : pending) {
+			entry.collect(location, result);
+		}
+		return result;
+	}
+
+	private static Node build(List<Entry> list, boolean columns) {
+		if (list.isEmpty()) {
+			return null;
+		}
+		int[] centers = new int[list.size()];
+		for (int i = 0; i < centers.length; i++) {
+			Entry entry = list.get(i);
+			centers[i] = entry.min(columns)
+					+ (entry.max(columns) - entry.min(columns)) / 2;
+		}
+		Arrays.sort(centers);
+		// the median range contains the center, so every node gets a range
+		int center = centers[centers.length / 2];
+
+		ArrayList<Entry> left = new ArrayList<Entry>();
+		ArrayList<Entry> right = new ArrayList<Entry>();
+		ArrayList<Entry> crossing = new ArrayList<Entry>();
+		for (Entry entry : list) {
+			if (entry.max(columns) < center) {
+				left.add(entry);
+			} else if (entry.min(columns) > center) {
+				right.add(entry);
+			} else {
+				crossing.add(entry);
+			}
+		}
+		Node node = new Node(columns, center);
+		node.left = build(left, columns);
+		node.right = build(right, columns);
+		if (columns) {
+			node.crossing = build(crossing, false);
+		} else {
+			node.byMin = crossing.toArray(new Entry[crossing.size()]);
+			Arrays.sort(node.byMin, new Comparator<Entry>() {
+				public int compare(Entry e1, Entry e2) {
+					return e1.minRow < e2.minRow ? -1
+							: (e1.minRow == e2.minRow ? 0 : 1);
+				}
+			});
+			node.byMax = crossing.toArray(new Entry[crossing.size()]);
+			Arrays.sort(node.byMax, new Comparator<Entry>() {
+				public int compare(Entry e1, Entry e2) {
+					return e1.maxRow > e2.maxRow ? -1
+							: (e1.maxRow == e2.maxRow ? 0 : 1);
+				}
+			});
+		}
+		return node;
+	}
+
+	private static void query(Node root, GPoint location,
+			List<AlgoCellRange> result) {
+		Node node = root;
+		while (node != null) {
+			int value = node.columns ? location.x : location.y;
+			if (node.columns) {
+				query(node.crossing, location, result);
+			} else if (value < node.center) {
+				for (int i = 0; i < node.byMin.length
+						&& node.byMin[i].minRow <= value; i++) {
+					node.byMin[i].collect(location, result);
+				}
+			} else if (value > node.center) {
+				for (int i = 0; i < node.byMax.length
+						&& node.byMax[i].maxRow >= value; i++) {
+					node.byMax[i].collect(location, result);
+				}
+			} else {
+				for (int i = 0; i < node.byMin.length; i++) {
+					node.byMin[i].collect(location, result);
+				}
+			}
+			if (value < node.center) {
+				node = node.left;
+			} else if (value > node.center) {
+				node = node.right;
+			} else {
+				node = null;
+			}
+		}
+	}
+
+	/**
+	 * Range algo with the bounds of its range
+	 */
+	private static final class Entry {
+		final AlgoCellRange algo;
+		final int minColumn, maxColumn, minRow, maxRow;
+
+		Entry(AlgoCellRange algo) {
+			this.algo = algo;
+			CellRange range = algo.getCellRange();
+			// -1 stands for whole rows or columns
+			boolean allColumns = range.getMinColumn() == -1;
+			boolean allRows = range.getMinRow() == -1;
+			minColumn = allColumns ? 0 : range.getMinColumn();
+			maxColumn = allColumns ? Integer.MAX_VALUE : range.getMaxColumn();
+			minRow = allRows ? 0 : range.getMinRow();
+			maxRow = allRows ? Integer.MAX_VALUE : range.getMaxRow();
+		}
+
+		int min(boolean columns) {
+			return columns ? minColumn : minRow;
+		}
+
+		int max(boolean columns) {
+			return columns ? maxColumn : maxRow;
+		}
+
+		void collect(GPoint location, List<AlgoCellRange> result) {
+			if (location.x >= minColumn && location.x <= maxColumn
+					&& location.y >= minRow && location.y <= maxRow
+					&& algo.getCellRange().contains(location)) {
+				result.add(algo);
+			}
+		}
+	}
+
+	/**
+	 * Node of an interval tree over columns or rows
+	 */
+	private static final class Node {
+		final boolean columns;
+		final int center;
+		Node left, right;
+		/** column node: tree over rows of the ranges containing center */
+		Node crossing;
+		/** row node: ranges containing center, by ascending min row */
+		Entry[] byMin;
+		/** row node: ranges containing center, by descending max row */
+		Entry[] byMax;
+
+		Node(boolean columns, int center) {
+			this.columns = columns;
+			this.center = center;
+		}
+	}
+}
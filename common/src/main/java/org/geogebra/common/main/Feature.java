@@ -185,6 +185,24 @@ public enum Feature {
 	MORE_DISPLAY_FORMS,
 
 	// GGB-1236
-	DRAGGING_NON_MOVEABLE_OBJECT_SPIN_THE_VIEW
+	DRAGGING_NON_MOVEABLE_OBJECT_SPIN_THE_VIEW,
+
+	// evaluate functions with compiled, allocation-free expressions
+	COMPILED_FUNCTIONS,
+
+	// compute independent algos of update cascade in parallel
+	PARALLEL_UPDATE_CASCADE,
+
+	// skip algos with unchanged input in updateConstruction(true)
+	INCREMENTAL_UPDATE_CONSTRUCTION,
+
+	// evaluate CAS commands of algos in background and update afterwards
+	ASYNCHRONOUS_CAS,
+
+	// spatial index for hit testing in graphics views
+	HIT_INDEX,
+
+	// cache layers of graphics views in offscreen images
+	LAYER_CACHE
 
 	}
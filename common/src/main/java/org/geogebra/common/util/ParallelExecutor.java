@@ -0,0 +1,48 @@
+package org.geogebra.common.util;
+
+import java.util.List;
+
+/**
+ * Runs batches of independent tasks. This implementation runs them one after
+ * another in the calling thread (web, applets); platforms with threads replace
+ * the prototype by a parallel implementation.
+ *
+ * Tasks must not touch shared state (construction, views, function variables)
+ * unless it is guarded, see e.g. FunctionNVar.createEvaluationContext().
+ */
+public class ParallelExecutor {
+
+	/**
+	 * executor used by common code, replaced by platforms that support
+	 * threads
+	 */
+	public static ParallelExecutor prototype = new ParallelExecutor();
+
+	/**
+	 * @return number of tasks that can run at the same time
+	 */
+	public int getParallelism() {
+		return 1;
+	}
+
+	/**
+	 * @return whether tasks passed to invokeAll may run concurrently
+	 */
+	public final boolean isParallel() {
+		return getParallelism() > 1;
+	}
+
+	/**
+	 * Runs all tasks and returns when all of them are finished. Runtime
+	 * exceptions thrown by the tasks are passed to the caller.
+	 *
+	 * @param tasks
+	 *            independent tasks
+	 */
+	public void invokeAll(List<? extends Runnable> tasks) {
+		for (Runnable task : tasks) {
+			task.run();
+		}
+	}
+
+}
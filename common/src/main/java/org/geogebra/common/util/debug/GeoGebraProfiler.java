@@ -19,6 +19,32 @@ public abstract class GeoGebraProfiler {
 
 	private static long algebraTime, eventTime, hitTime, cascadeTime;
 
+	private static int algosComputed, algosSkipped;
+
+	private static int curvePlots;
+
+	private static int layerFrames, layerFullFrames;
+
+	private static long layerTime, layerFullTime, layerDrawn, layerReused;
+
+	private static long curveEvaluations, curvePoints;
+
+	private static int implicitPlots, implicitDepth;
+
+	private static long implicitTime, implicitEvaluations, implicitReused;
+
+	private static int surfaceMeshes;
+
+	private static long surfaceTime, surfaceCorners, surfacePrefetched;
+
+	private static int loci, lociTimeExceeded;
+
+	private static long locusTime, locusPoints, locusCached, locusPrefetched;
+
+	private static long formulaHits, formulaMisses;
+
+	private static int formulasCached;
+
 	/**
 	 */
 	public abstract void profile();
@@ -102,6 +128,50 @@ public abstract class GeoGebraProfiler {
 				Log.debug("Profile EventDispatcher: " + event + " x "
 						+ (eventTime / event) + " = " + eventTime);
 			}
+			if (algosSkipped > 0) {
+				Log.debug("Profile UpdateConstruction: " + algosComputed
+						+ " computed, " + algosSkipped + " skipped");
+			}
+			if (curvePlots > 0) {
+				Log.debug("Profile CurvePlotter: " + curvePlots + " x "
+						+ (curveEvaluations / curvePlots) + " evaluations, "
+						+ (curvePoints / curvePlots) + " points");
+			}
+			if (implicitPlots > 0) {
+				Log.debug("Profile ImplicitCurve: " + implicitPlots + " x "
+						+ (implicitTime / implicitPlots) + " = "
+						+ implicitTime + ", depth " + implicitDepth + ", "
+						+ (implicitEvaluations / implicitPlots)
+						+ " evaluations, " + (implicitReused / implicitPlots)
+						+ " reused");
+			}
+			if (surfaceMeshes > 0) {
+				Log.debug("Profile SurfaceMesh: " + surfaceMeshes + " x "
+						+ (surfaceTime / surfaceMeshes) + " = " + surfaceTime
+						+ ", " + (surfaceCorners / surfaceMeshes)
+						+ " corners, " + (surfacePrefetched / surfaceMeshes)
+						+ " points evaluated in parallel");
+			}
+			if (loci > 0) {
+				Log.debug("Profile Locus: " + loci + " x " + (locusTime / loci)
+						+ " = " + locusTime + ", " + (locusPoints / loci)
+						+ " points, " + (locusCached / loci) + " cached, "
+						+ (locusPrefetched / loci)
+						+ " computed in parallel, time exceeded "
+						+ lociTimeExceeded + " x");
+			}
+			if (formulaMisses > 0) {
+				Log.debug("Profile FormulaCache: " + formulaHits + " hits, "
+						+ formulaMisses + " misses, " + formulasCached
+						+ " cached");
+			}
+			if (layerFrames + layerFullFrames > 0) {
+				Log.debug("Profile LayerCache: full " + layerFullFrames + " x "
+						+ (layerFullTime / Math.max(layerFullFrames, 1))
+						+ ", partial " + layerFrames + " x "
+						+ (layerTime / Math.max(layerFrames, 1)) + ", drawn "
+						+ layerDrawn + ", reused " + layerReused);
+			}
 		}
 
 	}
@@ -127,4 +197,124 @@ public abstract class GeoGebraProfiler {
 		event++;
 		eventTime += l;
 	}
+
+	/**
+	 * @param computed
+	 *            number of algos computed by incremental construction update
+	 * @param skipped
+	 *            number of algos whose input did not change
+	 */
+	public static void addUpdateConstruction(int computed, int skipped) {
+		algosComputed += computed;
+		algosSkipped += skipped;
+	}
+
+	/**
+	 * @param evaluations
+	 *            number of evaluations of a plotted curve
+	 * @param points
+	 *            number of points of the plotted path
+	 */
+	public static void addCurvePlot(long evaluations, int points) {
+		curvePlots++;
+		curveEvaluations += evaluations;
+		curvePoints += points;
+	}
+
+	/**
+	 * @param time
+	 *            time to compute the path of an implicit curve
+	 * @param depth
+	 *            refinement depth used for the path
+	 * @param evaluations
+	 *            number of evaluations on the coarse grid
+	 * @param reused
+	 *            number of values of the coarse grid taken from previous path
+	 */
+	public static void addImplicitCurvePlot(long time, int depth,
+			int evaluations, int reused) {
+		implicitPlots++;
+		implicitTime += time;
+		implicitDepth = depth;
+		implicitEvaluations += evaluations;
+		implicitReused += reused;
+	}
+
+	/**
+	 * @param time
+	 *            time to update the mesh of a 3D surface
+	 * @param corners
+	 *            number of corners of the mesh
+	 * @param prefetched
+	 *            number of points evaluated by other threads
+	 */
+	public static void addSurfaceMesh(long time, int corners, int prefetched) {
+		surfaceMeshes++;
+		surfaceTime += time;
+		surfaceCorners += corners;
+		surfacePrefetched += prefetched;
+	}
+
+	/**
+	 * @param time
+	 *            time to compute a locus
+	 * @param points
+	 *            number of points of the locus
+	 * @param cached
+	 *            number of steps taken from the cache
+	 * @param prefetched
+	 *            number of steps computed by other threads
+	 * @param timeExceeded
+	 *            whether the computation was stopped because one step took
+	 *            too long
+	 */
+	public static void addLocus(long time, int points, int cached,
+			int prefetched, boolean timeExceeded) {
+		loci++;
+		locusTime += time;
+		locusPoints += points;
+		locusCached += cached;
+		locusPrefetched += prefetched;
+		if (timeExceeded) {
+			lociTimeExceeded++;
+		}
+	}
+
+	/**
+	 * @param hit
+	 *            whether a laid out formula was found in the cache
+	 * @param cached
+	 *            number of formulas in the cache
+	 */
+	public static void addFormulaCache(boolean hit, int cached) {
+		if (hit) {
+			formulaHits++;
+		} else {
+			formulaMisses++;
+		}
+		formulasCached = cached;
+	}
+
+	/**
+	 * @param time
+	 *            time to draw the layers of a graphics view
+	 * @param full
+	 *            whether some layer was drawn completely
+	 * @param drawn
+	 *            number of drawables drawn
+	 * @param reused
+	 *            number of drawables taken from the layer cache
+	 */
+	public static void addLayerCacheFrame(long time, boolean full, int drawn,
+			int reused) {
+		if (full) {
+			layerFullFrames++;
+			layerFullTime += time;
+		} else {
+			layerFrames++;
+			layerTime += time;
+		}
+		layerDrawn += drawn;
+		layerReused += reused;
+	}
 }
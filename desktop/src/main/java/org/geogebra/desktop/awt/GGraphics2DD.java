@@ -7,6 +7,7 @@ import java.awt.Graphics2D;
 import java.awt.Paint;
 import java.awt.RenderingHints;
 import java.awt.RenderingHints.Key;
+import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 
@@ -271,6 +272,11 @@ public class GGraphics2DD implements GGraphics2D {
 		}
 	}
 
+	public GShape getClip() {
+		Shape clip = impl.getClip();
+		return clip == null ? null : new GGenericShapeD(clip);
+	}
+
 	public void resetClip() {
 		impl.setClip(null);
 	}
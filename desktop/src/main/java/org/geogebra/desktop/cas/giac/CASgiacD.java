@@ -1,5 +1,7 @@
 package org.geogebra.desktop.cas.giac;
 
+import javax.swing.SwingUtilities;
+
 import org.geogebra.common.cas.CASparser;
 import org.geogebra.common.cas.CasParserTools;
 import org.geogebra.common.jre.cas.giac.CASgiacJre;
@@ -99,4 +101,9 @@ public class CASgiacD extends CASgiacJre {
 		thread.stop();
 	}
 
+	@Override
+	protected void runInMainThread(Runnable r) {
+		SwingUtilities.invokeLater(r);
+	}
+
 }
@@ -68,6 +68,12 @@ public class DrawEquationD extends DrawEquation {
 
 	}
 
+	@Override
+	public void clearCache() {
+		super.clearCache();
+		JLaTeXMathCache.clearCache();
+	}
+
 	final public GDimension drawEquation(final App app,
 			final GeoElementND geo, final GGraphics2D g2, final int x,
 			final int y, final String text, final GFont font,
@@ -663,6 +663,11 @@ public class EuclidianViewD extends EuclidianView implements
 		g2.drawImage(bgImage, null, 0, 0);
 	}
 
+	@Override
+	protected boolean supportsLayerCache() {
+		return true;
+	}
+
 	@Override
 	public void add(GBox box) {
 		evjpanel.add(((GBoxD) box).getImpl());
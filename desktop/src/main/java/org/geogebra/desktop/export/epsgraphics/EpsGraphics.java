@@ -871,7 +871,7 @@ abstract public class EpsGraphics implements GGraphics2D {
 	/**
 	 * Gets the current clipping area.
 	 */
-	protected GShape getClip() {
+	public GShape getClip() {
 		if (_clip == null) {
 			return null;
 		}
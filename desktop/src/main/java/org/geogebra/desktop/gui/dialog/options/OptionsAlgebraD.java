@@ -76,7 +76,7 @@ public class OptionsAlgebraD extends OptionsAlgebra
 				if (description.getSelectedIndex() >= 0) {
 					app.getKernel().setAlgebraStyle(
 							description.getSelectedIndex());
-					app.getKernel().updateConstruction();
+					app.getKernel().updateConstruction(true);
 				}
 			}
 		});
@@ -220,7 +220,7 @@ public class AlgebraHelperBar extends JToolBar implements ActionListener {
 			mi.addActionListener(new ActionListener() {
 				public void actionPerformed(ActionEvent e) {
 					app.getKernel().setAlgebraStyle(current);
-					app.getKernel().updateConstruction();
+					app.getKernel().updateConstruction(true);
 					buildDescriptionMenu();
 				}
 			});
@@ -30,6 +30,7 @@ import java.util.zip.ZipInputStream;
 import javax.imageio.ImageIO;
 
 import org.geogebra.common.jre.gui.MyImageJre;
+import org.geogebra.common.jre.io.BinaryXML;
 import org.geogebra.common.jre.io.MyXMLioJre;
 import org.geogebra.common.kernel.Construction;
 import org.geogebra.common.kernel.Kernel;
@@ -64,6 +65,7 @@ public class MyXMLioD extends MyXMLioJre {
 		// before we process the XML file, that's why we
 		// read the XML file into a buffer first
 		byte[] xmlFileBuffer = null;
+		byte[] binaryFileBuffer = null;
 		byte[] macroXmlFileBuffer = null;
 		byte[] defaults2dXmlFileBuffer = null;
 		byte[] defaults3dXmlFileBuffer = null;
@@ -88,6 +90,9 @@ public class MyXMLioD extends MyXMLioJre {
 				xmlFileBuffer = UtilD.loadIntoMemory(zip);
 				xmlFound = true;
 				handler = getGGBHandler();
+			} else if (name.equals(BINARY_FILE)) {
+				// binary copy of the construction
+				binaryFileBuffer = UtilD.loadIntoMemory(zip);
 			} else if (name.equals(XML_FILE_DEFAULTS_2D)) {
 				// load defaults xml file into memory first
 				defaults2dXmlFileBuffer = UtilD.loadIntoMemory(zip);
@@ -154,7 +159,13 @@ public class MyXMLioD extends MyXMLioJre {
 		if (!isGGTfile && xmlFileBuffer != null) {
 			kernel.getConstruction().setFileLoading(true);
 			app.getCompanion().resetEuclidianViewForPlaneIds();
-			processXMLBuffer(xmlFileBuffer, !macroXMLfound, isGGTfile);
+			// ignore binary copy if the XML was changed by another program
+			if (BinaryXML.isEncodingOf(binaryFileBuffer, xmlFileBuffer)) {
+				processBinaryBuffer(binaryFileBuffer, !macroXMLfound,
+						isGGTfile);
+			} else {
+				processXMLBuffer(xmlFileBuffer, !macroXMLfound, isGGTfile);
+			}
 			kernel.getConstruction().setFileLoading(false);
 		}
 		
@@ -16,9 +16,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.zip.ZipInputStream;
 
 import javax.swing.DefaultListSelectionModel;
 
@@ -35,7 +37,8 @@ import org.geogebra.desktop.main.AppD;
 
 /**
  * UndoManager handles undo information for a Construction. It uses an undo info
- * list with construction snapshots in temporary files.
+ * list with construction snapshots in temporary files, most undo points are
+ * kept in memory as differences to these snapshots.
  * 
  * @author Markus Hohenwarter
  */
@@ -49,15 +52,19 @@ public class UndoManagerD extends UndoManager {
 	 */
 	protected class AppStateDesktop implements AppState {
 		private File f;
+		private int size;
 
 		/**
 		 * Wrap file into app state
 		 * 
 		 * @param f
 		 *            file
+		 * @param size
+		 *            length of the XML in the file
 		 */
-		AppStateDesktop(File f) {
+		AppStateDesktop(File f, int size) {
 			this.f = f;
+			this.size = size;
 		}
 
 		/**
@@ -73,6 +80,10 @@ public class UndoManagerD extends UndoManager {
 			f.delete();
 
 		}
+
+		public int getSize() {
+			return size;
+		}
 	}
 
 	private static final String TEMP_FILE_PREFIX = "GeoGebraUndoInfo";
@@ -146,11 +157,10 @@ public class UndoManagerD extends UndoManager {
 
 					// perform the security-sensitive operation here
 
-					// save to file
-					File undoInfo = createTempFile(undoXML);
+					// delta to current state or checkpoint in temp file
+					AppState appStateToAdd = createUndoInfo(undoXML);
 
 					// insert undo info
-					AppState appStateToAdd = new AppStateDesktop(undoInfo);
 					iterator.add(appStateToAdd);
 					pruneStateList();
 					app.getEventDispatcher().dispatchEvent(
@@ -180,7 +190,7 @@ public class UndoManagerD extends UndoManager {
 	 * @throws IOException
 	 *             on file creation problem
 	 */
-	synchronized static File createTempFile(StringBuilder undoXML)
+	synchronized static File createTempFile(String undoXML)
 			throws IOException {
 		// create temp file
 		File tempFile = File.createTempFile(TEMP_FILE_PREFIX, ".ggb");
@@ -189,21 +199,44 @@ public class UndoManagerD extends UndoManager {
 
 		// create file
 		FileOutputStream fos = new FileOutputStream(tempFile);
-		MyXMLioD.writeZipped(fos, undoXML);
+		MyXMLioD.writeZipped(fos, new StringBuilder(undoXML));
 		fos.close();
 
 		return tempFile;
 	}
 
+	@Override
+	protected AppState createCheckpoint(String xml) throws IOException {
+		return new AppStateDesktop(createTempFile(xml), xml.length());
+	}
+
+	@Override
+	protected String getCheckpointXML(AppState state) throws IOException {
+		File tempFile = ((AppStateDesktop) state).getFile();
+		ZipInputStream zip = new ZipInputStream(new FileInputStream(tempFile));
+		try {
+			zip.getNextEntry();
+			Reader reader = new InputStreamReader(zip, "UTF8");
+			StringBuilder sb = new StringBuilder(state.getSize());
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = reader.read(buffer)) > 0) {
+				sb.append(buffer, 0, read);
+			}
+			return sb.toString();
+		} finally {
+			zip.close();
+		}
+	}
+
 	/**
 	 * restore info at position pos of undo list
 	 */
 	@Override
 	final protected synchronized void loadUndoInfo(final AppState info) {
 		try {
-			// load from file
-			File tempFile = ((AppStateDesktop) info).getFile();
-			InputStream is = new FileInputStream(tempFile);
+			// rebuild XML from last checkpoint and deltas
+			String undoXML = getUndoXML(info);
 
 			// make sure objects are displayed in the correct View
 			app.setActiveView(App.VIEW_EUCLIDIAN);
@@ -236,16 +269,18 @@ public class UndoManagerD extends UndoManager {
 
 			// load undo info
 			((AppD) app).getScriptManager().disableListeners();
-			((MyXMLioD) construction.getXMLio())
-					.readZipFromMemory(is);
+			if (!restoreInPlace(undoXML)) {
+				construction.setFileLoading(true);
+				((MyXMLioD) construction.getXMLio()).processXMLString(
+						undoXML, true, false, true);
+				construction.setFileLoading(false);
+			}
 			if (changed) {
 				listSelModel.setAnchorSelectionIndex(anchorIndex);
 				listSelModel.setLeadSelectionIndex(leadIndex);
 				listSelModel.setSelectionInterval(minIndex, maxIndex);
 			}
 			((AppD) app).getScriptManager().enableListeners();
-
-			is.close();
 		} catch (Exception e) {
 			Log.error("setUndoInfo: " + e.toString());
 			e.printStackTrace();
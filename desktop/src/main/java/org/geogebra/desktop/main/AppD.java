@@ -132,8 +132,10 @@ import org.geogebra.common.io.layout.DockPanelData;
 import org.geogebra.common.io.layout.Perspective;
 import org.geogebra.common.io.layout.PerspectiveDecoder;
 import org.geogebra.common.javax.swing.GImageIcon;
+import org.geogebra.common.jre.cas.CASCacheStoreJre;
 import org.geogebra.common.jre.factory.FormatFactoryJre;
 import org.geogebra.common.jre.util.Base64;
+import org.geogebra.common.jre.util.ParallelExecutorJre;
 import org.geogebra.common.kernel.Construction;
 import org.geogebra.common.kernel.Kernel;
 import org.geogebra.common.kernel.Macro;
@@ -166,6 +168,7 @@ import org.geogebra.common.util.GTimer.GTimerListener;
 import org.geogebra.common.util.Language;
 import org.geogebra.common.util.LowerCaseDictionary;
 import org.geogebra.common.util.NormalizerMinimal;
+import org.geogebra.common.util.ParallelExecutor;
 import org.geogebra.common.util.StringUtil;
 import org.geogebra.common.util.Util;
 import org.geogebra.common.util.debug.Log;
@@ -695,6 +698,8 @@ ToolbarD.getAllTools(this));
 
 		UtilFactory.prototype = new UtilFactoryD();
 
+		ParallelExecutor.prototype = new ParallelExecutorJre();
+
 		// moved to getFactory() so that applets load quicker
 		// geogebra.common.factories.Factory.prototype = new FactoryD();
 
@@ -749,6 +754,7 @@ ToolbarD.getAllTools(this));
 							+ "  --versionCheckAllow=SETTING\tallow version check (on/off or true/false for single launch)\n"
 							+ "  --logLevel=LEVEL\tset logging level (EMERGENCY|ALERT|CRITICAL|ERROR|WARN|NOTICE|INFO|DEBUG|TRACE)\n"
 							+ "  --logFile=FILENAME\tset log file\n"
+							+ "  --casCache=PATH\tkeep CAS results in given directory for later sessions\n"
 							+ "  --silent\tCompletely mute logging\n"
 							+ "  --prover=OPTIONS\tSet options for the prover subsystem (use --proverhelp for more information)\n"
 					/*
@@ -1264,6 +1270,18 @@ ToolbarD.getAllTools(this));
 		if (args.containsArg("regressionFile")) {
 			this.regressionFileName = args.getStringValue("regressionFile");
 		}
+		if (args.containsArg("casCache")) {
+			// stored results are only valid for the Giac that computed them
+			String casVersion = kernel.getGeoGebraCAS().getCurrentCAS()
+					.evaluateCAS("version()");
+			if (casVersion == null) {
+				Log.warn("CAS cache disabled, unknown CAS version");
+			} else {
+				kernel.setCasCacheStore(new CASCacheStoreJre(new File(args
+						.getStringValue("casCache")), casVersion,
+						CASCacheStoreJre.DEFAULT_MAX_BYTES));
+			}
+		}
 		if (args.containsArg("prover")) {
 			String[] proverOptions = args.getStringValue("prover").split(",");
 			for (int i = 0; i < proverOptions.length; i++) {
@@ -2563,6 +2581,8 @@ ToolbarD.getAllTools(this));
 			// go back to previous locale
 			loc.setLocale(oldLocale);
 		}
+		// formulas may use fonts of the language
+		getDrawEquation().clearCache();
 
 		getLocalization().updateLanguageFlags(locale.getLanguage());
 
@@ -0,0 +1,127 @@
+package org.geogebra.cas;
+
+import java.util.Locale;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.commands.AlgebraProcessor;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoFunction;
+import org.geogebra.common.kernel.geos.GeoFunctionNVar;
+import org.geogebra.common.kernel.geos.GeoNumeric;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that asynchronous CAS commands end with the result for their latest
+ * input.
+ */
+public class AsynchronousCASTest {
+	private static AppD app;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent",
+				"--prerelease" }), new JFrame(), false);
+		app.setLanguage(Locale.US);
+	}
+
+	private static double value(String label) {
+		GeoElement geo = app.getKernel().lookupLabel(label);
+		if (geo instanceof GeoFunction) {
+			return ((GeoFunction) geo).evaluate(1);
+		}
+		if (geo instanceof GeoFunctionNVar) {
+			return ((GeoFunctionNVar) geo).evaluate(new double[] { 1, 1 });
+		}
+		return geo == null ? Double.NaN : ((GeoNumeric) geo).getDouble();
+	}
+
+	private static void runInEDT(Runnable r) throws Exception {
+		SwingUtilities.invokeAndWait(r);
+	}
+
+	/**
+	 * Waits until all pending results are passed to the construction
+	 */
+	private static void waitFor(final String label, final double expected)
+			throws Exception {
+		final boolean[] done = { false };
+		long start = System.currentTimeMillis();
+		while (!done[0] && System.currentTimeMillis() - start < 30000) {
+			Thread.sleep(20);
+			runInEDT(new Runnable() {
+				public void run() {
+					done[0] = Math.abs(value(label) - expected) < 1E-8;
+				}
+			});
+		}
+		Assert.assertEquals(label, expected, value(label), 1E-8);
+	}
+
+	@Test
+	public void latestInputWins() throws Exception {
+		runInEDT(new Runnable() {
+			public void run() {
+				Kernel kernel = app.getKernel();
+				kernel.clearConstruction(true);
+				Assert.assertTrue(kernel.isCASAsynchronous());
+				AlgebraProcessor ap = kernel.getAlgebraProcessor();
+				String[] defs = { "a=1", "f(x)=(x^2-a^2)/(x-a)", "L=Limit(f,a)",
+						"g(x)=sin(x)/x", "K=Limit(g,0)", "M=Limit(f,a+1)",
+						"s=L+K" };
+				for (String def : defs) {
+					ap.processAlgebraCommand(def, false);
+				}
+				// several updates in one event: only the last input counts
+				for (int i = 2; i <= 4; i++) {
+					((GeoNumeric) kernel.lookupLabel("a")).setValue(i);
+					kernel.lookupLabel("a").updateCascade();
+				}
+				// removed while pending
+				kernel.lookupLabel("M").remove();
+			}
+		});
+		waitFor("L", 8);
+		waitFor("K", 1);
+		// dependent objects were updated after the results arrived
+		waitFor("s", 9);
+		Assert.assertTrue(Double.isNaN(value("M")));
+	}
+
+	@Test
+	public void casFunctionsKeepOldValueUntilResult() throws Exception {
+		runInEDT(new Runnable() {
+			public void run() {
+				Kernel kernel = app.getKernel();
+				kernel.clearConstruction(true);
+				AlgebraProcessor ap = kernel.getAlgebraProcessor();
+				String[] defs = { "a=1", "f(x)=x^2-a^2", "F=Factor(f)",
+						"g(x)=cos(a x)", "G=Integral(g)",
+						"h(x,y)=a x^2 y", "H=Derivative(h,x)", "t=F(1)+1" };
+				for (String def : defs) {
+					ap.processAlgebraCommand(def, false);
+				}
+				// the first computation is synchronous
+				Assert.assertEquals(0, value("F"), 1E-8);
+				Assert.assertEquals(Math.sin(1), value("G"), 1E-8);
+				Assert.assertEquals(2, value("H"), 1E-8);
+				for (int i = 2; i <= 3; i++) {
+					((GeoNumeric) kernel.lookupLabel("a")).setValue(i);
+					kernel.lookupLabel("a").updateCascade();
+				}
+			}
+		});
+		waitFor("F", -8);
+		waitFor("G", Math.sin(3) / 3);
+		waitFor("H", 6);
+		// dependent objects were updated after the results arrived
+		waitFor("t", -7);
+	}
+}
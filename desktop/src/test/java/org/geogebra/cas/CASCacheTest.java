@@ -0,0 +1,136 @@
+package org.geogebra.cas;
+
+import java.io.File;
+import java.util.HashMap;
+
+import org.geogebra.common.cas.CASCache;
+import org.geogebra.common.cas.CASCacheStore;
+import org.geogebra.common.jre.cas.CASCacheStoreJre;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the CAS result cache and its persistent store.
+ */
+public class CASCacheTest {
+
+	private static class MemoryStore implements CASCacheStore {
+		final HashMap<String, String> results = new HashMap<String, String>();
+
+		public String load(String key) {
+			return results.get(key);
+		}
+
+		public void store(String key, String result) {
+			results.put(key, result);
+		}
+
+		public void clear() {
+			results.clear();
+		}
+	}
+
+	@Test
+	public void roundTripThroughStore() {
+		MemoryStore store = new MemoryStore();
+		CASCache cache = new CASCache("test", 10, 1000);
+		cache.setStore(store);
+		cache.put("Factor[x^2-1]", "(x-1)*(x+1)");
+		Assert.assertEquals("(x-1)*(x+1)", cache.get("Factor[x^2-1]"));
+		Assert.assertEquals(1, cache.getHits());
+
+		// new session, same store
+		CASCache cache2 = new CASCache("test", 10, 1000);
+		cache2.setStore(store);
+		Assert.assertEquals("(x-1)*(x+1)", cache2.get("Factor[x^2-1]"));
+		Assert.assertEquals(1, cache2.getStoreHits());
+		Assert.assertEquals(1, cache2.size());
+		Assert.assertNull(cache2.get("Expand[x]"));
+		Assert.assertEquals(1, cache2.getMisses());
+
+		// other namespace does not see the result
+		CASCache other = new CASCache("other", 10, 1000);
+		other.setStore(store);
+		Assert.assertNull(other.get("Factor[x^2-1]"));
+	}
+
+	@Test
+	public void failedResultsAreNotStored() {
+		MemoryStore store = new MemoryStore();
+		CASCache cache = new CASCache("test", 10, 1000);
+		cache.setStore(store);
+		String[] failed = { "", "?", "?undefined", "GIAC_ERROR: x" };
+		for (int i = 0; i < failed.length; i++) {
+			cache.put("in" + i, failed[i]);
+			Assert.assertEquals(failed[i], cache.get("in" + i));
+		}
+		cache.put("null", null);
+		Assert.assertNull(cache.get("null"));
+		Assert.assertTrue(store.results.isEmpty());
+
+		// raw results only in memory
+		cache.put("raw", "1", false);
+		Assert.assertEquals("1", cache.get("raw"));
+		Assert.assertTrue(store.results.isEmpty());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted() {
+		CASCache cache = new CASCache("test", 3, 1000);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		cache.get("a");
+		cache.put("d", "4");
+		Assert.assertEquals(3, cache.size());
+		Assert.assertNull(cache.get("b"));
+		Assert.assertEquals("1", cache.get("a"));
+		Assert.assertEquals(1, cache.getEvictions());
+
+		// bounded by length too
+		CASCache small = new CASCache("test", 100, 10);
+		small.put("a", "1234");
+		small.put("b", "5678");
+		small.put("c", "9");
+		Assert.assertNull(small.get("a"));
+		Assert.assertEquals("5678", small.get("b"));
+		small.put("d", "0123456789");
+		Assert.assertNull(small.get("d"));
+		Assert.assertEquals(2, small.size());
+	}
+
+	@Test
+	public void clearKeepsStoredResults() {
+		MemoryStore store = new MemoryStore();
+		CASCache cache = new CASCache("test", 10, 1000);
+		cache.setStore(store);
+		cache.put("a", "1");
+		cache.put("b", "2", false);
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+		Assert.assertNull(cache.get("b"));
+		Assert.assertEquals("1", cache.get("a"));
+		Assert.assertEquals(1, cache.getStoreHits());
+	}
+
+	@Test
+	public void fileStoreRoundTrip() throws Exception {
+		File dir = File.createTempFile("cascache", "");
+		dir.delete();
+		String version = "giac 1.2.2-57, (c) B. Parisse and R. De Graeve";
+		CASCacheStoreJre store = new CASCacheStoreJre(dir, version,
+				1024 * 1024);
+		Assert.assertNull(store.load("k"));
+		store.store("k", "x^2");
+		store.store("ké", "é");
+		Assert.assertEquals("x^2", store.load("k"));
+		Assert.assertEquals("é",
+				new CASCacheStoreJre(dir, version, 1024 * 1024).load("ké"));
+		// results of another Giac are not used
+		Assert.assertNull(new CASCacheStoreJre(dir, "giac 1.2.3-1",
+				1024 * 1024).load("k"));
+		store.clear();
+		Assert.assertNull(store.load("k"));
+		Assert.assertNull(store.load("ké"));
+	}
+}
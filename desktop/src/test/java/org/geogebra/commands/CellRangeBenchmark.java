@@ -0,0 +1,71 @@
+package org.geogebra.commands;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.commands.AlgebraProcessor;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.gui.view.spreadsheet.CopyPasteCutD;
+import org.geogebra.desktop.main.AppD;
+
+/**
+ * Times pasting cells into a sheet with many cell ranges, block by block so
+ * that every cell is passed to the range algos containing it, and as one
+ * large block. Checking the ranges is left to CellRangeTest; run as
+ * application.
+ */
+public class CellRangeBenchmark {
+	private static final int ROWS = 6000;
+	private static final int COLUMNS = 3;
+	private static final int RANGE_ROWS = 10;
+	/** small enough for the cells to be added one by one */
+	private static final int BLOCK_ROWS = 500;
+
+	public static void main(String[] args) {
+		AppD app = new AppD(new CommandLineArguments(
+				new String[] { "--silent" }), new JFrame(), false);
+		String[][] data = CellRangeTest.data(ROWS, COLUMNS);
+		// warm up
+		run(app, data, true);
+		run(app, data, false);
+		run(app, data, true);
+		System.exit(0);
+	}
+
+	private static void run(AppD app, String[][] data, boolean ranges) {
+		clear(app, ranges);
+		CopyPasteCutD paste = new CopyPasteCutD(app);
+		long time = System.nanoTime();
+		for (int row = 0; row < ROWS; row += BLOCK_ROWS) {
+			String[][] block = new String[BLOCK_ROWS][];
+			System.arraycopy(data, row, block, 0, BLOCK_ROWS);
+			paste.pasteExternal(block, 0, row, COLUMNS - 1, ROWS - 1);
+		}
+		long blocks = System.nanoTime() - time;
+
+		clear(app, ranges);
+		time = System.nanoTime();
+		paste.pasteExternal(data, 0, 0, COLUMNS - 1, ROWS - 1);
+		long whole = System.nanoTime() - time;
+		System.out.println((ranges ? COLUMNS * ROWS / RANGE_ROWS : 0)
+				+ " ranges: " + ROWS * COLUMNS + " cells in blocks "
+				+ blocks / 1000000 + " ms, at once " + whole / 1000000
+				+ " ms");
+	}
+
+	private static void clear(AppD app, boolean ranges) {
+		Kernel kernel = app.getKernel();
+		kernel.clearConstruction(true);
+		if (!ranges) {
+			return;
+		}
+		AlgebraProcessor ap = kernel.getAlgebraProcessor();
+		for (int col = 0; col < COLUMNS; col++) {
+			char name = (char) ('A' + col);
+			for (int row = 1; row <= ROWS; row += RANGE_ROWS) {
+				ap.processAlgebraCommand("" + name + row + ":" + name
+						+ (row + RANGE_ROWS - 1), false);
+			}
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package org.geogebra.commands;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.awt.GPoint;
+import org.geogebra.common.gui.view.spreadsheet.CellRange;
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.geos.GeoList;
+import org.geogebra.common.kernel.statistics.AlgoCellRange;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.gui.view.spreadsheet.CopyPasteCutD;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Pastes blocks of cells into a sheet with many cell ranges and checks that
+ * every range got exactly its cells, also after ranges and cells were
+ * removed.
+ */
+public class CellRangeTest {
+	/** small enough for the cells to be added one by one */
+	private static final int ROWS = 600;
+	private static final int COLUMNS = 3;
+	private static final int RANGE_ROWS = 10;
+	private static AppD app;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+	}
+
+	/**
+	 * @return rows x columns of cell values
+	 */
+	static String[][] data(int rows, int columns) {
+		String[][] data = new String[rows][columns];
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < columns; col++) {
+				data[row][col] = "" + (row + 1);
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * @return range list of the given column
+	 */
+	static GeoList range(char column, int from, int to) {
+		return (GeoList) app.getKernel().getAlgebraProcessor()
+				.processAlgebraCommand("" + column + from + ":" + column + to,
+						false)[0];
+	}
+
+	/**
+	 * Checks that the list of the range has exactly the defined cells of it
+	 *
+	 * @param defined
+	 *            defined cells by zero based row
+	 */
+	private static void checkCells(GeoList list, boolean[] defined) {
+		CellRange range = ((AlgoCellRange) list.getParentAlgorithm())
+				.getCellRange();
+		int expected = 0;
+		for (int row = range.getMinRow(); row <= range.getMaxRow()
+				&& row < defined.length; row++) {
+			if (defined[row]) {
+				expected++;
+			}
+		}
+		Assert.assertEquals(list.getLabelSimple(), expected, list.size());
+		for (int i = 0; i < list.size(); i++) {
+			GPoint location = list.get(i).getSpreadsheetCoords();
+			Assert.assertEquals(list.getLabelSimple(), range.getMinColumn(),
+					location.x);
+			Assert.assertTrue(list.getLabelSimple(),
+					location.y >= range.getMinRow()
+							&& location.y <= range.getMaxRow()
+							&& defined[location.y]);
+		}
+	}
+
+	@Test
+	public void pasteIntoRanges() {
+		Kernel kernel = app.getKernel();
+		kernel.clearConstruction(true);
+		ArrayList<GeoList> ranges = new ArrayList<GeoList>();
+		for (int col = 0; col < COLUMNS; col++) {
+			char name = (char) ('A' + col);
+			for (int row = 1; row <= ROWS; row += RANGE_ROWS) {
+				ranges.add(range(name, row, row + RANGE_ROWS - 1));
+			}
+			ranges.add(range(name, 1, ROWS));
+		}
+		// a range below the pasted block stays empty
+		ranges.add(range('B', ROWS + 1, ROWS + 5));
+
+		Assert.assertTrue(new CopyPasteCutD(app).pasteExternal(
+				data(ROWS, COLUMNS), 0, 0, COLUMNS - 1, ROWS - 1));
+
+		boolean[] defined = new boolean[ROWS + 5];
+		for (int row = 0; row < ROWS; row++) {
+			defined[row] = true;
+		}
+		int cells = 0;
+		for (GeoList list : ranges) {
+			checkCells(list, defined);
+			cells += list.size();
+		}
+		// every cell is in two ranges
+		Assert.assertEquals(2 * ROWS * COLUMNS, cells);
+	}
+
+	@Test
+	public void removeAndRebuild() {
+		Kernel kernel = app.getKernel();
+		kernel.clearConstruction(true);
+		int rows = 200;
+		ArrayList<GeoList> ranges = new ArrayList<GeoList>();
+		for (int row = 1; row <= rows; row += 5) {
+			ranges.add(range('B', row, row + 9));
+		}
+		// builds the index
+		kernel.getAlgebraProcessor().processAlgebraCommand("B1=1", false);
+
+		ArrayList<GeoList> removed = new ArrayList<GeoList>();
+		for (int i = 0; i < ranges.size(); i += 2) {
+			removed.add(ranges.get(i));
+		}
+		for (GeoList list : removed) {
+			list.remove();
+		}
+		ranges.removeAll(removed);
+		// checked one by one at first, then added to the index
+		for (int row = 3; row <= rows; row += 10) {
+			ranges.add(range('B', row, row + 2));
+		}
+
+		Assert.assertTrue(new CopyPasteCutD(app).pasteExternal(data(rows, 1),
+				1, 0, 1, rows - 1));
+		boolean[] defined = new boolean[rows];
+		for (int row = 0; row < rows; row++) {
+			defined[row] = true;
+		}
+		for (GeoList list : ranges) {
+			checkCells(list, defined);
+		}
+		for (GeoList list : removed) {
+			Assert.assertEquals(0, list.size());
+		}
+
+		for (int row = 1; row <= rows; row += 3) {
+			kernel.lookupLabel("B" + row).remove();
+			defined[row - 1] = false;
+		}
+		for (GeoList list : ranges) {
+			checkCells(list, defined);
+		}
+
+		kernel.clearConstruction(true);
+		kernel.getAlgebraProcessor().processAlgebraCommand("B2=2", false);
+		GeoList list = range('B', 1, 3);
+		Assert.assertEquals(1, list.size());
+		new CopyPasteCutD(app).pasteExternal(new String[][] { { "3" } }, 1, 2,
+				1, 2);
+		Assert.assertEquals(2, list.size());
+	}
+}
@@ -0,0 +1,106 @@
+package org.geogebra.commands;
+
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.kernel.arithmetic.ExpressionNode;
+import org.geogebra.common.kernel.arithmetic.Function;
+import org.geogebra.common.kernel.arithmetic.FunctionNVar;
+import org.geogebra.common.kernel.arithmetic.FunctionVariable;
+import org.geogebra.common.kernel.arithmetic.MyDouble;
+import org.geogebra.common.kernel.commands.AlgebraProcessor;
+import org.geogebra.common.kernel.geos.GeoFunction;
+import org.geogebra.common.kernel.geos.GeoFunctionNVar;
+import org.geogebra.common.plugin.Operation;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that compiled functions give the same values as the tree walk of
+ * ExpressionNode.evaluateDouble(), also after the tree was changed in place.
+ */
+public class CompiledExpressionTest {
+	private static final double[] X = { -3, -1.5, -1, -0.5, 0, 1E-9, 0.5, 1,
+			2, 3.7, 100 };
+	private static AppD app;
+	private static AlgebraProcessor ap;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent",
+				"--prerelease" }), new JFrame(), false);
+		app.setLanguage(Locale.US);
+		ap = app.getKernel().getAlgebraProcessor();
+		ap.processAlgebraCommand("a=2", false);
+	}
+
+	private static Function function(String def) {
+		return ((GeoFunction) ap.processAlgebraCommand(def, false)[0])
+				.getFunction();
+	}
+
+	private static double treeWalk(FunctionNVar f, double... vals) {
+		FunctionVariable[] vars = f.getFunctionVariables();
+		for (int i = 0; i < vars.length; i++) {
+			vars[i].set(vals[i]);
+		}
+		return f.getExpression().evaluateDouble();
+	}
+
+	private static void checkValues(Function f) {
+		for (double x : X) {
+			Assert.assertEquals(f.toString(), treeWalk(f, x), f.evaluate(x),
+					0);
+		}
+	}
+
+	@Test
+	public void compiledMatchesTreeWalk() {
+		String[] defs = { "x^2 - 3x + 1", "sin(x) / x",
+				"x^(1/3) + x^(2/3)", "sqrt(x) + abs(x)",
+				"exp(-x^2) ln(x)", "tan(x) sec(x) - csc(x) cot(x)",
+				"sgn(x) cbrt(x) + lg(x) + ld(x)",
+				"sinh(x) + cosh(x) - tanh(x) + atan(x)",
+				"a x^a - cos(a x)", "(x - 1)^(-1) * 0 * x" };
+		for (String def : defs) {
+			checkValues(function(def));
+		}
+	}
+
+	@Test
+	public void compiledMatchesTreeWalk2Var() {
+		FunctionNVar g = ((GeoFunctionNVar) ap.processAlgebraCommand(
+				"g(x,y)=x^2 y - sin(x y) / (y + 1)", false)[0]).getFunction();
+		for (double x : X) {
+			for (double y : X) {
+				Assert.assertEquals(treeWalk(g, x, y),
+						g.evaluate(new double[] { x, y }), 0);
+			}
+		}
+	}
+
+	@Test
+	public void recompileAfterChangeInPlace() {
+		Function f = function("sin(x) + x^2");
+		checkValues(f);
+		ExpressionNode root = f.getExpression();
+
+		root.setOperation(Operation.MINUS);
+		checkValues(f);
+		Assert.assertEquals(Math.sin(2) - 4, f.evaluate(2), 1E-12);
+
+		root.setRight(new MyDouble(app.getKernel(), 5));
+		checkValues(f);
+		Assert.assertEquals(Math.sin(2) - 5, f.evaluate(2), 1E-12);
+
+		// change below the root
+		((ExpressionNode) root.getLeft()).setOperation(Operation.COS);
+		checkValues(f);
+		Assert.assertEquals(Math.cos(2) - 5, f.evaluate(2), 1E-12);
+	}
+}
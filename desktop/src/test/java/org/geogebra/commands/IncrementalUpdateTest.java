@@ -0,0 +1,93 @@
+package org.geogebra.commands;
+
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.StringTemplate;
+import org.geogebra.common.kernel.commands.AlgebraProcessor;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoPoint;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that updateConstruction(true) recomputes exactly the algos with
+ * changed input and ends with the same values as a full update.
+ */
+public class IncrementalUpdateTest {
+	private static AppD app;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent",
+				"--prerelease" }), new JFrame(), false);
+		app.setLanguage(Locale.US);
+	}
+
+	private static GeoElement get(String label) {
+		return app.getKernel().lookupLabel(label);
+	}
+
+	private static String values(String... labels) {
+		StringBuilder sb = new StringBuilder();
+		for (String label : labels) {
+			sb.append(label).append(": ")
+					.append(get(label).toValueString(
+							StringTemplate.maxPrecision))
+					.append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static boolean changed(String label) {
+		return get(label).getParentAlgorithm().isInputChangedSinceUpdate();
+	}
+
+	@Test
+	public void onlyChangedInputIsRecomputed() {
+		Kernel kernel = app.getKernel();
+		kernel.clearConstruction(true);
+		AlgebraProcessor ap = kernel.getAlgebraProcessor();
+		String[] defs = { "A=(1,1)", "B=(3,2)", "M=Midpoint(A,B)",
+				"d=Distance(A,M)", "l=Line(M,B)", "c=Circle(B,2)",
+				"e=Radius(c)" };
+		for (String def : defs) {
+			ap.processAlgebraCommand(def, false);
+		}
+		String[] dependent = { "M", "d", "l", "c", "e" };
+		kernel.updateConstruction(false);
+		for (String label : dependent) {
+			Assert.assertFalse(label, changed(label));
+		}
+
+		String before = values(dependent);
+		kernel.updateConstruction(true);
+		Assert.assertEquals(before, values(dependent));
+		for (String label : dependent) {
+			Assert.assertFalse(label, changed(label));
+		}
+
+		// update A without its cascade
+		((GeoPoint) get("A")).setCoords(5, 5, 1);
+		get("A").update();
+		Assert.assertTrue(changed("M"));
+		Assert.assertTrue(changed("d"));
+		Assert.assertFalse(changed("l"));
+		Assert.assertFalse(changed("c"));
+
+		kernel.updateConstruction(true);
+		String incremental = values(dependent);
+		for (String label : dependent) {
+			Assert.assertFalse(label, changed(label));
+		}
+		Assert.assertEquals(4, ((GeoPoint) get("M")).getInhomX(), 1E-12);
+		kernel.updateConstruction(false);
+		Assert.assertEquals(values(dependent), incremental);
+	}
+}
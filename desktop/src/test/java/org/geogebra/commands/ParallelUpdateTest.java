@@ -0,0 +1,85 @@
+package org.geogebra.commands;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.jre.util.ParallelExecutorJre;
+import org.geogebra.common.kernel.StringTemplate;
+import org.geogebra.common.kernel.commands.AlgebraProcessor;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoPoint;
+import org.geogebra.common.util.ParallelExecutor;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that computing independent algos of an update cascade in parallel
+ * gives the same values as updating them one after another.
+ */
+public class ParallelUpdateTest {
+	private static final int POINTS = 60;
+	private static AppD app;
+	private static ParallelExecutor parallel;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent",
+				"--prerelease" }), new JFrame(), false);
+		app.setLanguage(Locale.US);
+		parallel = ParallelExecutor.prototype;
+	}
+
+	@After
+	public void resetExecutor() {
+		ParallelExecutor.prototype = parallel;
+	}
+
+	@Test
+	public void parallelMatchesSequential() {
+		AlgebraProcessor ap = app.getKernel().getAlgebraProcessor();
+		app.getKernel().clearConstruction(true);
+		GeoPoint p = (GeoPoint) ap.processAlgebraCommand("P=(1,2)", false)[0];
+		ArrayList<GeoElement> outputs = new ArrayList<GeoElement>();
+		for (int i = 0; i < POINTS; i++) {
+			ap.processAlgebraCommand("Q_{" + i + "}=(" + i + "," + (i * i % 7)
+					+ ")", false);
+			String q = "Q_{" + i + "}";
+			String[] defs = { "M_{" + i + "}=Midpoint(P," + q + ")",
+					"l_{" + i + "}=Line(P," + q + ")",
+					"d_{" + i + "}=Distance(P," + q + ")",
+					"b_{" + i + "}=PerpendicularBisector(P," + q + ")",
+					"o_{" + i + "}=PerpendicularLine(M_{" + i + "},l_{" + i
+							+ "})",
+					"r_{" + i + "}=Line(M_{" + i + "},b_{" + i + "})" };
+			for (String def : defs) {
+				outputs.add(ap.processAlgebraCommand(def, false)[0]);
+			}
+		}
+
+		ParallelExecutor.prototype = new ParallelExecutor();
+		String[] sequential = move(p, outputs);
+		ParallelExecutor.prototype = new ParallelExecutorJre(4);
+		p.setCoords(1, 2, 1);
+		p.updateCascade();
+		String[] parallelValues = move(p, outputs);
+		Assert.assertArrayEquals(sequential, parallelValues);
+	}
+
+	private static String[] move(GeoPoint p, ArrayList<GeoElement> outputs) {
+		p.setCoords(-3.25, 0.5, 1);
+		p.updateCascade();
+		String[] values = new String[outputs.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = outputs.get(i).getLabelSimple() + ": "
+					+ outputs.get(i).toValueString(StringTemplate.maxPrecision);
+		}
+		return values;
+	}
+}
@@ -0,0 +1,76 @@
+package org.geogebra.commands;
+
+import javax.swing.JFrame;
+
+import org.apache.commons.math.linear.Array2DRowRealMatrix;
+import org.apache.commons.math.linear.QRDecompositionImpl;
+import org.geogebra.common.kernel.Construction;
+import org.geogebra.common.kernel.geos.GeoList;
+import org.geogebra.common.kernel.geos.GeoPoint;
+import org.geogebra.common.kernel.statistics.RegressionMath;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.main.AppD;
+
+/**
+ * Times regression on a list that gets a new point per update: continued
+ * sums and decomposition against computing from scratch, and against
+ * decomposing the whole matrix as FitPoly did before. Checking the results
+ * is left to RegressionMathTest; run as application.
+ */
+public class RegressionMathBenchmark {
+	private static final int POINTS = 3000;
+	private static final int DEGREE = 8;
+
+	public static void main(String[] args) {
+		AppD app = new AppD(new CommandLineArguments(
+				new String[] { "--silent" }), new JFrame(), false);
+		Construction cons = app.getKernel().getConstruction();
+		// warm up
+		run(cons, POINTS / 10);
+		run(cons, POINTS);
+		System.exit(0);
+	}
+
+	private static void run(Construction cons, int points) {
+		GeoList list = new GeoList(cons);
+		RegressionMath quart = new RegressionMath();
+		RegressionMath poly = new RegressionMath();
+		double[][] m = new double[points][DEGREE + 1];
+		double[][] y = new double[points][1];
+		long incremental = 0, full = 0, matrix = 0;
+		for (int i = 0; i < points; i++) {
+			double x = 5 + i * 0.01;
+			list.add(new GeoPoint(cons, x, Math.sin(x) + 0.001 * (i % 7), 1));
+			list.update();
+			for (int j = 0; j <= DEGREE; j++) {
+				m[i][j] = Math.pow(x, j);
+			}
+			y[i][0] = Math.sin(x) + 0.001 * (i % 7);
+			if (i < DEGREE + 1) {
+				continue;
+			}
+
+			long time = System.nanoTime();
+			quart.doQuart(list);
+			poly.doPolyN(list, DEGREE);
+			incremental += System.nanoTime() - time;
+
+			time = System.nanoTime();
+			new RegressionMath().doQuart(list);
+			new RegressionMath().doPolyN(list, DEGREE);
+			full += System.nanoTime() - time;
+
+			time = System.nanoTime();
+			double[][] rows = new double[i + 1][];
+			System.arraycopy(m, 0, rows, 0, i + 1);
+			double[][] values = new double[i + 1][];
+			System.arraycopy(y, 0, values, 0, i + 1);
+			new QRDecompositionImpl(new Array2DRowRealMatrix(rows, false))
+					.getSolver().solve(new Array2DRowRealMatrix(values, false));
+			matrix += System.nanoTime() - time;
+		}
+		System.out.println(points + " points: incremental "
+				+ incremental / 1000000 + " ms, full recompute " + full
+				/ 1000000 + " ms, whole matrix " + matrix / 1000000 + " ms");
+	}
+}
@@ -0,0 +1,134 @@
+package org.geogebra.commands;
+
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.apache.commons.math.linear.Array2DRowRealMatrix;
+import org.apache.commons.math.linear.QRDecompositionImpl;
+import org.apache.commons.math.linear.RealMatrix;
+import org.geogebra.common.kernel.Construction;
+import org.geogebra.common.kernel.geos.GeoList;
+import org.geogebra.common.kernel.geos.GeoPoint;
+import org.geogebra.common.kernel.statistics.RegressionMath;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares regression on a list that gets a new point per update with
+ * computing the regression from scratch. RegressionMathBenchmark times both.
+ */
+public class RegressionMathTest {
+	private static final int POINTS = 3000;
+	/** compared with a new computation every this many points */
+	private static final int CHECK_EVERY = 500;
+	private static AppD app;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+	}
+
+	@Test
+	public void appendedPoints() {
+		Construction cons = app.getKernel().getConstruction();
+		GeoList list = new GeoList(cons);
+		RegressionMath quart = new RegressionMath();
+		RegressionMath poly = new RegressionMath();
+		for (int i = 0; i < POINTS; i++) {
+			double x = 5 + i * 0.01;
+			list.add(new GeoPoint(cons, x, Math.sin(x) + 0.001 * (i % 7), 1));
+			list.update();
+
+			boolean ok = quart.doQuart(list) & poly.doPolyN(list, 8);
+			if (i < 9) {
+				continue;
+			}
+			Assert.assertTrue(ok);
+			// first points need most care, then only from time to time
+			if (i > 20 && (i + 1) % CHECK_EVERY != 0) {
+				continue;
+			}
+
+			RegressionMath fresh = new RegressionMath();
+			Assert.assertTrue(fresh.doQuart(list));
+			RegressionMath freshPoly = new RegressionMath();
+			Assert.assertTrue(freshPoly.doPolyN(list, 8));
+
+			// same sums in same order
+			Assert.assertEquals(fresh.getP1(), quart.getP1(), 0);
+			Assert.assertEquals(fresh.getP3(), quart.getP3(), 0);
+			Assert.assertEquals(fresh.getP5(), quart.getP5(), 0);
+			assertSameFit(list, freshPoly.getPar(), poly.getPar());
+		}
+
+		// same fit as the decomposition of the unscaled matrix
+		double[][] m = new double[POINTS][9];
+		double[][] y = new double[POINTS][1];
+		for (int i = 0; i < POINTS; i++) {
+			GeoPoint p = (GeoPoint) list.get(i);
+			for (int j = 0; j <= 8; j++) {
+				m[i][j] = Math.pow(p.getInhomX(), j);
+			}
+			y[i][0] = p.getInhomY();
+		}
+		RealMatrix expected = new QRDecompositionImpl(new Array2DRowRealMatrix(
+				m, false)).getSolver().solve(new Array2DRowRealMatrix(y, false));
+		double[] par = poly.getPar();
+		for (int i = 0; i < POINTS; i++) {
+			double x = m[i][1];
+			double a = 0, b = 0;
+			for (int j = 8; j >= 0; j--) {
+				a = a * x + expected.getEntry(j, 0);
+				b = b * x + par[j];
+			}
+			Assert.assertEquals(a, b, 1E-3);
+		}
+	}
+
+	@Test
+	public void changedPoint() {
+		Construction cons = app.getKernel().getConstruction();
+		GeoList list = new GeoList(cons);
+		for (int i = 0; i < 20; i++) {
+			list.add(new GeoPoint(cons, i, i * i, 1));
+		}
+		list.update();
+		RegressionMath reg = new RegressionMath();
+		Assert.assertTrue(reg.doQuad(list));
+		Assert.assertEquals(1, reg.getP3(), 1E-8);
+		Assert.assertTrue(reg.doPolyN(list, 5));
+		Assert.assertEquals(1, reg.getPar()[2], 1E-6);
+
+		// not appended: sums and decomposition have to be computed again
+		((GeoPoint) list.get(3)).setCoords(3, 2 * 9, 1);
+		list.update();
+		RegressionMath fresh = new RegressionMath();
+		Assert.assertTrue(reg.doQuad(list));
+		Assert.assertTrue(fresh.doQuad(list));
+		Assert.assertEquals(fresh.getP3(), reg.getP3(), 0);
+		Assert.assertTrue(reg.doPolyN(list, 5));
+		Assert.assertTrue(fresh.doPolyN(list, 5));
+		assertSameFit(list, fresh.getPar(), reg.getPar());
+	}
+
+	private static void assertSameFit(GeoList list, double[] expected,
+			double[] actual) {
+		Assert.assertEquals(expected.length, actual.length);
+		for (int i = 0; i < list.size(); i++) {
+			double x = ((GeoPoint) list.get(i)).getInhomX();
+			double a = 0, b = 0;
+			for (int j = expected.length - 1; j >= 0; j--) {
+				a = a * x + expected[j];
+				b = b * x + actual[j];
+			}
+			Assert.assertEquals(a, b, 1E-5 * Math.max(1, Math.abs(a)));
+		}
+	}
+}
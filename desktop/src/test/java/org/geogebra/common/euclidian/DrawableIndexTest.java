@@ -0,0 +1,168 @@
+package org.geogebra.common.euclidian;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.euclidian.DrawableList.DrawableIterator;
+import org.geogebra.common.kernel.commands.AlgebraProcessor;
+import org.geogebra.common.kernel.geos.GeoPoint;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.euclidian.EuclidianViewD;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the hit index returns every drawable that is hit, in the order
+ * of the drawable list.
+ */
+public class DrawableIndexTest {
+	private static AppD app;
+	private static EuclidianViewD view;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+		view = app.getEuclidianView1();
+		view.setSize(new Dimension(600, 400));
+		view.setCoordSystem(300, 200, 30, 30);
+	}
+
+	private static Drawable drawable(String label) {
+		return (Drawable) view.getDrawableFor(app.getKernel().lookupLabel(
+				label));
+	}
+
+	/**
+	 * Compares query results with testing all drawables
+	 */
+	private static void checkQueries(DrawableList list, DrawableIndex index) {
+		Random random = new Random(5);
+		for (int k = 0; k < 500; k++) {
+			int x = random.nextInt(600);
+			int y = random.nextInt(400);
+			ArrayList<Drawable> candidates = new ArrayList<Drawable>(
+					index.query(x, y, 3));
+			int last = -1;
+			for (Drawable d : candidates) {
+				int pos = indexOf(list, d);
+				Assert.assertTrue("not in list", pos >= 0);
+				Assert.assertTrue("order of list", pos > last);
+				last = pos;
+			}
+			DrawableIterator it = list.getIterator();
+			while (it.hasNext()) {
+				Drawable d = it.next();
+				if (d.hit(x, y, 3)) {
+					Assert.assertTrue(d.getGeoElement().getLabelSimple(),
+							candidates.contains(d));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates drawables as painting does, then tells the index
+	 */
+	private static void repaint(DrawableList list, DrawableIndex index) {
+		DrawableIterator it = list.getIterator();
+		while (it.hasNext()) {
+			Drawable d = it.next();
+			if (d.needsUpdate()) {
+				d.setNeedsUpdate(false);
+				d.update();
+			}
+		}
+		index.repainted();
+	}
+
+	private static int indexOf(DrawableList list, Drawable d) {
+		DrawableIterator it = list.getIterator();
+		for (int i = 0; it.hasNext(); i++) {
+			if (it.next() == d) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Test
+	public void queryFindsAllHits() {
+		app.getKernel().clearConstruction(true);
+		AlgebraProcessor ap = app.getKernel().getAlgebraProcessor();
+		ArrayList<String> labels = new ArrayList<String>();
+		for (int i = -9; i <= 9; i += 2) {
+			for (int j = -6; j <= 6; j += 2) {
+				String label = "P_{" + labels.size() + "}";
+				ap.processAlgebraCommand(label + "=(" + i + "," + j + ")",
+						false);
+				labels.add(label);
+			}
+		}
+		ap.processAlgebraCommand("a=Segment(P_{0},P_{1})", false);
+		ap.processAlgebraCommand("c=Circle((1,1),2)", false);
+		// no bounds: always tested
+		ap.processAlgebraCommand("l: y=x", false);
+		labels.add("a");
+		labels.add("c");
+		labels.add("l");
+
+		DrawableList list = new DrawableList();
+		DrawableIndex index = new DrawableIndex(list);
+		for (String label : labels) {
+			list.add(drawable(label));
+			index.add(drawable(label));
+		}
+		Assert.assertEquals(labels.size(), index.size());
+		checkQueries(list, index);
+		repaint(list, index);
+		checkQueries(list, index);
+		// far from points and circle: only few candidates
+		Assert.assertTrue(index.query(10, 390, 3).size() < 10);
+
+		// moved drawable is tested everywhere until repainted
+		GeoPoint p = (GeoPoint) app.getKernel().lookupLabel("P_{5}");
+		Drawable moved = drawable("P_{5}");
+		int oldX = view.toScreenCoordX(p.getInhomX());
+		int oldY = view.toScreenCoordY(p.getInhomY());
+		p.setCoords(8, -5, 1);
+		p.updateRepaint();
+		index.update(moved);
+		Assert.assertTrue(index.query(oldX, oldY, 3).contains(moved));
+		Assert.assertTrue(index.query(599, 0, 3).contains(moved));
+		checkQueries(list, index);
+		repaint(list, index);
+		Assert.assertFalse(index.query(oldX, oldY, 3).contains(moved));
+		Assert.assertTrue(index.query(view.toScreenCoordX(8),
+				view.toScreenCoordY(-5), 3).contains(moved));
+		checkQueries(list, index);
+
+		// removed drawables are not returned
+		Drawable removed = drawable("P_{10}");
+		int x = view.toScreenCoordX(((GeoPoint) removed.getGeoElement())
+				.getInhomX());
+		int y = view.toScreenCoordY(((GeoPoint) removed.getGeoElement())
+				.getInhomY());
+		Assert.assertTrue(index.query(x, y, 3).contains(removed));
+		index.remove(removed);
+		list.remove(removed);
+		Assert.assertEquals(labels.size() - 1, index.size());
+		Assert.assertFalse(index.query(x, y, 3).contains(removed));
+		checkQueries(list, index);
+
+		// rebuilt after zoom
+		view.setCoordSystem(200, 250, 20, 40);
+		list.updateAll();
+		index.updateAll();
+		repaint(list, index);
+		checkQueries(list, index);
+	}
+}
@@ -0,0 +1,189 @@
+package org.geogebra.common.euclidian;
+
+import java.awt.Dimension;
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.awt.GGraphics2D;
+import org.geogebra.common.awt.GRectangle;
+import org.geogebra.common.factories.AwtFactory;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoPoint;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.euclidian.EuclidianViewD;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks which drawables the layer cache draws again after changes.
+ */
+public class LayerCacheTest {
+	private static AppD app;
+	private static EuclidianViewD view;
+	private static GGraphics2D screen;
+
+	private LayerCache cache;
+	private DrawableList[] layers;
+	private CountingDrawable a, b, c;
+
+	/**
+	 * Drawable with fixed bounds that counts how often it is drawn
+	 */
+	private static class CountingDrawable extends Drawable {
+		private GeoElement geo;
+		GRectangle bounds;
+		int drawn;
+
+		CountingDrawable(int x, int y) {
+			geo = new GeoPoint(app.getKernel().getConstruction(), 0, 0, 1);
+			bounds = AwtFactory.prototype.newRectangle(x, y, 10, 10);
+		}
+
+		@Override
+		public void update() {
+			// bounds are set by the test
+		}
+
+		@Override
+		public void draw(GGraphics2D g2) {
+			drawn++;
+		}
+
+		@Override
+		public boolean hit(int x, int y, int hitThreshold) {
+			return false;
+		}
+
+		@Override
+		public boolean isInside(GRectangle rect) {
+			return false;
+		}
+
+		@Override
+		public GeoElement getGeoElement() {
+			return geo;
+		}
+
+		@Override
+		public void setGeoElement(GeoElement geo) {
+			this.geo = geo;
+		}
+
+		@Override
+		public GRectangle getBounds() {
+			return bounds;
+		}
+	}
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+		view = app.getEuclidianView1();
+		view.setSize(new Dimension(600, 400));
+		screen = AwtFactory.prototype.createBufferedImage(600, 400, true)
+				.createGraphics();
+	}
+
+	@Before
+	public void setupLayers() {
+		a = new CountingDrawable(0, 0);
+		b = new CountingDrawable(300, 300);
+		// overlaps a
+		c = new CountingDrawable(5, 5);
+		layers = new DrawableList[] { new DrawableList() };
+		layers[0].add(a);
+		layers[0].add(b);
+		layers[0].add(c);
+		cache = new LayerCache(view, 1);
+		draw(1, 1, 1);
+	}
+
+	/**
+	 * Repaints and checks how often each drawable was drawn
+	 */
+	private void draw(int drawnA, int drawnB, int drawnC) {
+		a.drawn = b.drawn = c.drawn = 0;
+		cache.draw(screen, layers, 0);
+		Assert.assertEquals("a", drawnA, a.drawn);
+		Assert.assertEquals("b", drawnB, b.drawn);
+		Assert.assertEquals("c", drawnC, c.drawn);
+	}
+
+	@Test
+	public void unchangedLayersAreReused() {
+		draw(0, 0, 0);
+		cache.invalidateAll();
+		draw(1, 1, 1);
+		draw(0, 0, 0);
+	}
+
+	@Test
+	public void overlappingDrawablesAreDrawnAgain() {
+		cache.update(a);
+		draw(1, 0, 1);
+		cache.update(b);
+		draw(0, 1, 0);
+	}
+
+	@Test
+	public void oldAndNewBoundsAreDrawnAgain() {
+		// moved from a's place next to b
+		c.bounds = AwtFactory.prototype.newRectangle(320, 320, 10, 10);
+		cache.update(c);
+		draw(1, 1, 1);
+		draw(0, 0, 0);
+	}
+
+	@Test
+	public void removedDrawableClearsItsBounds() {
+		layers[0].remove(c);
+		cache.remove(c);
+		draw(1, 0, 0);
+		cache.remove(b);
+		draw(0, 1, 0);
+	}
+
+	@Test
+	public void highlightingIsNoticed() {
+		b.getGeoElement().setHighlighted(true);
+		draw(0, 1, 0);
+		draw(0, 0, 0);
+		b.getGeoElement().setHighlighted(false);
+		draw(0, 1, 0);
+	}
+
+	@Test
+	public void newDrawableInvalidatesLayer() {
+		CountingDrawable d = new CountingDrawable(500, 10);
+		layers[0].add(d);
+		cache.update(d);
+		draw(1, 1, 1);
+		Assert.assertEquals(1, d.drawn);
+	}
+
+	@Test
+	public void tooManyChangesInvalidateAll() {
+		for (int i = 0; i < 2000; i++) {
+			cache.update(b);
+		}
+		draw(1, 1, 1);
+		draw(0, 0, 0);
+	}
+
+	@Test
+	public void resizeInvalidatesAll() {
+		view.setSize(new Dimension(500, 400));
+		try {
+			draw(1, 1, 1);
+		} finally {
+			view.setSize(new Dimension(600, 400));
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package org.geogebra.common.euclidian;
+
+import org.geogebra.common.euclidian.TeXIconCache.Key;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.himamis.retex.renderer.desktop.FactoryProviderDesktop;
+import com.himamis.retex.renderer.share.StrutBox;
+import com.himamis.retex.renderer.share.TeXIcon;
+import com.himamis.retex.renderer.share.platform.FactoryProvider;
+import com.himamis.retex.renderer.share.platform.graphics.Color;
+
+/**
+ * Tests for the keys and the eviction of laid out formulas.
+ */
+public class TeXIconCacheTest {
+
+	private static final Color RED = new Color() {
+		public int getColor() {
+			return 0xff0000;
+		}
+	};
+
+	@BeforeClass
+	public static void prepare() {
+		FactoryProvider.INSTANCE = new FactoryProviderDesktop();
+	}
+
+	private static TeXIcon icon() {
+		return new TeXIcon(new StrutBox(1, 1, 0, 0), 12) {
+			// only the constructor is protected
+		};
+	}
+
+	private static Key key(String text) {
+		return TeXIconCache.key(text, 16, 0, null, null, null);
+	}
+
+	@Test
+	public void keyContainsLayoutParameters() {
+		Key key = TeXIconCache.key("\\frac{1}{2}", 16, 1, RED,
+				Integer.valueOf(5), Float.valueOf(0.5f));
+		Assert.assertEquals(key, TeXIconCache.key("\\frac{1}{2}", 16, 1, RED,
+				Integer.valueOf(5), Float.valueOf(0.5f)));
+		Assert.assertEquals(key.hashCode(), TeXIconCache.key("\\frac{1}{2}",
+				16, 1, RED, Integer.valueOf(5), Float.valueOf(0.5f))
+				.hashCode());
+
+		Key[] others = {
+				TeXIconCache.key("\\frac{1}{3}", 16, 1, RED,
+						Integer.valueOf(5), Float.valueOf(0.5f)),
+				TeXIconCache.key("\\frac{1}{2}", 17, 1, RED,
+						Integer.valueOf(5), Float.valueOf(0.5f)),
+				TeXIconCache.key("\\frac{1}{2}", 16, 2, RED,
+						Integer.valueOf(5), Float.valueOf(0.5f)),
+				TeXIconCache.key("\\frac{1}{2}", 16, 1, null,
+						Integer.valueOf(5), Float.valueOf(0.5f)),
+				TeXIconCache.key("\\frac{1}{2}", 16, 1, RED, null,
+						Float.valueOf(0.5f)),
+				TeXIconCache.key("\\frac{1}{2}", 16, 1, RED,
+						Integer.valueOf(6), Float.valueOf(0.5f)),
+				TeXIconCache.key("\\frac{1}{2}", 16, 1, RED,
+						Integer.valueOf(5), Float.valueOf(0.6f)) };
+		for (Key other : others) {
+			Assert.assertFalse(key.equals(other));
+		}
+
+		Assert.assertNull(TeXIconCache.key(null, 16, 0, null, null, null));
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() <= TeXIconCache.MAX_LENGTH) {
+			sb.append("x+");
+		}
+		Assert.assertNull(key(sb.toString()));
+	}
+
+	@Test
+	public void leastRecentlyUsedAreEvicted() {
+		TeXIconCache cache = new TeXIconCache();
+		TeXIcon first = icon();
+		cache.put(key("0"), first);
+		for (int i = 1; i < TeXIconCache.MAX_ICONS; i++) {
+			cache.put(key(String.valueOf(i)), icon());
+		}
+		// full, but nothing removed yet
+		Assert.assertSame(first, cache.get(key("0")));
+		Assert.assertNotNull(cache.get(key("1")));
+
+		// "0" and "1" were used last, "2" is evicted
+		cache.put(key("new"), icon());
+		Assert.assertNull(cache.get(key("2")));
+		Assert.assertSame(first, cache.get(key("0")));
+		Assert.assertNotNull(cache.get(key("1")));
+		Assert.assertNotNull(cache.get(key("3")));
+		Assert.assertNotNull(cache.get(key("new")));
+
+		cache.clear();
+		Assert.assertNull(cache.get(key("0")));
+	}
+}
@@ -0,0 +1,158 @@
+package org.geogebra.common.euclidian.plot;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.euclidian.plot.CurvePlotter.Gap;
+import org.geogebra.common.euclidian.plot.CurvePlotter.PlotStats;
+import org.geogebra.common.jre.util.ParallelExecutorJre;
+import org.geogebra.common.kernel.MyPoint;
+import org.geogebra.common.kernel.Matrix.CoordSys;
+import org.geogebra.common.kernel.kernelND.CurveEvaluable;
+import org.geogebra.common.util.ParallelExecutor;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.euclidian.EuclidianViewD;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that curves sampled in parallel segments are stitched into the same
+ * path as when they are sampled sequentially.
+ */
+public class CurvePlotterTest {
+	private static AppD app;
+	private static EuclidianViewD view;
+	private static ParallelExecutor executor;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent",
+				"--prerelease" }), new JFrame(), false);
+		app.setLanguage(Locale.US);
+		view = app.getEuclidianView1();
+		view.setSize(new Dimension(600, 400));
+		view.setCoordSystem(300, 200, 30, 30);
+		executor = ParallelExecutor.prototype;
+	}
+
+	@After
+	public void resetExecutor() {
+		ParallelExecutor.prototype = executor;
+	}
+
+	/**
+	 * Remembers where the path moves and where it ends. Consecutive moves
+	 * count as one, as in a general path.
+	 */
+	private static class PathLog implements PathPlotter {
+		final ArrayList<double[]> moves = new ArrayList<double[]>();
+		double[] end;
+		private boolean moved;
+
+		private void add(double[] pos, boolean lineTo) {
+			end = pos.clone();
+			if (!lineTo) {
+				if (moved) {
+					moves.remove(moves.size() - 1);
+				}
+				moves.add(end);
+			}
+			moved = !lineTo;
+		}
+
+		public void drawTo(double[] pos, boolean lineTo) {
+			add(pos, lineTo);
+		}
+
+		public void lineTo(double[] pos) {
+			add(pos, true);
+		}
+
+		public void moveTo(double[] pos) {
+			add(pos, false);
+		}
+
+		public void corner() {
+			// no new point
+		}
+
+		public void corner(double[] pos) {
+			add(pos, true);
+		}
+
+		public void firstPoint(double[] pos, Gap moveToAllowed) {
+			add(pos, moveToAllowed != Gap.MOVE_TO);
+		}
+
+		public double[] newDoubleArray() {
+			return new double[2];
+		}
+
+		public boolean copyCoords(MyPoint point, double[] ret, CoordSys sys) {
+			ret[0] = point.x;
+			ret[1] = point.y;
+			return true;
+		}
+
+		public void endPlot() {
+			// nothing to do
+		}
+
+		public boolean supports(CoordSys sys) {
+			return sys == null;
+		}
+	}
+
+	private static PathLog plot(CurveEvaluable curve, double t1, double t2,
+			boolean parallel) {
+		ParallelExecutor.prototype = parallel ? new ParallelExecutorJre(4)
+				: new ParallelExecutor();
+		PathLog log = new PathLog();
+		PlotStats stats = new PlotStats();
+		CurvePlotter.plotCurve(curve, t1, t2, view, log, false, Gap.MOVE_TO,
+				stats);
+		Assert.assertEquals(parallel, stats.getSegments() > 1);
+		return log;
+	}
+
+	/**
+	 * Borders of defined intervals are found by bisection, so they may
+	 * differ by a fraction of a pixel
+	 */
+	private static final double EPS = 0.01;
+
+	private static void checkSamePath(String def, double t1, double t2) {
+		CurveEvaluable curve = (CurveEvaluable) app.getKernel()
+				.getAlgebraProcessor().processAlgebraCommand(def, false)[0];
+		PathLog sequential = plot(curve, t1, t2, false);
+		PathLog parallel = plot(curve, t1, t2, true);
+		// gaps only where the sequential plot has them
+		Assert.assertEquals(def, sequential.moves.size(),
+				parallel.moves.size());
+		for (int i = 0; i < sequential.moves.size(); i++) {
+			// moves off screen depend on the sampling
+			if (view.isOnView(sequential.moves.get(i))) {
+				Assert.assertArrayEquals(def, sequential.moves.get(i),
+						parallel.moves.get(i), EPS);
+			}
+		}
+		Assert.assertArrayEquals(def, sequential.end, parallel.end, EPS);
+	}
+
+	@Test
+	public void segmentedMatchesSequential() {
+		app.getKernel().clearConstruction(true);
+		checkSamePath("f(x)=sin(x)", -10, 10);
+		checkSamePath("g(x)=x^3/20-x", -10, 10);
+		checkSamePath("h(x)=1/(x-1)", -10, 10);
+		checkSamePath("k(x)=sqrt(16-x^2)", -10, 10);
+		checkSamePath("c=Curve(3cos(t),2sin(t),t,0,2pi)", 0, 2 * Math.PI);
+	}
+}
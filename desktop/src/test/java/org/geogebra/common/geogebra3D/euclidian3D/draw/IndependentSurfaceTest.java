@@ -0,0 +1,75 @@
+package org.geogebra.common.geogebra3D.euclidian3D.draw;
+
+import java.util.Locale;
+import java.util.Random;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.kernel.Matrix.CoordsDouble3;
+import org.geogebra.common.kernel.kernelND.SurfaceEvaluable;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that surfaces evaluated for mesh threads give exactly the points and
+ * normals of the surface, so that the mesh does not depend on the number of
+ * threads.
+ */
+public class IndependentSurfaceTest {
+	private static AppD app;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+	}
+
+	private static void assertSame(String msg, CoordsDouble3 expected,
+			CoordsDouble3 actual) {
+		Assert.assertEquals(msg, expected.x, actual.x, 0);
+		Assert.assertEquals(msg, expected.y, actual.y, 0);
+		Assert.assertEquals(msg, expected.z, actual.z, 0);
+	}
+
+	private static void checkSame(String def, double uMin, double uMax,
+			double vMin, double vMax) {
+		SurfaceEvaluable surface = (SurfaceEvaluable) app.getKernel()
+				.getAlgebraProcessor().processAlgebraCommand(def, false)[0];
+		surface.setDerivatives();
+		IndependentSurface independent = IndependentSurface.create(surface);
+		Assert.assertNotNull(def, independent);
+
+		Random random = new Random(7);
+		CoordsDouble3 p = new CoordsDouble3(), q = new CoordsDouble3();
+		CoordsDouble3 n = new CoordsDouble3(), m = new CoordsDouble3();
+		for (int i = 0; i < 1000; i++) {
+			double u = uMin + (uMax - uMin) * random.nextDouble();
+			double v = vMin + (vMax - vMin) * random.nextDouble();
+			surface.evaluatePoint(u, v, p);
+			independent.evaluatePoint(u, v, q);
+			assertSame(def, p, q);
+			if (!p.isDefined()) {
+				continue;
+			}
+			Assert.assertEquals(def, surface.evaluateNormal(p, u, v, n),
+					independent.evaluateNormal(q, u, v, m));
+			assertSame(def, n, m);
+		}
+	}
+
+	@Test
+	public void sameAsSurface() {
+		app.getKernel().clearConstruction(true);
+		checkSame("f(x,y)=sin(x) y", -5, 5, -5, 5);
+		// undefined outside the disc, numerical normals at the border
+		checkSame("g(x,y)=sqrt(4-x^2-y^2)", -3, 3, -3, 3);
+		checkSame(
+				"a=Surface((2+cos(v))cos(u),(2+cos(v))sin(u),sin(v),u,0,2pi,v,0,2pi)",
+				0, 2 * Math.PI, 0, 2 * Math.PI);
+	}
+}
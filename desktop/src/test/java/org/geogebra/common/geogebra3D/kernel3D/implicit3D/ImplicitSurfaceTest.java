@@ -0,0 +1,130 @@
+package org.geogebra.common.geogebra3D.kernel3D.implicit3D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.geogebra3D.kernel3D.implicit3D.GeoImplicitSurface.TriangleBlock;
+import org.geogebra.common.jre.util.ParallelExecutorJre;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.util.ParallelExecutor;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that blocks kept after moving the view and blocks computed in
+ * parallel give the same triangles as polygonizing the surface again.
+ */
+public class ImplicitSurfaceTest {
+	private static AppD app;
+	private static ParallelExecutor executor;
+
+	private static final double[] BOUNDS = { -3, 3, -3, 3, -3, 3, 50, 50, 50 };
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent",
+				"--prerelease" }), new JFrame(), false);
+		app.setLanguage(Locale.US);
+		executor = ParallelExecutor.prototype;
+	}
+
+	@After
+	public void resetExecutor() {
+		ParallelExecutor.prototype = executor;
+	}
+
+	private static GeoImplicitSurface surface(String def) {
+		app.getKernel().clearConstruction(true);
+		GeoElement geo = app.getKernel().getAlgebraProcessor()
+				.processAlgebraCommand("ImplicitSurface(" + def + ")", false)[0];
+		Assert.assertTrue(geo instanceof GeoImplicitSurface);
+		return (GeoImplicitSurface) geo;
+	}
+
+	private static double[] shifted(double dx, double dy, double dz) {
+		double[] bounds = BOUNDS.clone();
+		bounds[0] += dx;
+		bounds[1] += dx;
+		bounds[2] += dy;
+		bounds[3] += dy;
+		bounds[4] += dz;
+		bounds[5] += dz;
+		return bounds;
+	}
+
+	/**
+	 * @return triangles of all blocks, in the order of the blocks
+	 */
+	private static ArrayList<double[]> triangles(GeoImplicitSurface surface) {
+		ArrayList<double[]> ret = new ArrayList<double[]>();
+		for (TriangleBlock block : surface.getTriangleBlocks()) {
+			ret.add(Arrays.copyOf(block.getData(), block.getLength()));
+		}
+		return ret;
+	}
+
+	private static void checkSame(ArrayList<double[]> expected,
+			ArrayList<double[]> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertArrayEquals("block " + i, expected.get(i),
+					actual.get(i), 0);
+		}
+	}
+
+	private static ArrayList<double[]> fresh(GeoImplicitSurface surface,
+			double[] bounds) {
+		GeoImplicitSurface copy = (GeoImplicitSurface) surface.copy();
+		copy.updateSurface(bounds);
+		return triangles(copy);
+	}
+
+	@Test
+	public void movedViewMatchesNewSurface() {
+		ParallelExecutor.prototype = new ParallelExecutor();
+		GeoImplicitSurface surface = surface("x^4+y^4+z^4-2x y z-5");
+		surface.updateSurface(BOUNDS);
+		Assert.assertTrue(surface.getTriangleCount() > 0);
+		ArrayList<TriangleBlock> before = new ArrayList<TriangleBlock>(
+				surface.getTriangleBlocks());
+
+		double[][] moves = { { 0.7, 0, 0 }, { 0.7, -0.4, 0.2 },
+				{ -1.3, 2.1, -0.9 } };
+		for (double[] move : moves) {
+			double[] bounds = shifted(move[0], move[1], move[2]);
+			surface.updateSurface(bounds);
+			int kept = 0;
+			for (TriangleBlock block : surface.getTriangleBlocks()) {
+				if (before.contains(block)) {
+					kept++;
+				}
+			}
+			Assert.assertTrue(kept > 0);
+			checkSame(fresh(surface, bounds), triangles(surface));
+			before = new ArrayList<TriangleBlock>(surface.getTriangleBlocks());
+		}
+	}
+
+	@Test
+	public void parallelMatchesSequential() {
+		GeoImplicitSurface surface = surface("x^4+y^4+z^4-2x y z-5");
+		ParallelExecutor.prototype = new ParallelExecutor();
+		ArrayList<double[]> sequential = fresh(surface, BOUNDS);
+		ParallelExecutor.prototype = new ParallelExecutorJre(4);
+		checkSame(sequential, fresh(surface, BOUNDS));
+
+		surface = surface("sin(x) + cos(y) + z^2 - 1");
+		ParallelExecutor.prototype = new ParallelExecutor();
+		sequential = fresh(surface, shifted(0.3, 0.3, 0.3));
+		ParallelExecutor.prototype = new ParallelExecutorJre(4);
+		checkSame(sequential, fresh(surface, shifted(0.3, 0.3, 0.3)));
+	}
+}
@@ -0,0 +1,178 @@
+package org.geogebra.common.gui.view.spreadsheet;
+
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoList;
+import org.geogebra.common.kernel.geos.GeoNumeric;
+import org.geogebra.common.kernel.geos.GeoText;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests for the detection of numeric columns and the import of external data
+ * into the spreadsheet.
+ */
+public class SpreadsheetImportTest {
+	private static AppD app;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+	}
+
+	private static GeoElement cell(String name) {
+		return app.getKernel().lookupLabel(name);
+	}
+
+	@Test
+	public void parseNumber() {
+		Assert.assertEquals(12, RelativeCopy.parseNumber("12"), 0);
+		Assert.assertEquals(-12.5, RelativeCopy.parseNumber("-12.5"), 0);
+		Assert.assertEquals(0.5, RelativeCopy.parseNumber("+.5"), 0);
+		Assert.assertEquals(-3, RelativeCopy.parseNumber("\u22123"), 0);
+		Assert.assertEquals(1.5E-3, RelativeCopy.parseNumber("1.5E-3"), 0);
+		Assert.assertEquals(2E5, RelativeCopy.parseNumber("2E+5"), 0);
+
+		// numbers for the algebra processor
+		String[] others = { "5%", "30\u00b0", "1e3", "2pi", "1,5", "-", ".",
+				"5E", "1E2.5", "1E2E3", "0x10", "NaN", "Infinity", "1d", "" };
+		for (String text : others) {
+			Assert.assertTrue(text,
+					Double.isNaN(RelativeCopy.parseNumber(text)));
+		}
+		// one definition of numbers: those are numbers, but not plain ones
+		Assert.assertTrue(RelativeCopy.isNumber("5%"));
+		Assert.assertTrue(RelativeCopy.isNumber("30\u00b0"));
+		Assert.assertTrue(RelativeCopy.isNumber("1.5E-3"));
+		Assert.assertFalse(RelativeCopy.isNumber("1e3"));
+	}
+
+	@Test
+	public void numericColumns() {
+		String[][] data = { { "1", "a", "1", " ", "5%" },
+				{ "2.5", "2", "", " ", "3" }, { "-3", "3", "x+1" },
+				{ null, "4", "2" } };
+		SpreadsheetImport dataImport = new SpreadsheetImport(app, data, 0, 0,
+				10, 10);
+		Assert.assertTrue(dataImport.isNumericColumn(0));
+		Assert.assertFalse(dataImport.isNumericColumn(1));
+		Assert.assertFalse(dataImport.isNumericColumn(2));
+		// no numbers at all
+		Assert.assertFalse(dataImport.isNumericColumn(3));
+		Assert.assertFalse(dataImport.isNumericColumn(4));
+		Assert.assertFalse(dataImport.isNumericColumn(5));
+		Assert.assertFalse(dataImport.isNumericColumn(-1));
+
+		// rows beyond maxRow don't count
+		dataImport = new SpreadsheetImport(app, data, 0, 0, 10, 0);
+		Assert.assertTrue(dataImport.isNumericColumn(2));
+		Assert.assertFalse(dataImport.isNumericColumn(1));
+
+		GeoList list = new SpreadsheetImport(app, data, 0, 0, 10, 10)
+				.createColumnList(0);
+		Assert.assertEquals(3, list.size());
+		Assert.assertEquals(-3, ((GeoNumeric) list.get(2)).getDouble(), 0);
+		Assert.assertNull(new SpreadsheetImport(app, data, 0, 0, 10, 10)
+				.createColumnList(1));
+		// limits of the target area
+		Assert.assertEquals(2, new SpreadsheetImport(app, data, 0, 0, 10, 1)
+				.createColumnList(0).size());
+		dataImport = new SpreadsheetImport(app, data, 5, 0, 4, 10);
+		Assert.assertTrue(dataImport.isNumericColumn(0));
+		Assert.assertNull(dataImport.createColumnList(0));
+	}
+
+	@Test
+	public void importMixedColumns() throws Exception {
+		Kernel kernel = app.getKernel();
+		kernel.clearConstruction(true);
+		kernel.getAlgebraProcessor().processAlgebraCommand("B1=7", false);
+		String[][] data = { { "1", "2", "\"hello\"" }, { "2.5", "3", "5%" },
+				{ "-3", "4", "1" } };
+		Assert.assertTrue(new SpreadsheetImport(app, data, 0, 0, 10, 10)
+				.run(null));
+
+		Assert.assertEquals(-3, ((GeoNumeric) cell("A3")).getDouble(), 0);
+		Assert.assertTrue(cell("A1").isIndependent());
+		// existing cells are redefined
+		Assert.assertEquals(2, ((GeoNumeric) cell("B1")).getDouble(), 0);
+		Assert.assertTrue(cell("C1") instanceof GeoText);
+		Assert.assertEquals(0.05, ((GeoNumeric) cell("C2")).getDouble(),
+				1E-15);
+	}
+
+	@Test
+	public void cancelledImportIsRolledBack() throws Exception {
+		Kernel kernel = app.getKernel();
+		kernel.clearConstruction(true);
+		app.setUndoActive(true);
+		kernel.getAlgebraProcessor().processAlgebraCommand("Z1=7", false);
+		app.storeUndoInfo();
+
+		int rows = 3 * SpreadsheetImport.BATCH_ROWS;
+		String[][] data = new String[rows][1];
+		for (int i = 0; i < rows; i++) {
+			data[i][0] = String.valueOf(i);
+		}
+		final int[] reported = new int[1];
+		boolean completed = new SpreadsheetImport(app, data, 0, 0, 10, rows)
+				.run(new SpreadsheetImport.Listener() {
+					public void progress(int done, int total) {
+						reported[0] = done;
+					}
+
+					public boolean isCancelled() {
+						return true;
+					}
+				});
+		Assert.assertFalse(completed);
+		Assert.assertEquals(SpreadsheetImport.BATCH_ROWS, reported[0]);
+		Assert.assertNull(cell("A1"));
+		Assert.assertNotNull(cell("Z1"));
+	}
+
+	@Test
+	public void cancelledImportIsRolledBackWithoutUndo() throws Exception {
+		Kernel kernel = app.getKernel();
+		kernel.clearConstruction(true);
+		app.setUndoActive(false);
+		try {
+			kernel.getAlgebraProcessor().processAlgebraCommand("Z1=7", false);
+			kernel.getAlgebraProcessor().processAlgebraCommand("A2=-1", false);
+
+			int rows = 3 * SpreadsheetImport.BATCH_ROWS;
+			String[][] data = new String[rows][1];
+			for (int i = 0; i < rows; i++) {
+				data[i][0] = String.valueOf(i);
+			}
+			boolean completed = new SpreadsheetImport(app, data, 0, 0, 10,
+					rows).run(new SpreadsheetImport.Listener() {
+				public void progress(int done, int total) {
+					// cancelled after the first batch
+				}
+
+				public boolean isCancelled() {
+					return true;
+				}
+			});
+			Assert.assertFalse(completed);
+			Assert.assertNull(cell("A1"));
+			Assert.assertNull(cell("A" + SpreadsheetImport.BATCH_ROWS));
+			Assert.assertEquals(-1,
+					((GeoNumeric) cell("A2")).getValue(), 0);
+			Assert.assertNotNull(cell("Z1"));
+		} finally {
+			app.setUndoActive(true);
+		}
+	}
+}
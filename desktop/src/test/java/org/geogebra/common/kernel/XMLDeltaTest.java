@@ -0,0 +1,135 @@
+package org.geogebra.common.kernel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the undo point deltas.
+ */
+public class XMLDeltaTest {
+
+	private static String element(String label, double x, double y) {
+		return "<element type=\"point\" label=\"" + label + "\">\n"
+				+ "\t<show object=\"true\" label=\"true\"/>\n"
+				+ "\t<coords x=\"" + x + "\" y=\"" + y + "\" z=\"1.0\"/>\n"
+				+ "</element>\n";
+	}
+
+	private static String command(String label, String a, String b) {
+		return "<command name=\"Midpoint\">\n\t<input a0=\"" + a + "\" a1=\""
+				+ b + "\"/>\n\t<output a0=\"" + label + "\"/>\n</command>\n"
+				+ "<element type=\"point\" label=\"" + label + "\">\n"
+				+ "\t<show object=\"true\" label=\"true\"/>\n</element>\n";
+	}
+
+	private static String construction(ArrayList<String> parts) {
+		StringBuilder sb = new StringBuilder(
+				"<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<geogebra>\n"
+						+ "<construction title=\"\">\n");
+		for (String part : parts) {
+			sb.append(part);
+		}
+		return sb.append("</construction>\n</geogebra>\n").toString();
+	}
+
+	private static void checkRoundTrip(String oldXML, String newXML) {
+		XMLDelta delta = XMLDelta.create(oldXML, newXML);
+		Assert.assertEquals(newXML, delta.apply(oldXML));
+	}
+
+	@Test
+	public void roundTrip() {
+		ArrayList<String> parts = new ArrayList<String>();
+		for (int i = 0; i < 50; i++) {
+			parts.add(element("A_{" + i + "}", i, -i));
+			parts.add(command("M_{" + i + "}", "A_{" + i + "}", "A_{0}"));
+		}
+		String xml = construction(parts);
+		checkRoundTrip(xml, xml);
+		checkRoundTrip("", xml);
+		checkRoundTrip(xml, "");
+		checkRoundTrip(xml, xml + "no line break");
+
+		Random random = new Random(7);
+		for (int round = 0; round < 200; round++) {
+			ArrayList<String> changed = new ArrayList<String>(parts);
+			for (int k = random.nextInt(5); k >= 0; k--) {
+				int i = random.nextInt(changed.size());
+				switch (random.nextInt(4)) {
+				case 0:
+					changed.remove(i);
+					break;
+				case 1:
+					changed.add(i, element("B_{" + round + "}", round, k));
+					break;
+				case 2:
+					changed.set(i, element("A_{" + i + "}", random.nextDouble(),
+							1));
+					break;
+				default:
+					changed.add(random.nextInt(changed.size()),
+							changed.remove(i));
+				}
+			}
+			String newXML = construction(changed);
+			checkRoundTrip(xml, newXML);
+			checkRoundTrip(newXML, xml);
+		}
+	}
+
+	@Test
+	public void smallDeltaForSmallChange() {
+		ArrayList<String> parts = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			parts.add(element("A_{" + i + "}", i, i));
+		}
+		String xml = construction(parts);
+		parts.set(50, element("A_{50}", 3.5, 4.5));
+		parts.remove(10);
+		String newXML = construction(parts);
+		XMLDelta delta = XMLDelta.create(xml, newXML);
+		Assert.assertEquals(newXML, delta.apply(xml));
+		Assert.assertTrue(delta.getSize() < 2 * element("A_{50}", 3.5, 4.5)
+				.length());
+	}
+
+	@Test
+	public void changedElements() {
+		ArrayList<String> parts = new ArrayList<String>();
+		parts.add(element("A", 1, 2));
+		parts.add(element("B", 3, 4));
+		parts.add(command("M", "A", "B"));
+		String xml = construction(parts);
+
+		LinkedHashMap<String, String> changed = XMLDelta.getChangedElements(
+				xml, xml);
+		Assert.assertNotNull(changed);
+		Assert.assertTrue(changed.isEmpty());
+
+		parts.set(1, element("B", 5, 6));
+		changed = XMLDelta.getChangedElements(xml, construction(parts));
+		Assert.assertNotNull(changed);
+		Assert.assertEquals(1, changed.size());
+		Assert.assertEquals(element("B", 5, 6), changed.get("B"));
+
+		// different label or structure: reload needed
+		parts.set(1, element("C", 3, 4));
+		Assert.assertNull(XMLDelta.getChangedElements(xml,
+				construction(parts)));
+		parts.set(1, element("B", 3, 4));
+		parts.set(2, command("M", "B", "A"));
+		Assert.assertNull(XMLDelta.getChangedElements(xml,
+				construction(parts)));
+		parts.set(2, command("M", "A", "B"));
+		parts.add(element("D", 0, 0));
+		Assert.assertNull(XMLDelta.getChangedElements(xml,
+				construction(parts)));
+		// property replaced by another one
+		Assert.assertNull(XMLDelta.getChangedElements(xml,
+				xml.replaceFirst("<show object", "<hide object")));
+	}
+}
@@ -0,0 +1,94 @@
+package org.geogebra.common.kernel.algos;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.jre.util.ParallelExecutorJre;
+import org.geogebra.common.kernel.MyPoint;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoLocus;
+import org.geogebra.common.util.ParallelExecutor;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.euclidian.EuclidianViewD;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that loci computed with prefetched steps have the same points as
+ * loci computed step by step.
+ */
+public class LocusPrefetchTest {
+	private static AppD app;
+	private static ParallelExecutor executor;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+		EuclidianViewD view = app.getEuclidianView1();
+		view.setSize(new Dimension(600, 400));
+		view.setCoordSystem(300, 200, 30, 30);
+		executor = ParallelExecutor.prototype;
+	}
+
+	@After
+	public void resetExecutor() {
+		ParallelExecutor.prototype = executor;
+	}
+
+	private static GeoElement eval(String def) {
+		return app.getKernel().getAlgebraProcessor()
+				.processAlgebraCommand(def, false)[0];
+	}
+
+	private static ArrayList<MyPoint> locus(String def, boolean parallel) {
+		ParallelExecutor.prototype = parallel ? new ParallelExecutorJre(4)
+				: new ParallelExecutor();
+		GeoLocus locus = (GeoLocus) eval(def);
+		return new ArrayList<MyPoint>(locus.getPoints());
+	}
+
+	private static void checkSame(String def) {
+		ArrayList<MyPoint> sequential = locus(def, false);
+		ArrayList<MyPoint> parallel = locus(def, true);
+		Assert.assertTrue(def, sequential.size() > 1);
+		Assert.assertEquals(def, sequential.size(), parallel.size());
+		for (int i = 0; i < sequential.size(); i++) {
+			MyPoint p = sequential.get(i), q = parallel.get(i);
+			Assert.assertEquals(def, p.x, q.x, 0);
+			Assert.assertEquals(def, p.y, q.y, 0);
+			Assert.assertEquals(def, p.lineTo, q.lineTo);
+		}
+	}
+
+	@Test
+	public void prefetchedMatchesSequential() {
+		app.getKernel().clearConstruction(true);
+		eval("c: x^2 + y^2 = 4");
+		eval("A=Point(c)");
+		eval("B=(3, 0)");
+		eval("M=Midpoint(A, B)");
+		eval("N=Midpoint(M, (0, 1))");
+		checkSame("Locus(N, A)");
+
+		// steep parts need smaller steps
+		eval("f(x)=x^3 - 3x");
+		eval("P=Point(f)");
+		eval("Q=Midpoint(P, (0, 5))");
+		checkSame("Locus(Q, P)");
+
+		eval("s=Segment((-5, -1), (5, 3))");
+		eval("R=Point(s)");
+		eval("l=Line(R, B)");
+		eval("T=Midpoint(R, B)");
+		checkSame("Locus(T, R)");
+	}
+}
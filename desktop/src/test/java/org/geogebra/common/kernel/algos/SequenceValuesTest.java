@@ -0,0 +1,104 @@
+package org.geogebra.common.kernel.algos;
+
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.kernel.StringTemplate;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoList;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that sequences of numbers computed into arrays are the same as
+ * sequences computed element by element.
+ */
+public class SequenceValuesTest {
+	private static AppD app;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+	}
+
+	private static GeoElement eval(String def) {
+		return app.getKernel().getAlgebraProcessor()
+				.processAlgebraCommand(def, false)[0];
+	}
+
+	private static String value(String label) {
+		GeoList list = (GeoList) app.getKernel().lookupLabel(label);
+		return list.isDefined() ? list
+				.toValueString(StringTemplate.maxPrecision) : "?";
+	}
+
+	/**
+	 * Element(list, 1) depends on the loop variable through another algo, so
+	 * the reference sequence is computed element by element
+	 */
+	private static void checkSame(String exp, String range) {
+		eval("s=Sequence(" + exp + ", i, " + range + ")");
+		eval("r=Sequence(Element({" + exp + "}, 1), i, " + range + ")");
+		GeoList list = (GeoList) app.getKernel().lookupLabel("s");
+		Assert.assertTrue(list.size() == 0 || list.getValues() != null);
+		Assert.assertEquals(exp + ", " + range, value("r"), value("s"));
+	}
+
+	@Test
+	public void valuesMatchElements() {
+		app.getKernel().clearConstruction(true);
+		eval("k=2");
+		String[] ranges = { "1, 10", "-3, 3, 0.1", "5, 1, -0.5", "1, 0",
+				"0, 1, 0.01" };
+		for (String range : ranges) {
+			checkSame("i^2 + k", range);
+			checkSame("sin(i) / i", range);
+			checkSame("i", range);
+		}
+		// values follow changes of other objects
+		eval("s=Sequence(k i, i, 1, 5)");
+		eval("SetValue(k, 3)");
+		Assert.assertEquals("{3, 6, 9, 12, 15}", value("s"));
+	}
+
+	@Test
+	public void simpleSequenceKeepsValues() {
+		app.getKernel().clearConstruction(true);
+		eval("d=25");
+		eval("s=Sequence(sqrt(d))");
+		Assert.assertEquals("{1, 2, 3, 4, 5}", value("s"));
+		eval("SetValue(d, 9)");
+		Assert.assertEquals("{1, 2, 3}", value("s"));
+		// undefined list must not overwrite kept values
+		eval("SetValue(d, -1)");
+		Assert.assertEquals("?", value("s"));
+		eval("SetValue(d, 64)");
+		Assert.assertEquals("{1, 2, 3, 4, 5, 6, 7, 8}", value("s"));
+	}
+
+	@Test
+	public void rangeMatchesElements() {
+		app.getKernel().clearConstruction(true);
+		eval("a=3");
+		eval("b=-2");
+		eval("s=Sequence(a, b)");
+		Assert.assertEquals("{3, 2, 1, 0, -1, -2}", value("s"));
+		eval("SetValue(b, 7)");
+		Assert.assertEquals("{3, 4, 5, 6, 7}", value("s"));
+		eval("t=Sequence(i, i, a, b)");
+		Assert.assertEquals(value("t"), value("s"));
+		// large ranges are filled in steps
+		eval("SetValue(a, -100000)");
+		eval("SetValue(b, 100000)");
+		GeoList list = (GeoList) app.getKernel().lookupLabel("s");
+		Assert.assertEquals(200001, list.size());
+		Assert.assertEquals(100000, list.getValues()[200000], 0);
+	}
+}
@@ -0,0 +1,68 @@
+package org.geogebra.common.kernel.cas;
+
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.jre.util.ParallelExecutorJre;
+import org.geogebra.common.kernel.geos.GeoFunction;
+import org.geogebra.common.util.ParallelExecutor;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that definite integrals computed in parallel are the same as those
+ * computed sequentially.
+ */
+public class IntegralParallelTest {
+	private static AppD app;
+	private static ParallelExecutor executor;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent",
+				"--prerelease" }), new JFrame(), false);
+		app.setLanguage(Locale.US);
+		executor = ParallelExecutor.prototype;
+	}
+
+	@After
+	public void resetExecutor() {
+		ParallelExecutor.prototype = executor;
+	}
+
+	private static GeoFunction function(String def) {
+		return (GeoFunction) app.getKernel().getAlgebraProcessor()
+				.processAlgebraCommand(def, false)[0];
+	}
+
+	private static void checkSame(String def, double a, double b) {
+		GeoFunction f = function(def);
+		ParallelExecutor.prototype = new ParallelExecutor();
+		double sequential = AlgoIntegralDefinite.numericIntegration(f, a, b,
+				1);
+		ParallelExecutor.prototype = new ParallelExecutorJre(4);
+		// otherwise the sequential version is used
+		Assert.assertTrue(def, f.createEvaluationContext().isIndependent());
+		double parallel = AlgoIntegralDefinite.numericIntegrationParallel(f,
+				a, b, 1);
+		Assert.assertEquals(def, sequential, parallel, 0);
+	}
+
+	@Test
+	public void parallelMatchesSequential() {
+		app.getKernel().clearConstruction(true);
+		checkSame("f(x)=x^2", 0, 3);
+		checkSame("g(x)=sin(x)", 0, 10);
+		checkSame("h(x)=exp(-x^2)", -5, 5);
+		checkSame("p(x)=1/(1+x^2)", 7, -3);
+		checkSame("q(x)=sqrt(abs(x))", -2, 2);
+		// oscillating, may need more calls than allowed
+		checkSame("r(x)=sin(1/x)", 0.0001, 1);
+	}
+}
@@ -0,0 +1,142 @@
+package org.geogebra.common.kernel.geos;
+
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.StringTemplate;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that lists stored as numbers or points in arrays behave like lists
+ * of elements.
+ */
+public class GeoListValuesTest {
+	private static AppD app;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+	}
+
+	private static GeoElement eval(String def) {
+		return app.getKernel().getAlgebraProcessor()
+				.processAlgebraCommand(def, false)[0];
+	}
+
+	private static GeoList list(String label) {
+		return (GeoList) app.getKernel().lookupLabel(label);
+	}
+
+	private static double number(String label) {
+		return ((GeoNumeric) app.getKernel().lookupLabel(label)).getDouble();
+	}
+
+	@Test
+	public void undefinedListKeepsArray() {
+		Kernel kernel = app.getKernel();
+		GeoList list = new GeoList(kernel.getConstruction());
+		double[] values = { 1, 2, 3 };
+		list.setValues(values, 3);
+		list.setUndefined();
+		Assert.assertArrayEquals(new double[] { 1, 2, 3 }, values, 0);
+		Assert.assertFalse(list.get(0).isDefined());
+
+		GeoList points = new GeoList(kernel.getConstruction());
+		double[] coords = { 1, 2, 3, 4 };
+		points.setPointValues(coords, 2);
+		points.setUndefined();
+		Assert.assertArrayEquals(new double[] { 1, 2, 3, 4 }, coords, 0);
+	}
+
+	@Test
+	public void zipOfNumbers() {
+		app.getKernel().clearConstruction(true);
+		eval("l1={3, 1, 4, 1, 5, 9}");
+		eval("l2={2, 7, 1, 8}");
+		eval("k=2");
+		eval("z=Zip(k a + b^2, a, l1, b, l2)");
+		GeoList zip = list("z");
+		Assert.assertNotNull(zip.getValues());
+		Assert.assertEquals("{10, 51, 9, 66}",
+				zip.toValueString(StringTemplate.editTemplate));
+		// same result as a list of numbers
+		eval("w={10, 51, 9, 66}");
+		eval("s1=SD(z)");
+		eval("s2=SD(w)");
+		Assert.assertEquals(number("s2"), number("s1"), 0);
+
+		eval("SetValue(k, 3)");
+		Assert.assertEquals("{13, 52, 13, 67}",
+				zip.toValueString(StringTemplate.editTemplate));
+		// elements are created when needed
+		Assert.assertEquals(52, ((GeoNumeric) zip.get(1)).getDouble(), 0);
+		Assert.assertEquals(4, zip.size());
+
+		// zip of a zip
+		eval("y=Zip(c/2, c, z)");
+		Assert.assertEquals("{6.5, 26, 6.5, 33.5}",
+				list("y").toValueString(StringTemplate.editTemplate));
+		eval("SetValue(l2, {1})");
+		Assert.assertEquals("{10}",
+				zip.toValueString(StringTemplate.editTemplate));
+		Assert.assertEquals("{5}",
+				list("y").toValueString(StringTemplate.editTemplate));
+	}
+
+	@Test
+	public void zipOfPoints() {
+		app.getKernel().clearConstruction(true);
+		eval("l1={3, 1, 4, 1, 5, 9}");
+		eval("l2={2, 7, 1, 8, 2, 8}");
+		eval("z=Zip((a, a b), a, l1, b, l2)");
+		eval("w={(3, 6), (1, 7), (4, 4), (1, 8), (5, 10), (9, 72)}");
+		GeoList zip = list("z");
+		Assert.assertNotNull(zip.getPointValues());
+
+		// statistics of points stored in arrays
+		String[] commands = { "Sxy", "Covariance", "PMCC", "SigmaYY" };
+		for (String cmd : commands) {
+			eval("s1=" + cmd + "(z)");
+			eval("s2=" + cmd + "(w)");
+			Assert.assertEquals(cmd, number("s2"), number("s1"), 1E-12);
+		}
+		Assert.assertTrue(zip.getStatistics().isPoints2D());
+		Assert.assertNotNull(zip.getPointValues());
+		Assert.assertEquals(list("w").toValueString(StringTemplate.editTemplate),
+				zip.toValueString(StringTemplate.editTemplate));
+		Assert.assertTrue(zip.get(5) instanceof GeoPoint);
+		Assert.assertEquals(72, ((GeoPoint) zip.get(5)).getInhomY(), 0);
+	}
+
+	@Test
+	public void zipOfComplexAndPolarPoints() {
+		app.getKernel().clearConstruction(true);
+		eval("z=Zip(c^2, c, {1+\u03af, 2})");
+		Assert.assertNull(list("z").getPointValues());
+		GeoPoint square = (GeoPoint) list("z").get(0);
+		Assert.assertEquals(Kernel.COORD_COMPLEX, square.getMode());
+		Assert.assertEquals("2\u03af",
+				square.toValueString(StringTemplate.editTemplate));
+		Assert.assertEquals(4, ((GeoPoint) list("z").get(1)).getInhomX(), 0);
+
+		eval("p=Zip((r; 90\u00b0), r, {1, 2})");
+		Assert.assertNull(list("p").getPointValues());
+		Assert.assertTrue(((GeoPoint) list("p").get(1)).isPolar());
+		Assert.assertEquals(2, ((GeoPoint) list("p").get(1)).getInhomY(),
+				1E-12);
+
+		// points on a path are elements as before
+		eval("f(x)=x^2");
+		eval("q=Zip(Point(f, t), t, {0.2, 0.4})");
+		Assert.assertNull(list("q").getPointValues());
+	}
+}
@@ -0,0 +1,74 @@
+package org.geogebra.common.kernel.implicit;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.kernel.MyPoint;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.euclidian.EuclidianViewD;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that reusing samples after moving the view gives the same path as
+ * sampling the curve again.
+ */
+public class ImplicitCurvePathTest {
+	private static AppD app;
+	private static EuclidianViewD view;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+		view = app.getEuclidianView1();
+		view.setSize(new Dimension(600, 400));
+		view.setCoordSystem(300, 200, 30, 30);
+	}
+
+	private static String path(GeoImplicitCurve curve) {
+		StringBuilder sb = new StringBuilder();
+		ArrayList<MyPoint> points = curve.getLocus().getPoints();
+		for (MyPoint p : points) {
+			sb.append(p.lineTo ? 'L' : 'M').append(p.x).append(',')
+					.append(p.y).append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void movedViewMatchesNewSamples() {
+		app.getKernel().clearConstruction(true);
+		GeoElement geo = app.getKernel().getAlgebraProcessor()
+				.processAlgebraCommand("sin(x) y + cos(y) x = 1", false)[0];
+		Assert.assertTrue(geo instanceof GeoImplicitCurve);
+		GeoImplicitCurve curve = (GeoImplicitCurve) geo;
+		curve.setRefinementDepth(99);
+		Assert.assertEquals(GeoImplicitCurve.MAX_REFINEMENT_DEPTH,
+				curve.getRefinementDepth());
+		// independent of the speed of the device
+		curve.setRefinementDepth(3);
+		curve.updatePath();
+		Assert.assertFalse(curve.getLocus().getPoints().isEmpty());
+
+		int[][] moves = { { 45, 0 }, { 0, -70 }, { -200, 130 }, { 7, 3 } };
+		double xZero = 300, yZero = 200;
+		for (int[] move : moves) {
+			xZero += move[0];
+			yZero += move[1];
+			view.setCoordSystem(xZero, yZero, 30, 30);
+			curve.euclidianViewUpdate();
+			String reused = path(curve);
+			curve.updatePath();
+			Assert.assertEquals(path(curve), reused);
+		}
+	}
+}
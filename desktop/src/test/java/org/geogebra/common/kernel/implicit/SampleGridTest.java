@@ -0,0 +1,112 @@
+package org.geogebra.common.kernel.implicit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the grid of implicit curve samples that is kept between views.
+ */
+public class SampleGridTest {
+
+	private static double f(double x, double y) {
+		return x * x - 3 * y + x * y;
+	}
+
+	/**
+	 * Computes missing values like the plotter does
+	 *
+	 * @return number of computed values
+	 */
+	private static int fill(SampleGrid grid) {
+		int computed = 0;
+		for (int i = 0; i < grid.rows; i++) {
+			for (int j = 0; j < grid.cols; j++) {
+				int k = i * grid.cols + j;
+				if (grid.missing[k]) {
+					grid.values[k] = f(grid.x(j), grid.y(i));
+					grid.missing[k] = false;
+					computed++;
+				}
+			}
+		}
+		for (int c = 0; c < grid.cellMissing.length; c++) {
+			if (grid.cellMissing[c]) {
+				grid.singular[c] = c % 3 == 0;
+				grid.cellMissing[c] = false;
+			}
+		}
+		return computed;
+	}
+
+	private static void checkValues(SampleGrid grid) {
+		for (int i = 0; i < grid.rows; i++) {
+			for (int j = 0; j < grid.cols; j++) {
+				Assert.assertEquals(f(grid.x(j), grid.y(i)),
+						grid.values[i * grid.cols + j], 0);
+			}
+		}
+	}
+
+	@Test
+	public void verticesAreAligned() {
+		SampleGrid grid = new SampleGrid();
+		Assert.assertEquals(0, grid.moveTo(-3.3, 1.7, 0.5, 0.25, 10, 8));
+		Assert.assertEquals(12, grid.cols);
+		Assert.assertEquals(10, grid.rows);
+		Assert.assertEquals(-3.5, grid.x(0), 0);
+		Assert.assertEquals(1.5, grid.y(0), 0);
+		Assert.assertEquals(0.5, grid.getCellWidth(), 0);
+		Assert.assertEquals(0.25, grid.getCellHeight(), 0);
+		Assert.assertEquals(grid.values.length, fill(grid));
+		checkValues(grid);
+	}
+
+	@Test
+	public void movingKeepsOverlap() {
+		SampleGrid grid = new SampleGrid();
+		grid.moveTo(0.1, 0.1, 1, 1, 10, 10);
+		fill(grid);
+		boolean[] singular = grid.singular.clone();
+
+		// three columns right, two rows down
+		int kept = grid.moveTo(3.1, -1.9, 1, 1, 10, 10);
+		Assert.assertEquals(9 * 10, kept);
+		Assert.assertEquals(grid.values.length - kept, fill(grid));
+		checkValues(grid);
+		// cells kept from the old position keep their singular flag
+		for (int i = 2; i < grid.rows - 1; i++) {
+			for (int j = 0; j < grid.cols - 4; j++) {
+				Assert.assertEquals(singular[(i - 2) * (grid.cols - 1) + j
+						+ 3], grid.singular[i * (grid.cols - 1) + j]);
+			}
+		}
+
+		// same position: everything kept
+		Assert.assertEquals(grid.values.length,
+				grid.moveTo(3.1, -1.9, 1, 1, 10, 10));
+		// far away: nothing kept
+		Assert.assertEquals(0, grid.moveTo(100, 100, 1, 1, 10, 10));
+		fill(grid);
+		checkValues(grid);
+	}
+
+	@Test
+	public void zoomAndCurveChangeDropValues() {
+		SampleGrid grid = new SampleGrid();
+		grid.moveTo(0, 0, 1, 1, 10, 10);
+		fill(grid);
+		Assert.assertEquals(0, grid.moveTo(0, 0, 0.5, 1, 10, 10));
+		fill(grid);
+		grid.invalidate();
+		Assert.assertEquals(0, grid.moveTo(0, 0, 0.5, 1, 10, 10));
+		fill(grid);
+		checkValues(grid);
+
+		// not aligned far from the origin, but still correct
+		Assert.assertEquals(0, grid.moveTo(1E10, 0, 1, 1, 4, 4));
+		Assert.assertEquals(1E10, grid.x(0), 0);
+		fill(grid);
+		checkValues(grid);
+		Assert.assertEquals(0, grid.moveTo(1E10, 0, 1, 1, 4, 4));
+	}
+}
@@ -0,0 +1,137 @@
+package org.geogebra.common.kernel.statistics;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.kernel.Construction;
+import org.geogebra.common.kernel.geos.GeoList;
+import org.geogebra.common.kernel.geos.GeoNumeric;
+import org.geogebra.common.kernel.geos.GeoPoint;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the shared statistics of a list stay the same as values
+ * computed from the elements, while elements are appended, changed and
+ * removed.
+ */
+public class ListStatisticsTest {
+	private static AppD app;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+	}
+
+	private static void checkNumbers(GeoList list, ListStatistics stats) {
+		stats.update();
+		int n = list.size();
+		Assert.assertEquals(n, stats.size());
+		Assert.assertTrue(stats.isNumbers());
+		double sum = 0, sumSquares = 0, product = 1;
+		double[] sorted = new double[n];
+		for (int i = 0; i < n; i++) {
+			double val = ((GeoNumeric) list.get(i)).getDouble();
+			sum += val;
+			sumSquares += val * val;
+			product *= val;
+			sorted[i] = val;
+			Assert.assertEquals(val, stats.getX()[i], 0);
+		}
+		Arrays.sort(sorted);
+		// same order of summation: bitwise equal
+		Assert.assertEquals(sum, stats.getSum(), 0);
+		Assert.assertEquals(sumSquares, stats.getSumSquares(), 0);
+		Assert.assertEquals(product, stats.getProduct(), 0);
+		Assert.assertArrayEquals(sorted,
+				Arrays.copyOf(stats.getSorted(), n), 0);
+	}
+
+	@Test
+	public void numbersMatchElements() {
+		Construction cons = app.getKernel().getConstruction();
+		GeoList list = new GeoList(cons);
+		ListStatistics stats = list.getStatistics();
+		Random random = new Random(3);
+		checkNumbers(list, stats);
+		for (int round = 0; round < 300; round++) {
+			int generation = stats.getGeneration();
+			int op = list.size() < 5 ? 0 : random.nextInt(5);
+			if (op <= 1) {
+				// append, sometimes many values at once
+				int count = random.nextInt(10) == 0 ? 40 : 1;
+				for (int k = 0; k < count; k++) {
+					list.add(new GeoNumeric(cons, random.nextInt(50) / 4.0));
+				}
+			} else if (op == 2) {
+				GeoNumeric num = (GeoNumeric) list.get(random.nextInt(list
+						.size()));
+				// NaN only replaces numbers, so the value always changes
+				num.setValue(random.nextInt(10) == 0
+						&& !Double.isNaN(num.getDouble()) ? Double.NaN
+						: random.nextGaussian());
+			} else if (op == 3) {
+				list.remove(random.nextInt(list.size()));
+			} else {
+				// sum of many changes: sorted again
+				for (int i = 0; i < list.size(); i++) {
+					((GeoNumeric) list.get(i)).setValue(random.nextDouble());
+				}
+			}
+			list.update();
+			checkNumbers(list, stats);
+			if (op <= 1) {
+				Assert.assertEquals(generation, stats.getGeneration());
+			} else {
+				Assert.assertTrue(stats.getGeneration() > generation);
+			}
+		}
+	}
+
+	@Test
+	public void pointsMatchElements() {
+		Construction cons = app.getKernel().getConstruction();
+		GeoList list = new GeoList(cons);
+		ListStatistics stats = list.getStatistics();
+		Random random = new Random(4);
+		for (int round = 0; round < 50; round++) {
+			list.add(new GeoPoint(cons, random.nextGaussian(),
+					random.nextGaussian(), 1));
+			if (round % 7 == 0) {
+				((GeoPoint) list.get(random.nextInt(list.size()))).setCoords(
+						round, -round, 1);
+			}
+			list.update();
+			stats.update();
+			Assert.assertTrue(stats.isPoints2D());
+			Assert.assertFalse(stats.isNumbers());
+			double sumX = 0, sumY = 0, sumYY = 0, sumXY = 0;
+			for (int i = 0; i < list.size(); i++) {
+				GeoPoint p = (GeoPoint) list.get(i);
+				sumX += p.getInhomX();
+				sumY += p.getInhomY();
+				sumYY += p.getInhomY() * p.getInhomY();
+				sumXY += p.getInhomX() * p.getInhomY();
+			}
+			Assert.assertEquals(sumX, stats.getSum(), 0);
+			Assert.assertEquals(sumY, stats.getSumY(), 0);
+			Assert.assertEquals(sumYY, stats.getSumYY(), 0);
+			Assert.assertEquals(sumXY, stats.getSumXY(), 0);
+		}
+		// mixed list
+		list.add(new GeoNumeric(cons, 1));
+		list.update();
+		stats.update();
+		Assert.assertFalse(stats.isNumbers());
+		Assert.assertFalse(stats.isPoints());
+	}
+}
@@ -0,0 +1,168 @@
+package org.geogebra.common.main;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.awt.GPoint;
+import org.geogebra.common.kernel.geos.GeoElementSpreadsheet;
+import org.geogebra.common.kernel.statistics.AlgoCellRange;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares the algos found by the cell range index with the ranges
+ * containing each cell, before and after the trees are built.
+ */
+public class CellRangeIndexTest {
+	private static final int COLUMNS = 12;
+	private static final int ROWS = 60;
+	private static AppD app;
+
+	private CellRangeIndex index;
+	private ArrayList<AlgoCellRange> algos;
+	/** minColumn, minRow, maxColumn, maxRow of the algos, -1 for all */
+	private ArrayList<int[]> bounds;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+	}
+
+	@Before
+	public void clear() {
+		app.getKernel().clearConstruction(true);
+		index = new CellRangeIndex();
+		algos = new ArrayList<AlgoCellRange>();
+		bounds = new ArrayList<int[]>();
+	}
+
+	/**
+	 * @return range algo for the given zero based bounds
+	 */
+	private static AlgoCellRange create(int minColumn, int minRow,
+			int maxColumn, int maxRow) {
+		return (AlgoCellRange) app
+				.getKernel()
+				.getAlgebraProcessor()
+				.processAlgebraCommand(
+						GeoElementSpreadsheet.getSpreadsheetCellName(
+								minColumn, minRow)
+								+ ":"
+								+ GeoElementSpreadsheet.getSpreadsheetCellName(
+										maxColumn, maxRow), false)[0]
+				.getParentAlgorithm();
+	}
+
+	/**
+	 * Adds the algo to the index, its range is read now
+	 */
+	private void add(AlgoCellRange algo, int minColumn, int minRow,
+			int maxColumn, int maxRow) {
+		index.add(algo);
+		algos.add(algo);
+		bounds.add(new int[] { minColumn, minRow, maxColumn, maxRow });
+	}
+
+	private void add(int minColumn, int minRow, int maxColumn, int maxRow) {
+		add(create(minColumn, minRow, maxColumn, maxRow), minColumn, minRow,
+				maxColumn, maxRow);
+	}
+
+	private void remove(int i) {
+		index.remove(algos.remove(i));
+		bounds.remove(i);
+	}
+
+	private static boolean contains(int[] range, int column, int row) {
+		return (range[0] == -1 || (column >= range[0] && column <= range[2]))
+				&& (range[1] == -1 || (row >= range[1] && row <= range[3]));
+	}
+
+	/**
+	 * Checks all cells of the sheet
+	 */
+	private void check() {
+		GPoint location = new GPoint();
+		for (int column = 0; column < COLUMNS; column++) {
+			for (int row = 0; row < ROWS; row++) {
+				location.setLocation(column, row);
+				List<AlgoCellRange> found = index.getAlgos(location);
+				HashSet<AlgoCellRange> expected = new HashSet<AlgoCellRange>();
+				for (int i = 0; i < algos.size(); i++) {
+					if (contains(bounds.get(i), column, row)) {
+						expected.add(algos.get(i));
+					}
+				}
+				String cell = GeoElementSpreadsheet.getSpreadsheetCellName(
+						column, row);
+				Assert.assertEquals(cell, expected.size(), found.size());
+				Assert.assertEquals(cell, expected,
+						new HashSet<AlgoCellRange>(found));
+			}
+		}
+	}
+
+	@Test
+	public void pendingAndBuiltRanges() {
+		Random random = new Random(7);
+		HashSet<String> used = new HashSet<String>();
+		int added = 0;
+		while (added < 60) {
+			int column = random.nextInt(COLUMNS);
+			int row = random.nextInt(ROWS);
+			int maxColumn = Math.min(COLUMNS - 1,
+					column + random.nextInt(4));
+			int maxRow = Math.min(ROWS - 1, row + random.nextInt(20));
+			// the same range gives the same algo
+			if (!used.add(column + "," + row + "," + maxColumn + ","
+					+ maxRow)) {
+				continue;
+			}
+			add(column, row, maxColumn, maxRow);
+			added++;
+			if (added == 10 || added == 50) {
+				// only pending ranges, then a built tree
+				check();
+			}
+		}
+		// built tree and pending ranges
+		check();
+		for (int i = 0; i < 20; i++) {
+			remove(random.nextInt(algos.size()));
+		}
+		check();
+		index.clear();
+		algos.clear();
+		bounds.clear();
+		check();
+	}
+
+	@Test
+	public void wholeRowsAndColumns() {
+		// column C and rows 3 to 5
+		AlgoCellRange column = create(2, 0, 2, 1);
+		column.getCellRange().setCellRange(2, -1, 2, -1);
+		add(column, 2, -1, 2, -1);
+		AlgoCellRange rows = create(0, 2, 1, 4);
+		rows.getCellRange().setCellRange(-1, 2, -1, 4);
+		add(rows, -1, 2, -1, 4);
+		for (int i = 0; i < 20; i++) {
+			add(i % COLUMNS, 3 * i, i % COLUMNS + 1, 3 * i + 2);
+		}
+		check();
+		remove(0);
+		check();
+	}
+}
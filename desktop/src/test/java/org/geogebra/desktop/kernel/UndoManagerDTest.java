@@ -0,0 +1,87 @@
+package org.geogebra.desktop.kernel;
+
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.kernel.Construction;
+import org.geogebra.common.kernel.Kernel;
+import org.geogebra.common.kernel.commands.AlgebraProcessor;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.kernel.geos.GeoPoint;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Undo and redo through deltas, in place for moved free objects.
+ */
+public class UndoManagerDTest {
+	private static AppD app;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), true);
+		app.setLanguage(Locale.US);
+	}
+
+	private static GeoPoint point(String label) {
+		return (GeoPoint) app.getKernel().lookupLabel(label);
+	}
+
+	private static void checkPoint(String label, double x, double y) {
+		Assert.assertEquals(x, point(label).getInhomX(), 1E-12);
+		Assert.assertEquals(y, point(label).getInhomY(), 1E-12);
+	}
+
+	@Test
+	public void moveIsUndoneInPlace() {
+		Kernel kernel = app.getKernel();
+		kernel.clearConstruction(true);
+		Construction cons = kernel.getConstruction();
+		UndoManagerD undo = (UndoManagerD) cons.getUndoManager();
+		AlgebraProcessor ap = kernel.getAlgebraProcessor();
+		ap.processAlgebraCommand("A=(1,1)", false);
+		ap.processAlgebraCommand("B=(3,3)", false);
+		ap.processAlgebraCommand("M=Midpoint(A,B)", false);
+		undo.clearUndoInfo();
+		undo.doStoreUndoInfo(cons.getCurrentUndoXML(true));
+
+		for (int i = 1; i <= 3; i++) {
+			point("A").setCoords(1 + 2 * i, 1, 1);
+			point("A").updateCascade();
+			undo.doStoreUndoInfo(cons.getCurrentUndoXML(true));
+		}
+		GeoElement midpoint = point("M");
+
+		undo.undo();
+		checkPoint("A", 5, 1);
+		checkPoint("M", 4, 2);
+		undo.undo();
+		undo.undo();
+		checkPoint("A", 1, 1);
+		checkPoint("M", 2, 2);
+		Assert.assertFalse(undo.undoPossible());
+		// not rebuilt
+		Assert.assertSame(midpoint, point("M"));
+
+		undo.redo();
+		undo.redo();
+		checkPoint("A", 5, 1);
+		checkPoint("M", 4, 2);
+		Assert.assertSame(midpoint, point("M"));
+
+		// new objects need a reload
+		ap.processAlgebraCommand("C=(0,0)", false);
+		undo.doStoreUndoInfo(cons.getCurrentUndoXML(true));
+		undo.undo();
+		Assert.assertNull(kernel.lookupLabel("C"));
+		checkPoint("M", 4, 2);
+		undo.redo();
+		checkPoint("C", 0, 0);
+	}
+}
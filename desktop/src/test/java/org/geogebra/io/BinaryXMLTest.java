@@ -0,0 +1,82 @@
+package org.geogebra.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.StringReader;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.geogebra.common.io.QDParser;
+import org.geogebra.common.jre.io.BinaryXML;
+import org.geogebra.desktop.util.UtilD;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that binary constructions produce the same parser events as the XML
+ * they were created from.
+ */
+public class BinaryXMLTest {
+
+	private static final String SAMPLES = "src/main/java/org/geogebra/desktop/geogebra3D/samples";
+
+	@Test
+	public void sampleFiles() throws Exception {
+		File[] files = new File(SAMPLES).listFiles();
+		Assert.assertNotNull("no sample files found", files);
+		for (File file : files) {
+			if (!file.getName().endsWith(".ggb")) {
+				continue;
+			}
+			ZipInputStream zip = new ZipInputStream(new FileInputStream(file));
+			try {
+				ZipEntry entry;
+				while ((entry = zip.getNextEntry()) != null) {
+					if (entry.getName().endsWith(".xml")) {
+						checkRoundTrip(new String(UtilD.loadIntoMemory(zip),
+								"UTF8"));
+					}
+				}
+			} finally {
+				zip.close();
+			}
+		}
+	}
+
+	@Test
+	public void numbers() throws Exception {
+		StringBuilder list = new StringBuilder("{");
+		for (int i = 0; i < 1000; i++) {
+			list.append(i > 0 ? ", (" : "(").append(Math.sqrt(i)).append(", ")
+					.append(-i).append(")");
+		}
+		list.append(", A1, x_{12}, 1.50, 007, -0, 1E5, 2.5E-7}");
+		String xml = "<geogebra><construction>\n<expression label=\"l1\" exp=\""
+				+ list + "\"/>\n<element type=\"point\" label=\"A\">"
+				+ "<coords x=\"0.1234567890123\" y=\"-3\" z=\"1.0\" w=\"-0\"/>"
+				+ "<caption val=\"&lt;&amp;&#10;\"/></element>"
+				+ "</construction></geogebra>";
+		byte[] bin = checkRoundTrip(xml);
+		Assert.assertTrue(bin.length < xml.length());
+	}
+
+	@Test
+	public void detectsChangedXML() throws Exception {
+		String xml = "<geogebra><construction/></geogebra>";
+		byte[] bin = BinaryXML.encode(xml);
+		Assert.assertTrue(BinaryXML.isEncodingOf(bin, xml.getBytes("UTF8")));
+		Assert.assertFalse(BinaryXML.isEncodingOf(bin,
+				"<geogebra><construction></construction></geogebra>"
+						.getBytes("UTF8")));
+	}
+
+	private static byte[] checkRoundTrip(String xml) throws Exception {
+		EventRecorder expected = new EventRecorder();
+		new QDParser().parse(expected, new StringReader(xml));
+		byte[] bin = BinaryXML.encode(xml);
+		EventRecorder actual = new EventRecorder();
+		BinaryXML.parse(bin, actual);
+		Assert.assertEquals(expected.getEvents(), actual.getEvents());
+		return bin;
+	}
+}
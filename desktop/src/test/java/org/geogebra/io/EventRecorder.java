@@ -0,0 +1,84 @@
+package org.geogebra.io;
+
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import org.geogebra.common.io.DocHandler;
+
+/**
+ * Writes all events of a parser into a string, consecutive text events are
+ * merged.
+ */
+class EventRecorder implements DocHandler {
+	private final StringBuilder events = new StringBuilder();
+	private final StringBuilder text = new StringBuilder();
+	private final boolean normalizeAttributes;
+
+	/**
+	 * Records the events as they are
+	 */
+	EventRecorder() {
+		this(false);
+	}
+
+	/**
+	 * @param normalizeAttributes
+	 *            whether to replace line breaks and tabs in attribute values by
+	 *            spaces like SAX parsers do
+	 */
+	EventRecorder(boolean normalizeAttributes) {
+		this.normalizeAttributes = normalizeAttributes;
+	}
+
+	/**
+	 * @return recorded events, one per line
+	 */
+	String getEvents() {
+		flushText();
+		return events.toString();
+	}
+
+	private void flushText() {
+		if (text.length() > 0) {
+			events.append("text:").append(text).append('\n');
+			text.setLength(0);
+		}
+	}
+
+	public void startElement(String tag, LinkedHashMap<String, String> h) {
+		flushText();
+		events.append('<').append(tag);
+		for (Entry<String, String> e : h.entrySet()) {
+			String value = e.getValue();
+			if (normalizeAttributes) {
+				value = value.replace('\n', ' ').replace('\r', ' ')
+						.replace('\t', ' ');
+			}
+			events.append(' ').append(e.getKey()).append("=\"").append(value)
+					.append('"');
+		}
+		events.append(">\n");
+	}
+
+	public void endElement(String tag) {
+		flushText();
+		events.append("</").append(tag).append(">\n");
+	}
+
+	public void startDocument() {
+		events.append("start\n");
+	}
+
+	public void endDocument() {
+		flushText();
+		events.append("end\n");
+	}
+
+	public void text(String str) {
+		text.append(str);
+	}
+
+	public int getConsStep() {
+		return 0;
+	}
+}
@@ -0,0 +1,115 @@
+package org.geogebra.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.io.DocHandler;
+import org.geogebra.common.io.QDParser;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.main.AppD;
+
+/**
+ * Times QDParser against the SAX parser of the JRE on the bundled sample
+ * files plus a large construction, and times loading the sample files.
+ * Checking the events is left to QDParserTest; run as application.
+ */
+public class QDParserBenchmark {
+
+	private static final int ROUNDS = 20;
+
+	private static final DocHandler IGNORE = new DocHandler() {
+		public void startElement(String tag, LinkedHashMap<String, String> h) {
+			// only parsing is timed
+		}
+
+		public void endElement(String tag) {
+			// only parsing is timed
+		}
+
+		public void startDocument() {
+			// only parsing is timed
+		}
+
+		public void endDocument() {
+			// only parsing is timed
+		}
+
+		public void text(String str) {
+			// only parsing is timed
+		}
+
+		public int getConsStep() {
+			return 0;
+		}
+	};
+
+	public static void main(String[] args) throws Exception {
+		ArrayList<String> docs = QDParserTest.loadSamples();
+		docs.add(QDParserTest.createLargeConstruction());
+		int chars = 0;
+		for (String xml : docs) {
+			chars += xml.length();
+		}
+		System.out.println(docs.size() + " documents, " + chars
+				+ " characters");
+
+		QDParser parser = new QDParser();
+		// warm up
+		for (int round = 0; round < ROUNDS; round++) {
+			for (String xml : docs) {
+				parser.parse(IGNORE, new StringReader(xml));
+				QDParserTest.parseSAX(xml);
+			}
+		}
+
+		long time = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++) {
+			for (String xml : docs) {
+				parser.parse(IGNORE, new StringReader(xml));
+			}
+		}
+		System.out.println("QDParser: " + (System.nanoTime() - time)
+				/ 1000000 / ROUNDS + " ms per round");
+
+		time = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++) {
+			for (String xml : docs) {
+				QDParserTest.parseSAX(xml);
+			}
+		}
+		System.out.println("SAX (with event recording): "
+				+ (System.nanoTime() - time) / 1000000 / ROUNDS
+				+ " ms per round");
+
+		AppD app = new AppD(new CommandLineArguments(
+				new String[] { "--silent" }), new JFrame(), false);
+		File[] files = new File(QDParserTest.SAMPLES).listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (!file.getName().endsWith(".ggb")) {
+				continue;
+			}
+			long best = Long.MAX_VALUE;
+			for (int round = 0; round < 5; round++) {
+				InputStream is = new BufferedInputStream(new FileInputStream(
+						file));
+				time = System.nanoTime();
+				app.getXMLio().readZipFromInputStream(is, false);
+				best = Math.min(best, System.nanoTime() - time);
+				is.close();
+			}
+			System.out.println(file.getName() + ": loaded in " + best
+					/ 1000000 + " ms");
+		}
+		System.exit(0);
+	}
+}
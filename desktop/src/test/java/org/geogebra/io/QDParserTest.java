@@ -0,0 +1,151 @@
+package org.geogebra.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.geogebra.common.io.QDParser;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Checks that QDParser sends the same events as the SAX parser of the JRE.
+ */
+public class QDParserTest {
+
+	static final String SAMPLES = "src/main/java/org/geogebra/desktop/geogebra3D/samples";
+
+	@Test
+	public void sameEventsAsSAX() throws Exception {
+		ArrayList<String> docs = loadSamples();
+		Assert.assertFalse("no sample files found", docs.isEmpty());
+		docs.add("<?xml version=\"1.0\"?>\n<a x='1' y=\"&quot;&lt;&#10;&#x41;\">"
+				+ "t&amp;t<!-- comment --><b/>\r\nz</a>");
+		docs.add(createLargeConstruction());
+		QDParser parser = new QDParser();
+		for (String xml : docs) {
+			Assert.assertEquals(parseSAX(xml), parse(parser, xml));
+		}
+	}
+
+	@Test
+	public void reportsErrors() {
+		String[] broken = { "<a><b x=1/></a>", "<a>&foo;</a>", "<a><b></a>",
+				"<a x=\"1\" / >" };
+		for (String xml : broken) {
+			try {
+				new QDParser().parse(new EventRecorder(),
+						new StringReader(xml));
+				Assert.fail("no error for " + xml);
+			} catch (Exception e) {
+				Assert.assertTrue(e.getMessage(),
+						e.getMessage().contains(" near line 1, column "));
+			}
+		}
+	}
+
+	private static String parse(QDParser parser, String xml) throws Exception {
+		EventRecorder recorder = new EventRecorder(true);
+		parser.parse(recorder, new StringReader(xml));
+		return recorder.getEvents();
+	}
+
+	static String parseSAX(String xml) throws Exception {
+		final EventRecorder recorder = new EventRecorder(true);
+		SAXParserFactory.newInstance().newSAXParser().parse(
+				new ByteArrayInputStream(xml.getBytes("UTF8")),
+				new DefaultHandler() {
+					@Override
+					public void startDocument() {
+						recorder.startDocument();
+					}
+
+					@Override
+					public void endDocument() {
+						recorder.endDocument();
+					}
+
+					@Override
+					public void startElement(String uri, String localName,
+							String qName, Attributes attributes) {
+						LinkedHashMap<String, String> attrs = new LinkedHashMap<String, String>();
+						for (int i = 0; i < attributes.getLength(); i++) {
+							attrs.put(attributes.getQName(i),
+									attributes.getValue(i));
+						}
+						recorder.startElement(qName, attrs);
+					}
+
+					@Override
+					public void endElement(String uri, String localName,
+							String qName) {
+						recorder.endElement(qName);
+					}
+
+					@Override
+					public void characters(char[] ch, int start, int length) {
+						recorder.text(new String(ch, start, length));
+					}
+				});
+		return recorder.getEvents();
+	}
+
+	static String createLargeConstruction() {
+		StringBuilder big = new StringBuilder(
+				"<geogebra format=\"5.0\">\n<construction>\n");
+		for (int i = 0; i < 5000; i++) {
+			big.append("<element type=\"point\" label=\"P_{" + i + "}\">\n");
+			big.append("\t<show object=\"true\" label=\"false\"/>\n");
+			big.append("\t<coords x=\"" + i + "\" y=\"" + (i * 0.5)
+					+ "\" z=\"1.0\"/>\n");
+			big.append("\t<caption val=\"a &lt; b &amp; c\"/>\n");
+			big.append("</element>\n");
+		}
+		return big.append("</construction>\n</geogebra>").toString();
+	}
+
+	static ArrayList<String> loadSamples() throws Exception {
+		ArrayList<String> docs = new ArrayList<String>();
+		File[] files = new File(SAMPLES).listFiles();
+		if (files == null) {
+			return docs;
+		}
+		for (File file : files) {
+			if (!file.getName().endsWith(".ggb")) {
+				continue;
+			}
+			ZipInputStream zip = new ZipInputStream(new FileInputStream(file));
+			try {
+				ZipEntry entry;
+				while ((entry = zip.getNextEntry()) != null) {
+					if (entry.getName().endsWith(".xml")) {
+						docs.add(read(zip));
+					}
+				}
+			} finally {
+				zip.close();
+			}
+		}
+		return docs;
+	}
+
+	private static String read(ZipInputStream zip) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while ((n = zip.read(buffer)) > 0) {
+			out.write(buffer, 0, n);
+		}
+		return out.toString("UTF8");
+	}
+}
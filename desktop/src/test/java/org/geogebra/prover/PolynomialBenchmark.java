@@ -0,0 +1,65 @@
+package org.geogebra.prover;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.geogebra.common.kernel.prover.polynomial.Polynomial;
+import org.geogebra.common.kernel.prover.polynomial.Variable;
+
+/**
+ * Times building polynomial systems like the ones of the Botana method,
+ * their determinants and substitutions. Checking the results is left to
+ * PolynomialTest; run as application.
+ */
+public class PolynomialBenchmark {
+	private static final int POINTS = 40;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		Variable[] v = new Variable[2 * POINTS];
+		for (int i = 0; i < v.length; i++) {
+			v[i] = new Variable();
+		}
+		// warm up
+		botanaSystem(v, 1);
+		long time = System.nanoTime();
+		int size = botanaSystem(v, ROUNDS);
+		System.out.println("Prover polynomials: " + size + " terms in "
+				+ (System.nanoTime() - time) / 1000000 / ROUNDS
+				+ " ms per round");
+	}
+
+	/**
+	 * @return number of terms of all substituted determinants
+	 */
+	private static int botanaSystem(Variable[] v, int rounds) {
+		Random random = new Random(42);
+		int size = 0;
+		for (int round = 0; round < rounds; round++) {
+			for (int i = 0; i + 2 < POINTS; i++) {
+				int a = 2 * i, b = 2 * i + 2, c = 2 * i + 4;
+				Polynomial[] system = {
+						Polynomial.collinear(v[a], v[a + 1], v[b], v[b + 1],
+								v[c], v[c + 1]),
+						Polynomial.perpendicular(v[a], v[a + 1], v[b],
+								v[b + 1], v[b], v[b + 1], v[c], v[c + 1]),
+						Polynomial.equidistant(v[a], v[a + 1], v[b], v[b + 1],
+								v[c], v[c + 1]) };
+				Polynomial[][] matrix = new Polynomial[4][4];
+				for (int j = 0; j < 4; j++) {
+					for (int k = 0; k < 4; k++) {
+						matrix[j][k] = system[(j + k) % 3].add(new Polynomial(
+								random.nextInt(5) - 2, v[(a + j + k) % v.length]));
+					}
+				}
+				Polynomial det = Polynomial.det4(matrix);
+				HashMap<Variable, Long> substitutions = new HashMap<Variable, Long>();
+				substitutions.put(v[a], 0L);
+				substitutions.put(v[a + 1], 0L);
+				substitutions.put(v[b], 1L);
+				size += det.substitute(substitutions).size();
+			}
+		}
+		return size;
+	}
+}
@@ -0,0 +1,146 @@
+package org.geogebra.prover;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.geogebra.common.kernel.prover.polynomial.Polynomial;
+import org.geogebra.common.kernel.prover.polynomial.Term;
+import org.geogebra.common.kernel.prover.polynomial.Variable;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for arithmetic of prover polynomials, including coefficients that
+ * used to overflow with long coefficients.
+ */
+public class PolynomialTest {
+	private final Variable x = new Variable(), y = new Variable();
+
+	private static Polynomial constant(long c) {
+		return new Polynomial(c, new Term());
+	}
+
+	@Test
+	public void multiply() {
+		Polynomial px = new Polynomial(x), py = new Polynomial(y);
+		Polynomial xy = new Polynomial(new Term(x).times(new Term(y)));
+		Assert.assertEquals(
+				new Polynomial(1, x, 2).add(xy.add(xy))
+						.add(new Polynomial(1, y, 2)),
+				px.add(py).multiply(px.add(py)));
+		Assert.assertEquals(new Polynomial(1, x, 2).subtract(constant(1)),
+				px.add(constant(1)).multiply(px.subtract(constant(1))));
+		Assert.assertTrue(px.multiply(new Polynomial()).isZero());
+		Assert.assertEquals(px.multiply(py), py.multiply(px));
+		Assert.assertEquals(new Polynomial(-6, new Term(x, 3)),
+				new Polynomial(2, x, 1).multiply(new Polynomial(-3, x, 2)));
+	}
+
+	@Test
+	public void substitute() {
+		// 3x^2 y - 2y + 5
+		Polynomial p = new Polynomial(3, new Term(x, 2).times(new Term(y)))
+				.subtract(new Polynomial(2, y)).add(constant(5));
+		HashMap<Variable, Long> substitutions = new HashMap<Variable, Long>();
+		substitutions.put(x, 2L);
+		Assert.assertEquals(new Polynomial(10, y).add(constant(5)),
+				p.substitute(substitutions));
+		substitutions.put(y, -1L);
+		Polynomial value = p.substitute(substitutions);
+		Assert.assertTrue(value.isConstant());
+		Assert.assertEquals(Long.valueOf(-5), value.getConstant());
+		// terms that cancel are removed
+		substitutions.clear();
+		substitutions.put(x, 1L);
+		Polynomial q = new Polynomial(1, x, 3).subtract(constant(1));
+		Assert.assertTrue(q.substitute(substitutions).isZero());
+	}
+
+	/**
+	 * Laplace expansion along the first row
+	 */
+	private static Polynomial det(Polynomial[][] m) {
+		int n = m.length;
+		if (n == 1) {
+			return m[0][0];
+		}
+		Polynomial ret = new Polynomial();
+		for (int j = 0; j < n; j++) {
+			Polynomial[][] minor = new Polynomial[n - 1][n - 1];
+			for (int i = 1; i < n; i++) {
+				for (int k = 0, c = 0; k < n; k++) {
+					if (k != j) {
+						minor[i - 1][c++] = m[i][k];
+					}
+				}
+			}
+			Polynomial summand = m[0][j].multiply(det(minor));
+			ret = j % 2 == 0 ? ret.add(summand) : ret.subtract(summand);
+		}
+		return ret;
+	}
+
+	@Test
+	public void det4() {
+		Polynomial one = constant(1), zero = new Polynomial();
+		Polynomial px = new Polynomial(x), py = new Polynomial(y);
+		Polynomial[][] diagonal = { { px, zero, zero, zero },
+				{ zero, py, zero, zero }, { zero, zero, one, zero },
+				{ zero, zero, zero, constant(2) } };
+		Assert.assertEquals(new Polynomial(2, new Term(x).times(new Term(y))),
+				Polynomial.det4(diagonal));
+		Polynomial[][] swapped = { diagonal[1], diagonal[0], diagonal[2],
+				diagonal[3] };
+		Assert.assertEquals(Polynomial.det4(diagonal).negate(),
+				Polynomial.det4(swapped));
+		Polynomial[][] equalRows = { diagonal[0], diagonal[1], diagonal[0],
+				diagonal[3] };
+		Assert.assertTrue(Polynomial.det4(equalRows).isZero());
+
+		Variable[] v = { x, y, new Variable(), new Variable() };
+		Random random = new Random(42);
+		for (int round = 0; round < 20; round++) {
+			Polynomial[][] m = new Polynomial[4][4];
+			for (int i = 0; i < 4; i++) {
+				for (int j = 0; j < 4; j++) {
+					m[i][j] = new Polynomial(random.nextInt(7) - 3,
+							v[random.nextInt(4)]).add(constant(random
+							.nextInt(5) - 2));
+				}
+			}
+			Assert.assertEquals(det(m), Polynomial.det4(m));
+		}
+	}
+
+	@Test
+	public void constant() {
+		Assert.assertEquals(Long.valueOf(0), new Polynomial().getConstant());
+		Assert.assertEquals(Long.valueOf(Long.MAX_VALUE),
+				constant(Long.MAX_VALUE).getConstant());
+		Assert.assertEquals(Long.valueOf(Long.MIN_VALUE),
+				constant(Long.MIN_VALUE).getConstant());
+		// does not fit into a long
+		Assert.assertNull(constant(Long.MAX_VALUE).add(constant(1))
+				.getConstant());
+		Assert.assertNull(constant(Long.MIN_VALUE).multiply(constant(2))
+				.getConstant());
+		Assert.assertNull(new Polynomial(x).add(constant(1)).getConstant());
+	}
+
+	@Test
+	public void noOverflow() {
+		Polynomial p = new Polynomial(Long.MAX_VALUE, new Term(x));
+		Polynomial square = p.multiply(p);
+		BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+		Assert.assertEquals(1, square.size());
+		Assert.assertEquals(max.multiply(max), square.getCoefficient(0));
+		Assert.assertTrue(p.add(p).subtract(p).subtract(p).isZero());
+
+		HashMap<Variable, Long> substitutions = new HashMap<Variable, Long>();
+		substitutions.put(x, Long.MAX_VALUE);
+		Polynomial value = square.substitute(substitutions);
+		Assert.assertTrue(value.isConstant());
+		Assert.assertEquals(max.pow(4), value.getCoefficient(0));
+	}
+}
@@ -0,0 +1,86 @@
+package org.geogebra.prover;
+
+import java.util.Locale;
+
+import javax.swing.JFrame;
+
+import org.geogebra.common.jre.util.ParallelExecutorJre;
+import org.geogebra.common.kernel.StringTemplate;
+import org.geogebra.common.kernel.geos.GeoElement;
+import org.geogebra.common.main.ProverSettings;
+import org.geogebra.common.util.ParallelExecutor;
+import org.geogebra.desktop.CommandLineArguments;
+import org.geogebra.desktop.geogebra3D.App3D;
+import org.geogebra.desktop.main.AppD;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that Recio's method gives the same results when the test points are
+ * checked in parallel as when they are checked one by one.
+ */
+public class ReciosMethodTest {
+	private static AppD app;
+	private static ParallelExecutor executor;
+	private static String engine;
+
+	@BeforeClass
+	public static void setupApp() {
+		app = new App3D(new CommandLineArguments(new String[] { "--silent" }),
+				new JFrame(), false);
+		app.setLanguage(Locale.US);
+		executor = ParallelExecutor.prototype;
+		engine = ProverSettings.proverEngine;
+	}
+
+	@After
+	public void resetSettings() {
+		ParallelExecutor.prototype = executor;
+		ProverSettings.proverEngine = engine;
+	}
+
+	private static GeoElement eval(String def) {
+		return app.getKernel().getAlgebraProcessor()
+				.processAlgebraCommand(def, false)[0];
+	}
+
+	private static String prove(String statement, boolean parallel) {
+		ProverSettings.proverEngine = "Recio";
+		ParallelExecutor.prototype = parallel ? new ParallelExecutorJre(4)
+				: new ParallelExecutor();
+		return eval("Prove(" + statement + ")").toValueString(
+				StringTemplate.defaultTemplate);
+	}
+
+	private static void checkSame(String statement, String expected) {
+		String sequential = prove(statement, false);
+		Assert.assertEquals(statement, sequential, prove(statement, true));
+		Assert.assertEquals(statement, expected, sequential);
+	}
+
+	@Test
+	public void parallelMatchesSequential() {
+		app.getKernel().clearConstruction(true);
+		eval("A=(1, 2)");
+		eval("B=(3, 5)");
+		eval("C=(4, -1)");
+		eval("D=(-2, 3)");
+		eval("M=Midpoint(A, B)");
+		eval("N=Midpoint(A, C)");
+		eval("P=Midpoint(B, C)");
+		checkSame("AreCollinear(A, M, B)", "true");
+		checkSame("AreCollinear(A, B, C)", "false");
+		checkSame("AreParallel(Line(M, N), Line(B, C))", "true");
+		checkSame("AreParallel(Line(M, N), Line(A, C))", "false");
+		checkSame("ArePerpendicular(Line(A, B), Line(C, D))", "false");
+		checkSame("AreConcurrent(Line(A, P), Line(B, N), Line(C, M))",
+				"true");
+		// boolean expressions are checked one by one
+		checkSame("Line(M, P) ∥ Line(A, C)", "true");
+		checkSame("Line(M, P) ∥ Line(A, B)", "false");
+		checkSame("Line(A, B) ⟂ PerpendicularLine(C, Line(A, B))",
+				"true");
+	}
+}
@@ -0,0 +1,105 @@
+package org.geogebra.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.geogebra.common.jre.util.ParallelExecutorJre;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the thread pool used by common code.
+ */
+public class ParallelExecutorJreTest {
+
+	private static List<Runnable> counters(int n, final AtomicInteger count,
+			final Set<String> threads) {
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for (int i = 0; i < n; i++) {
+			tasks.add(new Runnable() {
+				public void run() {
+					count.incrementAndGet();
+					threads.add(Thread.currentThread().getName());
+				}
+			});
+		}
+		return tasks;
+	}
+
+	@Test
+	public void runsAllTasksInPool() {
+		AtomicInteger count = new AtomicInteger();
+		Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+		new ParallelExecutorJre(4).invokeAll(counters(100, count, threads));
+		Assert.assertEquals(100, count.get());
+		for (String name : threads) {
+			Assert.assertTrue(name, name.startsWith("ggbParallel-"));
+		}
+		Assert.assertTrue(threads.size() <= 4);
+	}
+
+	@Test
+	public void sequentialWithoutParallelism() {
+		AtomicInteger count = new AtomicInteger();
+		Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+		ParallelExecutorJre executor = new ParallelExecutorJre(1);
+		Assert.assertFalse(executor.isParallel());
+		executor.invokeAll(counters(10, count, threads));
+		Assert.assertEquals(10, count.get());
+		Assert.assertEquals(Collections.singleton(Thread.currentThread()
+				.getName()), threads);
+	}
+
+	@Test(timeout = 10000)
+	public void nestedInvokeAllRunsInCallingPoolThread() {
+		final ParallelExecutorJre executor = new ParallelExecutorJre(2);
+		final AtomicInteger count = new AtomicInteger();
+		final AtomicInteger foreign = new AtomicInteger();
+		List<Runnable> outer = new ArrayList<Runnable>();
+		for (int i = 0; i < 8; i++) {
+			outer.add(new Runnable() {
+				public void run() {
+					String name = Thread.currentThread().getName();
+					Set<String> threads = Collections
+							.synchronizedSet(new HashSet<String>());
+					// would deadlock if pool threads waited for the pool
+					executor.invokeAll(counters(5, count, threads));
+					if (!Collections.singleton(name).equals(threads)) {
+						foreign.incrementAndGet();
+					}
+				}
+			});
+		}
+		executor.invokeAll(outer);
+		Assert.assertEquals(40, count.get());
+		Assert.assertEquals(0, foreign.get());
+	}
+
+	@Test
+	public void passesExceptions() {
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		final AtomicInteger count = new AtomicInteger();
+		for (int i = 0; i < 4; i++) {
+			final int index = i;
+			tasks.add(new Runnable() {
+				public void run() {
+					count.incrementAndGet();
+					if (index == 2) {
+						throw new IllegalArgumentException("task " + index);
+					}
+				}
+			});
+		}
+		try {
+			new ParallelExecutorJre(2).invokeAll(tasks);
+			Assert.fail("exception expected");
+		} catch (IllegalArgumentException e) {
+			Assert.assertEquals("task 2", e.getMessage());
+		}
+		Assert.assertEquals(4, count.get());
+	}
+}
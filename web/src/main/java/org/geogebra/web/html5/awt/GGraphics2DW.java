@@ -47,6 +47,8 @@ public class GGraphics2DW implements GGraphics2D {
 	private GFontW currentFont = new GFontW("normal");
 	private GColor color = new GColorW(255, 255, 255, 255);
 	private float[] dash_array = null;
+	/** canvas context does not tell its clip */
+	private GShape clip;
 
 	GPaint currentPaint = new GColorW(255, 255, 255, 255);
 	private JsArrayNumber jsarrn;
@@ -516,6 +518,7 @@ public class GGraphics2DW implements GGraphics2D {
 			return;
 		}
 		Shape shape2 = (Shape) shape;
+		clip = shape;
 
 		doDrawShape(shape2, false);
 		// we should call this only if no clip was set or just after another
@@ -974,8 +977,13 @@ public class GGraphics2DW implements GGraphics2D {
 	}
 
 	public void resetClip() {
+		clip = null;
 		context.restoreTransform();
 	}
 
+	public GShape getClip() {
+		return clip;
+	}
+
 
 }
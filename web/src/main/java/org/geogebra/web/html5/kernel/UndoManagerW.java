@@ -24,8 +24,10 @@ public class UndoManagerW extends UndoManager {
 	protected class AppStateWeb implements AppState {
 		private String key;
 		private String xml;
+		private int size;
 
 		AppStateWeb(String xmls) {
+			size = xmls.length();
 			if (storage != null) {
 				storage.setItem(key = TEMP_STORAGE_PREFIX + nextKeyNum++, xmls);
 			} else {
@@ -46,6 +48,10 @@ public class UndoManagerW extends UndoManager {
 				storage.removeItem(key);
 			}
 		}
+
+		public int getSize() {
+			return size;
+		}
 	}
 
 	public UndoManagerW(Construction cons) {
@@ -111,7 +117,7 @@ public class UndoManagerW extends UndoManager {
 
 		try {
 			// insert undo info
-			AppState appStateToAdd = new AppStateWeb(undoXML.toString());
+			AppState appStateToAdd = createUndoInfo(undoXML);
 			iterator.add(appStateToAdd);
 			pruneStateList();
 			app.getEventDispatcher().dispatchEvent(
@@ -127,11 +133,21 @@ public class UndoManagerW extends UndoManager {
 		updateUndoActions();
 	}
 
+	@Override
+	protected AppState createCheckpoint(String xml) {
+		return new AppStateWeb(xml);
+	}
+
+	@Override
+	protected String getCheckpointXML(AppState state) {
+		return ((AppStateWeb) state).getXML();
+	}
+
 	@Override
 	protected void loadUndoInfo(final AppState info) {
 		try {
-			// load from file
-			String tempXML = ((AppStateWeb) info).getXML();
+			// rebuild XML from last checkpoint and deltas
+			String tempXML = getUndoXML(info);
 			if (tempXML == null) {
 				Log.error("Undo not supported.");
 			}
@@ -140,7 +156,9 @@ public class UndoManagerW extends UndoManager {
 
 			// load undo info
 			app.getScriptManager().disableListeners();
-			processXML(tempXML);
+			if (!restoreInPlace(tempXML)) {
+				processXML(tempXML);
+			}
 			app.getScriptManager().enableListeners();
 			// If there are Exercises we also have to update the Exercises
 			if (app.getKernel().hasExercise()) {
@@ -456,6 +456,8 @@ public abstract class AppW extends App implements SetLabels, HasKeyboard {
 		resetCommandDictionary();
 
 		((LocalizationW) getLocalization()).setLanguage(lang);
+		// error messages in formulas
+		getDrawEquation().clearCache();
 
 		// make sure digits are updated in all numbers
 		getKernel().updateConstructionLanguage();
@@ -31,7 +31,7 @@ public class AlgebraStyleListBox extends ListBox {
 
 				}
 
-				app.getKernel().updateConstruction();
+				app.getKernel().updateConstruction(true);
 			}
 
 		});
@@ -77,7 +77,7 @@ public class OptionsAlgebraW extends OptionsAdvanced
 					app.getKernel().setAlgebraStyle(idx);
 
 				}
-				app.getKernel().updateConstruction();
+				app.getKernel().updateConstruction(true);
 			}
 		});
 		// updateSortMode(); done by setLabels
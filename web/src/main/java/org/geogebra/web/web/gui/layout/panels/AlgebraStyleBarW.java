@@ -247,7 +247,7 @@ public class AlgebraStyleBarW extends StyleBarW2 implements
 					if (app.getGuiManager().hasPropertiesView()) {
 						app.getGuiManager().getPropertiesView().repaintView();
 					}
-					app.getKernel().updateConstruction();
+					app.getKernel().updateConstruction(true);
 					app.closePopups();
 					app.clearJustClosedPopup();
 				}